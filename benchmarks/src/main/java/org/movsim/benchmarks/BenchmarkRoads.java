@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.util.Random;
+
+import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
+
+/**
+ * Road segments filled with vehicles for the micro benchmarks.
+ */
+final class BenchmarkRoads {
+
+    static final double VEHICLE_LENGTH = 5.0;
+
+    // gap between standing vehicles in a jam
+    private static final double JAM_GAP = 2.0;
+
+    /**
+     * Traffic state of the filled lanes.
+     */
+    enum TrafficState {
+        /** vehicles spread over the whole road with irregular gaps */
+        FREE_FLOW,
+        /** vehicles queued bumper to bumper upstream of a bottleneck at the end of the road */
+        JAM
+    }
+
+    private BenchmarkRoads() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    static Vehicle newVehicle(double rearPosition, double speed, int lane) {
+        final Vehicle vehicle = new Vehicle(rearPosition, speed, lane, VEHICLE_LENGTH, 2.5);
+        vehicle.setLongitudinalModel(new IDM(33.0, 0.5, 3.0, 1.5, 2.0, 5.0));
+        vehicle.setSpeedlimit(80.0 / 3.6);
+        return vehicle;
+    }
+
+    /**
+     * Creates a road segment with the given number of equally spaced vehicles on each lane.
+     */
+    static RoadSegment newRoadSegment(double roadLength, int laneCount, int vehiclesPerLane) {
+        final RoadSegment roadSegment = new RoadSegment(roadLength, laneCount);
+        fill(roadSegment, vehiclesPerLane);
+        return roadSegment;
+    }
+
+    static void fill(RoadSegment roadSegment, int vehiclesPerLane) {
+        final double spacing = roadSegment.roadLength() / vehiclesPerLane;
+        for (int lane = Lanes.LANE1; lane <= roadSegment.laneCount(); ++lane) {
+            for (int i = 0; i < vehiclesPerLane; ++i) {
+                // stagger the lanes, so that vehicles on neighbouring lanes are not side by side
+                final double rearPosition = i * spacing + 0.5 * spacing * (lane - Lanes.LANE1) / roadSegment.laneCount();
+                roadSegment.addVehicle(newVehicle(rearPosition, 10.0 + (i % 5), lane));
+            }
+        }
+    }
+
+    /**
+     * Creates a road segment with up to the given number of vehicles on each lane in the given traffic state, with
+     * reproducible random gaps and speeds. The vehicles are appended from the front to the rear, so the lanes are sorted
+     * as in a running simulation.
+     */
+    static RoadSegment newRoadSegment(double roadLength, int laneCount, int vehiclesPerLane, TrafficState trafficState) {
+        final RoadSegment roadSegment = new RoadSegment(roadLength, laneCount);
+        final Random random = new Random(42);
+        final boolean jam = trafficState == TrafficState.JAM;
+        // a jam is as long as its vehicles need, free flowing vehicles are spread over the whole road
+        final double meanGap = jam ? JAM_GAP : roadLength / vehiclesPerLane - VEHICLE_LENGTH;
+        for (int lane = Lanes.LANE1; lane <= laneCount; ++lane) {
+            double rearPosition = roadLength - VEHICLE_LENGTH - random.nextDouble() * meanGap;
+            for (int i = 0; i < vehiclesPerLane && rearPosition >= 0; ++i) {
+                final double speed = jam ? 2.0 * random.nextDouble() : 25.0 + 5.0 * random.nextDouble();
+                roadSegment.appendVehicle(newVehicle(rearPosition, speed, lane));
+                final double gap = meanGap * (jam ? 0.8 + 0.4 * random.nextDouble() : 2.0 * random.nextDouble());
+                rearPosition -= VEHICLE_LENGTH + Math.max(0.5 * JAM_GAP, gap);
+            }
+        }
+        return roadSegment;
+    }
+}
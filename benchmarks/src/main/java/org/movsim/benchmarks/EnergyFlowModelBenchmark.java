@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.movsim.autogen.ConsumptionModel;
+import org.movsim.autogen.FuelFlowTable;
+import org.movsim.autogen.Movsim;
+import org.movsim.consumption.model.EnergyFlowModel;
+import org.movsim.consumption.model.EnergyFlowModels;
+import org.movsim.consumption.model.FuelAndGear;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.xml.InputLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Benchmarks {@link EnergyFlowModel#getMinFuelFlow(double, double, double, boolean)}, the gear selection with minimum
+ * fuel flow, and {@link EnergyFlowModel#getFuelFlowInLiterPerS(double, double)}, the lookup of the simulation, for the
+ * first consumption model of a simulation project over a grid of speeds and accelerations. With {@code tabulated} the
+ * model uses a {@link FuelFlowTable} with default resolution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EnergyFlowModelBenchmark {
+
+    private static final int SPEED_COUNT = 32;
+    private static final int ACC_COUNT = 16;
+
+    @Param({ "features/output/onramp_example" })
+    private String project;
+
+    @Param({ "false", "true" })
+    private boolean tabulated;
+
+    private EnergyFlowModel energyFlowModel;
+
+    private final double[] speeds = new double[SPEED_COUNT];
+
+    private final double[] accelerations = new double[ACC_COUNT];
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        final File file = new File(System.getProperty(ScenarioTimeStepBenchmark.SIM_DIRECTORY_PROPERTY, "sim"),
+                project + ProjectMetaData.getMovsimConfigFileEnding());
+        Preconditions.checkArgument(file.exists(), "project " + file.getAbsolutePath() + " not found");
+        final Movsim movsimInput = InputLoader.unmarshallMovsim(file);
+        Preconditions.checkArgument(movsimInput.isSetConsumption(), "project " + file + " without consumption models");
+        final ConsumptionModel modelInput = movsimInput.getConsumption().getConsumptionModels().getConsumptionModel()
+                .get(0);
+        modelInput.setOutput(false);
+        if (tabulated) {
+            modelInput.setFuelFlowTable(new FuelFlowTable());
+        }
+        energyFlowModel = EnergyFlowModels.create(modelInput);
+        for (int i = 0; i < SPEED_COUNT; ++i) {
+            speeds[i] = i * 40.0 / (SPEED_COUNT - 1);
+        }
+        for (int i = 0; i < ACC_COUNT; ++i) {
+            accelerations[i] = -2.0 + i * 4.0 / (ACC_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public FuelAndGear getMinFuelFlow() {
+        index = (index + 1) % (SPEED_COUNT * ACC_COUNT);
+        return energyFlowModel.getMinFuelFlow(speeds[index % SPEED_COUNT], accelerations[index / SPEED_COUNT], 0, true);
+    }
+
+    @Benchmark
+    public double getFuelFlowInLiterPerS() {
+        index = (index + 1) % (SPEED_COUNT * ACC_COUNT);
+        return energyFlowModel.getFuelFlowInLiterPerS(speeds[index % SPEED_COUNT], accelerations[index / SPEED_COUNT]);
+    }
+}
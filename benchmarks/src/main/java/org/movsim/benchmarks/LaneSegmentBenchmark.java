@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.movsim.benchmarks.BenchmarkRoads.TrafficState;
+import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.Link;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.NeighbourView;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the neighbour lookups {@link LaneSegment#frontNeighbour(double)} and {@link LaneSegment#rearNeighbour(double)}
+ * and the insertion of a vehicle into the sorted lane, on a lane segment joined to a source and a sink road segment, so
+ * that lookups at the lane ends continue on the neighbouring lane segments.
+ * <p>
+ * The lanes hold free flowing or jammed traffic. The lookups and insertions are made next to the vehicles of the lane
+ * in their sort order, as by a vehicle on a neighbouring lane in the lane-change phase.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LaneSegmentBenchmark {
+
+    private static final double ROAD_LENGTH = 10000.0;
+
+    @Param({ "10", "100", "1000" })
+    private int vehiclesPerLane;
+
+    @Param({ "FREE_FLOW", "JAM" })
+    private TrafficState trafficState;
+
+    private LaneSegment laneSegment;
+
+    private double[] positions;
+
+    private int index;
+
+    // inserted and removed again by the insertion benchmark
+    private Vehicle vehicle;
+
+    @Setup
+    public void setUp() {
+        final RoadSegment source = BenchmarkRoads.newRoadSegment(ROAD_LENGTH, 1, vehiclesPerLane, trafficState);
+        final RoadSegment roadSegment = BenchmarkRoads.newRoadSegment(ROAD_LENGTH, 1, vehiclesPerLane, trafficState);
+        final RoadSegment sink = BenchmarkRoads.newRoadSegment(ROAD_LENGTH, 1, vehiclesPerLane, trafficState);
+        Link.addJoin(source, roadSegment);
+        Link.addJoin(roadSegment, sink);
+        laneSegment = roadSegment.laneSegment(Lanes.LANE1);
+        // half way between neighbouring vehicles, as seen from a vehicle on the neighbouring lane
+        positions = new double[laneSegment.vehicleCount()];
+        for (int i = 0; i < positions.length; ++i) {
+            final double rearPosition = laneSegment.getVehicle(i).getRearPosition();
+            positions[i] = i + 1 < positions.length
+                    ? 0.5 * (rearPosition + laneSegment.getVehicle(i + 1).getRearPosition()) : 0.5 * rearPosition;
+        }
+        vehicle = BenchmarkRoads.newVehicle(0, 0, Lanes.LANE1);
+        vehicle.setRoadSegment(roadSegment);
+    }
+
+    private double nextPosition() {
+        if (++index == positions.length) {
+            index = 0;
+        }
+        return positions[index];
+    }
+
+    @Benchmark
+    public NeighbourView frontNeighbour() {
+        return laneSegment.frontNeighbour(nextPosition());
+    }
+
+    @Benchmark
+    public NeighbourView rearNeighbour() {
+        return laneSegment.rearNeighbour(nextPosition());
+    }
+
+    @Benchmark
+    public int insertVehicle() {
+        vehicle.setRearPosition(nextPosition());
+        final int insertionIndex = laneSegment.addVehicleTemp(vehicle);
+        laneSegment.removeVehicle(insertionIndex);
+        return insertionIndex;
+    }
+}
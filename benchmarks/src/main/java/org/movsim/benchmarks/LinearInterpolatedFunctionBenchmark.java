@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.movsim.utilities.LinearInterpolatedFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link LinearInterpolatedFunction#value(double)} against the commons-math
+ * {@link PolynomialSplineFunction} it replaces, for random queries and for ascending queries like the simulation time
+ * lookups of inflow time series and external speed profiles. Each operation evaluates {@value #QUERY_COUNT} queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LinearInterpolatedFunctionBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({ "10", "100", "10000" })
+    private int knots;
+
+    @Param({ "true", "false" })
+    private boolean uniform;
+
+    private LinearInterpolatedFunction function;
+
+    private PolynomialSplineFunction splineFunction;
+
+    private double xMin;
+    private double xMax;
+
+    private final double[] randomQueries = new double[QUERY_COUNT];
+    private final double[] ascendingQueries = new double[QUERY_COUNT];
+    private final double[] result = new double[QUERY_COUNT];
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final double[] x = new double[knots];
+        final double[] y = new double[knots];
+        for (int i = 0; i < knots; ++i) {
+            x[i] = uniform ? i : (i == 0 ? 0 : x[i - 1] + 0.5 + random.nextDouble());
+            y[i] = 30 * random.nextDouble();
+        }
+        function = new LinearInterpolatedFunction(x, y);
+        splineFunction = new LinearInterpolator().interpolate(x, y);
+        xMin = x[0];
+        xMax = x[knots - 1];
+        for (int i = 0; i < QUERY_COUNT; ++i) {
+            randomQueries[i] = xMin + random.nextDouble() * (xMax - xMin);
+        }
+        System.arraycopy(randomQueries, 0, ascendingQueries, 0, QUERY_COUNT);
+        Arrays.sort(ascendingQueries);
+    }
+
+    /** The former implementation of {@link LinearInterpolatedFunction#value(double)}. */
+    private double splineValue(double x0) {
+        if (splineFunction.isValidPoint(x0)) {
+            return splineFunction.value(x0);
+        }
+        return x0 <= xMin ? splineFunction.value(xMin) : splineFunction.value(xMax);
+    }
+
+    @Benchmark
+    public double splineRandom() {
+        double sum = 0;
+        for (int i = 0; i < QUERY_COUNT; ++i) {
+            sum += splineValue(randomQueries[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double splineAscending() {
+        double sum = 0;
+        for (int i = 0; i < QUERY_COUNT; ++i) {
+            sum += splineValue(ascendingQueries[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double valueRandom() {
+        double sum = 0;
+        for (int i = 0; i < QUERY_COUNT; ++i) {
+            sum += function.value(randomQueries[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double valueAscending() {
+        double sum = 0;
+        for (int i = 0; i < QUERY_COUNT; ++i) {
+            sum += function.value(ascendingQueries[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] valuesAscending() {
+        function.values(ascendingQueries, result);
+        return result;
+    }
+}
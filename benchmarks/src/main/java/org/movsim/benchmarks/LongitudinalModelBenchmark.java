@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.movsim.autogen.AccelerationModelType;
+import org.movsim.autogen.ModelParameterACC;
+import org.movsim.autogen.ModelParameterGipps;
+import org.movsim.autogen.ModelParameterIDM;
+import org.movsim.autogen.ModelParameterKKW;
+import org.movsim.autogen.ModelParameterPTM;
+import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.vehicles.NeighbourView;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link LongitudinalModelBase#calcAcc(Vehicle, NeighbourView, double, double, double)} of the acceleration
+ * models. The model parameters are those of the start-stop book scenario.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LongitudinalModelBenchmark {
+
+    private static final double DT = 0.2;
+
+    private static final int SITUATION_COUNT = 64; // power of two
+
+    @Param({ "IDM", "ACC", "GIPPS", "KKW", "PTM" })
+    private String model;
+
+    private LongitudinalModelBase longitudinalModel;
+
+    private final Vehicle[] followers = new Vehicle[SITUATION_COUNT];
+
+    private final NeighbourView[] leaders = new NeighbourView[SITUATION_COUNT];
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        longitudinalModel = LongitudinalModelFactory.create(BenchmarkRoads.VEHICLE_LENGTH,
+                createAccelerationModelType(model), DT);
+        // situations from free flow to closing in on a slower leader
+        for (int i = 0; i < SITUATION_COUNT; ++i) {
+            final double gap = 2.0 + i;
+            final double speed = 0.5 * (i % 30);
+            followers[i] = BenchmarkRoads.newVehicle(0.0, speed, Lanes.LANE1);
+            followers[i].setLongitudinalModel(longitudinalModel);
+            leaders[i] = new NeighbourView()
+                    .set(BenchmarkRoads.newVehicle(BenchmarkRoads.VEHICLE_LENGTH + gap, 0.8 * speed, Lanes.LANE1));
+        }
+    }
+
+    private static AccelerationModelType createAccelerationModelType(String model) {
+        final AccelerationModelType type = new AccelerationModelType();
+        switch (model) {
+        case "IDM":
+            final ModelParameterIDM idm = new ModelParameterIDM();
+            idm.setV0(15);
+            idm.setT(1);
+            idm.setS0(2);
+            idm.setA(1.0);
+            idm.setB(1.5);
+            type.setModelParameterIDM(idm);
+            break;
+        case "ACC":
+            final ModelParameterACC acc = new ModelParameterACC();
+            acc.setV0(15);
+            acc.setT(1.2);
+            acc.setS0(2);
+            acc.setA(1.5);
+            acc.setB(1.5);
+            acc.setCoolness(0.99);
+            type.setModelParameterACC(acc);
+            break;
+        case "GIPPS":
+            final ModelParameterGipps gipps = new ModelParameterGipps();
+            gipps.setV0(15);
+            gipps.setS0(2);
+            gipps.setA(1.5);
+            gipps.setB(1.0);
+            type.setModelParameterGipps(gipps);
+            break;
+        case "KKW":
+            final ModelParameterKKW kkw = new ModelParameterKKW();
+            kkw.setV0(28);
+            kkw.setS0(0);
+            kkw.setK(2.55);
+            kkw.setPb0(0.425);
+            kkw.setPb1(0.04);
+            kkw.setPa1(0.2);
+            kkw.setPa2(0.052);
+            kkw.setVp(14);
+            type.setModelParameterKKW(kkw);
+            break;
+        case "PTM":
+            final ModelParameterPTM ptm = new ModelParameterPTM();
+            ptm.setV0(15);
+            ptm.setS0(2);
+            type.setModelParameterPTM(ptm);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown acceleration model=" + model);
+        }
+        return type;
+    }
+
+    @Benchmark
+    public double calcAcc() {
+        index = (index + 1) & (SITUATION_COUNT - 1);
+        return longitudinalModel.calcAcc(followers[index], leaders[index], 1, 1, 1);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.movsim.autogen.LaneChangeModelType;
+import org.movsim.autogen.ModelParameterMOBIL;
+import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
+import org.movsim.simulator.vehicles.lanechange.MOBIL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link MOBIL#calcAccelerationBalance(Vehicle, int, RoadSegment)} for the vehicles of a two-lane road,
+ * evaluating a change to the other lane for each vehicle in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MobilBenchmark {
+
+    private static final double ROAD_LENGTH = 5000.0;
+
+    @Param({ "20", "200" })
+    private int vehiclesPerLane;
+
+    private RoadSegment roadSegment;
+
+    private Vehicle[] vehicles;
+
+    private MOBIL[] models;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        roadSegment = BenchmarkRoads.newRoadSegment(ROAD_LENGTH, 2, vehiclesPerLane);
+        vehicles = new Vehicle[roadSegment.getVehicleCount()];
+        models = new MOBIL[vehicles.length];
+        int i = 0;
+        for (final Vehicle vehicle : roadSegment) {
+            final MOBIL mobil = new MOBIL(vehicle, createModelParameterMOBIL());
+            vehicle.setLaneChangeModel(new LaneChangeModel(vehicle, createLaneChangeModelType(mobil.getParameter())));
+            vehicles[i] = vehicle;
+            models[i] = mobil;
+            ++i;
+        }
+    }
+
+    private static ModelParameterMOBIL createModelParameterMOBIL() {
+        final ModelParameterMOBIL param = new ModelParameterMOBIL();
+        param.setMinimumGap(2.0);
+        param.setSafeDeceleration(4.0);
+        param.setPoliteness(0.1);
+        param.setThresholdAcceleration(0.2);
+        param.setRightBiasAcceleration(0.3);
+        return param;
+    }
+
+    private static LaneChangeModelType createLaneChangeModelType(ModelParameterMOBIL mobilParameter) {
+        final LaneChangeModelType lcType = new LaneChangeModelType();
+        lcType.setModelParameterMOBIL(mobilParameter);
+        lcType.setEuropeanRules(true);
+        lcType.setCritSpeedEur(5);
+        return lcType;
+    }
+
+    @Benchmark
+    public double calcAccelerationBalance() {
+        index = (index + 1) % vehicles.length;
+        final Vehicle me = vehicles[index];
+        final int direction = (me.lane() == Lanes.LANE1) ? Lanes.TO_RIGHT : Lanes.TO_LEFT;
+        return models[index].calcAccelerationBalance(me, direction, roadSegment);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the Movsim benchmarks with the usual JMH command line options. The GC profiler is always added, so that the
+ * allocation rate (gc.alloc.rate.norm in bytes per operation) is reported next to the throughput of each benchmark.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [regexp] [jmh options]
+ * </pre>
+ *
+ * The scenario benchmarks resolve the simulation projects relative to the directory given by the system property
+ * {@value ScenarioTimeStepBenchmark#SIM_DIRECTORY_PROPERTY}, by default the {@code sim} directory of the project root.
+ */
+public final class MovsimBenchmarks {
+
+    private MovsimBenchmarks() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final Options options = new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
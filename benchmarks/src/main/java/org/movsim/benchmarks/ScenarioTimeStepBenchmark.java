@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.Simulator;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.utilities.FileUtils;
+import org.movsim.xml.InputLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Benchmarks {@link RoadNetwork#timeStep(double, double, long)} on the book scenarios. The scenario is initialized once
+ * per trial and simulated for {@value #WARM_UP_STEPS} time steps before the measurement, so the roads carry traffic
+ * instead of the initial conditions. Each invocation continues the simulation by {@value #STEPS} time steps, so the
+ * throughput is reported in time steps per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ScenarioTimeStepBenchmark {
+
+    static final String SIM_DIRECTORY_PROPERTY = "movsim.benchmark.sim";
+
+    private static final int STEPS = 500;
+
+    private static final int WARM_UP_STEPS = 2000;
+
+    @Param({ "bookScenarioStartStop/startStop_IDM", "bookScenarioSimpleOnramp/onramp_IDM" })
+    private String scenario;
+
+    private RoadNetwork roadNetwork;
+
+    private double dt;
+
+    private double simulationTime;
+
+    private long iterationCount;
+
+    @Setup(Level.Trial)
+    public void initializeScenario() throws IOException {
+        final File outputDirectory = Files.createTempDirectory("movsim-benchmark").toFile();
+        final File file = new File(System.getProperty(SIM_DIRECTORY_PROPERTY, "sim"),
+                scenario + ProjectMetaData.getMovsimConfigFileEnding());
+        Preconditions.checkArgument(file.exists(), "scenario " + file.getAbsolutePath() + " not found");
+        final ProjectMetaData projectMetaData = ProjectMetaData.getInstance();
+        projectMetaData.setProjectName(scenario.substring(scenario.lastIndexOf('/') + 1));
+        projectMetaData.setPathToProjectXmlFile(FileUtils.getCanonicalPathWithoutFilename(file));
+        projectMetaData.setOutputPath(outputDirectory.getAbsolutePath());
+
+        final Movsim movsimInput = InputLoader.unmarshallMovsim(file);
+        final Simulator simulator = new Simulator(movsimInput);
+        simulator.initialize();
+        roadNetwork = simulator.getRoadNetwork();
+        dt = simulator.getSimulationRunnable().timeStep();
+        simulationTime = 0;
+        iterationCount = 0;
+        simulate(WARM_UP_STEPS);
+    }
+
+    private void simulate(int steps) {
+        for (int i = 0; i < steps; ++i) {
+            roadNetwork.timeStep(dt, simulationTime, iterationCount);
+            simulationTime += dt;
+            ++iterationCount;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public RoadNetwork timeStep() {
+        simulate(STEPS);
+        return roadNetwork;
+    }
+}
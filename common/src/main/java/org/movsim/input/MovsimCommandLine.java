@@ -26,6 +26,7 @@
 package org.movsim.input;
 
 import org.apache.commons.cli.*;
+import org.movsim.io.AsyncOutputWriter.BackPressure;
 import org.movsim.utilities.FileUtils;
 import org.movsim.xml.InputLoader;
 
@@ -77,7 +78,9 @@ public class MovsimCommandLine {
                 "writes the file \"log4j.properties\" to file to adjust the logging properties on an individual level");
         options.addOption("d", "write_dot", false, "writes a 'dot' network file for further analysis of the xodr");
         options.addOption("s", "simulation scanning mode", false,
-                "invokes the simulator repeatedly in a loop (needs to be programmed by user)");
+                "runs the parameter scan defined in \"<project>.scan.properties\" with concurrent simulations");
+        options.addOption("b", "batch", false,
+                "headless batch run without progress logging, reports steps per second at the end");
 
         options.addOption(Option.builder("f").longOpt("file").hasArg()
                 .desc("movsim main configuration file (ending \"" + ProjectMetaData.getMovsimConfigFileEnding()
@@ -85,6 +88,31 @@ public class MovsimCommandLine {
 
         options.addOption(Option.builder("o").longOpt("directory").hasArg()
                 .desc("argument is the output path relative to calling directory").build());
+
+        options.addOption(Option.builder("p").longOpt("parallel").hasArg()
+                .desc("argument is the number of threads for the parallel road network update "
+                        + "or for the batch jobs of the consumption calculation (default: sequential)")
+                .build());
+
+        options.addOption(Option.builder("a").longOpt("async_output").hasArg()
+                .desc("writes the file outputs in a separate thread, argument is the behaviour if the writer cannot keep up: "
+                        + "block or drop (default: synchronous output)").build());
+
+        options.addOption(Option.builder("c").longOpt("fd_cache").hasArg()
+                .desc("argument is a directory in which the fundamental diagrams of the vehicle types are cached "
+                        + "across runs").build());
+
+        options.addOption(Option.builder("k").longOpt("checkpoint").hasArg()
+                .desc("argument is the simulation time in seconds at which the dynamic simulation state is written "
+                        + "to the file \"<project>.checkpoint\" in the output path").build());
+
+        options.addOption(Option.builder("r").longOpt("restore").hasArg()
+                .desc("argument is a checkpoint file of the same project, the simulation continues from its state "
+                        + "instead of starting at time zero").build());
+
+        options.addOption("u", "vehicle_pool", false,
+                "reuses the vehicles removed by the traffic sinks for the entering vehicles of the same type, "
+                        + "the simulation results are the same");
     }
 
     /**
@@ -111,10 +139,79 @@ public class MovsimCommandLine {
         if (cmdline.hasOption("s")) {
             ProjectMetaData.getInstance().setScanMode(true);
         }
+        if (cmdline.hasOption("b")) {
+            ProjectMetaData.getInstance().setBatchMode(true);
+        }
+        if (cmdline.hasOption("p")) {
+            optionParallelism(cmdline);
+        }
+        if (cmdline.hasOption("a")) {
+            optionAsyncOutput(cmdline);
+        }
+        if (cmdline.hasOption("c")) {
+            ProjectMetaData.getInstance().setEquilibriumCachePath(cmdline.getOptionValue('c'));
+        }
+        if (cmdline.hasOption("k")) {
+            optionCheckpoint(cmdline);
+        }
+        if (cmdline.hasOption("r")) {
+            optionRestore(cmdline);
+        }
+        if (cmdline.hasOption("u")) {
+            ProjectMetaData.getInstance().setVehiclePooling(true);
+        }
         requiredOptionOutputPath(cmdline);
         requiredOptionSimulation(cmdline);
     }
 
+    private static void optionParallelism(CommandLine cmdline) {
+        final String value = cmdline.getOptionValue('p');
+        int parallelism = -1;
+        try {
+            parallelism = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            // rejected below
+        }
+        if (parallelism < 0) {
+            System.err.println("Invalid number of threads \"" + value + "\" for option -p.");
+            System.exit(-1);
+        }
+        ProjectMetaData.getInstance().setParallelism(parallelism);
+    }
+
+    private static void optionAsyncOutput(CommandLine cmdline) {
+        final String value = cmdline.getOptionValue('a');
+        try {
+            ProjectMetaData.getInstance().setAsyncOutput(BackPressure.valueOf(value.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid back pressure \"" + value + "\" for option -a, use block or drop.");
+            System.exit(-1);
+        }
+    }
+
+    private static void optionCheckpoint(CommandLine cmdline) {
+        final String value = cmdline.getOptionValue('k');
+        try {
+            final double time = Double.parseDouble(value);
+            if (time < 0) {
+                throw new NumberFormatException();
+            }
+            ProjectMetaData.getInstance().setCheckpointTime(time);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid simulation time \"" + value + "\" for option -k.");
+            System.exit(-1);
+        }
+    }
+
+    private static void optionRestore(CommandLine cmdline) {
+        final String filename = cmdline.getOptionValue('r');
+        if (!FileUtils.fileExists(filename)) {
+            System.err.println("Checkpoint file \"" + filename + "\" not found!");
+            System.exit(-1);
+        }
+        ProjectMetaData.getInstance().setRestoreCheckpointFilename(FileUtils.getCanonicalPath(filename));
+    }
+
     private void requiredOptionOutputPath(CommandLine cmdline) {
         String outputPath = cmdline.getOptionValue('o');
 
@@ -17,6 +17,8 @@ import java.io.InputStream;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.ISODateTimeFormat;
+import org.movsim.io.AsyncOutputWriter.BackPressure;
+import org.movsim.utilities.RunContext;
 
 import com.google.common.base.Preconditions;
 
@@ -53,6 +55,20 @@ public final class ProjectMetaData {
 
     private boolean scanMode = false;
 
+    private boolean batchMode = false;
+
+    private int parallelism = 0;
+
+    private BackPressure asyncOutput = null;
+
+    private String equilibriumCachePath = null;
+
+    private double checkpointTime = -1;
+
+    private String restoreCheckpointFilename = null;
+
+    private boolean vehiclePooling = false;
+
     private long timeOffsetMillis = 0;
 
     /**
@@ -82,7 +98,39 @@ public final class ProjectMetaData {
      * @return single instance of ProjectMetaData
      */
     public static ProjectMetaData getInstance() {
-        return singleton;
+        final ProjectMetaData runInstance = RunContext.current().getProjectMetaData();
+        return runInstance != null ? runInstance : singleton;
+    }
+
+    /**
+     * Creates a copy of the meta data, e.g. for a single run of a parameter scan.
+     * @return the copy
+     */
+    public ProjectMetaData copy() {
+        final ProjectMetaData copy = new ProjectMetaData();
+        copy.projectName = projectName;
+        copy.pathToProjectXmlFile = pathToProjectXmlFile;
+        copy.outputPath = outputPath;
+        copy.xodrNetworkFilename = xodrNetworkFilename;
+        copy.consumptionFilename = consumptionFilename;
+        copy.consumptionPath = consumptionPath;
+        copy.instantaneousFileOutput = instantaneousFileOutput;
+        copy.writeDotFile = writeDotFile;
+        copy.scanMode = scanMode;
+        copy.batchMode = batchMode;
+        copy.parallelism = parallelism;
+        copy.asyncOutput = asyncOutput;
+        copy.equilibriumCachePath = equilibriumCachePath;
+        // the runs of a scan branch from the same checkpoint but do not overwrite it
+        copy.restoreCheckpointFilename = restoreCheckpointFilename;
+        copy.vehiclePooling = vehiclePooling;
+        copy.timeOffsetMillis = timeOffsetMillis;
+        copy.xmlFromResources = xmlFromResources;
+        copy.parseFromInputstream = parseFromInputstream;
+        copy.movsimXml = movsimXml;
+        copy.networkXml = networkXml;
+        copy.projectProperties = projectProperties;
+        return copy;
     }
 
     public boolean hasProjectName() {
@@ -287,6 +335,16 @@ public final class ProjectMetaData {
     }
 
     public String getFormatedTimeWithOffset(double simulationTime) {
+        return formatTimeWithOffset(timeOffsetMillis, simulationTime);
+    }
+
+    /**
+     * Formats the simulation time shifted by the given time offset as ISO date time, e.g. for converting outputs offline.
+     * @param timeOffsetMillis the global time offset
+     * @param simulationTime the simulation time in seconds
+     * @return the formatted time
+     */
+    public static String formatTimeWithOffset(long timeOffsetMillis, double simulationTime) {
         DateTime dateTime = new DateTime(timeOffsetMillis + Math.round(1000 * simulationTime), DateTimeZone.UTC);
         return ISODateTimeFormat.dateTimeNoMillis().print(dateTime);
     }
@@ -312,4 +370,99 @@ public final class ProjectMetaData {
     public boolean isScanMode() {
         return scanMode;
     }
+
+    /**
+     * Sets the batch mode for headless production runs: no progress logging during the run, the performance summary is
+     * logged at the end.
+     * @param batchMode
+     */
+    public void setBatchMode(boolean batchMode) {
+        this.batchMode = batchMode;
+    }
+
+    public boolean isBatchMode() {
+        return batchMode;
+    }
+
+    /**
+     * Sets the number of worker threads for the road network update and for the batch jobs of the consumption
+     * calculation. Zero or one selects the sequential update.
+     * @param parallelism the number of worker threads
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the asynchronous file output: the file outputs are written by a separate writer thread.
+     * @param asyncOutput behaviour if the writer thread cannot keep up, or null for the synchronous output
+     */
+    public void setAsyncOutput(BackPressure asyncOutput) {
+        this.asyncOutput = asyncOutput;
+    }
+
+    public BackPressure getAsyncOutput() {
+        return asyncOutput;
+    }
+
+    /**
+     * Sets the directory in which the equilibrium properties (fundamental diagrams) of the vehicle prototypes are cached
+     * across simulation runs.
+     * @param equilibriumCachePath the directory or null for no on-disk cache
+     */
+    public void setEquilibriumCachePath(String equilibriumCachePath) {
+        this.equilibriumCachePath = equilibriumCachePath;
+    }
+
+    public String getEquilibriumCachePath() {
+        return equilibriumCachePath;
+    }
+
+    /**
+     * Sets the simulation time at which a checkpoint of the dynamic simulation state is written to the output path.
+     * @param checkpointTime simulation time in seconds, negative for no checkpoint
+     */
+    public void setCheckpointTime(double checkpointTime) {
+        this.checkpointTime = checkpointTime;
+    }
+
+    public boolean hasCheckpointTime() {
+        return checkpointTime >= 0;
+    }
+
+    public double getCheckpointTime() {
+        return checkpointTime;
+    }
+
+    /**
+     * Sets the checkpoint file the simulation continues from instead of starting at time zero.
+     * @param restoreCheckpointFilename the checkpoint file or null for a cold start
+     */
+    public void setRestoreCheckpointFilename(String restoreCheckpointFilename) {
+        this.restoreCheckpointFilename = restoreCheckpointFilename;
+    }
+
+    public boolean hasRestoreCheckpointFilename() {
+        return restoreCheckpointFilename != null;
+    }
+
+    public String getRestoreCheckpointFilename() {
+        return restoreCheckpointFilename;
+    }
+
+    /**
+     * Sets whether the vehicles removed by the traffic sinks are reused for the entering vehicles.
+     * @param vehiclePooling true for reusing the vehicles
+     */
+    public void setVehiclePooling(boolean vehiclePooling) {
+        this.vehiclePooling = vehiclePooling;
+    }
+
+    public boolean isVehiclePooling() {
+        return vehiclePooling;
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.io;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Writer thread for the file outputs. The simulation threads put output commands (text, record, flush and close) into a
+ * bounded ring buffer, the writer thread formats them and writes them to the files in the order in which they have been
+ * put.
+ * </p>
+ * <p>
+ * A record is a format string with its arguments. The ring buffer keeps the argument array of the caller, which holds
+ * only immutable arguments, see {@link #isSnapshotArgument(Object)}, and is formatted by the writer thread.
+ * </p>
+ * <p>
+ * If the ring buffer is full the producer either waits ({@link BackPressure#BLOCK}) or drops the command and counts it
+ * ({@link BackPressure#DROP}). Close commands are never dropped and the producer waits until the file has been closed, so all
+ * output has been written when {@link org.movsim.shutdown.ShutdownHooks} returns.
+ * </p>
+ * 
+ * @see AsyncPrintWriter
+ */
+public final class AsyncOutputWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncOutputWriter.class);
+
+    /**
+     * Behaviour of a producer if the ring buffer is full.
+     */
+    public enum BackPressure {
+        /** wait until the writer thread has made room */
+        BLOCK,
+        /** drop the command and increment the drop counter of the file */
+        DROP
+    }
+
+    static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final int TEXT = 0;
+    private static final int RECORD = 1;
+    private static final int FLUSH = 2;
+    private static final int CLOSE = 3;
+
+    // process-wide writer thread shared by the runs, the targets are owned by the runs' writers
+    private static AsyncOutputWriter instance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition processedCondition = lock.newCondition();
+
+    // ring buffer of commands in structure-of-arrays layout
+    private final int capacity;
+    private final PrintWriter[] targets;
+    private final int[] types;
+    private final String[] texts;
+    private final Locale[] locales;
+    private final Object[][] arguments;
+
+    /** sequence number of the next command to take */
+    private long head;
+    /** sequence number of the next command to put */
+    private long tail;
+    /** number of completely processed commands */
+    private long processed;
+
+    AsyncOutputWriter(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity=" + capacity);
+        this.capacity = capacity;
+        targets = new PrintWriter[capacity];
+        types = new int[capacity];
+        texts = new String[capacity];
+        locales = new Locale[capacity];
+        arguments = new Object[capacity][];
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processCommands();
+            }
+        }, "movsim-output-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the writer thread shared by all asynchronous file outputs
+     */
+    public static synchronized AsyncOutputWriter getInstance() {
+        if (instance == null) {
+            instance = new AsyncOutputWriter(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns true if the argument can be copied into a ring buffer slot: primitive wrappers, strings, enums and null.
+     */
+    static boolean isSnapshotArgument(Object arg) {
+        return arg == null || arg instanceof String || arg instanceof Enum || arg instanceof Byte
+                || arg instanceof Short || arg instanceof Integer || arg instanceof Long || arg instanceof Character
+                || arg instanceof Boolean || arg instanceof Float || arg instanceof Double;
+    }
+
+    boolean text(PrintWriter target, String text, BackPressure backPressure) {
+        return put(target, TEXT, text, null, null, backPressure) >= 0;
+    }
+
+    /**
+     * Puts a record, all arguments have to be {@link #isSnapshotArgument(Object) snapshot arguments}. The argument array is
+     * formatted later by the writer thread and must not be changed by the caller, which holds for the array of a varargs
+     * call.
+     */
+    boolean record(PrintWriter target, Locale locale, String format, Object[] formatArgs, BackPressure backPressure) {
+        return put(target, RECORD, format, locale, formatArgs, backPressure) >= 0;
+    }
+
+    boolean flush(PrintWriter target, BackPressure backPressure) {
+        return put(target, FLUSH, null, null, null, backPressure) >= 0;
+    }
+
+    /**
+     * Closes the target after all previous commands and waits until it has been closed.
+     */
+    void close(PrintWriter target) {
+        final long sequence = put(target, CLOSE, null, null, null, BackPressure.BLOCK);
+        lock.lock();
+        try {
+            while (processed <= sequence) {
+                processedCondition.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence number of the command or -1 if the command has been dropped
+     */
+    private long put(PrintWriter target, int type, String text, Locale locale, Object[] formatArgs,
+            BackPressure backPressure) {
+        lock.lock();
+        try {
+            while (tail - head == capacity) {
+                if (backPressure == BackPressure.DROP) {
+                    return -1;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            final int index = (int) (tail % capacity);
+            targets[index] = target;
+            types[index] = type;
+            texts[index] = text;
+            locales[index] = locale;
+            arguments[index] = formatArgs;
+            if (tail++ == head) {
+                notEmpty.signal();
+            }
+            return tail - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void processCommands() {
+        while (true) {
+            final PrintWriter target;
+            final int type;
+            final String text;
+            final Locale locale;
+            final Object[] formatArgs;
+            lock.lock();
+            try {
+                while (head == tail) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                final int index = (int) (head % capacity);
+                target = targets[index];
+                type = types[index];
+                text = texts[index];
+                locale = locales[index];
+                formatArgs = arguments[index];
+                targets[index] = null;
+                texts[index] = null;
+                arguments[index] = null;
+                ++head;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                execute(target, type, text, locale, formatArgs);
+            } catch (RuntimeException e) {
+                LOG.error("cannot write output", e);
+            }
+            lock.lock();
+            try {
+                ++processed;
+                if (type == CLOSE) {
+                    processedCondition.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void execute(PrintWriter target, int type, String text, Locale locale, Object[] formatArgs) {
+        switch (type) {
+        case TEXT:
+            target.write(text);
+            break;
+        case RECORD:
+            target.format(locale, text, formatArgs);
+            break;
+        case FLUSH:
+            target.flush();
+            break;
+        case CLOSE:
+            target.close();
+            break;
+        default:
+            throw new IllegalStateException("unknown command type=" + type);
+        }
+    }
+}
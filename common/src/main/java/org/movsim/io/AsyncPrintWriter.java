@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.io;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.movsim.io.AsyncOutputWriter.BackPressure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * {@link PrintWriter} which hands its output to the {@link AsyncOutputWriter} thread instead of writing to the file.
+ * </p>
+ * <p>
+ * The output is passed on line by line: each line together with its line separator is one command of the writer thread, so
+ * that {@link BackPressure#DROP} drops whole lines. A {@code printf} or {@code format} call which writes a whole line is not
+ * formatted on the calling thread: the format string and the arguments are put into the ring buffer and are formatted by
+ * the writer thread. This requires primitive wrappers, strings or enums as arguments, which is the case for the simulation
+ * outputs. Other calls are formatted immediately, so that the output reflects the state at the time of the call,
+ * and are collected until the line is complete.
+ * </p>
+ */
+public final class AsyncPrintWriter extends PrintWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncPrintWriter.class);
+
+    private final PrintWriter target;
+
+    private final AsyncOutputWriter outputWriter;
+
+    private final BackPressure backPressure;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /** output of the current line, put as one command when the line is complete */
+    private final StringBuilder pendingLine = new StringBuilder();
+
+    private boolean closed;
+
+    /**
+     * Constructor.
+     * 
+     * @param target
+     *            the writer of the file, only used by the writer thread
+     * @param backPressure
+     *            behaviour if the ring buffer of the writer thread is full
+     */
+    public AsyncPrintWriter(PrintWriter target, BackPressure backPressure) {
+        this(target, backPressure, AsyncOutputWriter.getInstance());
+    }
+
+    AsyncPrintWriter(PrintWriter target, BackPressure backPressure, AsyncOutputWriter outputWriter) {
+        this(new Forwarder(), target, backPressure, outputWriter);
+    }
+
+    private AsyncPrintWriter(Forwarder forwarder, PrintWriter target, BackPressure backPressure,
+            AsyncOutputWriter outputWriter) {
+        super(forwarder);
+        this.target = Preconditions.checkNotNull(target);
+        this.backPressure = Preconditions.checkNotNull(backPressure);
+        this.outputWriter = Preconditions.checkNotNull(outputWriter);
+        forwarder.owner = this;
+    }
+
+    /**
+     * @return the number of lines which have been dropped since the ring buffer was full
+     */
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public PrintWriter format(String format, Object... args) {
+        return format(Locale.getDefault(Locale.Category.FORMAT), format, args);
+    }
+
+    @Override
+    public PrintWriter format(Locale locale, String format, Object... args) {
+        synchronized (lock) {
+            if (closed) {
+                setError();
+            } else if (pendingLine.length() == 0 && endsLine(format) && isSnapshot(args)) {
+                count(outputWriter.record(target, locale, format, args, backPressure));
+            } else {
+                append(String.format(locale, format, args));
+            }
+        }
+        return this;
+    }
+
+    private static boolean endsLine(String format) {
+        return format.endsWith("%n") || format.endsWith("\n");
+    }
+
+    private static boolean isSnapshot(Object[] args) {
+        if (args != null) {
+            for (final Object arg : args) {
+                if (!AsyncOutputWriter.isSnapshotArgument(arg)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the text to the current line and puts the complete lines.
+     */
+    private void append(String text) {
+        pendingLine.append(text);
+        final int end = pendingLine.lastIndexOf("\n") + 1;
+        if (end > 0) {
+            count(outputWriter.text(target, pendingLine.substring(0, end), backPressure));
+            pendingLine.delete(0, end);
+        }
+    }
+
+    /**
+     * Puts the incomplete current line, before a flush or close.
+     */
+    private void putPendingLine() {
+        if (pendingLine.length() > 0) {
+            count(outputWriter.text(target, pendingLine.toString(), backPressure));
+            pendingLine.setLength(0);
+        }
+    }
+
+    private void count(boolean accepted) {
+        if (!accepted) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Receives the text output of the {@link PrintWriter} methods.
+     */
+    private static final class Forwarder extends Writer {
+
+        private AsyncPrintWriter owner;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            owner.append(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            owner.append(str.substring(off, off + len));
+        }
+
+        @Override
+        public void flush() {
+            owner.putPendingLine();
+            // a dropped flush loses no output
+            owner.outputWriter.flush(owner.target, owner.backPressure);
+        }
+
+        @Override
+        public void close() {
+            owner.putPendingLine();
+            owner.closed = true;
+            owner.outputWriter.close(owner.target);
+            if (owner.droppedCount() > 0) {
+                LOG.warn("dropped {} output lines since the output writer could not keep up", owner.droppedCount());
+            }
+        }
+    }
+}
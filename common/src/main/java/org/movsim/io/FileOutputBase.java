@@ -26,6 +26,8 @@
 package org.movsim.io;
 
 import com.google.common.base.Preconditions;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.io.AsyncOutputWriter.BackPressure;
 import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.shutdown.SimulationShutDown;
 import org.movsim.utilities.FileUtils;
@@ -34,6 +36,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
 
 public class FileOutputBase implements SimulationShutDown {
 
@@ -44,10 +47,17 @@ public class FileOutputBase implements SimulationShutDown {
     public static final String SEPARATOR_CHAR = ",";
     public static final String NEWLINE = "%n";
 
+    /**
+     * wall time between two flushes of the records of an asynchronous writer, so that the files can be followed during
+     * long runs. The buffered file writers flush by themselves when their buffer is full.
+     */
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     protected final String path;
     protected final String baseFilename;
     protected String filename;
     protected PrintWriter writer;
+    private long lastFlushNanos = System.nanoTime();
 
     public FileOutputBase(String path, String baseFilename) {
         this.path = path;
@@ -58,7 +68,12 @@ public class FileOutputBase implements SimulationShutDown {
         filename = getFilename(extension);
         Preconditions.checkArgument(filename.length() > 0);
         ShutdownHooks.INSTANCE.addCallback(this);
-        return FileUtils.getWriter(filename);
+        final PrintWriter fileWriter = FileUtils.getWriter(filename);
+        final BackPressure asyncOutput = ProjectMetaData.getInstance().getAsyncOutput();
+        if (fileWriter == null || asyncOutput == null) {
+            return fileWriter;
+        }
+        return new AsyncPrintWriter(fileWriter, asyncOutput);
     }
 
     private String getFilename(String extension) {
@@ -67,7 +82,23 @@ public class FileOutputBase implements SimulationShutDown {
 
     public void write(String format, Object... args) {
         writer.printf(format, args);
-        writer.flush();
+        flushIfDue();
+    }
+
+    /**
+     * Flushes the writer after a record. An asynchronous writer is only flushed if the last flush is longer ago than the
+     * flush interval, so that the flushes do not fill the ring buffer of the writer thread.
+     */
+    protected void flushIfDue() {
+        if (!(writer instanceof AsyncPrintWriter)) {
+            writer.flush();
+            return;
+        }
+        final long now = System.nanoTime();
+        if (now - lastFlushNanos >= FLUSH_INTERVAL_NANOS) {
+            writer.flush();
+            lastFlushNanos = now;
+        }
     }
 
     @Override
@@ -1,22 +1,22 @@
 package org.movsim.shutdown;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import org.movsim.utilities.RunContext;
+
 public enum ShutdownHooks implements SimulationShutDown {
 
     INSTANCE;
 
-    private final List<SimulationShutDown> callbacks = new ArrayList<>();
-
     public void addCallback(final SimulationShutDown callback) {
 	if (callback != null) {
-	    callbacks.add(callback);
+	    callbacks().add(callback);
 	}
     }
 
     @Override
     public void onShutDown() {
+        final List<SimulationShutDown> callbacks = callbacks();
         System.out.println("perform shutdown callbacks=" + callbacks.size());
         for (final SimulationShutDown shutDownCallback : callbacks) {
             shutDownCallback.onShutDown();
@@ -24,7 +24,14 @@ public enum ShutdownHooks implements SimulationShutDown {
     }
 
     public void clear() {
-	callbacks.clear();
+	callbacks().clear();
+    }
+
+    /**
+     * The callbacks are kept per simulation run, see {@link RunContext}.
+     */
+    private static List<SimulationShutDown> callbacks() {
+        return RunContext.current().getShutDownCallbacks();
     }
 
 }
@@ -2,8 +2,7 @@ package org.movsim.utilities;
 
 import java.util.Arrays;
 
-import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
-import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.apache.commons.math3.util.MathArrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,59 +13,166 @@ import com.google.common.base.Preconditions;
  * the boundaries.
  * 
  * <p>
- * In case of only one data point no splineFunction is created.
+ * The values are bit-identical to a commons-math {@code PolynomialSplineFunction} created by a {@code LinearInterpolator}, but the
+ * lookup works on primitive arrays: uniformly spaced knots are located in O(1), and the segment of the last lookup is tried first, so
+ * that monotone queries (e.g. by simulation time) mostly avoid the binary search. The segment cursor is only a hint which is checked
+ * before use, so instances can safely be shared between threads.
  */
 public class LinearInterpolatedFunction {
     
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LinearInterpolatedFunction.class);
 
+    /** Relative deviation of the knot spacing up to which the knots are treated as uniformly spaced. */
+    private static final double UNIFORM_SPACING_TOLERANCE = 1e-6;
 
-    private PolynomialSplineFunction splineFunction;
+    /** Largest galloping step from the cursor before the search falls back to the remaining knots. */
+    private static final int MAX_GALLOP_STEP = 16;
 
-    private final XYDataPoint start;
-    private final XYDataPoint end;
-    
-    private final int numberOfDataPoints;
+    private final double[] x;
+    private final double[] y;
+    private final double[] slopes;
+
+    /** index of the last segment. */
+    private final int lastSegment;
+
+    /** inverse knot spacing for uniformly spaced knots, zero otherwise. */
+    private final double inverseSpacing;
+
+    /** segment of the last lookup. */
+    private int cursor;
 
     public int getNumberOfDataPoints() {
-        return numberOfDataPoints;
+        return x.length;
     }
 
     /**
      * @throws IllegalArgumentException
-     *             , DimensionMismatchException, NumberIsTooSmallException, NonMonotonicSequenceException
+     *             , NonMonotonicSequenceException
      */
     public LinearInterpolatedFunction(double[] x, double[] y) {
         Preconditions.checkArgument(x.length == y.length, "dimensions mismatch");
         Preconditions.checkArgument(x.length != 0, "dimension zero");
+        MathArrays.checkOrder(x);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("x={}", Arrays.toString(x));
+            LOG.debug("y={}", Arrays.toString(y));
+        }
 
-        if (x.length > 1) {
-            LinearInterpolator linearInterpolator = new LinearInterpolator();
-            if(LOG.isDebugEnabled()){
-                LOG.debug("x={}", Arrays.toString(x));
-                LOG.debug("y={}", Arrays.toString(y));
-            }
-            splineFunction = linearInterpolator.interpolate(x, y);
+        this.x = x.clone();
+        this.y = y.clone();
+        lastSegment = Math.max(0, x.length - 2);
+        slopes = new double[lastSegment + 1];
+        for (int i = 0; i < x.length - 1; i++) {
+            slopes[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
         }
-        
-        numberOfDataPoints = x.length;
+        inverseSpacing = isUniform(x) ? (x.length - 1) / (x[x.length - 1] - x[0]) : 0;
+    }
 
-        start = new XYDataPoint(x[0], y[0]);
-        end = new XYDataPoint(x[x.length - 1], y[y.length - 1]);
+    private static boolean isUniform(double[] x) {
+        if (x.length < 2) {
+            return false;
+        }
+        final double spacing = (x[x.length - 1] - x[0]) / (x.length - 1);
+        for (int i = 0; i < x.length - 1; i++) {
+            if (Math.abs(x[i + 1] - x[i] - spacing) > UNIFORM_SPACING_TOLERANCE * spacing) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public double value(double x0) {
-        if (splineFunction != null && splineFunction.isValidPoint(x0)) {
-            return splineFunction.value(x0);
+        if (x0 >= x[0] && x0 <= x[x.length - 1] && x.length > 1) {
+            final int i = segment(x0);
+            // a vanishing slope reduces the spline polynomial to a constant
+            return slopes[i] == 0 ? y[i] : (x0 - x[i]) * slopes[i] + y[i];
         }
-        if (x0 <= start.getX()) {
-            return start.getY();
+        if (x0 <= x[0]) {
+            return y[0];
         }
-        if (x0 >= end.getX()) {
-            return end.getY();
+        if (x0 >= x[x.length - 1]) {
+            return y[y.length - 1];
         }
         throw new IllegalStateException("should not reach undefined function range=" + x0);
     }
 
+    /**
+     * Evaluates the function at all positions. Ascending positions benefit from the segment cursor.
+     * 
+     * @param x0
+     *            the positions
+     * @param result
+     *            the function values, at least as long as the positions
+     */
+    public void values(double[] x0, double[] result) {
+        Preconditions.checkArgument(result.length >= x0.length, "result too short");
+        for (int i = 0; i < x0.length; i++) {
+            result[i] = value(x0[i]);
+        }
+    }
+
+    /**
+     * Returns the largest segment index i with x[i] &lt;= x0, limited to the last segment, for x0 within the knot range.
+     */
+    private int segment(double x0) {
+        int i = cursor;
+        if (!contains(i, x0)) {
+            if (i < lastSegment && contains(i + 1, x0)) {
+                i++;
+            } else if (inverseSpacing > 0) {
+                i = Math.min(lastSegment, (int) ((x0 - x[0]) * inverseSpacing));
+                // correct rounding of the estimate at the knots
+                while (i < lastSegment && x[i + 1] <= x0) {
+                    i++;
+                }
+                while (i > 0 && x[i] > x0) {
+                    i--;
+                }
+            } else {
+                i = search(i, x0);
+            }
+            cursor = i;
+        }
+        return i;
+    }
+
+    /**
+     * Gallops a few steps from the given segment towards x0 and finishes with a binary search within the bracketing
+     * range, or within the remaining knots for distant queries.
+     */
+    private int search(int from, double x0) {
+        int low;
+        int high;
+        int step = 1;
+        if (x[from] <= x0) {
+            low = from;
+            high = from + step;
+            while (high < lastSegment && x[high] <= x0) {
+                low = high;
+                step <<= 1;
+                high = step > MAX_GALLOP_STEP ? x.length - 1 : from + step;
+            }
+            high = Math.min(high, x.length - 1);
+        } else {
+            high = from;
+            low = from - step;
+            while (low > 0 && x[low] > x0) {
+                high = low;
+                step <<= 1;
+                low = step > MAX_GALLOP_STEP ? 0 : from - step;
+            }
+            low = Math.max(low, 0);
+        }
+        int i = Arrays.binarySearch(x, low, high + 1, x0);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return Math.max(0, Math.min(lastSegment, i));
+    }
+
+    private boolean contains(int i, double x0) {
+        return x[i] <= x0 && (i == lastSegment || x0 < x[i + 1]);
+    }
+
 }
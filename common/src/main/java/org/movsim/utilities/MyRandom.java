@@ -15,21 +15,33 @@ import java.util.Random;
 
 /**
  * The Class MyRandom.
+ * 
+ * <p>
+ * Besides the global random number generator, which must only be used from sequential parts of the simulation, this class
+ * creates independent {@link RandomStream}s keyed by a domain and an id (e.g. the vehicle id). All streams are derived from
+ * the seed, so a seeded simulation is reproducible independently of the order in which the entities are updated and of the
+ * number of threads.
+ * </p>
  */
 public final class MyRandom {
 
-    private static Random rand = new Random();
-
     private MyRandom() {
         throw new IllegalStateException("do not instanciate");
     }
 
     public static void initializeWithSeed(long randomSeed) {
-        rand = new Random(randomSeed);
+        RunContext.current().initializeRandom(randomSeed);
     }
 
     public static boolean isInitialized() {
-        return rand != null;
+        return rand() != null;
+    }
+
+    /**
+     * @return the random number generator of the current {@link RunContext}
+     */
+    private static Random rand() {
+        return RunContext.current().getRandom();
     }
 
     /**
@@ -37,11 +49,11 @@ public final class MyRandom {
      * @return the int
      */
     public static int nextInt() {
-        return rand.nextInt();
+        return rand().nextInt();
     }
 
     public static int nextInt(int n) {
-        return rand.nextInt(n);
+        return rand().nextInt(n);
     }
 
     /**
@@ -49,7 +61,7 @@ public final class MyRandom {
      *         random number generator's sequence
      */
     public static double nextDouble() {
-        return rand.nextDouble();
+        return rand().nextDouble();
     }
 
     /**
@@ -66,7 +78,42 @@ public final class MyRandom {
     }
 
     public static double getGaussiansDistributedRandomizedFactor(double sigma, double nSigmaCutoff) {
-        return 1 + Math.max(-nSigmaCutoff * sigma, Math.min(nSigmaCutoff, sigma * rand.nextGaussian()));
+        return 1 + Math.max(-nSigmaCutoff * sigma, Math.min(nSigmaCutoff, sigma * rand().nextGaussian()));
+    }
+
+    /**
+     * Creates a new random stream for the entity with the given id in the given domain. The stream only depends on the seed,
+     * the domain and the id, and not on the number of random numbers drawn so far.
+     * 
+     * @param domain
+     *            the kind of entity, e.g. "vehicle"
+     * @param id
+     *            the id of the entity within its domain
+     * @return the random stream
+     */
+    public static RandomStream newStream(String domain, long id) {
+        return new RandomStream(streamSeed(domain, id));
+    }
+
+    /**
+     * Restarts the given random stream as the stream of the entity with the given id in the given domain, so that it draws
+     * the same numbers as a stream created by {@link #newStream(String, long)}, e.g. for reusing a pooled vehicle.
+     * 
+     * @param stream
+     *            the random stream to restart
+     * @param domain
+     *            the kind of entity, e.g. "vehicle"
+     * @param id
+     *            the id of the entity within its domain
+     */
+    public static void resetStream(RandomStream stream, String domain, long id) {
+        stream.reset(streamSeed(domain, id));
+    }
+
+    private static long streamSeed(String domain, long id) {
+        final long key = RandomStream.mix64(RunContext.current().getStreamSeed()
+                + RandomStream.GOLDEN_GAMMA * domain.hashCode());
+        return RandomStream.mix64(key + RandomStream.GOLDEN_GAMMA * (id + 1));
     }
 
 }
@@ -0,0 +1,81 @@
+package org.movsim.utilities;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.util.MathArrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Piecewise constant univariate function on primitive arrays, e.g. a profile along a road. The value y[i] holds on the
+ * interval (x[i], x[i+1]], so that a position exactly at a breakpoint still gets the value of the upstream interval. The
+ * function is extrapolated with the first value below x[0] and the last value above the last breakpoint.
+ * 
+ * <p>
+ * The interval of the last lookup and its neighbours are tried first, so that positions in sorted order (e.g. the
+ * vehicles of a lane) mostly avoid the binary search. The cursor is only a hint which is checked before use, so
+ * instances can safely be shared between threads.
+ */
+public class PiecewiseConstantFunction {
+
+    private final double[] x;
+    private final double[] y;
+
+    /** interval of the last lookup. */
+    private int cursor;
+
+    /**
+     * Constructor.
+     * 
+     * @param x
+     *            the breakpoints, strictly increasing
+     * @param y
+     *            the value from each breakpoint to the next
+     * @throws IllegalArgumentException
+     *             , NonMonotonicSequenceException
+     */
+    public PiecewiseConstantFunction(double[] x, double[] y) {
+        Preconditions.checkArgument(x.length == y.length, "dimensions mismatch");
+        Preconditions.checkArgument(x.length != 0, "dimension zero");
+        MathArrays.checkOrder(x);
+        this.x = x.clone();
+        this.y = y.clone();
+    }
+
+    public int getNumberOfDataPoints() {
+        return x.length;
+    }
+
+    /**
+     * Returns the value of the last breakpoint strictly below x0.
+     * 
+     * @param x0
+     * @return the value y[i] of the largest i with x[i] &lt; x0, y[0] if there is no such breakpoint
+     */
+    public double value(double x0) {
+        return y[interval(x0)];
+    }
+
+    private int interval(double x0) {
+        int i = cursor;
+        if (contains(i, x0)) {
+            return i;
+        }
+        if (i + 1 < x.length && contains(i + 1, x0)) {
+            i++;
+        } else if (i > 0 && contains(i - 1, x0)) {
+            i--;
+        } else {
+            i = Arrays.binarySearch(x, x0);
+            // a breakpoint belongs to the upstream interval
+            i = i >= 0 ? i - 1 : -i - 2;
+            i = Math.max(0, i);
+        }
+        cursor = i;
+        return i;
+    }
+
+    private boolean contains(int i, double x0) {
+        return (i == 0 || x[i] < x0) && (i == x.length - 1 || x0 <= x[i + 1]);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.utilities;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Independent stream of random numbers owned by a single simulation entity, e.g. a vehicle. The stream is created by
+ * {@link MyRandom#newStream(String, long)} and is not thread-safe: it must only be used by the thread that currently
+ * updates its owner.
+ * <p>
+ * The numbers are generated by the algorithm of {@link java.util.SplittableRandom} (with its default gamma), so the
+ * sequences are the same, but the state is accessible and can be saved and restored with {@link #writeState(DataOutput)}
+ * and {@link #readState(DataInput)}.
+ * </p>
+ */
+public final class RandomStream {
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+
+    private double nextNextGaussian;
+
+    private boolean haveNextNextGaussian = false;
+
+    RandomStream(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Restarts this stream as a new stream with the given seed.
+     */
+    void reset(long seed) {
+        this.seed = seed;
+        nextNextGaussian = 0;
+        haveNextNextGaussian = false;
+    }
+
+    private long nextSeed() {
+        return seed += GOLDEN_GAMMA;
+    }
+
+    public int nextInt(int n) {
+        Preconditions.checkArgument(n > 0, "bound must be positive");
+        int r = mix32(nextSeed());
+        final int m = n - 1;
+        if ((n & m) == 0) {
+            // power of two
+            r &= m;
+        } else {
+            // reject over-represented candidates
+            for (int u = r >>> 1; u + m - (r = u % n) < 0; u = mix32(nextSeed()) >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return the next pseudo-random, uniformly distributed {@code double} value between {@code 0.0} and {@code 1.0}
+     */
+    public double nextDouble() {
+        return (mix64(nextSeed()) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns the next normally distributed {@code double} value with mean 0 and standard deviation 1, using the polar
+     * method as {@link java.util.Random#nextGaussian()}.
+     * 
+     * @return the next gaussian distributed value
+     */
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        final double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * returns a realization of a uniformly distributed random variable in [-1, 1]
+     * 
+     * @return a uniformly distributed realization in [-1, 1]
+     */
+    public double getUniformDistribution() {
+        return 2 * nextDouble() - 1;
+    }
+
+    public double getUniformlyDistributedRandomizedFactor(double randomizationStrength) {
+        return 1 + randomizationStrength * getUniformDistribution();
+    }
+
+    public double getGaussiansDistributedRandomizedFactor(double sigma, double nSigmaCutoff) {
+        return 1 + Math.max(-nSigmaCutoff * sigma, Math.min(nSigmaCutoff, sigma * nextGaussian()));
+    }
+
+    /**
+     * Writes the state of this stream.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(seed);
+        out.writeBoolean(haveNextNextGaussian);
+        out.writeDouble(nextNextGaussian);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}, the stream continues with the same sequence as the
+     * written one.
+     */
+    public void readState(DataInput in) throws IOException {
+        seed = in.readLong();
+        haveNextNextGaussian = in.readBoolean();
+        nextNextGaussian = in.readDouble();
+    }
+
+    /**
+     * Stafford variant 13 of the 64-bit finalizer of MurmurHash3, as used by {@link java.util.SplittableRandom}.
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.shutdown.SimulationShutDown;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * State of a single simulation run which used to be held in static fields: the project meta data, the random number
+ * generator, the counters and the shutdown callbacks.
+ * </p>
+ * <p>
+ * A thread uses the default context unless another context has been bound to it with {@link #bind(RunContext)}. This
+ * allows several simulations to run concurrently in one JVM, e.g. in a parameter scan, while a single simulation behaves
+ * exactly as before.
+ * </p>
+ */
+public final class RunContext {
+
+    /**
+     * The counters of a run. Each counter starts at zero, the owner adds its own initial id.
+     */
+    public enum Counter {
+        /** vehicles created */
+        VEHICLE,
+        /** road segments created */
+        ROAD_SEGMENT,
+        /** vertices of the routing graph */
+        NETWORK_GRAPH_VERTEX,
+        /** random streams of longitudinal models which are not assigned to a vehicle */
+        LONGITUDINAL_MODEL_STREAM,
+        /** vehicles re-routed */
+        REROUTING
+    }
+
+    private static final RunContext DEFAULT = new RunContext(null);
+
+    private static final ThreadLocal<RunContext> BOUND = new ThreadLocal<>();
+
+    private final ProjectMetaData projectMetaData;
+
+    private Random random = new Random();
+
+    private long streamSeed = new Random().nextLong();
+
+    private final AtomicLong[] counters = new AtomicLong[Counter.values().length];
+
+    private final List<SimulationShutDown> shutDownCallbacks = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * 
+     * @param projectMetaData
+     *            the project meta data of the run, null selects the global {@link ProjectMetaData} instance
+     */
+    public RunContext(ProjectMetaData projectMetaData) {
+        this.projectMetaData = projectMetaData;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * @return the context bound to the current thread, otherwise the default context
+     */
+    public static RunContext current() {
+        final RunContext context = BOUND.get();
+        return context == null ? DEFAULT : context;
+    }
+
+    /**
+     * Binds the given context to the current thread.
+     * 
+     * @param context
+     *            the context to bind
+     * @return the previously bound context which has to be passed to {@link #restore(RunContext)}
+     */
+    public static RunContext bind(RunContext context) {
+        Preconditions.checkNotNull(context);
+        final RunContext previous = BOUND.get();
+        BOUND.set(context);
+        return previous;
+    }
+
+    /**
+     * Restores the context returned by {@link #bind(RunContext)}.
+     */
+    public static void restore(RunContext previous) {
+        if (previous == null) {
+            BOUND.remove();
+        } else {
+            BOUND.set(previous);
+        }
+    }
+
+    /**
+     * @return the project meta data of the run or null if the run uses the global instance
+     */
+    public ProjectMetaData getProjectMetaData() {
+        return projectMetaData;
+    }
+
+    /**
+     * Returns the value of the given counter and increments the counter.
+     * 
+     * @param counter
+     *            the counter
+     * @return the value before the increment
+     */
+    public long next(Counter counter) {
+        return counters[counter.ordinal()].getAndIncrement();
+    }
+
+    /**
+     * @return the value of the given counter
+     */
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].get();
+    }
+
+    /**
+     * Sets the value of the given counter, e.g. when restoring a checkpoint.
+     */
+    public void set(Counter counter, long value) {
+        counters[counter.ordinal()].set(value);
+    }
+
+    /**
+     * Resets the given counter to zero.
+     */
+    public void reset(Counter counter) {
+        set(counter, 0);
+    }
+
+    /**
+     * @return the callbacks registered with {@link org.movsim.shutdown.ShutdownHooks} during this run
+     */
+    public List<SimulationShutDown> getShutDownCallbacks() {
+        return shutDownCallbacks;
+    }
+
+    Random getRandom() {
+        return random;
+    }
+
+    long getStreamSeed() {
+        return streamSeed;
+    }
+
+    void initializeRandom(long randomSeed) {
+        random = new Random(randomSeed);
+        streamSeed = randomSeed;
+    }
+}
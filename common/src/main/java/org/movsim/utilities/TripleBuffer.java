@@ -0,0 +1,109 @@
+package org.movsim.utilities;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Lock-free exchange of frames between one producer thread and one consumer thread, e.g. the simulation thread and the
+ * UI thread.
+ *
+ * <p>
+ * The producer fills the {@link #writeBuffer()} and {@link #publish()}es it. The consumer calls {@link #update()} to
+ * take the most recently published frame and reads it through {@link #readBuffer()}. Neither side ever waits for the
+ * other: the third buffer holds the latest complete frame in between. A published frame that is replaced by the next one
+ * before the consumer takes it is counted as dropped.
+ *
+ * @param <T>
+ *            the frame type
+ */
+public final class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    /** flag of the middle buffer: holds a published frame that has not been taken by the consumer yet. */
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+
+    /** index of the buffer owned by the producer. */
+    private int writeIndex;
+    /** index of the buffer owned by the consumer. */
+    private int readIndex;
+    /** index of the buffer in between, with the {@link #FRESH} flag. */
+    private final AtomicInteger middle;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[] { Preconditions.checkNotNull(first), Preconditions.checkNotNull(second),
+                Preconditions.checkNotNull(third) };
+        readIndex = 0;
+        middle = new AtomicInteger(1);
+        writeIndex = 2;
+    }
+
+    /**
+     * Returns the buffer to be filled by the producer.
+     */
+    @SuppressWarnings("unchecked")
+    public T writeBuffer() {
+        return (T) buffers[writeIndex];
+    }
+
+    /**
+     * Publishes the filled write buffer as latest frame and hands a free buffer to the producer. Producer only.
+     */
+    public void publish() {
+        final int previous = middle.getAndSet(writeIndex | FRESH);
+        if ((previous & FRESH) != 0) {
+            droppedCount.incrementAndGet();
+        }
+        writeIndex = previous & INDEX_MASK;
+        publishedCount.incrementAndGet();
+    }
+
+    /**
+     * Takes the latest published frame, if any has been published since the last call. Consumer only.
+     *
+     * @return true if the read buffer has been replaced by a newer frame
+     */
+    public boolean update() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Returns the buffer to be read by the consumer, the latest frame taken by {@link #update()}.
+     */
+    @SuppressWarnings("unchecked")
+    public T readBuffer() {
+        return (T) buffers[readIndex];
+    }
+
+    /**
+     * Returns the number of published frames.
+     */
+    public long publishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * Returns the number of published frames that have been replaced before the consumer took them.
+     */
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Resets the frame counters.
+     */
+    public void resetCounts() {
+        publishedCount.set(0);
+        droppedCount.set(0);
+    }
+}
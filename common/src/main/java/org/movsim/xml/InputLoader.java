@@ -15,6 +15,9 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.Source;
+
 import org.movsim.autogen.Movsim;
 import org.movsim.network.autogen.opendrive.OpenDRIVE;
 import org.movsim.scenario.boundary.autogen.MovsimMicroscopicBoundaryConditions;
@@ -23,6 +26,7 @@ import org.movsim.scenario.vehicle.autogen.MovsimExternalVehicleControl;
 import org.movsim.utilities.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
 
 public final class InputLoader {
 
@@ -63,6 +67,21 @@ public final class InputLoader {
         return fileUnmarshaller.load(xmlFile, Movsim.class, xsdResourcen.factory, xsdResourcen.getUrl());
     }
 
+    /**
+     * Unmarshalls the movsim input from the given source, e.g. a modified dom tree of a project file.
+     * 
+     * @throws IllegalStateException
+     */
+    public static Movsim unmarshallMovsim(Source source) {
+        FileUnmarshaller<Movsim> fileUnmarshaller = new FileUnmarshaller<>();
+        XmlInput xsdResourcen = XmlInput.MOVSIM_XPRJ;
+        try {
+            return fileUnmarshaller.load(source, Movsim.class, xsdResourcen.factory, xsdResourcen.getUrl());
+        } catch (JAXBException | SAXException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
     /**
      * @throws IllegalStateException
      */
@@ -0,0 +1,105 @@
+package org.movsim.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.movsim.io.AsyncOutputWriter.BackPressure;
+
+public class AsyncPrintWriterTest {
+
+    private static final int LINES = 1000;
+
+    @Test
+    public void testOutputIsWrittenInOrder() {
+        final StringWriter expected = new StringWriter();
+        final StringWriter actual = new StringWriter();
+        final PrintWriter syncWriter = new PrintWriter(expected);
+        final PrintWriter asyncWriter = new AsyncPrintWriter(new PrintWriter(actual), BackPressure.BLOCK,
+                new AsyncOutputWriter(16));
+        for (final PrintWriter writer : new PrintWriter[] { syncWriter, asyncWriter }) {
+            writer.println("# header");
+            for (int i = 0; i < LINES; i++) {
+                writer.printf(Locale.US, "%d, %.3f, %s%n", i, 0.5 * i, "lane" + i % 3);
+                // the argument types are restored from the primitive copies
+                writer.printf(Locale.US, "%x, %x, %c, %b, %.2f, %d, %s, %s%n", (byte) -i, (short) -i,
+                        (char) ('a' + i % 26), i % 2 == 0, 0.25f * i, -1000000000000L * i, BackPressure.DROP, null);
+                // mutable arguments are formatted by the calling thread
+                writer.printf("%s%n", new StringBuilder("row").append(i));
+                // a line written in pieces
+                writer.print(i);
+                writer.printf(", %d", i + 1);
+                writer.println();
+                if (i % 100 == 0) {
+                    writer.flush();
+                }
+            }
+            writer.close();
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private static PrintWriter newBlockingTarget(final StringWriter output, final CountDownLatch release) {
+        return new PrintWriter(new FilterWriter(output) {
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.write(str, off, len);
+            }
+        });
+    }
+
+    @Test
+    public void testDropCountsLinesIfWriterIsBusy() {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StringWriter actual = new StringWriter();
+        final AsyncPrintWriter writer = new AsyncPrintWriter(newBlockingTarget(actual, release), BackPressure.DROP,
+                new AsyncOutputWriter(2));
+        final int count = 10;
+        for (int i = 0; i < count; i++) {
+            writer.printf("%d%n", i % 10);
+        }
+        release.countDown();
+        writer.close();
+        // at most one line in progress and two in the ring buffer
+        assertTrue(writer.droppedCount() >= count - 3);
+        assertEquals(count - writer.droppedCount(), actual.toString().split(System.lineSeparator()).length);
+    }
+
+    @Test
+    public void testDropDropsWholeLines() {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StringWriter actual = new StringWriter();
+        final AsyncPrintWriter writer = new AsyncPrintWriter(newBlockingTarget(actual, release), BackPressure.DROP,
+                new AsyncOutputWriter(2));
+        final int count = 20;
+        for (int i = 0; i < count; i++) {
+            // lines written in pieces as by the outputs with a column per lane
+            writer.printf(Locale.US, "%.1f", 0.5 * i);
+            writer.printf(", %d", 2 * i);
+            writer.print(", x");
+            writer.printf("%n");
+        }
+        release.countDown();
+        writer.close();
+        final String[] lines = actual.toString().split(System.lineSeparator());
+        assertEquals(count - writer.droppedCount(), lines.length);
+        for (final String line : lines) {
+            final String[] columns = line.split(", ");
+            assertEquals(line, 3, columns.length);
+            assertEquals(line, 4 * Double.parseDouble(columns[0]), Integer.parseInt(columns[1]), 0);
+            assertEquals(line, "x", columns[2]);
+        }
+    }
+}
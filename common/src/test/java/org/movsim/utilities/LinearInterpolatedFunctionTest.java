@@ -2,7 +2,13 @@ package org.movsim.utilities;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
 import org.junit.Test;
 
 public class LinearInterpolatedFunctionTest {
@@ -32,4 +38,45 @@ public class LinearInterpolatedFunctionTest {
         assertThat(fct.value(5.5), equalTo(8.75));
     }
 
+    @Test
+    public void testValuesEqualSplineFunction() {
+        final Random random = new Random(42);
+        for (final boolean uniform : new boolean[] { true, false }) {
+            final int count = 200;
+            final double[] x = new double[count];
+            final double[] y = new double[count];
+            for (int i = 0; i < count; i++) {
+                x[i] = uniform ? -10 + 0.1 * i : (i == 0 ? -10 : x[i - 1] + random.nextDouble());
+                y[i] = i % 7 == 0 && i > 0 ? y[i - 1] : 30 * random.nextDouble();
+            }
+            final LinearInterpolatedFunction fct = new LinearInterpolatedFunction(x, y);
+            final PolynomialSplineFunction spline = new LinearInterpolator().interpolate(x, y);
+
+            // knots, ascending and random queries
+            for (int i = 0; i < count; i++) {
+                assertEquals(spline.value(x[i]), fct.value(x[i]), 0.0);
+            }
+            final double range = x[count - 1] - x[0];
+            for (int i = 0; i <= 10000; i++) {
+                final double x0 = x[0] + i * range / 10000;
+                assertEquals(spline.value(x0), fct.value(x0), 0.0);
+            }
+            for (int i = 0; i < 10000; i++) {
+                final double x0 = x[0] + random.nextDouble() * range;
+                assertEquals(spline.value(x0), fct.value(x0), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchValues() {
+        double[] x = new double[] { 1, 3, 5, 7 };
+        double[] y = new double[] { 0, 10, 10, 5 };
+        LinearInterpolatedFunction fct = new LinearInterpolatedFunction(x, y);
+        double[] x0 = new double[] { 8, 0, 5.5, 2, 7, 1 };
+        double[] result = new double[x0.length];
+        fct.values(x0, result);
+        assertThat(Arrays.toString(result), equalTo(Arrays.toString(new double[] { 5, 0, 8.75, 5, 5, 0 })));
+    }
+
 }
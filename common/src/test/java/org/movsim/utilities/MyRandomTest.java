@@ -0,0 +1,53 @@
+package org.movsim.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MyRandomTest {
+
+    private static final int COUNT = 1000;
+
+    @Test
+    public void testStreamsAreReproducible() {
+        MyRandom.initializeWithSeed(42);
+        final RandomStream a = MyRandom.newStream("vehicle", 7);
+        // drawing from other streams in between must not change the sequence
+        MyRandom.newStream("vehicle", 8).nextDouble();
+        MyRandom.nextDouble();
+        final RandomStream b = MyRandom.newStream("vehicle", 7);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(a.nextDouble(), b.nextDouble(), 0.0);
+        }
+    }
+
+    @Test
+    public void testStreamsDependOnSeedDomainAndId() {
+        MyRandom.initializeWithSeed(42);
+        final double value = MyRandom.newStream("vehicle", 1).nextDouble();
+        assertFalse(value == MyRandom.newStream("vehicle", 2).nextDouble());
+        assertFalse(value == MyRandom.newStream("trafficComposition", 1).nextDouble());
+        MyRandom.initializeWithSeed(43);
+        assertFalse(value == MyRandom.newStream("vehicle", 1).nextDouble());
+    }
+
+    @Test
+    public void testGaussianDistribution() {
+        MyRandom.initializeWithSeed(42);
+        final RandomStream random = MyRandom.newStream("test", 0);
+        double sum = 0;
+        double sumSquares = 0;
+        final int n = 100 * COUNT;
+        for (int i = 0; i < n; i++) {
+            final double x = random.nextGaussian();
+            sum += x;
+            sumSquares += x * x;
+        }
+        final double mean = sum / n;
+        assertTrue(Math.abs(mean) < 0.02);
+        assertEquals(1.0, sumSquares / n - mean * mean, 0.02);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.movsim.utilities;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class PiecewiseConstantFunctionTest {
+
+    @Test
+    public void testConstant() {
+        PiecewiseConstantFunction fct = new PiecewiseConstantFunction(new double[] { 1 }, new double[] { 2 });
+        assertThat(fct.value(0), equalTo(2.0));
+        assertThat(fct.value(1), equalTo(2.0));
+        assertThat(fct.value(100), equalTo(2.0));
+    }
+
+    @Test
+    public void testValues() {
+        double[] x = new double[] { 1, 3, 5, 7 };
+        double[] y = new double[] { 0.1, 0.2, 0.3, 0 };
+        PiecewiseConstantFunction fct = new PiecewiseConstantFunction(x, y);
+
+        assertThat(fct.value(0), equalTo(0.1));
+        assertThat(fct.value(1), equalTo(0.1));
+        assertThat(fct.value(2), equalTo(0.1));
+        // breakpoints belong to the upstream interval
+        assertThat(fct.value(3), equalTo(0.1));
+        assertThat(fct.value(3.5), equalTo(0.2));
+        assertThat(fct.value(7), equalTo(0.3));
+        assertThat(fct.value(7.5), equalTo(0.0));
+    }
+
+    @Test
+    public void testEqualsHeadMapLookup() {
+        final Random random = new Random(17);
+        final TreeMap<Double, Double> profile = new TreeMap<>();
+        double position = 0;
+        for (int i = 0; i < 500; i++) {
+            profile.put(position, random.nextGaussian());
+            position += 0.1 + random.nextDouble() * 20;
+        }
+        final double[] x = new double[profile.size()];
+        final double[] y = new double[profile.size()];
+        int i = 0;
+        for (Entry<Double, Double> entry : profile.entrySet()) {
+            x[i] = entry.getKey();
+            y[i] = entry.getValue();
+            i++;
+        }
+        PiecewiseConstantFunction fct = new PiecewiseConstantFunction(x, y);
+        // descending positions as the vehicles in a lane, then random positions
+        for (double x0 = position; x0 > 0; x0 -= 0.37) {
+            assertThat(fct.value(x0), equalTo(profile.lowerEntry(x0).getValue()));
+        }
+        for (int j = 0; j < 10000; j++) {
+            final double x0 = 1e-9 + random.nextDouble() * position;
+            assertThat(fct.value(x0), equalTo(profile.lowerEntry(x0).getValue()));
+        }
+        for (int j = 1; j < x.length; j++) {
+            assertThat(fct.value(x[j]), equalTo(y[j - 1]));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.movsim.utilities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class RandomStreamTest {
+
+    private static final int COUNT = 10000;
+
+    @Test
+    public void testSameSequenceAsSplittableRandom() {
+        final RandomStream stream = new RandomStream(42);
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(random.nextDouble(), stream.nextDouble(), 0.0);
+            // power of two and rejecting bounds
+            assertEquals(random.nextInt(16), stream.nextInt(16));
+            assertEquals(random.nextInt(1 + i), stream.nextInt(1 + i));
+            assertEquals(random.nextInt(Integer.MAX_VALUE - i), stream.nextInt(Integer.MAX_VALUE - i));
+        }
+    }
+
+    @Test
+    public void testRestoredStateContinuesSequence() throws IOException {
+        final RandomStream stream = new RandomStream(7);
+        stream.nextDouble();
+        // leaves the second gaussian of a pair pending
+        stream.nextGaussian();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        stream.writeState(new DataOutputStream(bytes));
+        final RandomStream restored = new RandomStream(0);
+        restored.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(stream.nextGaussian(), restored.nextGaussian(), 0.0);
+            assertEquals(stream.nextInt(100), restored.nextInt(100));
+        }
+    }
+
+    @Test
+    public void testResetStreamDrawsAsNewStream() {
+        final RandomStream stream = MyRandom.newStream("test", 1);
+        stream.nextGaussian();
+        MyRandom.resetStream(stream, "test", 2);
+        final RandomStream expected = MyRandom.newStream("test", 2);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(expected.nextGaussian(), stream.nextGaussian(), 0.0);
+            assertEquals(expected.nextDouble(), stream.nextDouble(), 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.movsim.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TripleBufferTest {
+
+    @Test
+    public void testPublishAndUpdate() {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(new int[1], new int[1], new int[1]);
+        assertFalse(buffer.update());
+
+        buffer.writeBuffer()[0] = 1;
+        buffer.publish();
+        assertNotSame(buffer.writeBuffer(), buffer.readBuffer());
+        assertTrue(buffer.update());
+        assertEquals(1, buffer.readBuffer()[0]);
+        assertFalse(buffer.update());
+        assertEquals(1, buffer.readBuffer()[0]);
+        assertEquals(1, buffer.publishedCount());
+        assertEquals(0, buffer.droppedCount());
+    }
+
+    @Test
+    public void testDroppedFrames() {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(new int[1], new int[1], new int[1]);
+        for (int i = 1; i <= 3; i++) {
+            buffer.writeBuffer()[0] = i;
+            buffer.publish();
+            assertNotSame(buffer.writeBuffer(), buffer.readBuffer());
+        }
+        assertTrue(buffer.update());
+        // only the latest frame is read
+        assertEquals(3, buffer.readBuffer()[0]);
+        assertEquals(3, buffer.publishedCount());
+        assertEquals(2, buffer.droppedCount());
+
+        buffer.resetCounts();
+        assertEquals(0, buffer.publishedCount());
+        assertEquals(0, buffer.droppedCount());
+    }
+
+    @Test
+    public void testConcurrentProducer() throws InterruptedException {
+        final TripleBuffer<int[]> buffer = new TripleBuffer<>(new int[2], new int[2], new int[2]);
+        final int frames = 100000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= frames; i++) {
+                    int[] frame = buffer.writeBuffer();
+                    frame[0] = i;
+                    frame[1] = -i;
+                    buffer.publish();
+                }
+            }
+        });
+        producer.start();
+        int last = 0;
+        while (last < frames) {
+            if (buffer.update()) {
+                int[] frame = buffer.readBuffer();
+                // frames are complete and in order
+                assertEquals(-frame[0], frame[1]);
+                assertTrue(frame[0] > last);
+                last = frame[0];
+            }
+        }
+        producer.join();
+        assertEquals(frames, buffer.publishedCount());
+    }
+}
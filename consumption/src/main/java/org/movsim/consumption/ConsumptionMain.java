@@ -26,10 +26,17 @@
 package org.movsim.consumption;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FilenameUtils;
 import org.joda.time.format.DateTimeFormat;
@@ -74,22 +81,65 @@ public class ConsumptionMain {
     }
 
     private void run() {
-        int batchSize = inputData.getConsumption().getBatchJobs().getBatchData().size();
-        LOG.info("size of batches={}", batchSize);
-        for (BatchData batch : inputData.getConsumption().getBatchJobs().getBatchData()) {
-            InputReader reader = InputReader.create(batch);
-            List<ConsumptionDataRecord> records = reader.getRecords();
-
-            EnergyFlowModel model = consumptionModelPool.get(batch.getModel());
-            Preconditions.checkNotNull(model, "model not available with name=" + batch.getModel());
-            ConsumptionCalculation calculation = new ConsumptionCalculation(model);
+        final List<BatchData> batches = inputData.getConsumption().getBatchJobs().getBatchData();
+        LOG.info("size of batches={}", batches.size());
+        final Set<String> outputFilenames = new HashSet<>();
+        for (BatchData batch : batches) {
+            Preconditions.checkNotNull(consumptionModelPool.get(batch.getModel()), "model not available with name="
+                    + batch.getModel());
+            Preconditions.checkArgument(outputFilenames.add(getOutputFilename(batch)),
+                    "batches do not have unique output files: " + getOutputFilename(batch));
+        }
+        final int parallelism = ProjectMetaData.getInstance().getParallelism();
+        // sequential unless the parallelism is set explicitly
+        final int threads = Math.min(batches.size(), Math.max(1, parallelism));
+        if (threads <= 1) {
+            for (BatchData batch : batches) {
+                process(batch);
+            }
+        } else {
+            processInParallel(batches, threads);
+        }
+        LOG.info("{} batches done.", batches.size());
+    }
 
-            calculation.process(records);
+    private void processInParallel(List<BatchData> batches, int threads) {
+        LOG.info("process batches with {} threads", threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final BatchData batch : batches) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        process(batch);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            OutputWriter writer = createWriter(batch, ProjectMetaData.getInstance().getOutputPath());
-            writer.write(records);
+    /**
+     * Streams the records of the batch input through the consumption calculation into the output file.
+     */
+    private void process(BatchData batch) {
+        EnergyFlowModel model = consumptionModelPool.get(batch.getModel());
+        ConsumptionCalculation calculation = new ConsumptionCalculation(model);
+        try (InputReader reader = InputReader.create(batch);
+                OutputWriter writer = createWriter(batch, ProjectMetaData.getInstance().getOutputPath())) {
+            ConsumptionDataRecord record;
+            while ((record = reader.next()) != null) {
+                calculation.process(record);
+                writer.write(record);
+            }
         }
-        LOG.info("{} batches done.", batchSize);
     }
 
     public static void main(String[] args) {
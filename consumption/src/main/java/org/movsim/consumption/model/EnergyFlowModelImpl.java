@@ -138,9 +138,11 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
 
         // indicates that too high motor frequency
         if (withJante && (fMot > engineRotationModel.getMaxFrequency())) {
-            LOG.info(String
-                    .format("v_kmh=%f, acc=%f, gear=%d, motor frequency=%d/min too high -- > return fuelErrorConsumption: %.2f",
-                            (3.6 * v), acc, gearIndex + 1, (int) (fMot * 60), fuelFlowError));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format(
+                        "v_kmh=%f, acc=%f, gear=%d, motor frequency=%d/min too high -- > return fuelErrorConsumption: %.2f",
+                        (3.6 * v), acc, gearIndex + 1, (int) (fMot * 60), fuelFlowError));
+            }
             fuelFlow = fuelFlowError;
         }
 
@@ -148,7 +150,9 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
         if (withJante && (fMot < engineRotationModel.getMinFrequency())) {
             if (gearIndex == 0) {
                 fuelFlow = vehicleData.getElectricPower() * limitSpecificConsumption;
-                LOG.info(String.format("v=%f, gear=%d, fuelFlow=%f %n", v, gearIndex + 1, fuelFlow));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(String.format("v=%f, gear=%d, fuelFlow=%f %n", v, gearIndex + 1, fuelFlow));
+                }
             } else {
                 fuelFlow = fuelFlowError;
             }
@@ -34,7 +34,11 @@ public final class EnergyFlowModels {
     }
 
     public static EnergyFlowModel create(ConsumptionModel model) {
-        return new EnergyFlowModelImpl(model.getLabel(), model);
+        final EnergyFlowModelImpl energyFlowModel = new EnergyFlowModelImpl(model.getLabel(), model);
+        if (model.isSetFuelFlowTable()) {
+            return new TabulatedEnergyFlowModel(model.getLabel(), energyFlowModel, model.getFuelFlowTable());
+        }
+        return energyFlowModel;
     }
 
 }
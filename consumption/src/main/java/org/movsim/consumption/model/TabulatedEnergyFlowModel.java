@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.consumption.model;
+
+import org.movsim.autogen.FuelFlowTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * {@link EnergyFlowModel} with the minimum fuel flow and the optimal gear tabulated on a (v, acc, grade) grid.
+ * <p>
+ * The table is built once from the analytic model. Lookups interpolate the fuel flow bilinearly (single grade) or
+ * trilinearly and take the gear of the nearest grid point. Operating points outside of the table, in cells with an
+ * infeasible corner and with other grades than tabulated in the two-dimensional case are passed on to the analytic
+ * model. The interpolation error at the cell centers is determined when the table is built, see
+ * {@link #maxAbsoluteError()}, and a table exceeding the configured {@code max_error} is rejected.
+ * </p>
+ */
+class TabulatedEnergyFlowModel implements EnergyFlowModel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TabulatedEnergyFlowModel.class);
+
+    private final EnergyFlowModelImpl model;
+
+    private final double dv;
+    private final double accMin;
+    private final double dacc;
+    private final double gradeMin;
+    private final double dgrade;
+    private final int speedCount;
+    private final int accCount;
+    private final int gradeCount;
+
+    // minimum fuel flow (m^3/s) and optimal gear, index = (gradeIndex * accCount + accIndex) * speedCount + speedIndex
+    private final double[] fuelFlows;
+    private final byte[] gears;
+
+    private double maxAbsoluteError;
+    private double meanAbsoluteError;
+
+    TabulatedEnergyFlowModel(String keyLabel, EnergyFlowModelImpl model, FuelFlowTable table) {
+        this.model = Preconditions.checkNotNull(model);
+        Preconditions.checkArgument(table.getAccMax() > table.getAccMin(), "acc_max must be larger than acc_min");
+        Preconditions.checkArgument(table.getGradeMax() >= table.getGradeMin(),
+                "grade_max must not be smaller than grade_min");
+        dv = table.getDv();
+        accMin = table.getAccMin();
+        dacc = table.getDacc();
+        gradeMin = table.getGradeMin();
+        dgrade = table.getDgrade();
+        speedCount = nodeCount(table.getVMax(), dv);
+        accCount = nodeCount(table.getAccMax() - accMin, dacc);
+        gradeCount = table.getGradeMax() > gradeMin ? nodeCount(table.getGradeMax() - gradeMin, dgrade) : 1;
+        fuelFlows = new double[speedCount * accCount * gradeCount];
+        gears = new byte[fuelFlows.length];
+        tabulate();
+        determineError();
+        LOG.info("fuel flow table for model={} with {} nodes: interpolation error max.={} liter/s, mean={} liter/s",
+                keyLabel, fuelFlows.length, maxAbsoluteError, meanAbsoluteError);
+        if (table.isSetMaxError()) {
+            Preconditions.checkArgument(maxAbsoluteError <= table.getMaxError(),
+                    "fuel flow table for model=%s: interpolation error=%s liter/s exceeds max_error=%s liter/s",
+                    keyLabel, maxAbsoluteError, table.getMaxError());
+        }
+    }
+
+    private static int nodeCount(double range, double spacing) {
+        // the range is extended to a full last interval
+        return Math.max(2, (int) Math.ceil(range / spacing - 1e-9) + 1);
+    }
+
+    private void tabulate() {
+        int index = 0;
+        for (int k = 0; k < gradeCount; k++) {
+            for (int j = 0; j < accCount; j++) {
+                for (int i = 0; i < speedCount; i++) {
+                    final FuelAndGear result = model.getMinFuelFlow(i * dv, accMin + j * dacc, gradeMin + k * dgrade,
+                            true);
+                    fuelFlows[index] = result.getFuelFlow();
+                    gears[index] = (byte) result.getGear();
+                    ++index;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the interpolation with the analytic model at the cell centers.
+     */
+    private void determineError() {
+        double sumAbsoluteError = 0;
+        int count = 0;
+        for (int k = 0; k < Math.max(1, gradeCount - 1); k++) {
+            final double grade = gradeMin + (gradeCount > 1 ? (k + 0.5) * dgrade : 0);
+            for (int j = 0; j < accCount - 1; j++) {
+                final double acc = accMin + (j + 0.5) * dacc;
+                for (int i = 0; i < speedCount - 1; i++) {
+                    final double v = (i + 0.5) * dv;
+                    final double interpolated = interpolatedFuelFlow(v, acc, grade);
+                    final double exact = model.getMinFuelFlow(v, acc, grade, true).getFuelFlow();
+                    if (Double.isNaN(interpolated) || exact >= model.fuelflowError()) {
+                        continue;
+                    }
+                    final double error = 1000 * Math.abs(interpolated - exact);
+                    maxAbsoluteError = Math.max(maxAbsoluteError, error);
+                    sumAbsoluteError += error;
+                    ++count;
+                }
+            }
+        }
+        meanAbsoluteError = count > 0 ? sumAbsoluteError / count : 0;
+    }
+
+    /**
+     * @return the maximum interpolation error in liter/s found at the cell centers
+     */
+    double maxAbsoluteError() {
+        return maxAbsoluteError;
+    }
+
+    /**
+     * @return the mean interpolation error in liter/s at the cell centers
+     */
+    double meanAbsoluteError() {
+        return meanAbsoluteError;
+    }
+
+    /**
+     * Interpolates the minimum fuel flow.
+     * 
+     * @return the fuel flow in m^3/s or {@link Double#NaN} if the operating point cannot be looked up
+     */
+    private double interpolatedFuelFlow(double v, double acc, double grade) {
+        final double x = v / dv;
+        final double y = (acc - accMin) / dacc;
+        if (!(x >= 0 && x <= speedCount - 1 && y >= 0 && y <= accCount - 1)) {
+            return Double.NaN;
+        }
+        final int i = Math.min((int) x, speedCount - 2);
+        final int j = Math.min((int) y, accCount - 2);
+        final double tx = x - i;
+        final double ty = y - j;
+        if (gradeCount == 1) {
+            return grade == gradeMin ? bilinear(j * speedCount + i, tx, ty) : Double.NaN;
+        }
+        final double z = (grade - gradeMin) / dgrade;
+        if (!(z >= 0 && z <= gradeCount - 1)) {
+            return Double.NaN;
+        }
+        final int k = Math.min((int) z, gradeCount - 2);
+        final double tz = z - k;
+        final double lower = bilinear((k * accCount + j) * speedCount + i, tx, ty);
+        final double upper = bilinear(((k + 1) * accCount + j) * speedCount + i, tx, ty);
+        return (1 - tz) * lower + tz * upper;
+    }
+
+    private double bilinear(int index, double tx, double ty) {
+        final double f00 = fuelFlows[index];
+        final double f10 = fuelFlows[index + 1];
+        final double f01 = fuelFlows[index + speedCount];
+        final double f11 = fuelFlows[index + speedCount + 1];
+        final double error = model.fuelflowError();
+        if (f00 >= error || f10 >= error || f01 >= error || f11 >= error) {
+            return Double.NaN;
+        }
+        return (1 - ty) * ((1 - tx) * f00 + tx * f10) + ty * ((1 - tx) * f01 + tx * f11);
+    }
+
+    private int nearestGear(double v, double acc, double grade) {
+        final int i = (int) (v / dv + 0.5);
+        final int j = (int) ((acc - accMin) / dacc + 0.5);
+        final int k = gradeCount == 1 ? 0 : (int) ((grade - gradeMin) / dgrade + 0.5);
+        return gears[(k * accCount + j) * speedCount + i];
+    }
+
+    @Override
+    public double getInstConsumption100km(double v, double acc, int gear, boolean withJante) {
+        return model.getInstConsumption100km(v, acc, gear, withJante);
+    }
+
+    @Override
+    public double getFuelFlow(double v, double acc, double grade, int gearIndex, boolean withJante) {
+        return model.getFuelFlow(v, acc, grade, gearIndex, withJante);
+    }
+
+    @Override
+    public FuelAndGear getMinFuelFlow(double v, double acc, double grade, boolean withJante) {
+        if (withJante) {
+            final double fuelFlow = interpolatedFuelFlow(v, acc, grade);
+            if (!Double.isNaN(fuelFlow)) {
+                return new FuelAndGear(fuelFlow, nearestGear(v, acc, grade));
+            }
+        }
+        return model.getMinFuelFlow(v, acc, grade, withJante);
+    }
+
+    @Override
+    public double getFuelFlowInLiterPerS(double v, double acc) {
+        return getFuelFlowInLiterPerS(v, acc, 0);
+    }
+
+    @Override
+    public double getFuelFlowInLiterPerS(double v, double acc, double grade) {
+        final double fuelFlow = interpolatedFuelFlow(v, acc, grade);
+        if (Double.isNaN(fuelFlow)) {
+            return model.getFuelFlowInLiterPerS(v, acc, grade);
+        }
+        // conversion from m^3/s to liter/s
+        return 1000 * fuelFlow;
+    }
+}
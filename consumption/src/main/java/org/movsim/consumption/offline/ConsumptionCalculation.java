@@ -45,27 +45,38 @@ public class ConsumptionCalculation {
         this.model = model;
     }
 
+    private ConsumptionDataRecord previous;
+
     public void process(List<ConsumptionDataRecord> records) {
-        double timestep = 0; // in seconds
-        ConsumptionDataRecord previous = null;
+        previous = null;
         for (ConsumptionDataRecord record : records) {
-            FuelAndGear minFuelFlowResult = model.getMinFuelFlow(record.getSpeed(), record.getAcceleration(),
-                    record.getGrade(), true);
-            double fuelFlowInLiterPerSecond = minFuelFlowResult.getFuelFlowInLiterPerSecond();
-            if (fuelFlowInLiterPerSecond > 0.3) {
-                fuelFlowInLiterPerSecond = 0;
-                LOG.info("!!! Ignore unrealistic consumption, set to 0. Inputdata={}",  record.toString());
-            }
-            record.setConsumptionRate(fuelFlowInLiterPerSecond);
-            record.setGear(minFuelFlowResult.getGear());
-            if (previous != null) {
-                // set cumulated value from previous step
-                timestep = record.getTime() - previous.getTime();
-                double cumulated = previous.getCumulatedConsumption() + timestep * fuelFlowInLiterPerSecond;
-                record.setCumulatedConsumption(cumulated);
-            }
-            previous = record;
+            process(record);
+        }
+    }
+
+    /**
+     * Calculates the consumption of the next record of a stream, the cumulated consumption continues from the previous
+     * record.
+     * 
+     * @param record
+     */
+    public void process(ConsumptionDataRecord record) {
+        FuelAndGear minFuelFlowResult = model.getMinFuelFlow(record.getSpeed(), record.getAcceleration(),
+                record.getGrade(), true);
+        double fuelFlowInLiterPerSecond = minFuelFlowResult.getFuelFlowInLiterPerSecond();
+        if (fuelFlowInLiterPerSecond > 0.3) {
+            fuelFlowInLiterPerSecond = 0;
+            LOG.info("!!! Ignore unrealistic consumption, set to 0. Inputdata={}",  record.toString());
+        }
+        record.setConsumptionRate(fuelFlowInLiterPerSecond);
+        record.setGear(minFuelFlowResult.getGear());
+        if (previous != null) {
+            // set cumulated value from previous step
+            double timestep = record.getTime() - previous.getTime(); // in seconds
+            double cumulated = previous.getCumulatedConsumption() + timestep * fuelFlowInLiterPerSecond;
+            record.setCumulatedConsumption(cumulated);
         }
+        previous = record;
     }
 
 }
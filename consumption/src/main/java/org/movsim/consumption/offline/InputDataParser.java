@@ -31,6 +31,7 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDateTime;
 import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.movsim.autogen.Columns;
 import org.movsim.autogen.Conversions;
 import org.slf4j.Logger;
@@ -42,6 +43,7 @@ public class InputDataParser {
 
     // <CONVERSION time="HH:mm:ss" speed="0.2777777" gradient="0.01" />
     private String timeInputPattern; // = ""; // = "HH:mm:ss"; // 10:23:21 AM
+    private DateTimeFormatter timeFormatter;
     private double speedConversionFactor;
     private double accelerationConversionFactor;
     private double slopeConversionFactor;
@@ -64,6 +66,9 @@ public class InputDataParser {
         this.positionColumn = columns.getPosition() - 1;
 
         this.timeInputPattern = conversions.getTime();
+        if (!timeInputPattern.equalsIgnoreCase("1")) {
+            this.timeFormatter = DateTimeFormat.forPattern(timeInputPattern);
+        }
         this.speedConversionFactor = conversions.getSpeed();
         this.slopeConversionFactor = conversions.getGradient();
         this.positionConversionFactor = conversions.getPosition();
@@ -79,8 +84,8 @@ public class InputDataParser {
         }
         double speed = isInputQuantity(speedColumn) ? speedConversionFactor * Double.parseDouble(line[speedColumn])
                 : Double.NaN;
-        double timeSecondsOfDay = convertToSeconds(line[timeColumn]);
         DateTime timestamp = convertToDateTime(line[timeColumn]);
+        double timeSecondsOfDay = convertToSeconds(line[timeColumn], timestamp);
 
         double acceleration = isInputQuantity(accelerationColum) ? accelerationConversionFactor
                 * Double.parseDouble(line[accelerationColum]) : Double.NaN;
@@ -98,19 +103,18 @@ public class InputDataParser {
         }
     }
 
-    private double convertToSeconds(String time) throws NumberFormatException, IllegalArgumentException {
+    private double convertToSeconds(String time, DateTime dateTime) throws NumberFormatException {
         if (timeInputPattern.equalsIgnoreCase("1")) {
             return Double.parseDouble(time);
         }
-        return convertToDateTime(time).getSecondOfDay();
+        return dateTime.getSecondOfDay();
     }
     
     private DateTime convertToDateTime(String time) {
         if (timeInputPattern.equalsIgnoreCase("1")) {
             return DateTime.now(DateTimeZone.UTC);
         }
-        DateTime dateTime = LocalDateTime.parse(time, DateTimeFormat.forPattern(timeInputPattern)).toDateTime(
-                DateTimeZone.UTC);
+        DateTime dateTime = LocalDateTime.parse(time, timeFormatter).toDateTime(DateTimeZone.UTC);
         LOG.debug("{} --> {}", time, dateTime);
         return dateTime;
     }
@@ -25,29 +25,50 @@
  */
 package org.movsim.consumption.offline;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
 
 import org.movsim.autogen.BatchData;
-import org.movsim.io.CsvReaderUtil;
 import org.movsim.utilities.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import au.com.bytecode.opencsv.CSVReader;
+
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 
-public class InputReader {
+/**
+ * Reads the records of a batch input file as a stream.
+ * <p>
+ * The input is read line by line through a buffer, so the memory does not depend on the file size. Missing speeds and
+ * accelerations are calculated by central differences over a sliding window of three records, first the speeds from the
+ * positions, then the accelerations from the speeds.
+ * </p>
+ */
+public class InputReader implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(InputReader.class);
 
-    private final char separator;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CSVReader csvReader;
+
+    private final InputDataParser parser;
+
+    private final RecordSource records;
+
+    private int inputLineCount;
+
+    private int parsedCount;
 
-    private List<ConsumptionDataRecord> records;
+    /** first parsed record, read ahead to set up the post processing */
+    private ConsumptionDataRecord firstParsed;
 
-    private final BatchData batchInput;
+    private double startTime = Double.NaN;
 
     public static InputReader create(BatchData batch) {
         File inputFile = FileUtils.lookupFilename(batch.getInputfile());
@@ -60,113 +81,172 @@ public class InputReader {
         Preconditions.checkNotNull(batch);
         Preconditions.checkArgument(inputFile.exists() && inputFile.isFile(), "file=" + inputFile.getAbsolutePath()
                 + " does not exist!");
-        this.separator = batch.getSeparator().charAt(0);
-        this.batchInput = batch;
-        this.records = new LinkedList<ConsumptionDataRecord>();
+        final char separator = batch.getSeparator().charAt(0);
+        this.parser = new InputDataParser(batch.getColumns(), batch.getConversions());
+        try {
+            this.csvReader = new CSVReader(new BufferedReader(new FileReader(inputFile), BUFFER_SIZE), separator);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.toString());
+        }
 
-        process(inputFile);
+        RecordSource source = new RecordSource() {
+            @Override
+            public ConsumptionDataRecord next() throws IOException {
+                if (firstParsed != null) {
+                    final ConsumptionDataRecord record = firstParsed;
+                    firstParsed = null;
+                    return record;
+                }
+                return parseNext();
+            }
+        };
+        try {
+            firstParsed = parseNext();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.toString());
+        }
+        if (firstParsed == null) {
+            LOG.warn("no input read");
+        } else {
+            if (!firstParsed.hasSpeed()) {
+                Preconditions.checkArgument(firstParsed.hasPosition(), "cannot calculate speeds without positions.");
+                LOG.info("calculate speeds numerically.");
+                source = new SpeedCalculation(source);
+            }
+            if (!firstParsed.hasAcceleration()) {
+                LOG.info("calculate accelerations numerically.");
+                source = new AccelerationCalculation(source);
+            }
+        }
+        this.records = source;
     }
 
-    public List<ConsumptionDataRecord> getRecords() {
-        return records;
+    /**
+     * Returns the next record with speed, acceleration and the time normalized to the first record.
+     * 
+     * @return the next record or null at the end of the input
+     */
+    public ConsumptionDataRecord next() {
+        try {
+            final ConsumptionDataRecord record = records.next();
+            if (record == null) {
+                return null;
+            }
+            if (Double.isNaN(startTime)) {
+                startTime = record.getTime();
+                LOG.info("add normalized time with startTime={}", startTime);
+            }
+            record.setNormalizedTime(record.getTime() - startTime);
+            return record;
+        } catch (IOException e) {
+            throw new IllegalStateException(e.toString());
+        }
     }
 
-    private void process(File inputFile) {
-        List<String[]> inputDataLines = CsvReaderUtil.readData(inputFile, separator);
-
-        if (inputDataLines == null || inputDataLines.isEmpty()) {
-            LOG.warn("no input read");
-            return;
+    @Override
+    public void close() {
+        LOG.info("parsed={} from={} input lines", parsedCount, inputLineCount);
+        try {
+            csvReader.close();
+        } catch (IOException e) {
+            LOG.error(e.getMessage());
         }
+    }
 
-        parseInputData(inputDataLines);
-
-        if (!hasSpeed()) {
-            records = calculateSpeeds();
-        }
-        if (!hasAcceleration()) {
-            records = calculateAccelerations();
+    private ConsumptionDataRecord parseNext() throws IOException {
+        String[] line;
+        while ((line = csvReader.readNext()) != null) {
+            ++inputLineCount;
+            try {
+                final ConsumptionDataRecord record = parser.parse(parsedCount, line);
+                ++parsedCount;
+                return record;
+            } catch (NumberFormatException e) {
+                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
+            } catch (IllegalArgumentException e) {
+                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
+            }
         }
-
-        // do this after post processing
-        addNormalizedTime();
+        return null;
     }
 
-    private boolean hasSpeed() {
-        return !records.isEmpty() && records.get(0).hasSpeed();
+    private static double calcDerivate(double dx, double dy) {
+        return (dy == 0) ? Double.NaN : dx / dy;
     }
 
-    private boolean hasAcceleration() {
-        return !records.isEmpty() && records.get(0).hasAcceleration();
+    interface RecordSource {
+        ConsumptionDataRecord next() throws IOException;
     }
 
-    private boolean hasPosition() {
-        return !records.isEmpty() && records.get(0).hasPosition();
-    }
+    /**
+     * Central difference over the previous and the following record, at the first and the last record the record itself
+     * takes the place of the missing neighbour.
+     */
+    abstract static class SlidingDerivative implements RecordSource {
+
+        private final RecordSource source;
+        private ConsumptionDataRecord previous;
+        private ConsumptionDataRecord current;
+        private ConsumptionDataRecord following;
+
+        SlidingDerivative(RecordSource source) {
+            this.source = source;
+        }
 
-    private void addNormalizedTime() {
-        if (!records.isEmpty()) {
-            final double startTime = records.get(0).getTime();
-            LOG.info("add normalized time with startTime={}", startTime);
-            for (ConsumptionDataRecord record : records) {
-                record.setNormalizedTime(record.getTime() - startTime);
+        @Override
+        public final ConsumptionDataRecord next() throws IOException {
+            if (current == null) {
+                current = source.next();
+                if (current == null) {
+                    return null;
+                }
+                previous = current;
+                following = source.next();
+            } else {
+                if (following == null) {
+                    return null;
+                }
+                previous = current;
+                current = following;
+                following = source.next();
             }
+            return derive(current, previous, following == null ? current : following);
         }
+
+        abstract ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd);
     }
 
-    private List<ConsumptionDataRecord> calculateSpeeds() {
-        Preconditions.checkArgument(hasPosition(), "cannot calculate speeds without positions.");
-        LOG.info("calculate speeds numerically.");
-        List<ConsumptionDataRecord> newRecords = Lists.newArrayList();
-        for (int i = 0, N = records.size() - 1; i <= N; i++) {
-            ConsumptionDataRecord record = records.get(i);
-            ConsumptionDataRecord recordFwd = records.get(Math.min(i + 1, N));
-            ConsumptionDataRecord recordBwd = records.get(Math.max(0, i - 1));
-            double speed = calcDerivate(recordFwd.getPosition() - recordBwd.getPosition(), recordFwd.getTime()
-                    - recordBwd.getTime());
-            newRecords.add(new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(), record
-                    .getPosition(), speed, record.getAcceleration(), record.getGrade()));
+    static final class SpeedCalculation extends SlidingDerivative {
+
+        SpeedCalculation(RecordSource source) {
+            super(source);
         }
-        return newRecords;
-    }
 
-    private List<ConsumptionDataRecord> calculateAccelerations() {
-        Preconditions.checkArgument(hasSpeed(), "cannot calculate accelerations without speeds.");
-        LOG.info("calculate accelerations numerically.");
-        List<ConsumptionDataRecord> newRecords = Lists.newArrayList();
-        for (int i = 0, N = records.size() - 1; i <= N; i++) {
-            ConsumptionDataRecord record = records.get(i);
-            ConsumptionDataRecord recordFwd = records.get(Math.min(i + 1, N));
-            ConsumptionDataRecord recordBwd = records.get(Math.max(0, i - 1));
-            double acceleration = calcDerivate(recordFwd.getSpeed() - recordBwd.getSpeed(), recordFwd.getTime()
+        @Override
+        ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd) {
+            double speed = calcDerivate(recordFwd.getPosition() - recordBwd.getPosition(), recordFwd.getTime()
                     - recordBwd.getTime());
-            newRecords.add(new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(), record
-                    .getPosition(), record.getSpeed(), acceleration, record.getGrade()));
+            return new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(),
+                    record.getPosition(), speed, record.getAcceleration(), record.getGrade());
         }
-        return newRecords;
     }
 
-    private double calcDerivate(double dx, double dy) {
-        return (dy == 0) ? Double.NaN : dx / dy;
-    }
+    static final class AccelerationCalculation extends SlidingDerivative {
 
-    private void parseInputData(List<String[]> input) {
-        InputDataParser parser = new InputDataParser(batchInput.getColumns(), batchInput.getConversions());
-        int index = 0;
-        for (String[] line : input) {
-            try {
-                ConsumptionDataRecord record = parser.parse(index, line);
-                records.add(record);
-                ++index;
-            } catch (NumberFormatException e) {
-                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
-            } catch (IllegalArgumentException e) {
-                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
-            }
+        AccelerationCalculation(RecordSource source) {
+            super(source);
         }
 
-        LOG.info("parsed={} from={} input lines", records.size(), input.size());
+        @Override
+        ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd) {
+            double acceleration = calcDerivate(recordFwd.getSpeed() - recordBwd.getSpeed(), recordFwd.getTime()
+                    - recordBwd.getTime());
+            return new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(),
+                    record.getPosition(), record.getSpeed(), acceleration, record.getGrade());
+        }
     }
 
-
 }
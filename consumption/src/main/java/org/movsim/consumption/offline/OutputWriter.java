@@ -25,6 +25,8 @@
  */
 package org.movsim.consumption.offline;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -38,18 +40,22 @@ import au.com.bytecode.opencsv.CSVWriter;
 
 import com.google.common.base.Preconditions;
 
-public class OutputWriter {
+public class OutputWriter implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(OutputWriter.class);
     
     private static final char QUOTE_CHARACTER = CSVWriter.NO_QUOTE_CHARACTER;
 
+    private static final int BUFFER_SIZE = 1 << 16;
+
     private final char separator;
     
     private final File output;
     
     private DateTimeFormatter dateTimeFormatter;
 
+    private CSVWriter writer;
+
     public OutputWriter(File outputFile, char separator) {
         this.separator = separator;
         this.output = Preconditions.checkNotNull(outputFile);
@@ -64,27 +70,50 @@ public class OutputWriter {
     }
 
     public void write(List<ConsumptionDataRecord> records) {
-        CSVWriter writer = null;
         try {
-            writer = new CSVWriter(new FileWriter(output), separator, QUOTE_CHARACTER);
-            if (!records.isEmpty()) {
-                writer.writeNext(records.get(0).csvHeader(String.valueOf(separator)));
-                for (ConsumptionDataRecord record : records) {
-                    writer.writeNext(record.toCsv(String.valueOf(separator), dateTimeFormatter));
-                }
+            for (ConsumptionDataRecord record : records) {
+                write(record);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    LOG.error(e.getMessage());
-                }
+            close();
+        }
+    }
+
+    /**
+     * Writes the next record of a stream, the file is opened with the first record. The header is taken from the first
+     * record.
+     * 
+     * @param record
+     */
+    public void write(ConsumptionDataRecord record) {
+        try {
+            if (writer == null) {
+                open();
+                writer.writeNext(record.csvHeader(String.valueOf(separator)));
             }
+            writer.writeNext(record.toCsv(String.valueOf(separator), dateTimeFormatter));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
+
+    private void open() throws IOException {
+        writer = new CSVWriter(new BufferedWriter(new FileWriter(output), BUFFER_SIZE), separator, QUOTE_CHARACTER);
+    }
 
+    /**
+     * Closes the file. An empty file is written if there have been no records.
+     */
+    @Override
+    public void close() {
+        try {
+            if (writer == null) {
+                open();
+            }
+            writer.close();
+        } catch (IOException e) {
+            LOG.error(e.getMessage());
+        }
     }
 
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.consumption.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.movsim.autogen.ConsumptionModel;
+import org.movsim.autogen.EngineCombustionMap;
+import org.movsim.autogen.FuelFlowTable;
+import org.movsim.autogen.GearRatio;
+import org.movsim.autogen.RotationModel;
+import org.movsim.autogen.VehicleData;
+
+/**
+ * Test module for the interpolation error of the {@link TabulatedEnergyFlowModel} against the analytic model.
+ */
+@SuppressWarnings("static-method")
+public class TabulatedEnergyFlowModelTest {
+
+    /** maximum interpolation error (liter/s) of the default table */
+    private static final double MAX_ERROR = 1e-3;
+
+    /** samples per table cell and dimension */
+    private static final int SAMPLES = 4;
+
+    // the car of the onramp example
+    private static ConsumptionModel newConsumptionModel() {
+        final VehicleData vehicleData = new VehicleData();
+        vehicleData.setMass(1000);
+        vehicleData.setCrossSectionSurface(2.13);
+        vehicleData.setCdValue(0.32);
+        vehicleData.setConstFriction(0.015);
+        vehicleData.setVFriction(0);
+        vehicleData.setElectricPower(1500);
+        final EngineCombustionMap engine = new EngineCombustionMap();
+        engine.setMaxPowerKW(100);
+        engine.setCylinderVolL(1.8);
+        engine.setIdleConsRateLinvh(0.8);
+        engine.setCspecMinGPerKwh(225);
+        engine.setPeMinBar(1);
+        engine.setPeMaxBar(22);
+        final RotationModel rotationModel = new RotationModel();
+        rotationModel.setIdleRotationRateInvmin(700);
+        rotationModel.setMaxRotationRateInvmin(4500);
+        rotationModel.setDynamicTyreRadius(0.31);
+        for (final double phi : new double[] { 16.7, 10.1, 6.8, 5.0, 3.8, 3.1, 2.6 }) {
+            final GearRatio gearRatio = new GearRatio();
+            gearRatio.setPhi(phi);
+            rotationModel.getGearRatio().add(gearRatio);
+        }
+        final ConsumptionModel model = new ConsumptionModel();
+        model.setLabel("carConsumption");
+        model.setVehicleData(vehicleData);
+        model.setEngineCombustionMap(engine);
+        model.setRotationModel(rotationModel);
+        return model;
+    }
+
+    /**
+     * Samples the fuel flow over the whole table domain and returns the maximum difference to the analytic model.
+     */
+    private static double maxError(EnergyFlowModelImpl model, TabulatedEnergyFlowModel tabulated, FuelFlowTable table) {
+        final double dv = table.getDv() / SAMPLES;
+        final double dacc = table.getDacc() / SAMPLES;
+        final double dgrade = table.getDgrade() / SAMPLES;
+        double maxError = 0;
+        for (double grade = table.getGradeMin(); grade <= table.getGradeMax() + 1e-9; grade += dgrade) {
+            for (double acc = table.getAccMin(); acc <= table.getAccMax() + 1e-9; acc += dacc) {
+                for (double v = 0; v <= table.getVMax() + 1e-9; v += dv) {
+                    final double exact = model.getFuelFlowInLiterPerS(v, acc, grade);
+                    final double interpolated = tabulated.getFuelFlowInLiterPerS(v, acc, grade);
+                    maxError = Math.max(maxError, Math.abs(interpolated - exact));
+                }
+            }
+        }
+        return maxError;
+    }
+
+    @Test
+    public final void testMaxErrorOfDefaultTable() {
+        final ConsumptionModel input = newConsumptionModel();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl(input.getLabel(), input);
+        final FuelFlowTable table = new FuelFlowTable();
+        final TabulatedEnergyFlowModel tabulated = new TabulatedEnergyFlowModel(input.getLabel(), model, table);
+
+        final double maxError = maxError(model, tabulated, table);
+        assertTrue("max. interpolation error=" + maxError, maxError <= MAX_ERROR);
+        assertTrue(tabulated.maxAbsoluteError() <= MAX_ERROR);
+        assertTrue(tabulated.meanAbsoluteError() <= tabulated.maxAbsoluteError());
+    }
+
+    @Test
+    public final void testMaxErrorOfTableWithGrades() {
+        final ConsumptionModel input = newConsumptionModel();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl(input.getLabel(), input);
+        final FuelFlowTable table = new FuelFlowTable();
+        table.setVMax(30);
+        table.setAccMin(-2);
+        table.setAccMax(2);
+        table.setGradeMin(-0.02);
+        table.setGradeMax(0.02);
+        final TabulatedEnergyFlowModel tabulated = new TabulatedEnergyFlowModel(input.getLabel(), model, table);
+
+        final double maxError = maxError(model, tabulated, table);
+        assertTrue("max. interpolation error=" + maxError, maxError <= MAX_ERROR);
+    }
+
+    @Test
+    public final void testExactAtNodes() {
+        final ConsumptionModel input = newConsumptionModel();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl(input.getLabel(), input);
+        final TabulatedEnergyFlowModel tabulated = new TabulatedEnergyFlowModel(input.getLabel(), model,
+                new FuelFlowTable());
+        assertEquals(model.getFuelFlowInLiterPerS(20, 0.5), tabulated.getFuelFlowInLiterPerS(20, 0.5), 1e-12);
+        assertEquals(model.getMinFuelFlow(20, 0.5, 0, true).getGear(), tabulated.getMinFuelFlow(20, 0.5, 0, true)
+                .getGear());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testTableExceedingMaxErrorIsRejected() {
+        final ConsumptionModel input = newConsumptionModel();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl(input.getLabel(), input);
+        // a coarse table with a bound tighter than its interpolation error
+        final FuelFlowTable table = new FuelFlowTable();
+        table.setDv(5);
+        table.setDacc(1);
+        table.setMaxError(1e-6);
+        new TabulatedEnergyFlowModel(input.getLabel(), model, table);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.consumption.offline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.Test;
+import org.movsim.consumption.offline.InputReader.AccelerationCalculation;
+import org.movsim.consumption.offline.InputReader.RecordSource;
+import org.movsim.consumption.offline.InputReader.SpeedCalculation;
+
+/**
+ * Test module for the central differences over the sliding window of records in the {@link InputReader}.
+ */
+@SuppressWarnings("static-method")
+public class SlidingDerivativeTest {
+
+    private static final double DELTA = 1e-10;
+
+    private static final class ListSource implements RecordSource {
+        private final Deque<ConsumptionDataRecord> records = new ArrayDeque<>();
+
+        ListSource(double[] times, double[] positions, double[] speeds) {
+            for (int i = 0; i < times.length; ++i) {
+                records.add(new ConsumptionDataRecord(i, times[i], null, positions[i], speeds == null ? Double.NaN
+                        : speeds[i], Double.NaN, 0));
+            }
+        }
+
+        @Override
+        public ConsumptionDataRecord next() {
+            return records.poll();
+        }
+    }
+
+    private static List<ConsumptionDataRecord> readAll(RecordSource source) throws Exception {
+        final List<ConsumptionDataRecord> records = new ArrayList<>();
+        ConsumptionDataRecord record;
+        while ((record = source.next()) != null) {
+            records.add(record);
+        }
+        // the end of the input stays the end
+        assertNull(source.next());
+        return records;
+    }
+
+    private static List<ConsumptionDataRecord> speeds(double[] times, double[] positions) throws Exception {
+        return readAll(new SpeedCalculation(new ListSource(times, positions, null)));
+    }
+
+    @Test
+    public final void testConstantSignal() throws Exception {
+        final double[] times = { 0, 1, 2, 3, 4 };
+        final List<ConsumptionDataRecord> records = speeds(times, new double[] { 7, 7, 7, 7, 7 });
+        assertEquals(times.length, records.size());
+        for (final ConsumptionDataRecord record : records) {
+            assertEquals(0, record.getSpeed(), DELTA);
+        }
+        final List<ConsumptionDataRecord> accelerations = readAll(new AccelerationCalculation(new ListSource(times,
+                new double[5], new double[] { 3, 3, 3, 3, 3 })));
+        for (final ConsumptionDataRecord record : accelerations) {
+            assertEquals(3, record.getSpeed(), DELTA);
+            assertEquals(0, record.getAcceleration(), DELTA);
+        }
+    }
+
+    @Test
+    public final void testLinearRamp() throws Exception {
+        final double[] times = { 0, 0.5, 1.5, 2, 4 };
+        final double[] positions = new double[times.length];
+        for (int i = 0; i < times.length; ++i) {
+            positions[i] = 100 + 12.5 * times[i];
+        }
+        final List<ConsumptionDataRecord> records = speeds(times, positions);
+        assertEquals(times.length, records.size());
+        for (int i = 0; i < times.length; ++i) {
+            // central and one-sided differences are exact for a linear signal
+            assertEquals(i, records.get(i).getIndex());
+            assertEquals(times[i], records.get(i).getTime(), DELTA);
+            assertEquals(positions[i], records.get(i).getPosition(), DELTA);
+            assertEquals(12.5, records.get(i).getSpeed(), DELTA);
+        }
+    }
+
+    @Test
+    public final void testWindowWrapAround() throws Exception {
+        // x = t^2, the window moves over the records and the record itself replaces the missing neighbour at the ends
+        final double[] times = { 0, 1, 2, 3 };
+        final List<ConsumptionDataRecord> records = speeds(times, new double[] { 0, 1, 4, 9 });
+        assertEquals(4, records.size());
+        assertEquals(1, records.get(0).getSpeed(), DELTA);
+        assertEquals(2, records.get(1).getSpeed(), DELTA);
+        assertEquals(4, records.get(2).getSpeed(), DELTA);
+        assertEquals(5, records.get(3).getSpeed(), DELTA);
+
+        // the accelerations are taken from the derived speeds as in the input reader
+        final List<ConsumptionDataRecord> accelerations = readAll(new AccelerationCalculation(new SpeedCalculation(
+                new ListSource(times, new double[] { 0, 1, 4, 9 }, null))));
+        assertEquals(4, accelerations.size());
+        assertEquals(1, accelerations.get(0).getAcceleration(), DELTA);
+        assertEquals(1.5, accelerations.get(1).getAcceleration(), DELTA);
+        assertEquals(1.5, accelerations.get(2).getAcceleration(), DELTA);
+        assertEquals(1, accelerations.get(3).getAcceleration(), DELTA);
+    }
+
+    @Test
+    public final void testTooFewSamples() throws Exception {
+        assertTrue(speeds(new double[0], new double[0]).isEmpty());
+
+        // a single record has no time difference
+        final List<ConsumptionDataRecord> single = speeds(new double[] { 1 }, new double[] { 5 });
+        assertEquals(1, single.size());
+        assertTrue(Double.isNaN(single.get(0).getSpeed()));
+
+        // two records share the one-sided difference
+        final List<ConsumptionDataRecord> two = speeds(new double[] { 1, 3 }, new double[] { 5, 9 });
+        assertEquals(2, two.size());
+        assertEquals(2, two.get(0).getSpeed(), DELTA);
+        assertEquals(2, two.get(1).getSpeed(), DELTA);
+    }
+}
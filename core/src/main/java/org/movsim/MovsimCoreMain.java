@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import javax.xml.bind.JAXBException;
+import java.io.IOException;
 import java.util.Locale;
 
 /**
@@ -50,8 +51,9 @@ public class MovsimCoreMain {
      * @param args the command line arguments
      * @throws SAXException
      * @throws JAXBException
+     * @throws IOException
      */
-    public static void main(String[] args) throws JAXBException, SAXException {
+    public static void main(String[] args) throws JAXBException, SAXException, IOException {
         Locale.setDefault(Locale.US);
         org.movsim.logging.Logger.initializeLogger();
         MovsimCommandLine.parse(args);
@@ -64,12 +66,12 @@ public class MovsimCoreMain {
         // FIXME not working
         // LogFileAppender.initialize(projectMetaData);
 
-        // unmarshall movsim configuration file
-        Movsim movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
         if (projectMetaData.isScanMode()) {
             LOG.info("scanning mode");
-            SimulationScan.invokeSimulationScan(movsimInput);
+            SimulationScan.invokeSimulationScan(projectMetaData);
         } else {
+            // unmarshall movsim configuration file
+            Movsim movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
             invokeSingleSimulation(movsimInput);
         }
     }
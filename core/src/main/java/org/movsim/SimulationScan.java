@@ -25,20 +25,39 @@
  */
 package org.movsim;
 
-import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.movsim.autogen.Movsim;
-import org.movsim.autogen.VehiclePrototypeConfiguration;
-import org.movsim.autogen.VehicleType;
 import org.movsim.input.ProjectMetaData;
+import org.movsim.scan.FileScanResults;
+import org.movsim.scan.ScanDesign;
+import org.movsim.scan.ScanInput;
+import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.simulator.Simulator;
-import org.movsim.utilities.FileUtils;
+import org.movsim.utilities.RunContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
-
-import javax.xml.bind.JAXBException;
-import java.io.PrintWriter;
 
+/**
+ * <p>
+ * Runs the simulation for all points of a {@link ScanDesign} which is read from the file {@code <project>.scan.properties}
+ * next to the project file.
+ * </p>
+ * <p>
+ * The runs are independent and are executed concurrently by a pool of {@code threads} workers. Each run gets its own copy of
+ * the input and its own {@link RunContext}, so seeded runs give the same results as sequential single runs. The file output
+ * of a run is written with the project name {@code <project>.scanNNNN}, the aggregated results of all runs are streamed to
+ * {@code <project>.scan.csv}.
+ * </p>
+ */
 public final class SimulationScan {
 
     private static final Logger LOG = LoggerFactory.getLogger(SimulationScan.class);
@@ -47,78 +66,86 @@ public final class SimulationScan {
         throw new IllegalStateException("do not instanciate");
     }
 
-    static final String OUTPUT_NAME = ".totalAvgTravelTime.csv";
+    static final String DESIGN_FILE_ENDING = ".scan.properties";
 
-    public static void invokeSimulationScan(final Movsim inputData) throws JAXBException, SAXException {
-
-        // 50x50 grid scan
-        double uncertaintyMin = 0;
-        double uncertaintyMax = 300;
-        double uncertaintyStep = 30;
+    public static void invokeSimulationScan(final ProjectMetaData projectMetaData) throws IOException {
+        final File designFile = projectMetaData.getFile(projectMetaData.getProjectName() + DESIGN_FILE_ENDING);
+        if (!designFile.isFile()) {
+            throw new IllegalArgumentException("scan mode needs the scan design file " + designFile
+                    + ", see sim/features/routing/decision_point" + DESIGN_FILE_ENDING + " for an example");
+        }
+        final ScanDesign design = ScanDesign.load(designFile);
+        final List<double[]> points = design.points();
+        LOG.info("scan design={} with {} runs and {} threads from file={}", design.getType(), points.size(),
+                design.getThreads(), designFile);
 
-        double fractionMin = 0;
-        double fractionMax = 1;
-        double fractionStep = 0.1;
+        final ScanInput scanInput = new ScanInput(projectMetaData.getInputFile(), design.getParameters());
+        final FileScanResults results = new FileScanResults(projectMetaData.getOutputPath(),
+                projectMetaData.getProjectName(), design.getParameters());
 
-        String filename = ProjectMetaData.getInstance().getProjectName() + OUTPUT_NAME;
-        PrintWriter writer = FileUtils.getWriter(filename);
-        double fraction = fractionMin;
-        double uncertainty = uncertaintyMin;
-        while (fraction <= fractionMax) {
-            while (uncertainty <= uncertaintyMax) {
-                modifyInput(inputData, fraction, uncertainty);
-                Simulator simRun = MovsimCoreMain.invokeSingleSimulation(inputData);
-                writeOutput(writer, fraction, uncertainty, simRun);
-                if (uncertainty < uncertaintyMax && uncertainty + uncertaintyStep > uncertaintyMax) {
-                    // handle boundary explicitly, not elegant
-                    uncertainty = uncertaintyMax;
-                } else {
-                    uncertainty += uncertaintyStep;
-                }
+        final ExecutorService executor = Executors.newFixedThreadPool(design.getThreads());
+        final CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            for (int i = 0; i < points.size(); i++) {
+                completionService.submit(new ScanRun(i, points.get(i), scanInput, projectMetaData, results));
             }
-            writer.println();
-            uncertainty = uncertaintyMin;
-            if (fraction < fractionMax && fraction + fractionStep > fractionMax) {
-                // handle boundary explicitly
-                fraction = fractionMax;
-            } else {
-                fraction += fractionStep;
+            int failed = 0;
+            for (int i = 0; i < points.size(); i++) {
+                try {
+                    final int run = completionService.take().get();
+                    LOG.info("### scan run {} completed ({} of {})", run, i + 1, points.size());
+                } catch (ExecutionException e) {
+                    ++failed;
+                    LOG.error("scan run failed", e.getCause());
+                }
             }
+            LOG.info("scan finished: {} runs, {} failed", points.size(), failed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("scan interrupted");
+        } finally {
+            executor.shutdownNow();
+            results.onShutDown();
         }
-        writer.close();
     }
 
-    private static void writeOutput(PrintWriter writer, double fraction, double uncertainty, Simulator simRun) {
-        StringBuilder sb = new StringBuilder();
-        double avgTravelTime =
-                simRun.getRoadNetwork().totalVehicleTravelTime() / simRun.getRoadNetwork().totalVehiclesRemoved();
-        sb.append(String.format("%.3f", fraction)).append(", ").append(String.format("%.3f", uncertainty)).append(", ")
-                .append(String.format("%.3f", avgTravelTime));
-        writer.println(sb.toString());
-        writer.flush();
-    }
+    private static final class ScanRun implements Callable<Integer> {
 
-    private static void modifyInput(final Movsim inputData, double fraction, double uncertainty) {
-        Preconditions.checkArgument(
-                inputData.getScenario().getSimulation().getTrafficComposition().getVehicleType().size() == 2);
-        VehicleType equippedVehicleType = inputData.getScenario().getSimulation().getTrafficComposition()
-                .getVehicleType().get(0);
-        Preconditions.checkArgument(equippedVehicleType.getLabel().equals("Equipped"));
-        equippedVehicleType.setFraction(fraction);
+        private final int run;
+        private final double[] values;
+        private final ScanInput scanInput;
+        private final ProjectMetaData projectMetaData;
+        private final FileScanResults results;
 
-        VehicleType nonEquippedVehicleType = inputData.getScenario().getSimulation().getTrafficComposition()
-                .getVehicleType().get(1);
-        Preconditions.checkArgument(nonEquippedVehicleType.getLabel().equals("NonEquipped"));
-        nonEquippedVehicleType.setFraction(1 - fraction);
+        ScanRun(int run, double[] values, ScanInput scanInput, ProjectMetaData projectMetaData,
+                FileScanResults results) {
+            this.run = run;
+            this.values = values;
+            this.scanInput = scanInput;
+            this.projectMetaData = projectMetaData;
+            this.results = results;
+        }
 
-        VehiclePrototypeConfiguration equippedVehPrototypeConfig = inputData.getVehiclePrototypes()
-                .getVehiclePrototypeConfiguration().get(0);
-        Preconditions.checkArgument(equippedVehPrototypeConfig.getLabel().equals("Equipped"));
-        Preconditions.checkArgument(equippedVehPrototypeConfig.getPersonalNavigationDevice().isSetServiceProvider());
-        equippedVehPrototypeConfig.getPersonalNavigationDevice().setUncertainty(uncertainty);
-        Preconditions.checkArgument(inputData.getServiceProviders().getServiceProvider().size() == 1);
-        inputData.getServiceProviders().getServiceProvider().get(0).getDecisionPoints().setUncertainty(uncertainty);
-        LOG.info("### modified input: uncertainty={}, fraction={}", uncertainty, fraction);
+        @Override
+        public Integer call() {
+            final ProjectMetaData runMetaData = projectMetaData.copy();
+            runMetaData.setProjectName(String.format("%s.scan%04d", projectMetaData.getProjectName(), run));
+            final RunContext previous = RunContext.bind(new RunContext(runMetaData));
+            try {
+                final long startMillis = System.currentTimeMillis();
+                final Movsim movsimInput = scanInput.create(values);
+                final Simulator simulator = new Simulator(movsimInput);
+                simulator.initialize(movsimInput);
+                simulator.runToCompletion();
+                results.write(run, values, simulator.getRoadNetwork(), System.currentTimeMillis() - startMillis);
+                return run;
+            } catch (RuntimeException e) {
+                // close the file output of the failed run
+                ShutdownHooks.INSTANCE.onShutDown();
+                throw e;
+            } finally {
+                RunContext.restore(previous);
+            }
+        }
     }
-
 }
@@ -78,29 +78,33 @@ public class OpenDriveHandler {
     }
 
     private void createRoadSegments(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) {
+        final List<RoadSegment> roadSegments = new ArrayList<>(2 * openDriveNetwork.getRoad().size());
         for (Road road : openDriveNetwork.getRoad()) {
             boolean hasPeer = hasPeer(road);
             if (hasPeer) {
                 LOG.info("road={} consists of peers", road.getId());
             }
             final RoadMapping roadMapping = createRoadMappings(road);
+            final int roadStart = roadSegments.size();
             for (LaneSectionType laneType : Lanes.LaneSectionType.values()) {
                 if (hasLaneSectionType(road, laneType)) {
                     RoadSegment roadSegment = createRoadSegment(laneType, road, hasPeer, roadMapping);
                     if (roadSegment == null) {
                         throw new IllegalStateException("could not create roadSegment for road=" + road.getId());
                     }
-                    roadNetwork.add(roadSegment);
+                    roadSegments.add(roadSegment);
                     LOG.info("created roadSegment={} with laneCount={}", roadSegment.userId(), roadSegment.laneCount());
                 }
             }
             if (hasPeer) {
-                RoadSegment roadSegmentRight = getRoadSegment(roadNetwork, road.getId(), LaneSectionType.RIGHT);
-                RoadSegment roadSegmentLeft = getRoadSegment(roadNetwork, road.getId(), LaneSectionType.LEFT);
+                // both lane section types are defined for peers
+                RoadSegment roadSegmentLeft = roadSegments.get(roadStart);
+                RoadSegment roadSegmentRight = roadSegments.get(roadStart + 1);
                 roadSegmentLeft.setPeerRoadSegment(roadSegmentRight);
                 roadSegmentRight.setPeerRoadSegment(roadSegmentLeft);
             }
         }
+        roadNetwork.addAll(roadSegments);
         LOG.info("created {} roadSegments.", roadNetwork.size());
     }
 
@@ -391,13 +395,11 @@ public class OpenDriveHandler {
             roadSegment.setLaneType(laneNumber, Lanes.Type.TRAFFIC);
         } else if (lane.getType().equals(Lanes.Type.ENTRANCE.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.ENTRANCE);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
-            obstacle.setType(Vehicle.Type.OBSTACLE);
+            Vehicle obstacle = new Vehicle(Vehicle.Type.OBSTACLE, roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.RESTRICTED.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.RESTRICTED);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
-            obstacle.setType(Vehicle.Type.OBSTACLE);
+            Vehicle obstacle = new Vehicle(Vehicle.Type.OBSTACLE, roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.EXIT.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.EXIT);
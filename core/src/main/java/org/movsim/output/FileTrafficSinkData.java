@@ -50,6 +50,6 @@ public class FileTrafficSinkData extends FileOutputBase implements
         writer.printf(OUTPUT_FORMAT, simulationTime, formattedTime, totalVehiclesRemoved, vehicle.lane(),
                 vehicle.getRouteName(), vehicle.getId(), vehicle.getLabel(),
                 vehicle.getUserData().getString(SEPARATOR_CHAR));
-        writer.flush();
+        flushIfDue();
     }
 }
@@ -47,6 +47,6 @@ public class FileTrafficSourceData extends FileOutputBase implements TrafficSour
             int enteringVehCounter, double nWait) {
         writer.printf(OUTPUT_FORMAT, simulationTime, laneEnter, xEnter, 3.6 * vEnter, 3600 * totalInflow,
                 enteringVehCounter, nWait);
-        writer.flush();
+        flushIfDue();
     }
 }
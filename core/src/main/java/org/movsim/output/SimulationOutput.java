@@ -30,6 +30,7 @@ import org.movsim.autogen.*;
 import org.movsim.output.floatingcars.FloatingCars;
 import org.movsim.output.route.*;
 import org.movsim.simulator.SimulationTimeStep;
+import org.movsim.simulator.TimeStepObservers;
 import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
@@ -60,12 +61,19 @@ public class SimulationOutput implements SimulationTimeStep {
 
     private final Map<Route, IndividualTravelTimesOnRoute> individualTravelTimeOnRoutes = new HashMap<>();
 
+    /**
+     * all outputs and service providers in the order of their update, outputs without effect are not registered.
+     */
+    private final TimeStepObservers<SimulationTimeStep> observers = new TimeStepObservers<>();
+
     private final ServiceProviders serviceProviders;
 
     private final RoadNetwork roadNetwork;
 
     private final Routing routing;
 
+    private final double simulationTimestep;
+
     public SimulationOutput(double simulationTimestep, boolean writeOutput, OutputConfiguration outputConfiguration,
             RoadNetwork roadNetwork, Routing routing, @Nullable ServiceProviders serviceProviders) {
 
@@ -73,6 +81,7 @@ public class SimulationOutput implements SimulationTimeStep {
         this.roadNetwork = Preconditions.checkNotNull(roadNetwork);
         this.routing = Preconditions.checkNotNull(routing);
         this.serviceProviders = serviceProviders;
+        this.simulationTimestep = simulationTimestep;
 
         initFloatingCars(writeOutput, outputConfiguration);
         initConsumption(writeOutput, simulationTimestep, outputConfiguration);
@@ -81,6 +90,37 @@ public class SimulationOutput implements SimulationTimeStep {
         initSpatioTemporalOutput(writeOutput, outputConfiguration);
         initTrajectories(writeOutput, outputConfiguration);
 
+        registerObservers();
+    }
+
+    private void registerObservers() {
+        for (FloatingCars floatingCars : floatingCarOutputs) {
+            if (floatingCars.isWriteOutput()) {
+                observers.add(floatingCars, floatingCars.getStepInterval());
+            }
+        }
+        for (final SpatioTemporal sp : spatioTemporals) {
+            observers.add(sp, sp.getStepInterval(simulationTimestep));
+        }
+        for (final FileTrajectories filetraj : filesTrajectories.values()) {
+            observers.add(filetraj, filetraj.getStepInterval(simulationTimestep));
+        }
+        // the travel times, like the consumption, are integrated and averaged over every time step
+        for (final TravelTimeOnRoute travelTime : travelTimeOnRoutes.values()) {
+            observers.add(travelTime);
+        }
+        for (final IndividualTravelTimesOnRoute indivTravelTimes : individualTravelTimeOnRoutes.values()) {
+            observers.add(indivTravelTimes);
+        }
+        for (final ConsumptionOnRoute consumption : consumptionOnRoutes.values()) {
+            observers.add(consumption);
+        }
+        if (serviceProviders != null) {
+            for (final ServiceProvider serviceProvider : serviceProviders) {
+                observers.add(serviceProvider);
+            }
+        }
+        LOG.info("registered {} output time step observers", observers.size());
     }
 
     private Route getCheckedRoute(final String routeLabel) {
@@ -134,7 +174,8 @@ public class SimulationOutput implements SimulationTimeStep {
                 .getSpatioTemporalConfiguration()) {
             final Route route = getCheckedRoute(spatioTemporalInput.getRoute());
             final SpatioTemporal spatioTemporal = new SpatioTemporal(spatioTemporalInput.getDx(),
-                    spatioTemporalInput.getDt(), roadNetwork, route, writeOutput);
+                    spatioTemporalInput.getDt(), spatioTemporalInput.getAggregation(), roadNetwork, route,
+                    writeOutput);
             spatioTemporals.add(spatioTemporal);
         }
     }
@@ -148,37 +189,11 @@ public class SimulationOutput implements SimulationTimeStep {
 
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
-
-        for (FloatingCars floatingCars : floatingCarOutputs) {
-            floatingCars.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        for (final SpatioTemporal sp : spatioTemporals) {
-            sp.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        for (final FileTrajectories filetraj : filesTrajectories.values()) {
-            filetraj.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        for (final TravelTimeOnRoute travelTime : travelTimeOnRoutes.values()) {
-            travelTime.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        for (final IndividualTravelTimesOnRoute indivTravelTimes : individualTravelTimeOnRoutes.values()) {
-            indivTravelTimes.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        for (final ConsumptionOnRoute consumption : consumptionOnRoutes.values()) {
-            consumption.timeStep(dt, simulationTime, iterationCount);
-        }
-
-        if (serviceProviders != null) {
-            for (final ServiceProvider serviceProvider : serviceProviders) {
-                serviceProvider.timeStep(dt, simulationTime, iterationCount);
+        for (int i = 0, n = observers.size(); i < n; i++) {
+            if (observers.isDue(i, iterationCount)) {
+                observers.get(i).timeStep(dt, simulationTime, iterationCount);
             }
         }
-
     }
 
 }
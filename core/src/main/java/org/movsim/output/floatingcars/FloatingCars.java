@@ -55,7 +55,8 @@ public class FloatingCars implements SimulationTimeStep {
 
     private final FileFloatingCars fileFloatingCars;
 
-    private final Map<Vehicle, PrintWriter> printWriters;
+    // keyed by the vehicle id, a pooled vehicle is reused with another id
+    private final Map<Long, PrintWriter> printWriters;
 
     public FloatingCars(FloatingCarOutput floatingCarOutput, Route route, boolean writeFileOutput) {
         Preconditions.checkNotNull(route);
@@ -71,6 +72,20 @@ public class FloatingCars implements SimulationTimeStep {
         printWriters = new HashMap<>(149, 0.75f);
     }
 
+    /**
+     * @return true if the floating car data are written to file, otherwise the time steps are ignored
+     */
+    public boolean isWriteOutput() {
+        return fileFloatingCars != null;
+    }
+
+    /**
+     * @return the number of time steps between two outputs
+     */
+    public int getStepInterval() {
+        return nDtOut;
+    }
+
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         if (fileFloatingCars != null && iterationCount % nDtOut == 0) {
@@ -92,7 +107,7 @@ public class FloatingCars implements SimulationTimeStep {
     }
 
     private PrintWriter checkFloatingCar(Vehicle vehicle) {
-        PrintWriter printWriter = printWriters.get(vehicle);
+        PrintWriter printWriter = printWriters.get(vehicle.getId());
         if (printWriter != null) {
             return printWriter;
         }
@@ -102,7 +117,7 @@ public class FloatingCars implements SimulationTimeStep {
             final PrintWriter writer = fileFloatingCars.createWriter(vehicle, route);
             FileFloatingCars.writeHeader(writer, vehicle, route);
             writer.flush();
-            printWriters.put(vehicle, writer);
+            printWriters.put(vehicle.getId(), writer);
             return writer;
         }
         return null;
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.output.route;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads the binary trajectory output written by {@link BinaryTrajectoryWriter} block by block. The records of the current
+ * block are accessed by index.
+ */
+public final class BinaryTrajectoryReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private final String route;
+
+    private final double offsetPosition;
+
+    private final long timeOffsetMillis;
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private double time;
+    private int size;
+    private int[] lanes = new int[0];
+    private double[] positions = new double[0];
+    private double[] speeds = new double[0];
+    private double[] accelerations = new double[0];
+    private double[] gaps = new double[0];
+    private double[] relativeSpeeds = new double[0];
+    private long[] ids = new long[0];
+    private int[] roadIds = new int[0];
+    private int[] originIds = new int[0];
+    private int[] labels = new int[0];
+    private int[] userData = new int[0];
+
+    /**
+     * Constructor, reads the header of the file.
+     * 
+     * @throws IOException
+     *             if the file is not a binary trajectory file
+     */
+    public BinaryTrajectoryReader(File file) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != BinaryTrajectoryWriter.MAGIC) {
+                throw new IOException("not a binary trajectory file: " + file);
+            }
+            final int version = in.readInt();
+            if (version != BinaryTrajectoryWriter.VERSION) {
+                throw new IOException("unsupported version=" + version + " of binary trajectory file: " + file);
+            }
+            route = readString();
+            offsetPosition = in.readDouble();
+            timeOffsetMillis = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next block.
+     * 
+     * @return false if the end of the file has been reached
+     */
+    public boolean nextBlock() throws IOException {
+        final int recordCount;
+        try {
+            recordCount = in.readInt();
+        } catch (EOFException e) {
+            size = 0;
+            return false;
+        }
+        time = in.readDouble();
+        final int newStringCount = in.readInt();
+        for (int i = 0; i < newStringCount; i++) {
+            dictionary.add(readString());
+        }
+        if (recordCount > lanes.length) {
+            allocate(recordCount);
+        }
+        size = recordCount;
+        readInts(lanes);
+        readDoubles(positions);
+        readDoubles(speeds);
+        readDoubles(accelerations);
+        readDoubles(gaps);
+        readDoubles(relativeSpeeds);
+        for (int i = 0; i < size; i++) {
+            ids[i] = in.readLong();
+        }
+        readInts(roadIds);
+        readInts(originIds);
+        readInts(labels);
+        readInts(userData);
+        return true;
+    }
+
+    public String route() {
+        return route;
+    }
+
+    public double offsetPosition() {
+        return offsetPosition;
+    }
+
+    public long timeOffsetMillis() {
+        return timeOffsetMillis;
+    }
+
+    /**
+     * @return the output time of the current block
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * @return the number of records of the current block
+     */
+    public int size() {
+        return size;
+    }
+
+    public int lane(int index) {
+        return lanes[checkIndex(index)];
+    }
+
+    public double position(int index) {
+        return positions[checkIndex(index)];
+    }
+
+    public double speed(int index) {
+        return speeds[checkIndex(index)];
+    }
+
+    public double acceleration(int index) {
+        return accelerations[checkIndex(index)];
+    }
+
+    public double gap(int index) {
+        return gaps[checkIndex(index)];
+    }
+
+    public double relativeSpeed(int index) {
+        return relativeSpeeds[checkIndex(index)];
+    }
+
+    public long id(int index) {
+        return ids[checkIndex(index)];
+    }
+
+    public int roadId(int index) {
+        return roadIds[checkIndex(index)];
+    }
+
+    public int originId(int index) {
+        return originIds[checkIndex(index)];
+    }
+
+    public String label(int index) {
+        return string(labels[checkIndex(index)]);
+    }
+
+    public String userData(int index) {
+        return string(userData[checkIndex(index)]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String string(int dictionaryIndex) {
+        return dictionaryIndex == BinaryTrajectoryWriter.NULL_STRING ? null : dictionary.get(dictionaryIndex);
+    }
+
+    private int checkIndex(int index) {
+        return Preconditions.checkElementIndex(index, size);
+    }
+
+    private String readString() throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void readInts(int[] values) throws IOException {
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readInt();
+        }
+    }
+
+    private void readDoubles(double[] values) throws IOException {
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readDouble();
+        }
+    }
+
+    private void allocate(int capacity) {
+        lanes = new int[capacity];
+        positions = new double[capacity];
+        speeds = new double[capacity];
+        accelerations = new double[capacity];
+        gaps = new double[capacity];
+        relativeSpeeds = new double[capacity];
+        ids = new long[capacity];
+        roadIds = new int[capacity];
+        originIds = new int[capacity];
+        labels = new int[capacity];
+        userData = new int[capacity];
+    }
+}
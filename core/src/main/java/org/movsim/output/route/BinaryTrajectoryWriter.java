@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.output.route;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Compact binary trajectory output. The records of one output time are written as a block in columnar layout, every column
+ * has a fixed width per record, strings (vehicle labels and user data) are replaced by indices into a dictionary which is
+ * written incrementally.
+ * </p>
+ * 
+ * <pre>
+ * header: int magic, int version, string route, double offsetPosition, long timeOffsetMillis
+ * block:  int recordCount, double time, int newStringCount, string[newStringCount],
+ *         int lane[n], double position[n], double speed[n], double acceleration[n], double gap[n], double relativeSpeed[n],
+ *         long id[n], int roadId[n], int originId[n], int label[n], int userData[n]
+ * string: int byteCount, byte[byteCount] (UTF-8)
+ * </pre>
+ * <p>
+ * All values are big-endian. A dictionary index of -1 stands for a null string. The file is written through a
+ * {@link FileChannel} with a single direct buffer which is reused for the whole file; columns and strings which do not
+ * fit into the buffer are written in several parts. See {@link BinaryTrajectoryReader} and
+ * {@link TrajectoryCsvConverter}.
+ * </p>
+ */
+public final class BinaryTrajectoryWriter implements Closeable {
+
+    static final int MAGIC = 0x4d565452; // "MVTR"
+
+    static final int VERSION = 1;
+
+    static final int NULL_STRING = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private final List<String> newStrings = new ArrayList<>();
+
+    private double time;
+    private int size;
+    private int[] lanes = new int[64];
+    private double[] positions = new double[64];
+    private double[] speeds = new double[64];
+    private double[] accelerations = new double[64];
+    private double[] gaps = new double[64];
+    private double[] relativeSpeeds = new double[64];
+    private long[] ids = new long[64];
+    private int[] roadIds = new int[64];
+    private int[] originIds = new int[64];
+    private int[] labels = new int[64];
+    private int[] userData = new int[64];
+
+    /**
+     * Constructor. Creates or overwrites the file and writes the header.
+     * 
+     * @param file
+     * @param route
+     *            description of the route
+     * @param offsetPosition
+     *            offset of the positions for the {@code xWithOffset} column
+     * @param timeOffsetMillis
+     *            global time offset for the {@code absTime} column
+     */
+    public BinaryTrajectoryWriter(File file, String route, double offsetPosition, long timeOffsetMillis)
+            throws IOException {
+        this(file, BUFFER_SIZE, route, offsetPosition, timeOffsetMillis);
+    }
+
+    BinaryTrajectoryWriter(File file, int bufferSize, String route, double offsetPosition, long timeOffsetMillis)
+            throws IOException {
+        // the buffer must hold the largest single value
+        Preconditions.checkArgument(bufferSize >= 16, "bufferSize=" + bufferSize);
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        ensureRemaining(8);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        putString(route);
+        ensureRemaining(16);
+        buffer.putDouble(offsetPosition);
+        buffer.putLong(timeOffsetMillis);
+    }
+
+    /**
+     * Starts the block of records of the given output time.
+     * 
+     * @param simulationTime
+     */
+    public void beginBlock(double simulationTime) {
+        Preconditions.checkState(size == 0, "block not finished");
+        this.time = simulationTime;
+    }
+
+    /**
+     * Adds a record to the current block.
+     */
+    public void add(int lane, double position, double speed, double acceleration, double gap, double relativeSpeed,
+            long id, int roadId, int originId, String label, String userDataString) {
+        if (size == lanes.length) {
+            grow();
+        }
+        lanes[size] = lane;
+        positions[size] = position;
+        speeds[size] = speed;
+        accelerations[size] = acceleration;
+        gaps[size] = gap;
+        relativeSpeeds[size] = relativeSpeed;
+        ids[size] = id;
+        roadIds[size] = roadId;
+        originIds[size] = originId;
+        labels[size] = index(label);
+        userData[size] = index(userDataString);
+        ++size;
+    }
+
+    /**
+     * Writes the current block.
+     */
+    public void endBlock() throws IOException {
+        ensureRemaining(16);
+        buffer.putInt(size);
+        buffer.putDouble(time);
+        buffer.putInt(newStrings.size());
+        for (final String string : newStrings) {
+            putString(string);
+        }
+        newStrings.clear();
+        putInts(lanes);
+        putDoubles(positions);
+        putDoubles(speeds);
+        putDoubles(accelerations);
+        putDoubles(gaps);
+        putDoubles(relativeSpeeds);
+        putLongs(ids);
+        putInts(roadIds);
+        putInts(originIds);
+        putInts(labels);
+        putInts(userData);
+        size = 0;
+    }
+
+    /**
+     * Writes the buffered data to the file.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+
+    // the column writers fill the buffer as far as it goes and flush it in between, so that a column of any size is
+    // written through the same buffer
+
+    private void putInts(int[] values) throws IOException {
+        int i = 0;
+        while (i < size) {
+            ensureRemaining(4);
+            final int end = Math.min(size, i + buffer.remaining() / 4);
+            for (; i < end; i++) {
+                buffer.putInt(values[i]);
+            }
+        }
+    }
+
+    private void putLongs(long[] values) throws IOException {
+        int i = 0;
+        while (i < size) {
+            ensureRemaining(8);
+            final int end = Math.min(size, i + buffer.remaining() / 8);
+            for (; i < end; i++) {
+                buffer.putLong(values[i]);
+            }
+        }
+    }
+
+    private void putDoubles(double[] values) throws IOException {
+        int i = 0;
+        while (i < size) {
+            ensureRemaining(8);
+            final int end = Math.min(size, i + buffer.remaining() / 8);
+            for (; i < end; i++) {
+                buffer.putDouble(values[i]);
+            }
+        }
+    }
+
+    private void putString(String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(4);
+        buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+            final int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private int index(String string) {
+        if (string == null) {
+            return NULL_STRING;
+        }
+        Integer index = dictionary.get(string);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(string, index);
+            newStrings.add(string);
+        }
+        return index;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void grow() {
+        final int capacity = 2 * lanes.length;
+        lanes = Arrays.copyOf(lanes, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accelerations = Arrays.copyOf(accelerations, capacity);
+        gaps = Arrays.copyOf(gaps, capacity);
+        relativeSpeeds = Arrays.copyOf(relativeSpeeds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        roadIds = Arrays.copyOf(roadIds, capacity);
+        originIds = Arrays.copyOf(originIds, capacity);
+        labels = Arrays.copyOf(labels, capacity);
+        userData = Arrays.copyOf(userData, capacity);
+    }
+}
@@ -27,22 +27,30 @@ package org.movsim.output.route;
 
 import com.google.common.base.Preconditions;
 import org.movsim.autogen.Trajectories;
+import org.movsim.autogen.TrajectoryFormatEnum;
 import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.SimulationTimeStep;
+import org.movsim.simulator.TimeStepObservers;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.File;
+import java.io.IOException;
+
 public class FileTrajectories extends FileOutputBase implements SimulationTimeStep {
 
-    private static final String SEPARATOR = ",";
+    static final String SEPARATOR = ",";
     private static final String EXTENSION_FORMAT = ".traj.route_%s.csv";
-    private static final String OUTPUT_HEADING = COMMENT_CHAR
+    private static final String BINARY_EXTENSION_FORMAT = ".traj.route_%s.bin";
+    static final String OUTPUT_HEADING = COMMENT_CHAR
             + "     t[s], lane,       x[m],     v[m/s],   a[m/s^2],     gap[m],    dv[m/s], label,           id,  roadId, originId, infoComment, absTime, xWithOffset[m]";
-    private static final String OUTPUT_FORMAT = "%10.2f, %4d, %10.1f, %10.4f, %10.5f, %10.2f, %10.6f,  %s, %12d, %8d, %8d, %s, %10.4f, %s%n";
+    static final String OUTPUT_FORMAT = "%10.2f, %4d, %10.1f, %10.4f, %10.5f, %10.2f, %10.6f,  %s, %12d, %8d, %8d, %s, %10.4f, %s%n";
 
     private final double positionIntervalStart;
     private final double positionIntervalEnd;
@@ -52,6 +60,9 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
 
     private final Trajectories traj;
 
+    /** null for csv output */
+    private final BinaryTrajectoryWriter binaryWriter;
+
     public FileTrajectories(Trajectories traj, Route route) {
         super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
         this.traj = Preconditions.checkNotNull(traj);
@@ -61,8 +72,26 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
 
         LOG.info("interval for output: timeStart={}, timeEnd={}", traj.isSetStartTime() ? traj.getStartTime() : "--",
                 traj.isSetEndTime() ? traj.getEndTime() : "--");
-        writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
-        writeHeader(route);
+        if (traj.getFormat() == TrajectoryFormatEnum.BINARY) {
+            binaryWriter = createBinaryWriter(String.format(BINARY_EXTENSION_FORMAT, route.getName()));
+        } else {
+            binaryWriter = null;
+            writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
+            writeHeader(route);
+        }
+    }
+
+    private BinaryTrajectoryWriter createBinaryWriter(String extension) {
+        filename = path + File.separator + baseFilename + extension;
+        LOG.info("open file {} for writing", filename);
+        try {
+            final BinaryTrajectoryWriter binaryTrajectoryWriter = new BinaryTrajectoryWriter(new File(filename),
+                    route.toString(), traj.getOffsetPosition(), ProjectMetaData.getInstance().getTimeOffsetMillis());
+            ShutdownHooks.INSTANCE.addCallback(this);
+            return binaryTrajectoryWriter;
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot open file " + filename + " for writing: " + e.toString());
+        }
     }
 
     private void writeHeader(Route route) {
@@ -71,6 +100,16 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
         writer.flush();
     }
 
+    /**
+     * Returns the number of time steps between two outputs.
+     *
+     * @param simulationTimestep
+     * @return the number of time steps between two outputs
+     */
+    public int getStepInterval(double simulationTimestep) {
+        return TimeStepObservers.stepInterval(traj.getDt(), simulationTimestep);
+    }
+
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         this.time = simulationTime;
@@ -80,8 +119,12 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
             }
             if ((time - lastUpdateTime + MovsimConstants.SMALL_VALUE) >= traj.getDt()) {
                 lastUpdateTime = time;
-                String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
-                writeTrajectories(formattedTime);
+                if (binaryWriter != null) {
+                    writeBinaryTrajectories();
+                } else {
+                    String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+                    writeTrajectories(formattedTime);
+                }
             }
         }
     }
@@ -100,6 +143,16 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
         return time <= traj.getEndTime();
     }
 
+    private void writeBinaryTrajectories() {
+        binaryWriter.beginBlock(time);
+        writeTrajectories(null);
+        try {
+            binaryWriter.endBlock();
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write to file " + filename + ": " + e.toString());
+        }
+    }
+
     private void writeTrajectories(String formattedTime) {
         double positionOnRoute = 0.0;
         for (final RoadSegment roadSegment : route) {
@@ -111,7 +164,7 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
                     if (!traj.isSetRandomFraction() || vehicle.getRandomFix() < traj.getRandomFraction()) {
                         if (vehicle.getFrontPosition() >= positionIntervalStart
                                 && vehicle.getFrontPosition() <= positionIntervalEnd) {
-                            writeVehicleData(vehicle, positionOnRoute, laneSegment.frontVehicle(vehicle),
+                            writeVehicleData(vehicle, positionOnRoute, laneSegment.frontNeighbour(vehicle),
                                     formattedTime);
                         }
                     }
@@ -121,7 +174,7 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
         }
     }
 
-    private void writeVehicleData(Vehicle me, double positionOnRoute, Vehicle frontVehicle, String formattedTime) {
+    private void writeVehicleData(Vehicle me, double positionOnRoute, NeighbourView frontVehicle, String formattedTime) {
         double pos = me.getFrontPosition() + positionOnRoute;
         double s = (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) ?
                 0 :
@@ -129,8 +182,26 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
         double dv = (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) ?
                 0 :
                 me.getRelSpeed(frontVehicle);
+        if (binaryWriter != null) {
+            binaryWriter.add(me.lane(), pos, me.getSpeed(), me.getAcc(), s, dv, me.getId(), me.roadSegmentId(),
+                    me.originRoadSegmentId(), me.getLabel(), me.getUserData().getString(SEPARATOR));
+            return;
+        }
         write(OUTPUT_FORMAT, time, me.lane(), pos, me.getSpeed(), me.getAcc(), s, dv, me.getLabel(), me.getId(),
                 me.roadSegmentId(), me.originRoadSegmentId(), formattedTime, pos + traj.getOffsetPosition(),
                 me.getUserData().getString(SEPARATOR));
     }
+
+    @Override
+    public void onShutDown() {
+        super.onShutDown();
+        if (binaryWriter != null) {
+            LOG.info("close binary writer for file={}", filename);
+            try {
+                binaryWriter.close();
+            } catch (IOException e) {
+                LOG.error("cannot close file {}: {}", filename, e.toString());
+            }
+        }
+    }
 }
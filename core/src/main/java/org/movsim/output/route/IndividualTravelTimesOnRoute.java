@@ -18,9 +18,9 @@ public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
     private final SignalPoint exitSignalPoint;
 
     /**
-     * mapping from vehicle to its entry time on route
+     * mapping from vehicle id to its entry time on route, by id since a pooled vehicle is reused with another id
      */
-    private final Map<Vehicle, Double> vehiclesOnRoute = new LinkedHashMap<>();
+    private final Map<Long, Double> vehiclesOnRoute = new LinkedHashMap<>();
 
     private final FileIndividualTravelTimesOnRoute fileWriter;
 
@@ -46,7 +46,7 @@ public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
 
     private void calculateTravelTimes(Collection<Vehicle> vehicles, double simulationTime) {
         for (Vehicle vehicle : vehicles) {
-            Double entryTime = vehiclesOnRoute.remove(vehicle);
+            Double entryTime = vehiclesOnRoute.remove(vehicle.getId());
             if (entryTime == null) {
                 // happens if sources like onramps etc along the route are present
                 LOG.debug("vehicle not passed whole route, ignore for individual travel time output: {}", vehicle);
@@ -62,7 +62,7 @@ public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
 
     private void addNewVehicles(Collection<Vehicle> vehicles, double simulationTime) {
         for (Vehicle vehicle : vehicles) {
-            vehiclesOnRoute.put(vehicle, simulationTime);
+            vehiclesOnRoute.put(vehicle.getId(), simulationTime);
         }
     }
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.output.route;
+
+import java.util.Arrays;
+
+import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.Vehicle.Type;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Vehicle positions, speeds and accelerations along a route, sorted by increasing position and kept in preallocated
+ * primitive arrays which are reused for every snapshot.
+ * <p>
+ * The vehicles in each lane are already sorted, so a snapshot of a road segment is the merge of its lanes. Vehicles at an
+ * already occupied position are ignored.
+ * </p>
+ */
+final class SortedVehicleData {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private double[] positions = new double[INITIAL_CAPACITY];
+    private double[] speeds = new double[INITIAL_CAPACITY];
+    private double[] accelerations = new double[INITIAL_CAPACITY];
+    private int size;
+
+    // lanes of the road segment being merged with the index of their next (rearmost not yet merged) vehicle
+    private LaneSegment[] lanes = new LaneSegment[4];
+    private int[] cursors = new int[4];
+
+    int size() {
+        return size;
+    }
+
+    double position(int index) {
+        return positions[index];
+    }
+
+    double speed(int index) {
+        return speeds[index];
+    }
+
+    double acceleration(int index) {
+        return accelerations[index];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Takes a snapshot of all vehicles on the route except obstacles.
+     */
+    void gather(Route route) {
+        clear();
+        double positionOnRoute = 0;
+        for (final RoadSegment roadSegment : route) {
+            mergeLanes(roadSegment, positionOnRoute);
+            positionOnRoute += roadSegment.roadLength();
+        }
+    }
+
+    private void mergeLanes(RoadSegment roadSegment, double positionOnRoute) {
+        final int laneCount = roadSegment.laneCount();
+        if (lanes.length < laneCount) {
+            lanes = new LaneSegment[laneCount];
+            cursors = new int[laneCount];
+        }
+        for (int index = 0; index < laneCount; index++) {
+            lanes[index] = roadSegment.laneSegment(index + 1);
+            // vehicles are sorted by decreasing position, so start with the rear vehicle
+            cursors[index] = lanes[index].vehicleCount() - 1;
+        }
+        while (true) {
+            Vehicle next = null;
+            int nextIndex = -1;
+            for (int index = 0; index < laneCount; index++) {
+                if (cursors[index] >= 0) {
+                    final Vehicle vehicle = lanes[index].getVehicle(cursors[index]);
+                    // on equal positions the inner lane wins
+                    if (next == null || vehicle.getFrontPosition() < next.getFrontPosition()) {
+                        next = vehicle;
+                        nextIndex = index;
+                    }
+                }
+            }
+            if (next == null) {
+                Arrays.fill(lanes, 0, laneCount, null);
+                return;
+            }
+            --cursors[nextIndex];
+            if (next.type() != Type.OBSTACLE) {
+                add(positionOnRoute + next.getFrontPosition(), next.getSpeed(), next.getAcc());
+            }
+        }
+    }
+
+    /**
+     * Adds a data point. Points are expected in increasing order of position, other points are inserted at their place.
+     */
+    void add(double position, double speed, double acceleration) {
+        int index = size;
+        while (index > 0 && positions[index - 1] >= position) {
+            if (positions[index - 1] == position) {
+                return;
+            }
+            --index;
+        }
+        if (size == positions.length) {
+            grow();
+        }
+        final int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(positions, index, positions, index + 1, moved);
+            System.arraycopy(speeds, index, speeds, index + 1, moved);
+            System.arraycopy(accelerations, index, accelerations, index + 1, moved);
+        }
+        positions[index] = position;
+        speeds[index] = speed;
+        accelerations[index] = acceleration;
+        ++size;
+    }
+
+    /**
+     * Interpolates the speeds and accelerations linearly onto the grid {@code x = i * dx} in a single pass. Outside of
+     * the data points the values of the first and last point are taken.
+     * 
+     * @param dx
+     *            grid spacing
+     * @param gridSpeeds
+     *            the interpolated speeds
+     * @param gridAccelerations
+     *            the interpolated accelerations, same length as gridSpeeds
+     */
+    void interpolate(double dx, double[] gridSpeeds, double[] gridAccelerations) {
+        Preconditions.checkState(size > 0, "no data points");
+        Preconditions.checkArgument(gridSpeeds.length == gridAccelerations.length, "dimensions mismatch");
+        final int last = size - 1;
+        // index of the data interval [positions[j], positions[j+1]] with j < last
+        int j = 0;
+        for (int i = 0; i < gridSpeeds.length; i++) {
+            final double x = i * dx;
+            if (x <= positions[0] || last == 0) {
+                gridSpeeds[i] = speeds[0];
+                gridAccelerations[i] = accelerations[0];
+            } else if (x >= positions[last]) {
+                if (x == positions[last]) {
+                    gridSpeeds[i] = interpolate(last - 1, x, speeds);
+                    gridAccelerations[i] = interpolate(last - 1, x, accelerations);
+                } else {
+                    gridSpeeds[i] = speeds[last];
+                    gridAccelerations[i] = accelerations[last];
+                }
+            } else {
+                while (positions[j + 1] <= x) {
+                    ++j;
+                }
+                gridSpeeds[i] = interpolate(j, x, speeds);
+                gridAccelerations[i] = interpolate(j, x, accelerations);
+            }
+        }
+    }
+
+    private double interpolate(int j, double x, double[] values) {
+        final double slope = (values[j + 1] - values[j]) / (positions[j + 1] - positions[j]);
+        return (x - positions[j]) * slope + values[j];
+    }
+
+    private void grow() {
+        final int capacity = 2 * positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accelerations = Arrays.copyOf(accelerations, capacity);
+    }
+}
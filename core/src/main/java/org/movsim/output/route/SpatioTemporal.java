@@ -25,44 +25,96 @@
  */
 package org.movsim.output.route;
 
+import java.util.Arrays;
+
+import org.movsim.autogen.SpatioTemporalAggregationEnum;
+import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.TimeStepObservers;
+import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.Vehicle.Type;
-import org.movsim.utilities.LinearInterpolatedFunction;
-
-import java.util.Comparator;
-import java.util.TreeSet;
 
+import com.google.common.base.Preconditions;
+
+/**
+ * Speeds and accelerations along a route on a grid with spacing dx, determined every dt.
+ * <p>
+ * With {@link SpatioTemporalAggregationEnum#INTERPOLATION} the vehicle data at output time are interpolated linearly onto
+ * the grid. With {@link SpatioTemporalAggregationEnum#EDIE} the grid points are the centers of cells of length dx and the
+ * values are the averages over the space-time cells of the last output interval according to Edie's definitions: the
+ * speed is the distance travelled divided by the time spent in the cell, the acceleration is the time-weighted mean. Cells
+ * without vehicles have the value {@link Double#NaN}.
+ * </p>
+ */
 public class SpatioTemporal extends OutputOnRouteBase {
 
     private final double dxOutput;
     private final double dtOutput;
+    private final SpatioTemporalAggregationEnum aggregation;
 
     private final double[] macroSpeed;
     private final double[] macroAcceleration;
 
+    // interpolation
+    private final SortedVehicleData vehicleData;
+
+    // Edie's cell sums
+    private final double[] travelDistances;
+    private final double[] travelTimes;
+    private final double[] accelerationTimes;
+
     private double lastTimeOutput;
 
     private final FileSpatioTemporal fileWriter;
 
-    public SpatioTemporal(double dxOut, double dtOut, RoadNetwork roadNetwork, Route route, boolean writeOutput) {
+    public SpatioTemporal(double dxOut, double dtOut, SpatioTemporalAggregationEnum aggregation,
+            RoadNetwork roadNetwork, Route route, boolean writeOutput) {
         super(roadNetwork, route);
         this.dxOutput = dxOut;
         this.dtOutput = dtOut;
+        this.aggregation = Preconditions.checkNotNull(aggregation);
 
         lastTimeOutput = 0;
         int size = (int) (route.getLength() / dxOut) + 1;
         macroSpeed = new double[size];
         macroAcceleration = new double[size];
 
+        if (aggregation == SpatioTemporalAggregationEnum.EDIE) {
+            vehicleData = null;
+            travelDistances = new double[size];
+            travelTimes = new double[size];
+            accelerationTimes = new double[size];
+        } else {
+            vehicleData = new SortedVehicleData();
+            travelDistances = null;
+            travelTimes = null;
+            accelerationTimes = null;
+        }
+
         fileWriter = writeOutput ? new FileSpatioTemporal(route.getName()) : null;
     }
 
+    /**
+     * Returns the number of time steps between two updates: the Edie aggregation sums up every time step, the
+     * interpolation is only updated at the output times.
+     *
+     * @param simulationTimestep
+     * @return the number of time steps between two updates
+     */
+    public int getStepInterval(double simulationTimestep) {
+        return aggregation == SpatioTemporalAggregationEnum.EDIE ? 1
+                : TimeStepObservers.stepInterval(dtOutput, simulationTimestep);
+    }
+
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
-        if ((simulationTime - lastTimeOutput) >= dtOutput) {
+        if (aggregation == SpatioTemporalAggregationEnum.EDIE) {
+            accumulateCells(dt);
+        }
+        if ((simulationTime - lastTimeOutput + MovsimConstants.SMALL_VALUE) >= dtOutput) {
             lastTimeOutput = simulationTime;
             calcData();
             if (fileWriter != null) {
@@ -72,59 +124,47 @@ public class SpatioTemporal extends OutputOnRouteBase {
     }
 
     private void calcData() {
-        TreeSet<SpatialTemporal> dataPoints = gatherData();
-        if (!dataPoints.isEmpty()) {
-            interpolateGridData(dataPoints);
-        }
-    }
-
-    private void interpolateGridData(TreeSet<SpatialTemporal> dataPoints) {
-        final int size = dataPoints.size();
-        final double[] xMicro = new double[size];
-        final double[] vMicro = new double[size];
-        final double[] aMicro = new double[size];
-        int j = 0;
-        for (SpatialTemporal dp : dataPoints) {
-            LOG.debug("data point for interpolation={}", dp);
-            vMicro[j] = dp.speed;
-            xMicro[j] = dp.position;
-            aMicro[j] = dp.acceleration;
-            ++j;
+        if (aggregation == SpatioTemporalAggregationEnum.EDIE) {
+            averageCells();
+            return;
         }
-
-        LinearInterpolatedFunction speeds = new LinearInterpolatedFunction(xMicro, vMicro);
-        LinearInterpolatedFunction accelerations = new LinearInterpolatedFunction(xMicro, aMicro);
-
-        for (int i = 0; i < macroSpeed.length; ++i) {
-            final double x = i * dxOutput;
-            macroSpeed[i] = speeds.value(x);
-            macroAcceleration[i] = accelerations.value(x);
+        vehicleData.gather(route);
+        if (vehicleData.size() > 0) {
+            vehicleData.interpolate(dxOutput, macroSpeed, macroAcceleration);
         }
     }
 
-    /**
-     * Returns sorted set with increasing vehicle positions along the route. Not efficient but robust.
-     */
-    private TreeSet<SpatialTemporal> gatherData() {
-        TreeSet<SpatialTemporal> dataPoints = new TreeSet<>(new Comparator<SpatialTemporal>() {
-            @Override
-            public int compare(SpatialTemporal o1, SpatialTemporal o2) {
-                return (new Double(o1.position)).compareTo(new Double(o2.position));
-            }
-        });
-
+    private void accumulateCells(double dt) {
         double positionOnRoute = 0;
         for (final RoadSegment roadSegment : route) {
-            for (Vehicle veh : roadSegment) {
-                if (veh.type() == Type.OBSTACLE) {
-                    continue;
+            for (int lane = 1, laneCount = roadSegment.laneCount(); lane <= laneCount; lane++) {
+                final LaneSegment laneSegment = roadSegment.laneSegment(lane);
+                for (int i = 0, count = laneSegment.vehicleCount(); i < count; i++) {
+                    final Vehicle vehicle = laneSegment.getVehicle(i);
+                    if (vehicle.type() == Type.OBSTACLE) {
+                        continue;
+                    }
+                    final int cell = (int) ((positionOnRoute + vehicle.getFrontPosition()) / dxOutput + 0.5);
+                    if (cell >= 0 && cell < travelTimes.length) {
+                        travelDistances[cell] += vehicle.getSpeed() * dt;
+                        travelTimes[cell] += dt;
+                        accelerationTimes[cell] += vehicle.getAcc() * dt;
+                    }
                 }
-                double position = positionOnRoute + veh.getFrontPosition();
-                dataPoints.add(new SpatialTemporal(position, veh.getSpeed(), veh.getLength(), veh.getAcc()));
             }
             positionOnRoute += roadSegment.roadLength();
         }
-        return dataPoints;
+    }
+
+    private void averageCells() {
+        for (int i = 0; i < macroSpeed.length; i++) {
+            final double travelTime = travelTimes[i];
+            macroSpeed[i] = travelTime > 0 ? travelDistances[i] / travelTime : Double.NaN;
+            macroAcceleration[i] = travelTime > 0 ? accelerationTimes[i] / travelTime : Double.NaN;
+        }
+        Arrays.fill(travelDistances, 0);
+        Arrays.fill(travelTimes, 0);
+        Arrays.fill(accelerationTimes, 0);
     }
 
     public double getDtOutput() {
@@ -150,25 +190,4 @@ public class SpatioTemporal extends OutputOnRouteBase {
     public double getTimeOffset() {
         return lastTimeOutput;
     }
-
-    private static final class SpatialTemporal {
-        final double position;
-        final double speed;
-        final double length;
-        final double acceleration;
-
-        SpatialTemporal(double position, double speed, double length, double acceleration) {
-            this.position = position;
-            this.speed = speed;
-            this.length = length;
-            this.acceleration = acceleration;
-        }
-
-        @Override
-        public String toString() {
-            return "SpatialTemporal [position=" + position + ", speed=" + speed + ", length=" + length
-                    + ", acceleration=" + acceleration + "]";
-        }
-    }
-
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.output.route;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.io.FileOutputBase;
+import org.movsim.utilities.FileUtils;
+
+/**
+ * Converts the binary trajectory output of {@link BinaryTrajectoryWriter} to the csv layout of {@link FileTrajectories}, so
+ * that existing tools can read it.
+ * 
+ * <pre>
+ * java -cp ... org.movsim.output.route.TrajectoryCsvConverter file.traj.route_main.bin [file.traj.route_main.csv]
+ * </pre>
+ */
+public final class TrajectoryCsvConverter {
+
+    private static final String BINARY_ENDING = ".bin";
+
+    private static final String CSV_ENDING = ".csv";
+
+    private TrajectoryCsvConverter() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: TrajectoryCsvConverter binaryFile [csvFile]");
+            System.exit(-1);
+        }
+        final File binaryFile = new File(args[0]);
+        final File csvFile = new File(args.length == 2 ? args[1] : csvFilename(args[0]));
+        final long records = convert(binaryFile, csvFile);
+        System.out.println("converted " + records + " records from " + binaryFile + " to " + csvFile);
+    }
+
+    private static String csvFilename(String binaryFilename) {
+        final String base = binaryFilename.endsWith(BINARY_ENDING) ? binaryFilename.substring(0,
+                binaryFilename.length() - BINARY_ENDING.length()) : binaryFilename;
+        return base + CSV_ENDING;
+    }
+
+    /**
+     * Converts the binary trajectory file to csv.
+     * 
+     * @return the number of converted records
+     */
+    public static long convert(File binaryFile, File csvFile) throws IOException {
+        long records = 0;
+        try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(binaryFile)) {
+            final PrintWriter writer = FileUtils.getWriter(csvFile.getPath());
+            if (writer == null) {
+                throw new IOException("cannot open file " + csvFile + " for writing");
+            }
+            try {
+                writer.println(String.format("%s %s", FileOutputBase.COMMENT_CHAR, reader.route()));
+                writer.println(FileTrajectories.OUTPUT_HEADING);
+                while (reader.nextBlock()) {
+                    final double time = reader.time();
+                    final String formattedTime = ProjectMetaData.formatTimeWithOffset(reader.timeOffsetMillis(), time);
+                    for (int i = 0, n = reader.size(); i < n; i++) {
+                        final double pos = reader.position(i);
+                        writer.printf(FileTrajectories.OUTPUT_FORMAT, time, reader.lane(i), pos, reader.speed(i),
+                                reader.acceleration(i), reader.gap(i), reader.relativeSpeed(i), reader.label(i),
+                                reader.id(i), reader.roadId(i), reader.originId(i), formattedTime,
+                                pos + reader.offsetPosition(), reader.userData(i));
+                    }
+                    records += reader.size();
+                }
+            } finally {
+                writer.close();
+            }
+        }
+        return records;
+    }
+}
@@ -42,6 +42,14 @@ public class PosTheta {
                 + String.format("%.1f", cosTheta) + ", sinTheta=" + String.format("%.1f", sinTheta) + "]";
     }
 
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
     public double getScreenX() {
         return x;
     }
@@ -54,4 +62,12 @@ public class PosTheta {
         return Math.atan2(sinTheta, cosTheta);
     }
 
+    public double getCosTheta() {
+        return cosTheta;
+    }
+
+    public double getSinTheta() {
+        return sinTheta;
+    }
+
 }
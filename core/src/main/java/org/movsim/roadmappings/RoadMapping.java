@@ -72,6 +72,9 @@ public abstract class RoadMapping {
 
     protected final PolygonFloat lineFloat = new PolygonFloat(2);
 
+    // optional pre-sampled geometry of curved road mappings, null if mapped exactly
+    RoadMappingSamples samples;
+
     protected RoadMapping(LaneGeometries laneGeometries, double x0, double y0) {
         this.x0 = x0;
         this.y0 = y0;
@@ -350,11 +353,86 @@ public abstract class RoadMapping {
      * @return polygon representing vehicle
      */
     public PolygonFloat mapFloat(Vehicle vehicle) {
-        final PosTheta posTheta = map(vehicle.physicalQuantities().getMidPosition(),
-                -laneCenterOffset(vehicle.getContinuousLane()));
+        final PosTheta posTheta = map(vehicle);
         return mapFloat(posTheta, vehicle.physicalQuantities().getLength(), vehicle.physicalQuantities().getWidth());
     }
 
+    /**
+     * Maps the mid position of the subject vehicle in the center of its (continuous) lane.
+     * 
+     * @param vehicle
+     * @return posTheta of the vehicle's mid position
+     */
+    public PosTheta map(Vehicle vehicle) {
+        return map(vehicle.physicalQuantities().getMidPosition(), lateralOffset(vehicle));
+    }
+
+    /**
+     * Returns the lateral offset of the center of the subject vehicle's (continuous) lane.
+     * 
+     * @param vehicle
+     * @return the lateral offset used to map the vehicle
+     */
+    public double lateralOffset(Vehicle vehicle) {
+        return -laneCenterOffset(vehicle.getContinuousLane());
+    }
+
+    /**
+     * Maps a number of road positions at once, for example the mid positions of the vehicles in a lane.
+     * 
+     * @param roadPos
+     *            road positions, mapping is fastest if nearby positions follow each other
+     * @param lateralOffset
+     *            lateral offset for each road position
+     * @param count
+     *            number of positions to map
+     * @param x
+     *            filled with the x-coordinates
+     * @param y
+     *            filled with the y-coordinates
+     */
+    public void map(double[] roadPos, double[] lateralOffset, int count, double[] x, double[] y) {
+        for (int i = 0; i < count; ++i) {
+            final PosTheta posTheta = map(roadPos[i], lateralOffset[i]);
+            x[i] = posTheta.x;
+            y[i] = posTheta.y;
+        }
+    }
+
+    /**
+     * Pre-samples the position and direction of curved road mappings, subsequent calls of map interpolate the samples
+     * instead of evaluating the curve. Road mappings that are cheap to evaluate ignore the sample spacing.
+     * 
+     * @param sampleSpacing
+     *            maximum distance between the samples in meters, 0 to map exactly
+     */
+    public void setSampleSpacing(double sampleSpacing) {
+        // by default the mapping is exact
+    }
+
+    /**
+     * Samples this road mapping, for curved road mappings that support pre-sampling.
+     * 
+     * @param sampleSpacing
+     *            maximum distance between the samples in meters, 0 to map exactly
+     */
+    protected final void sample(double sampleSpacing) {
+        // the samples must be taken from the exact mapping
+        samples = null;
+        if (sampleSpacing > 0) {
+            samples = new RoadMappingSamples(this, sampleSpacing);
+        }
+    }
+
+    /**
+     * Samples this road mapping again after its geometry changed, if it is pre-sampled.
+     */
+    protected final void resample() {
+        if (samples != null) {
+            sample(samples.sampleSpacing());
+        }
+    }
+
     @SuppressWarnings("static-method")
     public boolean isPeer() {
         return false;
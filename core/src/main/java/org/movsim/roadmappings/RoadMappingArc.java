@@ -77,8 +77,16 @@ public class RoadMappingArc extends RoadMapping {
         centerY = y0 - radius * Math.sin(startAngle - HALF_PI) * (clockwise ? -1 : 1);
     }
 
+    @Override
+    public void setSampleSpacing(double sampleSpacing) {
+        sample(sampleSpacing);
+    }
+
     @Override
     public PosTheta map(double roadPos, double lateralOffset) {
+        if (samples != null && roadPos >= 0 && roadPos <= roadLength) {
+            return samples.map(roadPos, lateralOffset, posTheta);
+        }
         // tangent to arc (road direction)
         final double theta = clockwise ? startAngle - roadPos / radius : startAngle + roadPos / radius;
         // angle arc subtends at center
@@ -68,6 +68,7 @@ public class RoadMappingBezier extends RoadMapping {
 
     protected void init() {
         roadLength = bezierLength();
+        resample();
     }
 
     /**
@@ -242,8 +243,16 @@ public class RoadMappingBezier extends RoadMapping {
         // return (i + prop - 1) / (S_COUNT - 1);
     }
 
+    @Override
+    public void setSampleSpacing(double sampleSpacing) {
+        sample(sampleSpacing);
+    }
+
     @Override
     public PosTheta map(double roadPos, double lateralOffset) {
+        if (samples != null && roadPos >= 0 && roadPos <= roadLength) {
+            return samples.map(roadPos, lateralOffset, posTheta);
+        }
         final double t = roadPosToT(roadPos);
         bezier(t);
         // and finally adjust for the lateral offset
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.roadmappings;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative lengths of the consecutive road mappings of a poly road mapping, to find the road mapping containing a
+ * road position by binary search instead of walking the road mappings.
+ */
+final class RoadMappingLengths {
+
+    // end position of each road mapping, measured from the start of the first road mapping
+    private double[] ends = new double[4];
+    private int size;
+
+    /**
+     * Appends a road mapping.
+     *
+     * @param roadMapping
+     */
+    void add(RoadMapping roadMapping) {
+        if (size == ends.length) {
+            ends = Arrays.copyOf(ends, 2 * size);
+        }
+        ends[size] = start(size) + roadMapping.roadLength();
+        ++size;
+    }
+
+    /**
+     * Recalculates the cumulative lengths, to be called when the length of any road mapping changed.
+     *
+     * @param roadMappings
+     */
+    void reset(Iterable<? extends RoadMapping> roadMappings) {
+        size = 0;
+        for (final RoadMapping roadMapping : roadMappings) {
+            add(roadMapping);
+        }
+    }
+
+    /**
+     * Returns the start position of the road mapping with the given index.
+     *
+     * @param index
+     * @return the start position of the road mapping
+     */
+    double start(int index) {
+        return index == 0 ? 0.0 : ends[index - 1];
+    }
+
+    /**
+     * Returns the end position of the last road mapping.
+     *
+     * @return the total length
+     */
+    double length() {
+        return size == 0 ? 0.0 : ends[size - 1];
+    }
+
+    /**
+     * Returns the index of the first road mapping that ends at or beyond the given road position. Positions beyond the
+     * end of the last road mapping return the last index.
+     *
+     * @param roadPos
+     * @return index of the road mapping containing the road position
+     */
+    int indexOf(double roadPos) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ends[mid] < roadPos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * As {@link #indexOf(double)}, but first checks the given index, which is cheap when nearby road positions are
+     * mapped one after the other.
+     *
+     * @param roadPos
+     * @param hint index returned for a previous road position
+     * @return index of the road mapping containing the road position
+     */
+    int indexOf(double roadPos, int hint) {
+        if (hint >= 0 && hint < size && (hint == 0 || roadPos > ends[hint - 1])
+                && (roadPos <= ends[hint] || hint == size - 1)) {
+            return hint;
+        }
+        return indexOf(roadPos);
+    }
+}
@@ -22,10 +22,13 @@ public class RoadMappingPeer extends RoadMapping {
     }
 
     @Override
-    public PolygonFloat mapFloat(Vehicle vehicle) {
-        final PosTheta posTheta = map(vehicle.physicalQuantities().getMidPosition(),
-                laneCenterOffset(vehicle.getContinuousLane()));
-        return mapFloat(posTheta, vehicle.physicalQuantities().getLength(), vehicle.physicalQuantities().getWidth());
+    public void setSampleSpacing(double sampleSpacing) {
+        roadMapping.setSampleSpacing(sampleSpacing);
+    }
+
+    @Override
+    public double lateralOffset(Vehicle vehicle) {
+        return laneCenterOffset(vehicle.getContinuousLane());
     }
 
     @Override
@@ -43,6 +43,8 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
 
     protected final ArrayList<RoadMapping> roadMappings = new ArrayList<>();
 
+    private final RoadMappingLengths lengths = new RoadMappingLengths();
+
     @Override
     public Iterator<RoadMapping> iterator() {
         return roadMappings.iterator();
@@ -60,6 +62,7 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
         final RoadMapping roadMapping = new RoadMappingLine(laneGeometries, x0, y0, x1, y1);
         roadLength = roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     /**
@@ -93,20 +96,29 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
 
     @Override
     public PosTheta map(double roadPos, double lateralOffset) {
+        // beyond the end of the last road mapping in road segment the last road mapping is extended, this can happen
+        // by up to half a vehicle length - vehicle's rear position is on road mapping, but vehicle's mid position
+        // (which is used for drawing) has gone past the end.
+        final int index = lengths.indexOf(roadPos);
+        return roadMappings.get(index).map(roadPos - lengths.start(index), lateralOffset);
+    }
 
-        double pos = roadPos;
+    @Override
+    public void map(double[] roadPos, double[] lateralOffset, int count, double[] x, double[] y) {
+        int index = 0;
+        for (int i = 0; i < count; ++i) {
+            index = lengths.indexOf(roadPos[i], index);
+            final PosTheta posTheta = roadMappings.get(index).map(roadPos[i] - lengths.start(index), lateralOffset[i]);
+            x[i] = posTheta.x;
+            y[i] = posTheta.y;
+        }
+    }
+
+    @Override
+    public void setSampleSpacing(double sampleSpacing) {
         for (final RoadMapping roadMapping : roadMappings) {
-            if (pos <= roadMapping.roadLength()) {
-                return roadMapping.map(pos, lateralOffset);
-            }
-            pos -= roadMapping.roadLength();
+            roadMapping.setSampleSpacing(sampleSpacing);
         }
-        // have gone past end of last road mapping in road segment
-        // this can happen by up to half a vehicle length - vehicle's rear position is
-        // on road mapping, but vehicle's mid position (which is used for drawing) has
-        // gone past the end, so fix this as a special case.
-        final RoadMapping roadMapping = roadMappings.get(roadMappings.size() - 1);
-        return roadMapping.map(pos + roadMapping.roadLength(), lateralOffset);
     }
 
     public void addLinePoint(double x, double y) {
@@ -114,6 +126,7 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
         final RoadMappingLine roadMapping = new RoadMappingLine(lastRoadMapping, this.laneGeometries, x, y);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addLinePointRelative(double dx, double dy) {
@@ -123,12 +136,14 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
                 posTheta.y + dy);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addLine(double s, double x0, double y0, double theta, double length) {
         final RoadMappingLine roadMapping = new RoadMappingLine(this.laneGeometries, s, x0, y0, theta, length);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addLine(Geometry geometry) {
@@ -145,6 +160,7 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
         final RoadMappingArc roadMapping = new RoadMappingArc(this.laneGeometries, s, x0, y0, theta, length, curvature);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addArc(Geometry geometry) {
@@ -158,6 +174,7 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
                 startCurvature, endCurvature);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addSpiral(Geometry geometry) {
@@ -170,6 +187,7 @@ public class RoadMappingPoly extends RoadMapping implements Iterable<RoadMapping
         RoadMappingBezier roadMapping = new RoadMappingBezier(laneGeometries, s, x0, y0, theta, length, a, b, c, d);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void add(RoadGeometry roadGeometry) {
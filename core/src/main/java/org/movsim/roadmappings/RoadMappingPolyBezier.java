@@ -41,6 +41,8 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
 
     private final ArrayList<RoadMappingBezier> roadMappings = new ArrayList<>();
 
+    private final RoadMappingLengths lengths = new RoadMappingLengths();
+
     @Override
     public Iterator<RoadMappingBezier> iterator() {
         return roadMappings.iterator();
@@ -52,6 +54,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
         final RoadMappingBezier roadMapping = new RoadMappingBezier(laneGeometries, x0, y0, x1, y1, cX, cY);
         roadLength = roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     RoadMappingPolyBezier(LaneGeometries laneGeometries, double s, double x0, double y0, double theta, double length,
@@ -61,6 +64,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
                 d);
         roadLength = length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
     RoadMappingPolyBezier(LaneGeometries laneGeometries, int valuesType, double[] values) {
         super(laneGeometries, values[0], values[1]);
@@ -70,6 +74,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
                 values[3], values[4], values[5]);
         roadLength = roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
         if (valuesType == ABSOLUTE_POINTS) {
             for (int i = 6; i < values.length; i += 3) {
                 addPoint(values[i], values[i + 1], values[i + 2]);
@@ -117,22 +122,40 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
 
     @Override
     public PosTheta map(double roadPos, double lateralOffset) {
+        return map(roadPos, lateralOffset, lengths.indexOf(roadPos));
+    }
 
-        double pos = roadPos;
-        for (final RoadMappingBezier roadMapping : roadMappings) {
-            if (pos <= roadMapping.roadLength()) {
-                return roadMapping.map(pos, lateralOffset);
-            }
-            pos -= roadMapping.roadLength();
+    private PosTheta map(double roadPos, double lateralOffset, int index) {
+        final double pos = roadPos - lengths.length();
+        if (pos > 0) {
+            // have gone past end of last road mapping in road segment
+            // this can happen by up to half a vehicle length - vehicle's rear position is
+            // on road mapping, but vehicle's mid position (which is used for drawing) has
+            // gone past the end, so fix this as a special case.
+            final PosTheta posTheta = endPos(lateralOffset);
+            posTheta.x += pos * posTheta.cosTheta;
+            posTheta.y -= pos * posTheta.sinTheta;
+            return posTheta;
+        }
+        return roadMappings.get(index).map(roadPos - lengths.start(index), lateralOffset);
+    }
+
+    @Override
+    public void map(double[] roadPos, double[] lateralOffset, int count, double[] x, double[] y) {
+        int index = 0;
+        for (int i = 0; i < count; ++i) {
+            index = lengths.indexOf(roadPos[i], index);
+            final PosTheta posTheta = map(roadPos[i], lateralOffset[i], index);
+            x[i] = posTheta.x;
+            y[i] = posTheta.y;
+        }
+    }
+
+    @Override
+    public void setSampleSpacing(double sampleSpacing) {
+        for (final RoadMapping roadMapping : roadMappings) {
+            roadMapping.setSampleSpacing(sampleSpacing);
         }
-        // have gone past end of last road mapping in road segment
-        // this can happen by up to half a vehicle length - vehicle's rear position is
-        // on road mapping, but vehicle's mid position (which is used for drawing) has
-        // gone past the end, so fix this as a special case.
-        final PosTheta posTheta = endPos(lateralOffset);
-        posTheta.x += pos * posTheta.cosTheta;
-        posTheta.y -= pos * posTheta.sinTheta;
-        return posTheta;
     }
 
     public void addPoint(double x, double y, double t) {
@@ -141,6 +164,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
         final RoadMappingBezier roadMapping = new RoadMappingBezier(lastRoadMapping, this.laneGeometries, x, y, t);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addPoint(double s, double x0, double y0, double theta, double length, double a, double b, double c,
@@ -149,6 +173,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
                 c, d);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addPointRelative(double dx, double dy, double t) {
@@ -159,6 +184,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
                 posTheta.x + dx, posTheta.y + dy, t);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addPointRelative(double dx, double dy) {
@@ -179,6 +205,7 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
                 posTheta.x + dx, posTheta.y + dy, t);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void movePoint(int index, double dx, double dy) {
@@ -195,5 +222,6 @@ public class RoadMappingPolyBezier extends RoadMapping implements Iterable<RoadM
         for (final RoadMapping roadMapping : roadMappings) {
             roadLength += roadMapping.roadLength();
         }
+        lengths.reset(roadMappings);
     }
 }
@@ -39,6 +39,8 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
 
     protected final ArrayList<RoadMappingLine> roadMappings = new ArrayList<>();
 
+    private final RoadMappingLengths lengths = new RoadMappingLengths();
+
     @Override
     public Iterator<RoadMappingLine> iterator() {
         return roadMappings.iterator();
@@ -49,6 +51,7 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
         final RoadMappingLine roadMapping = new RoadMappingLine(laneGeometries, x0, y0, x1, y1);
         roadLength = roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     RoadMappingPolyLine(LaneGeometries laneGeometries, double s, double x0, double y0, double theta, double length) {
@@ -56,6 +59,7 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
         final RoadMappingLine roadMapping = new RoadMappingLine(laneGeometries, s, x0, y0, theta, length);
         roadLength = length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     RoadMappingPolyLine(LaneGeometries laneGeometries, int valuesType, double[] values) {
@@ -66,6 +70,7 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
                 values[3]);
         roadLength = roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
         if (valuesType == RELATIVE_POINTS) {
             for (int i = 4; i < values.length; i += 2) {
                 addPointRelative(values[i], values[i + 1]);
@@ -108,20 +113,22 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
 
     @Override
     public PosTheta map(double roadPos, double lateralOffset) {
+        // beyond the end of the last road mapping in road segment the last road mapping is extended, this can happen
+        // by up to half a vehicle length - vehicle's rear position is on road mapping, but vehicle's mid position
+        // (which is used for drawing) has gone past the end.
+        final int index = lengths.indexOf(roadPos);
+        return roadMappings.get(index).map(roadPos - lengths.start(index), lateralOffset);
+    }
 
-        double pos = roadPos;
-        for (final RoadMapping roadMapping : roadMappings) {
-            if (pos <= roadMapping.roadLength()) {
-                return roadMapping.map(pos, lateralOffset);
-            }
-            pos -= roadMapping.roadLength();
+    @Override
+    public void map(double[] roadPos, double[] lateralOffset, int count, double[] x, double[] y) {
+        int index = 0;
+        for (int i = 0; i < count; ++i) {
+            index = lengths.indexOf(roadPos[i], index);
+            final PosTheta posTheta = roadMappings.get(index).map(roadPos[i] - lengths.start(index), lateralOffset[i]);
+            x[i] = posTheta.x;
+            y[i] = posTheta.y;
         }
-        // have gone past end of last road mapping in road segment
-        // this can happen by up to half a vehicle length - vehicle's rear position is
-        // on road mapping, but vehicle's mid position (which is used for drawing) has
-        // gone past the end, so fix this as a special case.
-        final RoadMapping roadMapping = roadMappings.get(roadMappings.size() - 1);
-        return roadMapping.map(pos + roadMapping.roadLength(), lateralOffset);
     }
 
     public void addPoint(double x, double y) {
@@ -129,12 +136,14 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
         final RoadMappingLine roadMapping = new RoadMappingLine(lastRoadMapping, this.laneGeometries, x, y);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addPoint(double s, double x0, double y0, double theta, double length) {
         final RoadMappingLine roadMapping = new RoadMappingLine(this.laneGeometries, s, x0, y0, theta, length);
         roadLength += length;
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void addPointRelative(double dx, double dy) {
@@ -144,6 +153,7 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
                 posTheta.y + dy);
         roadLength += roadMapping.roadLength();
         roadMappings.add(roadMapping);
+        lengths.add(roadMapping);
     }
 
     public void movePoint(int index, double dx, double dy) {
@@ -159,6 +169,7 @@ public class RoadMappingPolyLine extends RoadMapping implements Iterable<RoadMap
         for (final RoadMapping roadMapping : roadMappings) {
             roadLength += roadMapping.roadLength();
         }
+        lengths.reset(roadMappings);
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.roadmappings;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Position, normal and heading of a road mapping pre-sampled at equidistant road positions. Intermediate road
+ * positions are linearly interpolated, road positions outside the road are left to the exact mapping.
+ */
+final class RoadMappingSamples {
+
+    private final double sampleSpacing;
+    private final double inverseSpacing;
+    private final int intervalCount;
+
+    // center of the road
+    private final double[] x;
+    private final double[] y;
+    // change in position per unit of lateral offset
+    private final double[] normalX;
+    private final double[] normalY;
+    private final double[] cosTheta;
+    private final double[] sinTheta;
+
+    /**
+     * Constructor, samples the exact mapping of the given road mapping.
+     *
+     * @param roadMapping
+     * @param sampleSpacing maximum distance between samples, in meters
+     */
+    RoadMappingSamples(RoadMapping roadMapping, double sampleSpacing) {
+        Preconditions.checkArgument(sampleSpacing > 0, "sampleSpacing=" + sampleSpacing);
+        final double roadLength = roadMapping.roadLength();
+        intervalCount = Math.max(1, (int) Math.ceil(roadLength / sampleSpacing));
+        this.sampleSpacing = roadLength / intervalCount;
+        this.inverseSpacing = this.sampleSpacing > 0 ? 1.0 / this.sampleSpacing : 0;
+        final int count = intervalCount + 1;
+        x = new double[count];
+        y = new double[count];
+        normalX = new double[count];
+        normalY = new double[count];
+        cosTheta = new double[count];
+        sinTheta = new double[count];
+        for (int i = 0; i < count; ++i) {
+            final double roadPos = i == intervalCount ? roadLength : i * this.sampleSpacing;
+            // the lateral offset is linear in all road mappings, so it is sampled as a normal vector
+            PosTheta posTheta = roadMapping.map(roadPos, 1.0);
+            normalX[i] = posTheta.x;
+            normalY[i] = posTheta.y;
+            posTheta = roadMapping.map(roadPos, 0.0);
+            x[i] = posTheta.x;
+            y[i] = posTheta.y;
+            normalX[i] -= posTheta.x;
+            normalY[i] -= posTheta.y;
+            cosTheta[i] = posTheta.cosTheta;
+            sinTheta[i] = posTheta.sinTheta;
+        }
+    }
+
+    /**
+     * Returns the distance between the samples.
+     *
+     * @return the distance between the samples, in meters
+     */
+    double sampleSpacing() {
+        return sampleSpacing;
+    }
+
+    /**
+     * Interpolates the samples.
+     *
+     * @param roadPos between 0 and the road length
+     * @param lateralOffset
+     * @param posTheta set to the interpolated position and direction
+     * @return posTheta
+     */
+    PosTheta map(double roadPos, double lateralOffset, PosTheta posTheta) {
+        final double index = roadPos * inverseSpacing;
+        final int i = index >= intervalCount ? intervalCount - 1 : (int) index;
+        final double f = index - i;
+        final double cos = cosTheta[i] + f * (cosTheta[i + 1] - cosTheta[i]);
+        final double sin = sinTheta[i] + f * (sinTheta[i + 1] - sinTheta[i]);
+        // the interpolated normal shrinks by the same factor as the interpolated direction
+        final double scale = 1.0 / Math.sqrt(cos * cos + sin * sin);
+        posTheta.cosTheta = cos * scale;
+        posTheta.sinTheta = sin * scale;
+        final double offset = lateralOffset * scale;
+        posTheta.x = x[i] + f * (x[i + 1] - x[i]) + offset * (normalX[i] + f * (normalX[i + 1] - normalX[i]));
+        posTheta.y = y[i] + f * (y[i + 1] - y[i]) + offset * (normalY[i] + f * (normalY[i + 1] - normalY[i]));
+        return posTheta;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import java.util.List;
+
+import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+
+/**
+ * Aggregated results of a parameter scan, one line per run. Lines are written as soon as a run has completed, so the order
+ * of the runs depends on the scheduling of the concurrent runs.
+ */
+public final class FileScanResults extends FileOutputBase {
+
+    private static final String EXTENSION = ".scan.csv";
+
+    public FileScanResults(String path, String projectName, List<ScanParameter> parameters) {
+        super(path, projectName);
+        writer = createWriter(EXTENSION);
+        final StringBuilder heading = new StringBuilder(COMMENT_CHAR).append("run");
+        for (final ScanParameter parameter : parameters) {
+            heading.append(SEPARATOR_CHAR).append(' ').append(parameter.getName());
+        }
+        heading.append(", vehiclesRemoved, totalTravelTime[s], totalTravelDistance[m], avgTravelTime[s]");
+        heading.append(", totalFuelUsed[l], wallTime[ms]");
+        writer.println(heading);
+        writer.flush();
+    }
+
+    public synchronized void write(int run, double[] values, RoadNetwork roadNetwork, long wallTimeMillis) {
+        final StringBuilder line = new StringBuilder(String.format("%4d", run));
+        for (final double value : values) {
+            line.append(SEPARATOR_CHAR).append(' ').append(String.format("%.6g", value));
+        }
+        final int vehiclesRemoved = roadNetwork.totalVehiclesRemoved();
+        final double totalTravelTime = roadNetwork.totalVehicleTravelTime();
+        line.append(String.format(", %d, %.3f, %.3f, %.3f, %.4f, %d", vehiclesRemoved, totalTravelTime,
+                roadNetwork.totalVehicleTravelDistance(), vehiclesRemoved == 0 ? 0 : totalTravelTime / vehiclesRemoved,
+                roadNetwork.totalVehicleFuelUsedLiters(), wallTimeMillis));
+        writer.println(line);
+        writer.flush();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+/**
+ * <p>
+ * Design of a parameter scan: the input parameters and the points of the parameter space at which the simulation is run.
+ * </p>
+ * <p>
+ * The design is read from a properties file, e.g.
+ * 
+ * <pre>
+ * design=grid
+ * threads=4
+ * parameters=inflow,T
+ * inflow.path=/Movsim/Scenario/Simulation/Road[@id='1']/TrafficSource/Inflow[2]/@q_per_hour
+ * inflow.min=1600
+ * inflow.max=2400
+ * inflow.step=200
+ * T.path=//ModelParameterIDM/@T
+ * T.values=1.0;1.2;1.5
+ * </pre>
+ * 
+ * A grid design runs the full factorial of the grid values, the first parameter varies slowest. A Latin hypercube design
+ * ({@code design=lhs}) draws {@code samples} points from the ranges [min, max] of the parameters, the points are reproducible
+ * for a given {@code seed}. Several XPath expressions of a parameter are separated by ';'. The optional
+ * {@code <name>.complement_path} expressions are set to one minus the value, e.g. for the fractions of two vehicle types.
+ * </p>
+ */
+public final class ScanDesign {
+
+    public enum Type {
+        GRID, LHS
+    }
+
+    private static final String LIST_SEPARATOR = ";";
+
+    private final Type type;
+
+    private final List<ScanParameter> parameters;
+
+    private final int samples;
+
+    private final long seed;
+
+    private final int threads;
+
+    public ScanDesign(Type type, List<ScanParameter> parameters, int samples, long seed, int threads) {
+        Preconditions.checkArgument(!parameters.isEmpty(), "no scan parameters");
+        Preconditions.checkArgument(type == Type.GRID || samples > 0, "samples=" + samples);
+        Preconditions.checkArgument(threads > 0, "threads=" + threads);
+        this.type = Preconditions.checkNotNull(type);
+        this.parameters = Collections.unmodifiableList(new ArrayList<>(parameters));
+        this.samples = samples;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    /**
+     * Reads the design from the given properties file.
+     * 
+     * @throws IllegalArgumentException
+     *             if the design is not valid
+     */
+    public static ScanDesign load(File file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(file)) {
+            properties.load(is);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Creates the design from the given properties.
+     * 
+     * @throws IllegalArgumentException
+     *             if the design is not valid
+     */
+    public static ScanDesign fromProperties(Properties properties) {
+        final Type type = Type.valueOf(properties.getProperty("design", "grid").trim().toUpperCase(Locale.US));
+        final int samples = Integer.parseInt(properties.getProperty("samples", "0").trim());
+        final long seed = Long.parseLong(properties.getProperty("seed", "42").trim());
+        final int threads = Integer.parseInt(properties.getProperty("threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())).trim());
+        final List<ScanParameter> parameters = new ArrayList<>();
+        for (final String name : split(properties.getProperty("parameters", ""), ",")) {
+            parameters.add(parameter(name, properties, type));
+        }
+        return new ScanDesign(type, parameters, samples, seed, threads);
+    }
+
+    private static ScanParameter parameter(String name, Properties properties, Type type) {
+        final ScanParameter parameter = parameterValues(name, properties, type);
+        final String complementPaths = properties.getProperty(name + ".complement_path");
+        return complementPaths == null ? parameter
+                : parameter.withComplementPaths(split(complementPaths, LIST_SEPARATOR));
+    }
+
+    private static ScanParameter parameterValues(String name, Properties properties, Type type) {
+        final List<String> paths = split(required(properties, name + ".path"), LIST_SEPARATOR);
+        final String values = properties.getProperty(name + ".values");
+        if (values != null) {
+            final List<Double> gridValues = new ArrayList<>();
+            for (final String value : split(values, LIST_SEPARATOR)) {
+                gridValues.add(Double.parseDouble(value));
+            }
+            return new ScanParameter(name, paths, gridValues);
+        }
+        final double min = Double.parseDouble(required(properties, name + ".min"));
+        final double max = Double.parseDouble(required(properties, name + ".max"));
+        final String step = properties.getProperty(name + ".step");
+        if (step == null) {
+            Preconditions.checkArgument(type == Type.LHS, "grid design needs " + name + ".step or " + name + ".values");
+            return new ScanParameter(name, paths, Arrays.asList(min, max));
+        }
+        return new ScanParameter(name, paths, min, max, Double.parseDouble(step.trim()));
+    }
+
+    private static String required(Properties properties, String key) {
+        final String value = properties.getProperty(key);
+        Preconditions.checkArgument(value != null && !value.trim().isEmpty(), "scan design needs property " + key);
+        return value.trim();
+    }
+
+    private static List<String> split(String value, String separator) {
+        return Splitter.on(separator).trimResults().omitEmptyStrings().splitToList(value);
+    }
+
+    /**
+     * Returns the points of the design. Each point holds the values in the order of the parameters.
+     * 
+     * @return the points of the design
+     */
+    public List<double[]> points() {
+        return type == Type.GRID ? gridPoints() : latinHypercubePoints();
+    }
+
+    private List<double[]> gridPoints() {
+        final List<double[]> points = new ArrayList<>();
+        final int[] indices = new int[parameters.size()];
+        while (true) {
+            final double[] point = new double[parameters.size()];
+            for (int i = 0; i < point.length; i++) {
+                point[i] = parameters.get(i).getGridValues().get(indices[i]);
+            }
+            points.add(point);
+            // increment like a counter, the last parameter varies fastest
+            int i = indices.length - 1;
+            while (i >= 0 && ++indices[i] == parameters.get(i).getGridValues().size()) {
+                indices[i] = 0;
+                --i;
+            }
+            if (i < 0) {
+                return points;
+            }
+        }
+    }
+
+    private List<double[]> latinHypercubePoints() {
+        final Random random = new Random(seed);
+        final double[][] points = new double[samples][parameters.size()];
+        final List<Integer> strata = new ArrayList<>(samples);
+        for (int k = 0; k < samples; k++) {
+            strata.add(k);
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            // every parameter hits each of its strata exactly once
+            Collections.shuffle(strata, random);
+            final ScanParameter parameter = parameters.get(i);
+            final double range = parameter.getMax() - parameter.getMin();
+            for (int k = 0; k < samples; k++) {
+                points[k][i] = parameter.getMin() + range * (strata.get(k) + random.nextDouble()) / samples;
+            }
+        }
+        return Arrays.asList(points);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<ScanParameter> getParameters() {
+        return parameters;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
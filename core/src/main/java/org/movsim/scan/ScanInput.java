@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.xml.InputLoader;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Creates an independent copy of the movsim input for each point of a {@link ScanDesign}. The project file is parsed once,
+ * each copy is unmarshalled from a modified clone of the parsed document and can therefore be used by a concurrent run.
+ */
+public final class ScanInput {
+
+    private final Document document;
+
+    private final List<ScanParameter> parameters;
+
+    public ScanInput(File projectFile, List<ScanParameter> parameters) throws IOException {
+        this.parameters = Preconditions.checkNotNull(parameters);
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            this.document = factory.newDocumentBuilder().parse(projectFile);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalArgumentException("cannot parse file=" + projectFile + ": " + e.toString());
+        }
+        // fail fast for expressions which do not select anything
+        for (final ScanParameter parameter : parameters) {
+            checkSelected(projectFile, parameter, parameter.getPaths());
+            checkSelected(projectFile, parameter, parameter.getComplementPaths());
+        }
+    }
+
+    /**
+     * Creates the movsim input for the given parameter values.
+     * 
+     * @param values
+     *            the values in the order of the parameters
+     * @return the movsim input
+     * @throws IllegalStateException
+     *             if the modified input is not valid
+     */
+    public Movsim create(double[] values) {
+        Preconditions.checkArgument(values.length == parameters.size());
+        final Document copy;
+        synchronized (document) {
+            copy = (Document) document.cloneNode(true);
+        }
+        for (int i = 0; i < values.length; i++) {
+            setValue(copy, parameters.get(i).getPaths(), format(values[i]));
+            setValue(copy, parameters.get(i).getComplementPaths(), format(1 - values[i]));
+        }
+        return InputLoader.unmarshallMovsim(new DOMSource(copy));
+    }
+
+    private void checkSelected(File projectFile, ScanParameter parameter, List<String> paths) {
+        for (final String path : paths) {
+            Preconditions.checkArgument(select(document, path).getLength() > 0, "xpath=" + path + " of parameter="
+                    + parameter.getName() + " does not select any node in file=" + projectFile);
+        }
+    }
+
+    private static void setValue(Document document, List<String> paths, String value) {
+        for (final String path : paths) {
+            final NodeList nodes = select(document, path);
+            for (int k = 0; k < nodes.getLength(); k++) {
+                final Node node = nodes.item(k);
+                if (node instanceof Attr) {
+                    ((Attr) node).setValue(value);
+                } else {
+                    node.setTextContent(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Integral values are written without fraction digits, so that they can be assigned to integer attributes.
+     */
+    static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static NodeList select(Document document, String path) {
+        // XPath instances are not thread-safe
+        final XPath xpath = XPathFactory.newInstance().newXPath();
+        try {
+            return (NodeList) xpath.evaluate(path, document, XPathConstants.NODESET);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("invalid xpath=" + path + ": " + e.toString());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Input parameter of a {@link ScanDesign}. The parameter is written to all nodes of the movsim input which are selected by
+ * its XPath expressions, e.g. {@code //ModelParameterIDM/@T}. One minus the parameter is written to the nodes selected by
+ * the complement expressions, e.g. the fraction of the remaining vehicle type if the parameter is a vehicle type fraction.
+ */
+public final class ScanParameter {
+
+    private static final double EPSILON = 1e-9;
+
+    private final String name;
+
+    private final List<String> paths;
+
+    private final List<String> complementPaths;
+
+    private final double min;
+
+    private final double max;
+
+    private final List<Double> gridValues;
+
+    /**
+     * Creates a parameter with the given grid values. The range of the parameter spans the grid values.
+     */
+    public ScanParameter(String name, List<String> paths, List<Double> gridValues) {
+        this(name, paths, Collections.<String> emptyList(), gridValues);
+    }
+
+    private ScanParameter(String name, List<String> paths, List<String> complementPaths, List<Double> gridValues) {
+        Preconditions.checkArgument(!paths.isEmpty(), "no xpath for parameter=" + name);
+        Preconditions.checkArgument(!gridValues.isEmpty(), "no values for parameter=" + name);
+        this.name = name;
+        this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+        this.complementPaths = Collections.unmodifiableList(new ArrayList<>(complementPaths));
+        this.gridValues = Collections.unmodifiableList(new ArrayList<>(gridValues));
+        this.min = Collections.min(gridValues);
+        this.max = Collections.max(gridValues);
+    }
+
+    /**
+     * Creates a parameter with the range [min, max]. The grid values are spaced by step, the upper boundary is always
+     * included.
+     */
+    public ScanParameter(String name, List<String> paths, double min, double max, double step) {
+        this(name, paths, gridValues(name, min, max, step));
+    }
+
+    /**
+     * Returns a copy of this parameter which additionally writes one minus its value to the nodes selected by the given
+     * XPath expressions.
+     */
+    public ScanParameter withComplementPaths(List<String> complementPaths) {
+        return new ScanParameter(name, paths, complementPaths, gridValues);
+    }
+
+    private static List<Double> gridValues(String name, double min, double max, double step) {
+        Preconditions.checkArgument(min <= max, "min > max for parameter=" + name);
+        Preconditions.checkArgument(step > 0, "step=" + step + " for parameter=" + name);
+        final List<Double> values = new ArrayList<>();
+        final int count = (int) Math.floor((max - min) / step + EPSILON) + 1;
+        for (int i = 0; i < count; i++) {
+            values.add(min + i * step);
+        }
+        if (values.get(count - 1) < max - EPSILON * step) {
+            // handle boundary explicitly
+            values.add(max);
+        }
+        return values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public List<String> getComplementPaths() {
+        return complementPaths;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public List<Double> getGridValues() {
+        return gridValues;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanParameter [name=" + name + ", paths=" + paths + ", complementPaths=" + complementPaths + ", min=" + min
+                + ", max=" + max + ", gridValues=" + gridValues + "]";
+    }
+}
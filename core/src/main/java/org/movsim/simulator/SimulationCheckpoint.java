@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.SignalPoint;
+import org.movsim.simulator.roadnetwork.boundaries.AbstractTrafficSource;
+import org.movsim.simulator.roadnetwork.controller.LoopDetector;
+import org.movsim.simulator.roadnetwork.controller.RoadObject.RoadObjectType;
+import org.movsim.simulator.roadnetwork.controller.TrafficLight;
+import org.movsim.simulator.roadnetwork.controller.VariableMessageSignDiversion;
+import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.VehicleFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Binary checkpoint of the dynamic simulation state, to continue a simulation from a warmed-up state instead of starting
+ * at time zero. The static part of the simulation (network, vehicle prototypes, boundary conditions) is not written:
+ * a checkpoint is read into a simulator that has been initialized from the same project, with possibly modified
+ * parameters, and replaces the state at time zero.
+ * </p>
+ *
+ * <pre>
+ * header:   int magic, int version, string projectName, double timestep, double simulationTime, long iterationCount,
+ *           long nextVehicleId
+ * random:   composition default, per road segment: int id, boolean hasComposition, [composition]
+ * lanes:    per road segment: int id, per lane: int count, count * (boolean obstacle, int obstacleIndex, state | vehicle)
+ * detached: int count, vehicle[count] (removed vehicles still referenced by signal points)
+ * objects:  per road segment: int id, signalPoint[n], boolean hasSource, [source], boolean hasRamp, [ramp],
+ *           boolean hasSink, [sink], loopDetector[n], vmsDiversion[n], trafficLight[n]
+ * lights:   traffic light controllers
+ * vehicle:  long id, string label, route, route chosenRoute, state
+ * route:    boolean isSet, [string name, int size, int roadSegmentId[size]]
+ * </pre>
+ * <p>
+ * Strings are written in modified UTF-8, all values are big-endian. Regulators, service providers and externally
+ * controlled vehicles are not supported, the state of the file outputs is not part of the checkpoint.
+ * </p>
+ */
+public final class SimulationCheckpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimulationCheckpoint.class);
+
+    static final int MAGIC = 0x4d534350; // "MSCP"
+
+    static final int VERSION = 2;
+
+    private SimulationCheckpoint() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    /**
+     * Checks that the dynamic state of the simulator can be written.
+     *
+     * @throws IllegalStateException
+     *             if the simulation has state that is not part of a checkpoint
+     */
+    public static void checkSupported(Simulator simulator) {
+        if (simulator.isWithExternalVehicleControl()) {
+            throw new IllegalStateException("checkpoint does not support externally controlled vehicles");
+        }
+        if (simulator.getRegulators().iterator().hasNext()) {
+            throw new IllegalStateException("checkpoint does not support regulators");
+        }
+        if (simulator.isWithServiceProviders()) {
+            throw new IllegalStateException("checkpoint does not support service providers");
+        }
+    }
+
+    /**
+     * Writes the state of the simulator at the start of the time step with the given simulation time and iteration
+     * count.
+     *
+     * @throws IllegalStateException
+     *             if the simulation has state that is not part of a checkpoint, see {@link #checkSupported(Simulator)}
+     */
+    public static void write(Simulator simulator, double simulationTime, long iterationCount, File file)
+            throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            write(simulator, simulationTime, iterationCount, out);
+        }
+        LOG.info("wrote checkpoint at simulationTime={}s to file={}", simulationTime, file);
+    }
+
+    /**
+     * Reads the state written by {@link #write(Simulator, double, long, File)} into an initialized simulator. The
+     * simulation continues from the time of the checkpoint.
+     */
+    public static void read(Simulator simulator, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            read(simulator, in);
+        }
+        LOG.info("continue simulation from checkpoint={} at simulationTime={}s", file,
+                simulator.getSimulationRunnable().simulationTime());
+    }
+
+    static void write(Simulator simulator, double simulationTime, long iterationCount, DataOutput out)
+            throws IOException {
+        checkSupported(simulator);
+        final RoadNetwork roadNetwork = simulator.getRoadNetwork();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(simulator.getProjectMetaData().getProjectName());
+        out.writeDouble(simulator.getSimulationRunnable().timeStep());
+        out.writeDouble(simulationTime);
+        out.writeLong(iterationCount);
+        out.writeLong(Vehicle.lastIdSet() + 1);
+
+        simulator.getVehicleGenerator().writeState(out);
+        for (RoadSegment roadSegment : roadNetwork) {
+            out.writeInt(roadSegment.id());
+            out.writeBoolean(roadSegment.hasTrafficComposition());
+            if (roadSegment.hasTrafficComposition()) {
+                roadSegment.getTrafficComposition().writeState(out);
+            }
+        }
+
+        final Map<Long, Vehicle> vehicles = new HashMap<>();
+        for (RoadSegment roadSegment : roadNetwork) {
+            if (roadSegment.overtakingVehicles().hasNext()) {
+                throw new IllegalStateException("cannot write vehicles on the overtaking lane of roadSegment="
+                        + roadSegment.userId());
+            }
+            out.writeInt(roadSegment.id());
+            for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+                out.writeInt(laneSegment.vehicleCount());
+                int obstacleIndex = 0;
+                for (Vehicle vehicle : laneSegment) {
+                    final boolean obstacle = vehicle.type() == Vehicle.Type.OBSTACLE;
+                    out.writeBoolean(obstacle);
+                    if (obstacle) {
+                        out.writeInt(obstacleIndex++);
+                        vehicle.writeState(out);
+                    } else {
+                        writeVehicle(vehicle, out);
+                        vehicles.put(vehicle.getId(), vehicle);
+                    }
+                }
+            }
+        }
+
+        final List<Vehicle> detachedVehicles = new ArrayList<>();
+        for (RoadSegment roadSegment : roadNetwork) {
+            for (SignalPoint signalPoint : roadSegment.signalPoints()) {
+                for (Vehicle vehicle : signalPoint.passedVehicles()) {
+                    if (!vehicles.containsKey(vehicle.getId())) {
+                        vehicles.put(vehicle.getId(), vehicle);
+                        detachedVehicles.add(vehicle);
+                    }
+                }
+            }
+        }
+        out.writeInt(detachedVehicles.size());
+        for (Vehicle vehicle : detachedVehicles) {
+            writeVehicle(vehicle, out);
+        }
+
+        for (RoadSegment roadSegment : roadNetwork) {
+            out.writeInt(roadSegment.id());
+            for (SignalPoint signalPoint : roadSegment.signalPoints()) {
+                signalPoint.writeState(out);
+            }
+            final AbstractTrafficSource source = roadSegment.trafficSource();
+            out.writeBoolean(source != null);
+            if (source != null) {
+                source.writeState(out);
+            }
+            out.writeBoolean(roadSegment.simpleRamp() != null);
+            if (roadSegment.simpleRamp() != null) {
+                roadSegment.simpleRamp().writeState(out);
+            }
+            out.writeBoolean(roadSegment.hasSink());
+            if (roadSegment.hasSink()) {
+                roadSegment.sink().writeState(out);
+            }
+            for (LoopDetector detector : roadSegment.roadObjects().<LoopDetector> values(RoadObjectType.LOOPDETECTOR)) {
+                detector.writeState(out);
+            }
+            for (VariableMessageSignDiversion diversion : roadSegment.roadObjects()
+                    .<VariableMessageSignDiversion> values(RoadObjectType.VMS_DIVERSION)) {
+                diversion.writeState(out);
+            }
+            for (TrafficLight trafficLight : roadSegment.roadObjects()
+                    .<TrafficLight> values(RoadObjectType.TRAFFICLIGHT)) {
+                trafficLight.writeState(out);
+            }
+        }
+        simulator.getTrafficLights().writeState(out);
+    }
+
+    static void read(Simulator simulator, DataInput in) throws IOException {
+        final RoadNetwork roadNetwork = simulator.getRoadNetwork();
+        final SimulationRunnable simulationRunnable = simulator.getSimulationRunnable();
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a movsim checkpoint");
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported checkpoint version=" + version);
+        }
+        final String projectName = in.readUTF();
+        if (!projectName.equals(simulator.getProjectMetaData().getProjectName())) {
+            LOG.info("checkpoint written by project={}", projectName);
+        }
+        final double timestep = in.readDouble();
+        if (Double.compare(timestep, simulationRunnable.timeStep()) != 0) {
+            throw new IOException("checkpoint timestep=" + timestep + " does not match simulation timestep="
+                    + simulationRunnable.timeStep());
+        }
+        final double simulationTime = in.readDouble();
+        final long iterationCount = in.readLong();
+        final long nextVehicleId = in.readLong();
+
+        simulator.getVehicleGenerator().readState(in);
+        for (RoadSegment roadSegment : roadNetwork) {
+            checkRoadSegment(roadSegment, in);
+            if (in.readBoolean() != roadSegment.hasTrafficComposition()) {
+                throw new IOException("traffic composition of roadSegment=" + roadSegment.userId() + " does not match");
+            }
+            if (roadSegment.hasTrafficComposition()) {
+                roadSegment.getTrafficComposition().readState(in);
+            }
+        }
+
+        final Map<Long, Vehicle> vehicles = new HashMap<>();
+        for (RoadSegment roadSegment : roadNetwork) {
+            checkRoadSegment(roadSegment, in);
+            for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+                final List<Vehicle> obstacles = new ArrayList<>();
+                for (Vehicle vehicle : laneSegment) {
+                    if (vehicle.type() == Vehicle.Type.OBSTACLE) {
+                        obstacles.add(vehicle);
+                    }
+                }
+                // vehicles are appended in the written order, which also keeps vehicles at equal positions in order
+                laneSegment.clearVehicles();
+                for (int i = 0, n = in.readInt(); i < n; i++) {
+                    if (in.readBoolean()) {
+                        final int obstacleIndex = in.readInt();
+                        if (obstacleIndex >= obstacles.size()) {
+                            throw new IOException("obstacles of roadSegment=" + roadSegment.userId()
+                                    + " do not match");
+                        }
+                        final Vehicle obstacle = obstacles.get(obstacleIndex);
+                        obstacle.readState(in, roadNetwork);
+                        laneSegment.appendVehicle(obstacle);
+                    } else {
+                        final Vehicle vehicle = readVehicle(simulator, in);
+                        if (vehicle.roadSegmentId() != roadSegment.id() || vehicle.lane() != laneSegment.lane()) {
+                            throw new IOException("vehicle id=" + vehicle.getId() + " not on its lane");
+                        }
+                        laneSegment.appendVehicle(vehicle);
+                        vehicles.put(vehicle.getId(), vehicle);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            final Vehicle vehicle = readVehicle(simulator, in);
+            vehicles.put(vehicle.getId(), vehicle);
+        }
+
+        for (RoadSegment roadSegment : roadNetwork) {
+            checkRoadSegment(roadSegment, in);
+            for (SignalPoint signalPoint : roadSegment.signalPoints()) {
+                signalPoint.readState(in, vehicles);
+            }
+            final AbstractTrafficSource source = roadSegment.trafficSource();
+            if (in.readBoolean() != (source != null)) {
+                throw new IOException("traffic source of roadSegment=" + roadSegment.userId() + " does not match");
+            }
+            if (source != null) {
+                source.readState(in);
+            }
+            if (in.readBoolean() != (roadSegment.simpleRamp() != null)) {
+                throw new IOException("simple ramp of roadSegment=" + roadSegment.userId() + " does not match");
+            }
+            if (roadSegment.simpleRamp() != null) {
+                roadSegment.simpleRamp().readState(in);
+            }
+            if (in.readBoolean() != roadSegment.hasSink()) {
+                throw new IOException("traffic sink of roadSegment=" + roadSegment.userId() + " does not match");
+            }
+            if (roadSegment.hasSink()) {
+                roadSegment.sink().readState(in);
+            }
+            for (LoopDetector detector : roadSegment.roadObjects().<LoopDetector> values(RoadObjectType.LOOPDETECTOR)) {
+                detector.readState(in);
+            }
+            for (VariableMessageSignDiversion diversion : roadSegment.roadObjects()
+                    .<VariableMessageSignDiversion> values(RoadObjectType.VMS_DIVERSION)) {
+                diversion.readState(in, vehicles);
+            }
+            for (TrafficLight trafficLight : roadSegment.roadObjects()
+                    .<TrafficLight> values(RoadObjectType.TRAFFICLIGHT)) {
+                trafficLight.readState(in);
+            }
+        }
+        simulator.getTrafficLights().readState(in);
+
+        Vehicle.setNextId(nextVehicleId);
+        simulationRunnable.setStart(simulationTime, iterationCount);
+        simulationRunnable.reset();
+    }
+
+    private static void checkRoadSegment(RoadSegment roadSegment, DataInput in) throws IOException {
+        final int id = in.readInt();
+        if (id != roadSegment.id()) {
+            throw new IOException("expected roadSegment id=" + roadSegment.id() + " but got id=" + id
+                    + ", checkpoint of a different network");
+        }
+    }
+
+    private static void writeVehicle(Vehicle vehicle, DataOutput out) throws IOException {
+        out.writeLong(vehicle.getId());
+        out.writeUTF(vehicle.getLabel());
+        writeRoute(vehicle.getRoute(), out);
+        writeRoute(vehicle.routingDecisions().chosenRoute(), out);
+        vehicle.writeState(out);
+    }
+
+    private static Vehicle readVehicle(Simulator simulator, DataInput in) throws IOException {
+        final VehicleFactory vehicleFactory = simulator.getVehicleFactory();
+        final long id = in.readLong();
+        final String label = in.readUTF();
+        final Route route = readRoute(simulator, in);
+        final Route chosenRoute = readRoute(simulator, in);
+        final Vehicle vehicle;
+        try {
+            // a vehicle takes the next id when it is created, so it is created with the written id
+            Vehicle.setNextId(id);
+            vehicle = vehicleFactory.create(label, route);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("cannot create vehicle with label=" + label, e);
+        }
+        vehicle.readState(in, simulator.getRoadNetwork());
+        vehicle.routingDecisions().setChosenRoute(chosenRoute);
+        return vehicle;
+    }
+
+    private static void writeRoute(@Nullable Route route, DataOutput out) throws IOException {
+        out.writeBoolean(route != null);
+        if (route != null) {
+            out.writeUTF(route.getName());
+            out.writeInt(route.size());
+            for (RoadSegment roadSegment : route) {
+                out.writeInt(roadSegment.id());
+            }
+        }
+    }
+
+    // predefined routes are shared, other routes (e.g. of the routing decisions) are created again
+    @Nullable
+    private static Route readRoute(Simulator simulator, DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        final Route route = new Route(in.readUTF());
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            final int id = in.readInt();
+            final RoadSegment roadSegment = simulator.getRoadNetwork().findById(id);
+            if (roadSegment == null) {
+                throw new IOException("unknown roadSegment id=" + id + " in route=" + route.getName());
+            }
+            route.add(roadSegment);
+        }
+        final Routing routing = simulator.getRouting();
+        if (routing.hasRoute(route.getName()) && routing.get(route.getName()).equals(route)) {
+            return routing.get(route.getName());
+        }
+        return route;
+    }
+}
@@ -25,9 +25,6 @@
  */
 package org.movsim.simulator;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.movsim.shutdown.ShutdownHooks;
 
 import com.google.common.base.Preconditions;
@@ -64,9 +61,14 @@ public class SimulationRun {
 
     protected long iterationCount;
 
+    // clock at reset, non-zero when continuing from a checkpoint
+    private double startSimulationTime;
+
+    private long startIterationCount;
+
     protected long totalSimulationTime;
 
-    protected final List<UpdateStatusCallback> updateStatusCallbacks = new ArrayList<>();
+    protected final TimeStepObservers<UpdateStatusCallback> updateStatusCallbacks = new TimeStepObservers<>();
 
     protected CompletionCallback completionCallback;
 
@@ -165,12 +167,25 @@ public class SimulationRun {
         return totalSimulationTime;
     }
 
+    /**
+     * Sets the simulation time and iteration count the simulation starts with after a {@link #reset()}, e.g. when
+     * continuing from a checkpoint. Both are zero by default.
+     *
+     * @param simulationTime
+     * @param iterationCount
+     */
+    public final void setStart(double simulationTime, long iterationCount) {
+        Preconditions.checkArgument(simulationTime >= 0 && iterationCount >= 0);
+        this.startSimulationTime = simulationTime;
+        this.startIterationCount = iterationCount;
+    }
+
     /**
      * Resets the simulation instrumentation data.
      */
     public void reset() {
-        simulationTime = 0.0;
-        iterationCount = 0;
+        simulationTime = startSimulationTime;
+        iterationCount = startIterationCount;
         totalSimulationTime = 0;
     }
 
@@ -183,6 +198,27 @@ public class SimulationRun {
         updateStatusCallbacks.add(Preconditions.checkNotNull(updateStatusCallback));
     }
 
+    /**
+     * Adds a update status callback which is only called in every n-th iteration.
+     *
+     * @param updateStatusCallback
+     * @param stepInterval the number of iterations between two calls
+     */
+    public void addUpdateStatusCallback(UpdateStatusCallback updateStatusCallback, int stepInterval) {
+        updateStatusCallbacks.add(Preconditions.checkNotNull(updateStatusCallback), stepInterval);
+    }
+
+    /**
+     * Calls the update status callbacks which are due in the current iteration.
+     */
+    protected final void updateStatus() {
+        for (int i = 0, n = updateStatusCallbacks.size(); i < n; i++) {
+            if (updateStatusCallbacks.isDue(i, iterationCount)) {
+                updateStatusCallbacks.get(i).updateStatus(simulationTime);
+            }
+        }
+    }
+
     /**
      * Sets the completion callback.
      *
@@ -203,15 +239,16 @@ public class SimulationRun {
         reset();
         final long timeBeforeSim_ms = System.currentTimeMillis();
         final double timeLimit = duration + dt / 2.0; // allow for rounding errors
-        while (simulationTime <= timeLimit) {
-            // perform the timeStep for the road network
-            simulation.timeStep(dt, simulationTime, iterationCount);
-            for (final UpdateStatusCallback updateStatusCallback : updateStatusCallbacks) {
-                updateStatusCallback.updateStatus(simulationTime);
+        if (updateStatusCallbacks.isEmpty()) {
+            runHeadless(timeLimit);
+        } else {
+            while (simulationTime <= timeLimit) {
+                // perform the timeStep for the road network
+                simulation.timeStep(dt, simulationTime, iterationCount);
+                updateStatus();
+                simulationTime += dt;
+                ++iterationCount;
             }
-            simulationTime += dt;
-            ++iterationCount;
-
         }
         totalSimulationTime = System.currentTimeMillis() - timeBeforeSim_ms;
         if (completionCallback != null) {
@@ -220,6 +257,27 @@ public class SimulationRun {
         ShutdownHooks.INSTANCE.onShutDown();
     }
 
+    /**
+     * Loop without update status callbacks, e.g. for batch runs. The loop is kept small and works on local copies of the
+     * fields, so that the JIT compiles it as a whole and inlines the (single) time step implementation.
+     *
+     * @param timeLimit
+     */
+    private void runHeadless(double timeLimit) {
+        final SimulationTimeStep timeStep = simulation;
+        final double dtLocal = dt;
+        double time = simulationTime;
+        long iteration = iterationCount;
+        while (time <= timeLimit) {
+            timeStep.timeStep(dtLocal, time, iteration);
+            time += dtLocal;
+            ++iteration;
+            // the fields remain readable during the run, e.g. for Simulator.isFinished()
+            simulationTime = time;
+            iterationCount = iteration;
+        }
+    }
+
     private static void initShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
@@ -25,6 +25,8 @@
  */
 package org.movsim.simulator;
 
+import java.util.concurrent.locks.LockSupport;
+
 import org.movsim.shutdown.ShutdownHooks;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,16 +73,18 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
 
     // Times
     private int sleepTimeMS;
-    private int sleepTimeUsed;
     private static final int DEFAULT_SLEEP_TIME_MS = 40; // default sleep time, milliseconds
+    private final StepScheduler scheduler = new StepScheduler();
     private boolean pausedWhenRunning;
-    private long lastUpdateTimeMS;
+    private long lastUpdateTimeNanos;
+    private long totalSimulationNanos;
+    private double lastUpdateSimulationTime;
     private double actualTimewarp = 0;
     private double smoothedTimewarp = 0;
     private final double betaTimewarp = Math.exp(-1.0 / 50); // moving exponential average scale
 
     // Thread and thread synchronization.
-    private Thread thread;
+    private volatile Thread thread;
     /**
      * Lock to synchronize the simulation thread with the UI thread.
      */
@@ -117,13 +121,23 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
     }
 
     /**
-     * Set the thread sleep time. This controls the animation speed.
+     * Set the thread sleep time. This controls the animation speed: one time step is run per sleep, see
+     * {@link StepScheduler#setStepDelay(int)}.
      *
      * @param sleepTimeMilliseconds sleep time in milliseconds
      */
     public void setSleepTime(int sleepTimeMilliseconds) {
         this.sleepTimeMS = sleepTimeMilliseconds;
-        sleepTimeUsed = sleepTimeMilliseconds;
+        scheduler.setStepDelay(sleepTimeMilliseconds);
+    }
+
+    /**
+     * Returns the scheduler which paces the simulation thread, e.g. to run at a target time warp or as fast as possible.
+     *
+     * @return the step scheduler
+     */
+    public StepScheduler scheduler() {
+        return scheduler;
     }
 
     /**
@@ -180,6 +194,8 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
             // kill thread
             final Thread waitFor = thread;
             thread = null;
+            // wake up the thread if it waits for the next frame
+            LockSupport.unpark(waitFor);
             try {
                 waitFor.join(5);
             } catch (final InterruptedException e) {
@@ -188,6 +204,12 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
         }
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        totalSimulationNanos = 0;
+    }
+
     /**
      * Starts the simulation thread.
      */
@@ -233,11 +255,13 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
      * Typically the simulation object is an iterable collection of elements, each with their own timestep method.
      * </p>
      * <p>
-     * <p>
-     * This method must be synchronized (using <code>dataLock</code>) (normally with the <code>drawForeground</code> method), so that
-     * elements are not updated, added or removed from the simulation while they are being drawn.
+     * The loop runs in frames paced by the {@link StepScheduler}: each frame runs the due time steps, then calls back the application to
+     * draw and waits for the start of the next frame.
      * </p>
      * <p>
+     * Each time step must be synchronized (using <code>dataLock</code>) with the application, so that elements are not updated, added or
+     * removed from the simulation while the application accesses them.
+     * </p>
      * <p>
      * <code>updateStatus(simulationTime)</code> is called after the simulation object has been updated to allow the application to make
      * updates before the repaint is called.
@@ -247,57 +271,89 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
     public void run() {
         assert updateDrawingCallback != null;
         assert simulation != null;
+        long now = System.nanoTime();
+        scheduler.reset(now);
+        lastUpdateTimeNanos = now;
+        lastUpdateSimulationTime = simulationTime;
         while (Thread.currentThread() == thread) {
-            if (duration > 0.0 && simulationTime >= duration) {
-                stop();
-                if (completionCallback != null) {
-                    completionCallback.simulationComplete(simulationTime);
+            scheduler.startFrame(now, dt);
+            while (scheduler.stepDue(now, dt) && Thread.currentThread() == thread) {
+                if (duration > 0.0 && simulationTime >= duration) {
+                    stop();
+                    if (completionCallback != null) {
+                        completionCallback.simulationComplete(simulationTime);
+                    }
+                    ShutdownHooks.INSTANCE.onShutDown();
+                    break;
                 }
-                ShutdownHooks.INSTANCE.onShutDown();
-                break;
+                step();
+                scheduler.stepDone(dt);
+                now = System.nanoTime();
             }
-            try {
-                Thread.sleep(sleepTimeUsed);
-            } catch (final InterruptedException e) {
-                // ignore exception
+            if (scheduler.stepsInFrame() > 0) {
+                // updateDrawing calls back to the UI framework which then asynchronously
+                // redraws the view
+                updateDrawingCallback.updateDrawing(simulationTime);
+                now = System.nanoTime();
+                calculateTimewarp(now);
             }
-            synchronized (dataLock) {
-                // synchronized so that the UI framework does not try to draw elements
-                // while they are being added, updated or removed
-                final long timeBeforeSim_ms = System.currentTimeMillis();
-                // perform the simulation timestep
-                try {
-                    simulation.timeStep(dt, simulationTime, iterationCount);
-                } catch (final Exception e) {
-                    ShutdownHooks.INSTANCE.onShutDown();
-                    if (handleExceptionCallback != null) {
-                        handleExceptionCallback.handleException(e);
-                    }
-                    LOG.error("error occourred", e);
-                }
+            now = waitUntil(scheduler.nextFrameStart(now));
+        }
+    }
 
-                for (final UpdateStatusCallback updateStatusCallback : updateStatusCallbacks) {
-                    updateStatusCallback.updateStatus(simulationTime);
+    private void step() {
+        synchronized (dataLock) {
+            // synchronized so that the UI framework does not try to draw elements
+            // while they are being added, updated or removed
+            final long timeBeforeSim = System.nanoTime();
+            // perform the simulation timestep
+            try {
+                simulation.timeStep(dt, simulationTime, iterationCount);
+            } catch (final Exception e) {
+                ShutdownHooks.INSTANCE.onShutDown();
+                if (handleExceptionCallback != null) {
+                    handleExceptionCallback.handleException(e);
                 }
-                simulationTime += dt;
-                ++iterationCount;
-                totalSimulationTime += System.currentTimeMillis() - timeBeforeSim_ms;
+                LOG.error("error occourred", e);
             }
-            // updateDrawing calls back to the UI framework which then asynchronously
-            // redraws the view
-            updateDrawingCallback.updateDrawing(simulationTime);
-            calculateTimewarp();
+
+            updateStatus();
+            simulationTime += dt;
+            ++iterationCount;
+            totalSimulationNanos += System.nanoTime() - timeBeforeSim;
+            totalSimulationTime = totalSimulationNanos / 1000000L;
+        }
+    }
+
+    /**
+     * Parks the simulation thread until the given time or until the thread is stopped.
+     *
+     * @return the current time
+     */
+    private long waitUntil(long deadline) {
+        long now = System.nanoTime();
+        while (now - deadline < 0 && Thread.currentThread() == thread) {
+            LockSupport.parkNanos(deadline - now);
+            now = System.nanoTime();
         }
+        return now;
     }
 
-    private void calculateTimewarp() {
-        final long timeAfterSim_ms = System.currentTimeMillis();
-        actualTimewarp = dt / (0.001 * (timeAfterSim_ms - lastUpdateTimeMS));
-        lastUpdateTimeMS = timeAfterSim_ms;
+    /**
+     * Measures the time warp as the simulation time advanced per real time since the previous measurement.
+     */
+    private void calculateTimewarp(long now) {
+        final long elapsedNanos = now - lastUpdateTimeNanos;
+        if (elapsedNanos <= 0) {
+            return;
+        }
+        actualTimewarp = (simulationTime - lastUpdateSimulationTime) * StepScheduler.NANOS_PER_SECOND / elapsedNanos;
+        lastUpdateTimeNanos = now;
+        lastUpdateSimulationTime = simulationTime;
 
-        smoothedTimewarp = Math.min(1000, smoothedTimewarp == 0.0 ?
+        smoothedTimewarp = smoothedTimewarp == 0.0 ?
                 actualTimewarp :
-                betaTimewarp * smoothedTimewarp + (1.0 - betaTimewarp) * actualTimewarp);
+                betaTimewarp * smoothedTimewarp + (1.0 - betaTimewarp) * actualTimewarp;
     }
 
     public boolean isFiniteDuration() {
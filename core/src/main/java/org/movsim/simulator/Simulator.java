@@ -40,12 +40,15 @@ import org.movsim.simulator.vehicles.ExternalVehiclesController;
 import org.movsim.simulator.vehicles.TrafficCompositionGenerator;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.VehicleFactory;
+import org.movsim.simulator.vehicles.VehiclePool;
 import org.movsim.utilities.MyRandom;
 import org.movsim.xml.InputLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
 import java.io.File;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -56,8 +59,16 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private static final Logger LOG = LoggerFactory.getLogger(Simulator.class);
 
+    /** performance summary of the runs, a logger of its own so it can be kept when batch runs log warnings only */
+    private static final Logger PERFORMANCE_LOG = LoggerFactory.getLogger(Simulator.class.getName() + ".performance");
+
+    /** id of the random stream of the default traffic composition, the road specific ones use the road segment id */
+    private static final long DEFAULT_COMPOSITION_STREAM_ID = -1;
+
     private long startTimeMillis;
 
+    private long startTimeNanos;
+
     private final ProjectMetaData projectMetaData;
 
     private String projectName;
@@ -66,6 +77,9 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private VehicleFactory vehicleFactory;
 
+    /** pool of the vehicles removed by the traffic sinks, null if vehicles are not pooled */
+    private VehiclePool vehiclePool;
+
     private TrafficCompositionGenerator defaultTrafficComposition;
 
     private TrafficLights trafficLights;
@@ -86,6 +100,11 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private long timeOffsetMillis;
 
+    private double checkpointTime;
+
+    /** file of the checkpoint to be written, null if no (further) checkpoint is written */
+    private File checkpointFile;
+
     /**
      * Constructor.
      *
@@ -103,11 +122,23 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         simulationRunnable.setCompletionCallback(this);
     }
 
+    /**
+     * Initializes the simulation from the input file of the project, which is read again to start from unmodified input.
+     */
     public void initialize() {
+        initialize(InputLoader.unmarshallMovsim(projectMetaData.getInputFile()));
+    }
+
+    /**
+     * Initializes the simulation from the given input, e.g. a modified copy of the project input in a parameter scan.
+     *
+     * @param inputData
+     */
+    public void initialize(Movsim inputData) {
         LOG.info("Copyright '\u00A9' by Arne Kesting, Martin Treiber, Ralph Germ and Martin Budden (2011-2013)");
 
         projectName = projectMetaData.getProjectName();
-        movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
+        movsimInput = Preconditions.checkNotNull(inputData);
 
         timeOffsetMillis = 0;
         if (movsimInput.getScenario().getSimulation().isSetTimeOffset()) {
@@ -122,6 +153,11 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
         Simulation simulationInput = movsimInput.getScenario().getSimulation();
 
+        // seed before any random streams are created
+        if (simulationInput.isWithSeed()) {
+            MyRandom.initializeWithSeed(simulationInput.getSeed());
+        }
+
         parseOpenDriveXml(roadNetwork, projectMetaData);
         routing = new Routing(movsimInput.getScenario().getRoutes(), roadNetwork);
 
@@ -141,12 +177,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
         simulationRunnable.setDuration(duration < 0 ? Double.MAX_VALUE : duration);
 
-        if (simulationInput.isWithSeed()) {
-            MyRandom.initializeWithSeed(simulationInput.getSeed());
-        }
-
         defaultTrafficComposition = new TrafficCompositionGenerator(simulationInput.getTrafficComposition(),
-                vehicleFactory);
+                vehicleFactory, DEFAULT_COMPOSITION_STREAM_ID);
 
         trafficLights = new TrafficLights(movsimInput.getScenario().getTrafficLights(), roadNetwork);
 
@@ -168,6 +200,10 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         // set its input data accordingly
         matchRoadSegmentsAndRoadInput(simulationInput.getRoad(), microBoundaryConditions);
 
+        if (projectMetaData.isVehiclePooling()) {
+            configureVehiclePool();
+        }
+
         if (movsimInput.getScenario().isSetInitialConditionsFilename()) {
             String filename = movsimInput.getScenario().getInitialConditionsFilename();
             File icFile = projectMetaData.getFile(filename);
@@ -175,8 +211,18 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             initialConditions.setInitialConditions(roadNetwork, defaultTrafficComposition);
         }
 
+        simulationRunnable.setStart(0, 0);
         reset();
+        if (projectMetaData.hasRestoreCheckpointFilename()) {
+            restoreCheckpoint(new File(projectMetaData.getRestoreCheckpointFilename()));
+        }
+        checkpointFile = null;
+        if (projectMetaData.hasCheckpointTime()) {
+            setCheckpoint(projectMetaData.getCheckpointTime(),
+                    new File(projectMetaData.getOutputPath(), projectName + ".checkpoint"));
+        }
         startTimeMillis = System.currentTimeMillis();
+        startTimeNanos = System.nanoTime();
     }
 
     private ExternalVehiclesController createExternalVehicleController() {
@@ -208,6 +254,55 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         return roadNetwork;
     }
 
+    VehicleFactory getVehicleFactory() {
+        return vehicleFactory;
+    }
+
+    boolean isWithExternalVehicleControl() {
+        return movsimInput.getScenario().isSetExternalVehicleControlFilename();
+    }
+
+    boolean isWithServiceProviders() {
+        return serviceProviders != null;
+    }
+
+    Routing getRouting() {
+        return routing;
+    }
+
+    TrafficLights getTrafficLights() {
+        return trafficLights;
+    }
+
+    /**
+     * Writes a {@link SimulationCheckpoint} at the start of the first time step at or after the given simulation time.
+     *
+     * @param checkpointTime simulation time in seconds
+     * @param file the checkpoint file, null to cancel a pending checkpoint
+     * @throws IllegalStateException if the simulation has state that is not part of a checkpoint
+     */
+    public void setCheckpoint(double checkpointTime, File file) {
+        if (file != null) {
+            SimulationCheckpoint.checkSupported(this);
+        }
+        this.checkpointTime = checkpointTime;
+        this.checkpointFile = file;
+    }
+
+    /**
+     * Continues the initialized simulation from the state of the given checkpoint file.
+     *
+     * @param file the checkpoint file
+     * @throws IllegalArgumentException if the checkpoint cannot be read or does not match the simulation
+     */
+    public void restoreCheckpoint(File file) {
+        try {
+            SimulationCheckpoint.read(this, file);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot restore checkpoint=" + file, e);
+        }
+    }
+
     public SimulationRunnable getSimulationRunnable() {
         return simulationRunnable;
     }
@@ -269,7 +364,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         TrafficCompositionGenerator composition = defaultTrafficComposition;
 
         if (roadInput.isSetTrafficComposition()) {
-            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory);
+            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory,
+                    roadSegment.id());
             roadSegment.setTrafficComposition(composition);
             LOG.info("road with id={} has its own vehicle composition generator.", roadSegment.id());
         }
@@ -365,8 +461,24 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         }
     }
 
+    private void configureVehiclePool() {
+        vehiclePool = new VehiclePool();
+        vehicleFactory.setVehiclePool(vehiclePool);
+        for (RoadSegment roadSegment : roadNetwork) {
+            if (roadSegment.hasSink()) {
+                roadSegment.sink().setVehiclePool(vehiclePool);
+            }
+        }
+        LOG.info("vehicles removed by the traffic sinks are reused.");
+    }
+
     public void reset() {
         simulationRunnable.reset();
+        // new worker threads, the previous ones are shut down on completion or here
+        roadNetwork.setParallelism(projectMetaData.getParallelism());
+        if (vehiclePool != null) {
+            vehiclePool.clear();
+        }
         if (movsimInput.getScenario().isSetOutputConfiguration()) {
             simOutput = new SimulationOutput(simulationRunnable.timeStep(), projectMetaData.isInstantaneousFileOutput(),
                     movsimInput.getScenario().getOutputConfiguration(), roadNetwork, routing, serviceProviders);
@@ -379,6 +491,7 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
                 simulationRunnable.simulationTime(), projectName);
 
         startTimeMillis = System.currentTimeMillis();
+        startTimeNanos = System.nanoTime();
         // TODO check if first output update has to be called in update for external call!!
         // TODO FloatingCars do not need this call. First output line for t=0 is written twice to file
         // simOutput.timeStep(simulationRunnable.timeStep(), simulationRunnable.simulationTime(),
@@ -401,6 +514,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         }
 
         regulators.simulationCompleted(simulationTime);
+        // stop the worker threads of the parallel update, a resumed simulation is updated sequentially
+        roadNetwork.setParallelism(0);
 
         LOG.info("total traveltime={} seconds", (int) roadNetwork.totalVehicleTravelTime());
         LOG.info("total distance traveled={} meters", (int) roadNetwork.totalVehicleTravelDistance());
@@ -414,6 +529,26 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
                             .iterationCount())));
             LOG.info("remaining vehicles in simulation after completion:\n {}", showAllVehicles());
         }
+        reportPerformance();
+    }
+
+    /**
+     * Reports the update steps per second of wall time and the wall time per vehicle update, and the reuse of pooled
+     * vehicles.
+     */
+    private void reportPerformance() {
+        final long elapsedNanos = System.nanoTime() - startTimeNanos;
+        final long steps = simulationRunnable.iterationCount();
+        final long vehicleSteps = roadNetwork.vehicleSteps();
+        if (PERFORMANCE_LOG.isInfoEnabled()) {
+            PERFORMANCE_LOG.info(String.format(
+                    "%s performance: %d steps in %.3fs --> %.1f steps/s, %d vehicle steps --> %.1f ns per vehicle step",
+                    projectName, steps, elapsedNanos * 1e-9, steps / Math.max(elapsedNanos * 1e-9, Double.MIN_VALUE),
+                    vehicleSteps, vehicleSteps == 0 ? 0.0 : (double) elapsedNanos / vehicleSteps));
+            if (vehiclePool != null) {
+                PERFORMANCE_LOG.info("{} {}", projectName, vehiclePool);
+            }
+        }
     }
 
     private String showAllVehicles() {
@@ -438,11 +573,14 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
-        if (LOG.isInfoEnabled() && iterationCount % 1000 == 0) {
+        if (iterationCount % 1000 == 0 && !projectMetaData.isBatchMode() && LOG.isInfoEnabled()) {
             int numberOfVehicles = roadNetwork.vehicleCount() - roadNetwork.getObstacleCount();
             LOG.info(String.format("Simulator.update :time = %.2fs = %.2fh, dt = %.2fs, vehicles=%d, projectName=%s",
                     simulationTime, simulationTime / 3600, dt, numberOfVehicles, projectName));
         }
+        if (checkpointFile != null && simulationTime >= checkpointTime) {
+            writeCheckpoint(simulationTime, iterationCount);
+        }
 
         trafficLights.timeStep(dt, simulationTime, iterationCount);
         regulators.timeStep(dt, simulationTime, iterationCount);
@@ -451,9 +589,32 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         if (simOutput != null) {
             simOutput.timeStep(dt, simulationTime, iterationCount);
         }
+        if (vehiclePool != null) {
+            // the vehicles removed in this time step may have been referenced until now, e.g. by the outputs
+            vehiclePool.recycleReleased();
+        }
+    }
+
+    private void writeCheckpoint(double simulationTime, long iterationCount) {
+        try {
+            SimulationCheckpoint.write(this, simulationTime, iterationCount, checkpointFile);
+        } catch (IOException e) {
+            LOG.error("cannot write checkpoint=" + checkpointFile, e);
+        }
+        checkpointFile = null;
     }
 
     public Regulators getRegulators() {
         return regulators;
     }
+
+    /**
+     * Returns the pool of the vehicles removed by the traffic sinks.
+     *
+     * @return the vehicle pool, null if vehicles are not pooled
+     */
+    @CheckForNull
+    public VehiclePool getVehiclePool() {
+        return vehiclePool;
+    }
 }
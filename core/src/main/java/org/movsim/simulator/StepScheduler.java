@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Paces the simulation thread of the {@link SimulationRunnable}: decides how many simulation steps are run per rendered
+ * frame and when the next frame starts.
+ * </p>
+ * <p>
+ * Times are in nanoseconds as returned by {@link System#nanoTime()}, passed in by the caller.
+ * </p>
+ */
+public final class StepScheduler {
+
+    public enum Mode {
+        /** one step per frame with a fixed delay before the next step, the classic animation speed. */
+        STEP_DELAY,
+        /** as many steps per frame as needed for the simulation time to advance at the target time warp. */
+        TIMEWARP,
+        /** as many steps as fit into the frame interval, frames are rendered at the frame rate. */
+        MAX_THROUGHPUT
+    }
+
+    static final long NANOS_PER_SECOND = 1000000000L;
+
+    private static final long NANOS_PER_MILLISECOND = 1000000L;
+
+    private static final int DEFAULT_FRAMES_PER_SECOND = 25;
+
+    /** simulation time that may be caught up after frames in which the simulation could not keep up, in frames. */
+    private static final int MAX_CATCH_UP_FRAMES = 2;
+
+    // settings, changed by the UI thread
+    private volatile Mode mode = Mode.STEP_DELAY;
+    private volatile long stepDelayNanos;
+    private volatile double targetTimewarp = 1;
+    private volatile long frameIntervalNanos = NANOS_PER_SECOND / DEFAULT_FRAMES_PER_SECOND;
+
+    // state of the simulation thread
+    private long frameStart;
+    private long previousFrameStart;
+    private int stepsInFrame;
+    /** simulation time still to be run to keep up with the target time warp, in seconds. */
+    private double simulationTimeDue;
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Runs one step per frame and waits the given delay after each.
+     *
+     * @param delayMilliseconds
+     */
+    public void setStepDelay(int delayMilliseconds) {
+        Preconditions.checkArgument(delayMilliseconds >= 0, "delay=" + delayMilliseconds);
+        stepDelayNanos = delayMilliseconds * NANOS_PER_MILLISECOND;
+        mode = Mode.STEP_DELAY;
+    }
+
+    /**
+     * Runs as many steps per frame as needed to advance the simulation time by the given multiple of the real time, as
+     * far as the simulation keeps up.
+     *
+     * @param timewarp
+     */
+    public void setTargetTimewarp(double timewarp) {
+        Preconditions.checkArgument(timewarp > 0, "timewarp=" + timewarp);
+        targetTimewarp = timewarp;
+        mode = Mode.TIMEWARP;
+    }
+
+    public double targetTimewarp() {
+        return targetTimewarp;
+    }
+
+    /**
+     * Runs as many steps as possible, rendering frames at the frame rate.
+     */
+    public void setMaxThroughput() {
+        mode = Mode.MAX_THROUGHPUT;
+    }
+
+    /**
+     * Sets the frame rate of the {@link Mode#TIMEWARP} and {@link Mode#MAX_THROUGHPUT} modes.
+     *
+     * @param framesPerSecond
+     */
+    public void setFramesPerSecond(double framesPerSecond) {
+        Preconditions.checkArgument(framesPerSecond > 0, "framesPerSecond=" + framesPerSecond);
+        frameIntervalNanos = (long) (NANOS_PER_SECOND / framesPerSecond);
+    }
+
+    /**
+     * Resets the pacing, to be called when the simulation thread (re)starts.
+     *
+     * @param now
+     */
+    public void reset(long now) {
+        frameStart = now;
+        previousFrameStart = now;
+        stepsInFrame = 0;
+        simulationTimeDue = 0;
+    }
+
+    /**
+     * Starts a frame.
+     *
+     * @param now
+     * @param dt
+     *            the simulation time step, in seconds
+     */
+    public void startFrame(long now, double dt) {
+        previousFrameStart = frameStart;
+        frameStart = now;
+        stepsInFrame = 0;
+        if (mode == Mode.TIMEWARP) {
+            final double timewarp = targetTimewarp;
+            simulationTimeDue += timewarp * (now - previousFrameStart) / NANOS_PER_SECOND;
+            simulationTimeDue = Math.min(simulationTimeDue,
+                    Math.max(dt, timewarp * MAX_CATCH_UP_FRAMES * frameIntervalNanos / NANOS_PER_SECOND));
+        } else {
+            simulationTimeDue = 0;
+        }
+    }
+
+    /**
+     * Returns true if another step is to be run in the current frame.
+     *
+     * @param now
+     * @param dt
+     *            the simulation time step, in seconds
+     * @return true if a step is due
+     */
+    public boolean stepDue(long now, double dt) {
+        switch (mode) {
+        case STEP_DELAY:
+            return stepsInFrame == 0;
+        case TIMEWARP:
+            // round to the nearest step so that the simulation time does not lag behind by a step
+            return simulationTimeDue >= 0.5 * dt && (stepsInFrame == 0 || now - frameStart < frameIntervalNanos);
+        case MAX_THROUGHPUT:
+            return stepsInFrame == 0 || now - frameStart < frameIntervalNanos;
+        default:
+            throw new IllegalStateException("unknown mode=" + mode);
+        }
+    }
+
+    /**
+     * Records a step run in the current frame.
+     *
+     * @param dt
+     *            the simulation time step, in seconds
+     */
+    public void stepDone(double dt) {
+        ++stepsInFrame;
+        if (mode == Mode.TIMEWARP) {
+            simulationTimeDue -= dt;
+        }
+    }
+
+    /**
+     * Returns the number of steps run in the current frame.
+     */
+    public int stepsInFrame() {
+        return stepsInFrame;
+    }
+
+    /**
+     * Returns the time at which the next frame is to be started.
+     *
+     * @param now
+     * @return the start time of the next frame
+     */
+    public long nextFrameStart(long now) {
+        switch (mode) {
+        case STEP_DELAY:
+            return now + stepDelayNanos;
+        case TIMEWARP:
+            return frameStart + frameIntervalNanos;
+        case MAX_THROUGHPUT:
+            return now;
+        default:
+            throw new IllegalStateException("unknown mode=" + mode);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Observers of the simulation time steps, each registered with a step interval: an observer with interval n is only due in
+ * every n-th iteration.
+ * </p>
+ * <p>
+ * The observers are kept in arrays and are visited with an indexed loop, so that an empty list costs a single comparison per
+ * time step and no iterator is created.
+ * </p>
+ *
+ * @param <T> the type of the observers
+ */
+public final class TimeStepObservers<T> {
+
+    private Object[] observers = new Object[4];
+
+    private int[] stepIntervals = new int[4];
+
+    private int size;
+
+    /**
+     * Returns the step interval of an observer which acts once the given time interval has elapsed: the number of time
+     * steps which first cover the time interval, but at least one.
+     *
+     * @param interval           the time interval (s)
+     * @param simulationTimestep the simulation time step (s)
+     * @return the number of iterations between two notifications of the observer
+     */
+    public static int stepInterval(double interval, double simulationTimestep) {
+        Preconditions.checkArgument(simulationTimestep > 0, "simulationTimestep=" + simulationTimestep);
+        return Math.max(1, (int) Math.ceil(interval / simulationTimestep - MovsimConstants.SMALL_VALUE));
+    }
+
+    /**
+     * Adds an observer which is due in every iteration.
+     *
+     * @param observer
+     */
+    public void add(T observer) {
+        add(observer, 1);
+    }
+
+    /**
+     * Adds an observer which is due in every n-th iteration, starting with the first iteration.
+     *
+     * @param observer
+     * @param stepInterval the number of iterations between two notifications of the observer
+     */
+    public void add(T observer, int stepInterval) {
+        Preconditions.checkNotNull(observer);
+        Preconditions.checkArgument(stepInterval > 0, "stepInterval=" + stepInterval);
+        if (size == observers.length) {
+            observers = Arrays.copyOf(observers, 2 * size);
+            stepIntervals = Arrays.copyOf(stepIntervals, 2 * size);
+        }
+        observers[size] = observer;
+        stepIntervals[size] = stepInterval;
+        ++size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        return (T) observers[index];
+    }
+
+    /**
+     * Returns true if the observer at the given index has to be notified in the given iteration.
+     *
+     * @param index
+     * @param iterationCount the number of iterations executed
+     * @return true if the observer is due
+     */
+    public boolean isDue(int index, long iterationCount) {
+        final int stepInterval = stepIntervals[index];
+        return stepInterval == 1 || iterationCount % stepInterval == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(observers, 0, size, null);
+        size = 0;
+    }
+}
@@ -1,6 +1,8 @@
 package org.movsim.simulator.observer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.SortedMap;
@@ -20,6 +22,16 @@ public class DecisionPoint implements Iterable<RouteAlternative> {
     /** sorted according to routeLabel for assuring a consistent */
     private final SortedMap<String, RouteAlternative> routeAlternatives = new TreeMap<>();
 
+    /**
+     * route alternatives with the choice probabilities for the uncertainties of the deciding vehicles, shared by all
+     * vehicles until the next update of the disutilities. There are only a few uncertainties (one per vehicle type), so
+     * they are searched linearly.
+     */
+    private final List<List<RouteAlternative>> routeChoices = new ArrayList<>();
+
+    /** uncertainty of the route choice with the same index */
+    private double[] routeChoiceUncertainties = new double[4];
+
     public DecisionPoint(DecisionPointType configuration, Routing routing) {
         Preconditions.checkNotNull(configuration);
         if (!configuration.isSetRouteAlternative() || configuration.getRouteAlternative().isEmpty()) {
@@ -53,4 +65,32 @@ public class DecisionPoint implements Iterable<RouteAlternative> {
         return alternatives;
     }
 
+    /**
+     * Returns the route alternatives with the choice probabilities for the given uncertainty. The probabilities are
+     * calculated once per update of the disutilities, the vehicles sample from the shared alternatives.
+     */
+    public List<RouteAlternative> getRouteChoice(double uncertainty) {
+        final int size = routeChoices.size();
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(routeChoiceUncertainties[i], uncertainty) == 0) {
+                return routeChoices.get(i);
+            }
+        }
+        final List<RouteAlternative> alternatives = Collections.unmodifiableList(createRouteAlternatives());
+        LogitRouteDecisionMaking.calcProbabilities(alternatives, uncertainty);
+        if (size == routeChoiceUncertainties.length) {
+            routeChoiceUncertainties = Arrays.copyOf(routeChoiceUncertainties, 2 * size);
+        }
+        routeChoiceUncertainties[size] = uncertainty;
+        routeChoices.add(alternatives);
+        return alternatives;
+    }
+
+    /**
+     * Discards the route choices after the disutilities of the alternatives have been updated.
+     */
+    void disutilitiesUpdated() {
+        routeChoices.clear();
+    }
+
 }
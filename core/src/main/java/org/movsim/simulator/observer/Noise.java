@@ -1,6 +1,7 @@
 package org.movsim.simulator.observer;
 
 import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 
 public class Noise {
 
@@ -15,8 +16,11 @@ public class Noise {
 
     private double xiTime;
 
-    public Noise(double tau, double fluctStrength) {
+    private final RandomStream random;
+
+    public Noise(double tau, double fluctStrength, String label) {
         xiTime = 0;
+        random = MyRandom.newStream("serviceProviderNoise", label.hashCode());
         this.fluctStrength = fluctStrength;
         this.tau = tau;
         isWienerProcess = (tau != 0) ? true : false;
@@ -37,8 +41,8 @@ public class Noise {
      * 
      * @return random variable realization
      */
-    private static double getUniformlyDistributedRealization() {
-        final double randomVar = MyRandom.nextDouble();
+    private double getUniformlyDistributedRealization() {
+        final double randomVar = random.nextDouble();
         final double randomMu0Sigma1 = SQRT12 * (randomVar - 0.5);
         return randomMu0Sigma1;
     }
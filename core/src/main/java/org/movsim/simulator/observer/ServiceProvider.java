@@ -6,10 +6,12 @@ import javax.annotation.CheckForNull;
 
 import org.movsim.autogen.ServiceProviderType;
 import org.movsim.simulator.SimulationTimeStep;
+import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.movsim.simulator.vehicles.RoutingDecisions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,8 +43,33 @@ public class ServiceProvider implements SimulationTimeStep {
         this.serverUpdateInterval = configuration.getServerUpdateInterval();
         this.vehicleUpdateInterval = configuration.getVehicleUpdateInterval();
         this.decisionPoints = new DecisionPoints(configuration.getDecisionPoints(), routing);
-        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength());
+        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength(), label);
         this.fileOutput = configuration.isLogging() ? new ServiceProviderLogging(this) : null;
+        markDecisionPointRoadSegments(roadNetwork);
+    }
+
+    /**
+     * Marks the road segments on which vehicles consider the route alternatives of a decision point, so that only the
+     * vehicles approaching a decision point are visited. These are the road segments of the decision points and the
+     * upstream road segments whose vehicles look ahead to a decision point, see
+     * {@link RoutingDecisions#decisionPointRoadSegment(RoadSegment)}.
+     */
+    private void markDecisionPointRoadSegments(RoadNetwork roadNetwork) {
+        for (DecisionPoint decisionPoint : decisionPoints) {
+            RoadSegment roadSegment = roadNetwork.findByUserId(decisionPoint.getRoadId());
+            if (roadSegment == null) {
+                LOG.warn("decision point on unknown road={} is ignored", decisionPoint.getRoadId());
+                continue;
+            }
+            roadSegment.setWithRoutingDecisions(true);
+            for (int lane = Lanes.LANE1; lane <= roadSegment.laneCount(); ++lane) {
+                RoadSegment sourceRoadSegment = roadSegment.sourceRoadSegment(lane);
+                if (sourceRoadSegment != null
+                        && RoutingDecisions.decisionPointRoadSegment(sourceRoadSegment) == roadSegment) {
+                    sourceRoadSegment.setWithRoutingDecisions(true);
+                }
+            }
+        }
     }
 
     public String getLabel() {
@@ -68,23 +95,22 @@ public class ServiceProvider implements SimulationTimeStep {
         }
     }
 
-    /** calculate individual probabilities */
-    public static void updateRouteAlternatives(Iterable<RouteAlternative> alternatives, double uncertainty) {
-        LogitRouteDecisionMaking.calcProbabilities(alternatives, uncertainty);
-    }
-
     public static RouteAlternative selectMostProbableAlternative(Iterable<RouteAlternative> alternatives,
             double random) {
         return LogitRouteDecisionMaking.selectMostProbableAlternative(alternatives, random);
     }
 
+    /**
+     * Returns the shared route alternatives of the decision point on the given road segment with the choice
+     * probabilities for the given uncertainty, null if there is no decision point.
+     */
     @CheckForNull
-    public List<RouteAlternative> getAlternativesForDecisionPoint(RoadSegment roadSegment) {
+    public List<RouteAlternative> getRouteChoice(RoadSegment roadSegment, double uncertainty) {
         DecisionPoint decisionPoint = getDecisionPoint(roadSegment.userId());
         if (decisionPoint == null) {
             return null;
         }
-        return decisionPoint.createRouteAlternatives();
+        return decisionPoint.getRouteChoice(uncertainty);
     }
 
     @CheckForNull
@@ -114,15 +140,19 @@ public class ServiceProvider implements SimulationTimeStep {
                 noise.update(dt, alternative.getTravelTimeError());
                 traveltimeError = noise.getTimeError();
             }
-            // traveltime is the metric for disutility
-            double traveltime = traveltimeError + RoadNetworkUtils.instantaneousTravelTimeOnGrid(alternative.getRoute(),
-                    GRID_LENGTH_TRAVELTIME_ESTIMATION);
             alternative.setTravelTimeError(traveltimeError);
             if (serverUpdate) {
+                // traveltime is the metric for disutility
+                double traveltime = traveltimeError + RoadNetworkUtils
+                        .instantaneousTravelTimeOnGrid(alternative.getRoute(), GRID_LENGTH_TRAVELTIME_ESTIMATION);
                 alternative.setDisutility(traveltime);
             }
         }
-        LogitRouteDecisionMaking.calcProbabilities(decisionPoint, uncertainty);
+        if (serverUpdate) {
+            // the probabilities only change with the disutilities
+            LogitRouteDecisionMaking.calcProbabilities(decisionPoint, uncertainty);
+            decisionPoint.disutilitiesUpdated();
+        }
     }
 
 }
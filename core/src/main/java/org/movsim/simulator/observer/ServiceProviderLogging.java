@@ -55,7 +55,7 @@ class ServiceProviderLogging extends FileOutputBase implements SimulationTimeSte
             }
         }
         writer.printf(NEWLINE);
-        writer.flush();
+        flushIfDue();
     }
 
 }
@@ -28,6 +28,7 @@ package org.movsim.simulator.roadnetwork;
 
 import com.google.common.base.Preconditions;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +36,6 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * <p>
@@ -46,8 +46,9 @@ import java.util.List;
  * behavior (and especially lane change behavior) is different in each type of lane.
  * </p>
  * <p>
- * The vehicles in a lane segment are stored in a sorted ArrayList. This ArrayList is kept sorted so that the vehicles in front of and
- * behind a given vehicle can be found efficiently.
+ * The vehicles in a lane segment are stored in a sorted {@link LaneVehicles} store. This store is kept sorted so that the vehicles in front
+ * of and behind a given vehicle can be found efficiently. It keeps the vehicle kinematics in primitive arrays, which are refreshed by
+ * {@link #updateVehicleAccelerations(double, LaneSegment)} and {@link #updateVehiclePositionsAndSpeeds(double)}.
  * </p>
  * <p>
  * Vehicles are sorted in order of decreasing position:
@@ -70,8 +71,11 @@ public class LaneSegment implements Iterable<Vehicle> {
     // physical lane, not the laneIndex
     private final int lane;
     private Lanes.Type type;
-    private final List<Vehicle> vehicles;
+    private final LaneVehicles vehicles;
     private int removedVehicleCount; // used for calculating traffic flow
+    // reusable views of the front and rear vehicle, see frontNeighbour and rearNeighbour
+    private final NeighbourView frontNeighbour = new NeighbourView();
+    private final NeighbourView rearNeighbour = new NeighbourView();
 
     /**
      * Constructor.
@@ -84,7 +88,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         // overtaking lane is Lane == 0
         // assert lane >= Lanes.MOST_INNER_LANE;
         this.lane = lane;
-        vehicles = new ArrayList<>(VEHICLES_PER_LANE_INITIAL_SIZE);
+        vehicles = new LaneVehicles(VEHICLES_PER_LANE_INITIAL_SIZE);
         type = Lanes.Type.TRAFFIC;
     }
 
@@ -187,8 +191,9 @@ public class LaneSegment implements Iterable<Vehicle> {
 
     public int stoppedVehicleCount() {
         int stoppedVehicleCount = 0;
-        for (final Vehicle vehicle : vehicles) {
-            if (vehicle.type() == Vehicle.Type.VEHICLE && vehicle.getSpeed() <= 0.01) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            if (vehicles.speed(i) <= 0.01 && vehicles.get(i).type() == Vehicle.Type.VEHICLE) {
                 ++stoppedVehicleCount;
             }
         }
@@ -210,8 +215,9 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     public final int obstacleCount() {
         int obstacleCount = 0;
-        for (final Vehicle vehicle : vehicles) {
-            if (vehicle.type() == Vehicle.Type.OBSTACLE) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            if (vehicles.isObstacle(i)) {
                 ++obstacleCount;
             }
         }
@@ -323,7 +329,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         final double roadLength = roadSegment.roadLength();
         int vehicleCount = vehicles.size();
         // remove any vehicles that have gone past the end of this road segment
-        while (vehicleCount > 0 && vehicles.get(0).getRearPosition() > roadLength) {
+        while (vehicleCount > 0 && vehicles.rearPosition(0) > roadLength) {
             sink.recordRemovedVehicle(vehicles.get(0));
             vehicles.remove(0);
             ++removedVehicleCount;
@@ -336,7 +342,7 @@ public class LaneSegment implements Iterable<Vehicle> {
     public Collection<? extends Vehicle> getVehiclesPastEnd(TrafficSink sink) {
         ArrayList<Vehicle> vehiclesPastEnd = new ArrayList<>();
         int index = 0;
-        while (index < vehicles.size() && vehicles.get(index).getRearPosition() > roadSegment.roadLength()) {
+        while (index < vehicles.size() && vehicles.rearPosition(index) > roadSegment.roadLength()) {
             vehiclesPastEnd.add(vehicles.get(index));
             index++;
         }
@@ -404,8 +410,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         assert assertInvariant();
         if (DEBUG) {
             if (!vehicles.isEmpty()) {
-                final Vehicle lastVehicle = vehicles.get(vehicles.size() - 1);
-                if (lastVehicle.getRearPosition() < vehicle.getRearPosition()) {
+                if (vehicles.rearPosition(vehicles.size() - 1) < vehicle.getRearPosition()) {
                     assert false;
                 }
             }
@@ -429,27 +434,60 @@ public class LaneSegment implements Iterable<Vehicle> {
     }
 
     /**
-     * Finds the vehicle immediately at or behind the given position.
+     * Finds the vehicle immediately at or behind the given position. A vehicle on a source lane segment is returned as a
+     * copy with its position relative to this lane segment.
      *
      * @param vehiclePos
      * @return reference to the rear vehicle
      */
     // TODO this critical method deserves a unit test!
     public Vehicle rearVehicle(double vehiclePos) {
+        final int index = rearVehicleIndex(vehiclePos);
+        if (index >= 0) {
+            return vehicles.get(index);
+        }
+        final NeighbourView sourceFrontVehicle = sourceFrontVehicle(new NeighbourView());
+        return sourceFrontVehicle == null ? null : sourceFrontVehicle.asVehicle();
+    }
+
+    /**
+     * Finds the vehicle immediately at or behind the given position, like {@link #rearVehicle(double)}, but returns it as
+     * the reusable rear {@link NeighbourView} of this lane segment, which is only valid until the next call.
+     *
+     * @param vehiclePos
+     * @return view of the rear vehicle
+     */
+    public NeighbourView rearNeighbour(double vehiclePos) {
+        final int index = rearVehicleIndex(vehiclePos);
+        if (index >= 0) {
+            return rearNeighbour.set(vehicles.get(index));
+        }
+        return sourceFrontVehicle(rearNeighbour);
+    }
+
+    public final NeighbourView rearNeighbour(Vehicle vehicle) {
+        return rearNeighbour(vehicle.getRearPosition());
+    }
+
+    private int rearVehicleIndex(double vehiclePos) {
         final int index = positionBinarySearch(vehiclePos);
         final int insertionPoint = -index - 1;
         if (index >= 0) {
             // exact match found, so return the matched vehicle
             if (index < vehicles.size()) {
-                return vehicles.get(index);
+                return index;
             }
         } else {
             // get next vehicle if not past end
             if (insertionPoint < vehicles.size()) {
-                return vehicles.get(insertionPoint);
+                return insertionPoint;
             }
         }
         // index == laneVehicles[lane].size() - 1 || insertionPoint == laneVehicles[lane].size()
+        return -1;
+    }
+
+    private NeighbourView sourceFrontVehicle(NeighbourView view) {
         // subject vehicle is rear vehicle on this road segment, so check source road segment
         if (sourceLaneSegment != null) {
             // didn't find a rear vehicle in the current road segment, so
@@ -468,11 +506,9 @@ public class LaneSegment implements Iterable<Vehicle> {
                 }
             } while (sourceFrontVehicle == null && source != null);
             if (sourceFrontVehicle != null) {
-                // return a copy of the front vehicle on the source road segment, with its
+                // return the front vehicle on the source road segment, with its
                 // position set relative to the current road segment
-                final Vehicle rearVehicle = new Vehicle(sourceFrontVehicle);
-                rearVehicle.setFrontPosition(rearVehicle.getFrontPosition() - accumDistance);
-                return rearVehicle;
+                return view.set(sourceFrontVehicle, -accumDistance);
             }
         }
         return null;
@@ -534,23 +570,72 @@ public class LaneSegment implements Iterable<Vehicle> {
 
     /**
      * Finds the vehicle immediately in front of the given position. That is a vehicle such that vehicle.position() strictly greater than
-     * vehicePos. The vehicle whose position equals vehiclePos is deemed to be in the rear.
+     * vehicePos. The vehicle whose position equals vehiclePos is deemed to be in the rear. A vehicle on a sink lane segment is
+     * returned as a copy with its position relative to this lane segment.
      *
      * @param vehiclePos
      * @return reference to the front vehicle
      */
     // TODO this critical method deserves a unit test!
     public Vehicle frontVehicle(double vehiclePos) {
+        final int index = frontVehicleIndex(vehiclePos);
+        if (index >= 0) {
+            return vehicles.get(index);
+        }
+        final NeighbourView sinkRearVehicle = sinkRearVehicle(new NeighbourView());
+        return sinkRearVehicle == null ? null : sinkRearVehicle.asVehicle();
+    }
+
+    /**
+     * Returns the vehicle in front of the given vehicle.
+     *
+     * @param vehicle
+     * @return the next downstream vehicle
+     */
+    public final Vehicle frontVehicle(Vehicle vehicle) {
+        return frontVehicle(vehicle.getRearPosition());
+    }
+
+    /**
+     * Finds the vehicle immediately in front of the given position, like {@link #frontVehicle(double)}, but returns it as
+     * the reusable front {@link NeighbourView} of this lane segment, which is only valid until the next call.
+     *
+     * @param vehiclePos
+     * @return view of the front vehicle
+     */
+    public NeighbourView frontNeighbour(double vehiclePos) {
+        final int index = frontVehicleIndex(vehiclePos);
+        if (index >= 0) {
+            return frontNeighbour.set(vehicles.get(index));
+        }
+        return sinkRearVehicle(frontNeighbour);
+    }
+
+    /**
+     * Returns a view of the vehicle in front of the given vehicle, see {@link #frontNeighbour(double)}.
+     *
+     * @param vehicle
+     * @return view of the next downstream vehicle
+     */
+    public final NeighbourView frontNeighbour(Vehicle vehicle) {
+        return frontNeighbour(vehicle.getRearPosition());
+    }
+
+    private int frontVehicleIndex(double vehiclePos) {
         // index = Collections.binarySearch(vehicles, subjectVehicle, vehiclePositionComparator);
         final int index = positionBinarySearch(vehiclePos);
         final int insertionPoint = -index - 1;
         if (index > 0) {
             // exact match found
-            return vehicles.get(index - 1);
+            return index - 1;
         } else if (insertionPoint > 0) {
-            return vehicles.get(insertionPoint - 1);
+            return insertionPoint - 1;
         }
         // index == 0 or insertionPoint == 0
+        return -1;
+    }
+
+    private NeighbourView sinkRearVehicle(NeighbourView view) {
         // subject vehicle is front vehicle on this road segment, so check for vehicles
         // on sink lane segment
         if (sinkLaneSegment != null) {
@@ -571,45 +656,106 @@ public class LaneSegment implements Iterable<Vehicle> {
                 }
             } while (sinkRearVehicle == null && sink != null);
             if (sinkRearVehicle != null) {
-                // return a copy of the rear vehicle on the sink road segment, with its position
+                // return the rear vehicle on the sink road segment, with its position
                 // set relative to the current road segment
-                final Vehicle frontVehicle = new Vehicle(sinkRearVehicle);
-                frontVehicle.setFrontPosition(frontVehicle.getFrontPosition() + accumDistance);
-                return frontVehicle;
+                return view.set(sinkRearVehicle, accumDistance);
             }
         }
         return null;
     }
 
+    private int positionBinarySearch(double vehiclePos) {
+        assert vehicles.positionsRefreshed() : "positions of " + this + " not refreshed";
+        return vehicles.positionBinarySearch(vehiclePos);
+    }
+
     /**
-     * Returns the vehicle in front of the given vehicle.
+     * Returns the index of the first vehicle with its rear position at or behind the given position, see
+     * {@link LaneVehicles#firstIndexAtOrBehind(double, int)}.
+     */
+    int firstIndexAtOrBehind(double position, int fromIndex) {
+        assert vehicles.positionsRefreshed() : "positions of " + this + " not refreshed";
+        return vehicles.firstIndexAtOrBehind(position, fromIndex);
+    }
+
+    /**
+     * Returns the index of the first vehicle with its old rear position at or behind the given position, see
+     * {@link LaneVehicles#firstIndexOldAtOrBehind(double, int)}.
+     */
+    int firstIndexOldAtOrBehind(double position, int fromIndex) {
+        assert vehicles.positionsRefreshed() : "positions of " + this + " not refreshed";
+        return vehicles.firstIndexOldAtOrBehind(position, fromIndex);
+    }
+
+    /**
+     * Returns an iterator over the vehicles of this lane with their front position within [begin, end], see
+     * {@link LaneVehicles#iteratorWithinRange(double, double)}.
+     */
+    Iterator<Vehicle> vehiclesWithinRange(double begin, double end) {
+        assert vehicles.positionsRefreshed() : "positions of " + this + " not refreshed";
+        return vehicles.iteratorWithinRange(begin, end);
+    }
+
+    boolean oldRearPositionsSorted() {
+        return vehicles.oldRearPositionsSorted();
+    }
+
+    double rearPositionOld(int index) {
+        return vehicles.rearPositionOld(index);
+    }
+
+    /**
+     * Updates the vehicle accelerations and refreshes the accelerations kept by this lane segment.
      *
-     * @param vehicle
-     * @return the next downstream vehicle
+     * @param dt              delta-t, simulation time interval, seconds
+     * @param leftLaneSegment lane segment to the left of this one, may be null
      */
-    public final Vehicle frontVehicle(Vehicle vehicle) {
-        return frontVehicle(vehicle.getRearPosition());
+    public void updateVehicleAccelerations(double dt, LaneSegment leftLaneSegment) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            vehicles.get(i).updateAcceleration(dt, roadSegment, this, leftLaneSegment);
+            vehicles.refreshAcceleration(i);
+        }
     }
 
-    private int positionBinarySearch(double vehiclePos) {
-        int low = 0;
-        int high = vehicles.size() - 1;
-
-        while (low <= high) {
-            final int mid = (low + high) >> 1;
-            final double rearPos = vehicles.get(mid).getRearPosition();
-            // final int compare = Double.compare(midPos, vehiclePos);
-            // note vehicles are sorted in reverse order of position
-            final int compare = Double.compare(vehiclePos, rearPos);
-            if (compare < 0) {
-                low = mid + 1;
-            } else if (compare > 0) {
-                high = mid - 1;
-            } else {
-                return mid; // key found
+    /**
+     * Updates the vehicle positions and speeds and refreshes the kinematics kept by this lane segment.
+     *
+     * @param dt delta-t, simulation time interval, seconds
+     */
+    public void updateVehiclePositionsAndSpeeds(double dt) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            vehicles.get(i).updatePositionAndSpeed(dt);
+            vehicles.refresh(i);
+        }
+        vehicles.refreshOldRearPositionOrder();
+    }
+
+    /**
+     * Refreshes the kinematics kept by this lane segment from its vehicles. Needed after the position, speed or length
+     * of a vehicle on this lane segment has been changed through the setters of the vehicle, outside of the update
+     * phases.
+     */
+    public void refreshVehicles() {
+        vehicles.refreshAll();
+    }
+
+    /**
+     * Adds the speeds of all vehicles without obstacles to the given sum, each speed bounded below by minSpeed.
+     *
+     * @param sum      the sum to add to
+     * @param minSpeed lower bound of the added speeds
+     * @return the sum including the speeds of this lane segment
+     */
+    double addSpeedsOfVehicles(double sum, double minSpeed) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            if (!vehicles.isObstacle(i)) {
+                sum += Math.max(minSpeed, vehicles.speed(i));
             }
         }
-        return -(low + 1); // key not found
+        return sum;
     }
 
     // /**
@@ -687,10 +833,10 @@ public class LaneSegment implements Iterable<Vehicle> {
             int count = vehicles.size();
             // remove any vehicles that have gone past the end of this road segment
             while (count > 0) {
-                final Vehicle vehicle = vehicles.get(0);
-                if (vehicle.getRearPosition() < roadLength) {
+                if (vehicles.rearPosition(0) < roadLength) {
                     break;
                 }
+                final Vehicle vehicle = vehicles.get(0);
                 // if the vehicle is past the end of this road segment then move it onto the
                 // sink lane for its lane
                 // TODO - check previous lane correct (used for drawing vehicle when changing lanes)
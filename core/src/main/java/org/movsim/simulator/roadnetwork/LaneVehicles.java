@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Sorted vehicle storage of a {@link LaneSegment} in structure-of-arrays layout.
+ * </p>
+ * <p>
+ * Next to the vehicle references the rear position, speed, acceleration and length of each vehicle are kept in primitive
+ * arrays, so that searches and aggregates over a lane run over contiguous memory instead of dereferencing the vehicles.
+ * The arrays are a copy of the vehicle state: they are taken over when a vehicle is added and refreshed after each
+ * acceleration and position update of the lane, see {@link #refreshAcceleration(int)} and {@link #refresh(int)}.
+ * Changes made through the setters of a vehicle, e.g. the cooperative braking of the lane-changing model or an external
+ * controller, have to be taken over by {@link #refreshAll()}, which the road segment calls after its lane changes. The
+ * searches assert that the positions they read are refreshed, see {@link #positionsRefreshed()}.
+ * </p>
+ * <p>
+ * Vehicles are sorted in order of decreasing position, index 0 is the front vehicle.
+ * </p>
+ */
+final class LaneVehicles implements Iterable<Vehicle> {
+
+    // slack for the rounding of the front position against the cached rear position plus length
+    private static final double RANGE_TOLERANCE = 1e-6;
+
+    private Vehicle[] vehicles;
+    private double[] rearPositions;
+    private double[] rearPositionsOld;
+    private double[] speeds;
+    private double[] accelerations;
+    private double[] lengths;
+    private boolean[] obstacles;
+    private int size;
+    // false if a vehicle was inserted with an old rear position out of order, e.g. by a traffic source
+    private boolean oldRearPositionsSorted = true;
+    // upper bound of the vehicle lengths, not decreased when a vehicle is removed
+    private double maxLength;
+
+    LaneVehicles(int initialCapacity) {
+        vehicles = new Vehicle[initialCapacity];
+        rearPositions = new double[initialCapacity];
+        rearPositionsOld = new double[initialCapacity];
+        speeds = new double[initialCapacity];
+        accelerations = new double[initialCapacity];
+        lengths = new double[initialCapacity];
+        obstacles = new boolean[initialCapacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Vehicle get(int index) {
+        checkIndex(index);
+        return vehicles[index];
+    }
+
+    double rearPosition(int index) {
+        checkIndex(index);
+        return rearPositions[index];
+    }
+
+    double speed(int index) {
+        checkIndex(index);
+        return speeds[index];
+    }
+
+    double acceleration(int index) {
+        checkIndex(index);
+        return accelerations[index];
+    }
+
+    double length(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    boolean isObstacle(int index) {
+        checkIndex(index);
+        return obstacles[index];
+    }
+
+    /**
+     * Appends the vehicle as rear vehicle.
+     */
+    void add(Vehicle vehicle) {
+        add(size, vehicle);
+    }
+
+    /**
+     * Inserts the vehicle at the given index, shifting the vehicles at and behind the index.
+     */
+    void add(int index, Vehicle vehicle) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        if (size == vehicles.length) {
+            grow();
+        }
+        final int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(vehicles, index, vehicles, index + 1, moved);
+            System.arraycopy(rearPositions, index, rearPositions, index + 1, moved);
+            System.arraycopy(rearPositionsOld, index, rearPositionsOld, index + 1, moved);
+            System.arraycopy(speeds, index, speeds, index + 1, moved);
+            System.arraycopy(accelerations, index, accelerations, index + 1, moved);
+            System.arraycopy(lengths, index, lengths, index + 1, moved);
+            System.arraycopy(obstacles, index, obstacles, index + 1, moved);
+        }
+        vehicles[index] = vehicle;
+        ++size;
+        obstacles[index] = vehicle.type() == Vehicle.Type.OBSTACLE;
+        refresh(index);
+        checkOldRearPositionOrder(index);
+    }
+
+    /**
+     * Replaces the vehicle at the given index. The caller is responsible for keeping the vehicles sorted.
+     */
+    void set(int index, Vehicle vehicle) {
+        checkIndex(index);
+        vehicles[index] = vehicle;
+        obstacles[index] = vehicle.type() == Vehicle.Type.OBSTACLE;
+        refresh(index);
+        checkOldRearPositionOrder(index);
+    }
+
+    private void checkOldRearPositionOrder(int index) {
+        if ((index > 0 && rearPositionsOld[index - 1] < rearPositionsOld[index])
+                || (index + 1 < size && rearPositionsOld[index] < rearPositionsOld[index + 1])) {
+            oldRearPositionsSorted = false;
+        }
+    }
+
+    /**
+     * Removes the vehicle at the given index.
+     */
+    Vehicle remove(int index) {
+        checkIndex(index);
+        final Vehicle removed = vehicles[index];
+        final int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(vehicles, index + 1, vehicles, index, moved);
+            System.arraycopy(rearPositions, index + 1, rearPositions, index, moved);
+            System.arraycopy(rearPositionsOld, index + 1, rearPositionsOld, index, moved);
+            System.arraycopy(speeds, index + 1, speeds, index, moved);
+            System.arraycopy(accelerations, index + 1, accelerations, index, moved);
+            System.arraycopy(lengths, index + 1, lengths, index, moved);
+            System.arraycopy(obstacles, index + 1, obstacles, index, moved);
+        }
+        vehicles[--size] = null;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(vehicles, 0, size, null);
+        size = 0;
+        oldRearPositionsSorted = true;
+        maxLength = 0;
+    }
+
+    /**
+     * Copies the kinematic state of the vehicle at the given index into the arrays.
+     */
+    void refresh(int index) {
+        final Vehicle vehicle = vehicles[index];
+        rearPositions[index] = vehicle.getRearPosition();
+        rearPositionsOld[index] = vehicle.getRearPositionOld();
+        speeds[index] = vehicle.getSpeed();
+        accelerations[index] = vehicle.getAcc();
+        lengths[index] = vehicle.getLength();
+        if (lengths[index] > maxLength) {
+            maxLength = lengths[index];
+        }
+    }
+
+    /**
+     * Copies the kinematic state of all vehicles into the arrays, e.g. after vehicles have been changed through their
+     * setters. The vehicles must still be in sort order.
+     */
+    void refreshAll() {
+        for (int i = 0; i < size; ++i) {
+            refresh(i);
+        }
+        refreshOldRearPositionOrder();
+    }
+
+    /**
+     * Checks the order of the old rear positions, to be called after the positions of all vehicles have been updated
+     * and refreshed.
+     */
+    void refreshOldRearPositionOrder() {
+        oldRearPositionsSorted = true;
+        for (int i = 1; i < size; ++i) {
+            if (rearPositionsOld[i - 1] < rearPositionsOld[i]) {
+                oldRearPositionsSorted = false;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the old rear positions are in the same order as the vehicles. This is the case after each
+     * position update unless a vehicle has been inserted with an old rear position out of order, for example by a
+     * traffic source.
+     *
+     * @return true if the old rear positions are sorted
+     */
+    boolean oldRearPositionsSorted() {
+        return oldRearPositionsSorted;
+    }
+
+    /**
+     * Returns true if the rear positions, old rear positions and lengths in the arrays are those of the vehicles, i.e.
+     * no vehicle has been moved or resized through its setters since the last refresh. Used in assertions only, since it
+     * checks all vehicles.
+     *
+     * @return true if the positions are refreshed
+     */
+    boolean positionsRefreshed() {
+        for (int i = 0; i < size; ++i) {
+            final Vehicle vehicle = vehicles[i];
+            if (rearPositions[i] != vehicle.getRearPosition() || rearPositionsOld[i] != vehicle.getRearPositionOld()
+                    || lengths[i] != vehicle.getLength() || lengths[i] > maxLength) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the acceleration of the vehicle at the given index. Positions are left untouched, since they may be read by
+     * neighbour lookups of other road segments during the acceleration update.
+     */
+    void refreshAcceleration(int index) {
+        accelerations[index] = vehicles[index].getAcc();
+    }
+
+    /**
+     * Searches the rear positions for the given position.
+     *
+     * @param position
+     * @return index of the vehicle with the given rear position, otherwise (-(insertion point) - 1)
+     */
+    int positionBinarySearch(double position) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            // note vehicles are sorted in reverse order of position
+            final int compare = Double.compare(position, rearPositions[mid]);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid; // key found
+            }
+        }
+        return -(low + 1); // key not found
+    }
+
+    /**
+     * Returns the index of the front vehicle with its rear position at or behind the given position. All vehicles in
+     * front of the returned index are beyond the position.
+     *
+     * @param position
+     * @param fromIndex index to start the search from, all vehicles in front of it must be beyond the position
+     * @return index of the first vehicle at or behind the position, the vehicle count if there is none
+     */
+    int firstIndexAtOrBehind(double position, int fromIndex) {
+        return firstIndexAtOrBehind(rearPositions, position, fromIndex);
+    }
+
+    /**
+     * As {@link #firstIndexAtOrBehind(double, int)} for the rear positions before the last position update. Only valid
+     * if the {@link #oldRearPositionsSorted()}.
+     *
+     * @param position
+     * @param fromIndex index to start the search from, all vehicles in front of it must have been beyond the position
+     * @return index of the first vehicle that was at or behind the position, the vehicle count if there is none
+     */
+    int firstIndexOldAtOrBehind(double position, int fromIndex) {
+        return firstIndexAtOrBehind(rearPositionsOld, position, fromIndex);
+    }
+
+    /**
+     * Returns the old rear position of the vehicle at the given index.
+     */
+    double rearPositionOld(int index) {
+        checkIndex(index);
+        return rearPositionsOld[index];
+    }
+
+    private int firstIndexAtOrBehind(double[] positions, double position, int fromIndex) {
+        int low = fromIndex;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            // note vehicles are sorted in reverse order of position
+            if (positions[mid] > position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns an iterator over the vehicles with their front position within [begin, end], from front to rear.
+     * <p>
+     * Only the index range that can hold such vehicles is visited: it starts with the first vehicle with its rear
+     * position at or behind the end and stops at the first vehicle that is behind the begin even with the maximum vehicle
+     * length of the lane.
+     * </p>
+     *
+     * @param begin
+     * @param end
+     * @return iterator over the vehicles within the range
+     */
+    Iterator<Vehicle> iteratorWithinRange(final double begin, final double end) {
+        final int fromIndex = firstIndexAtOrBehind(end, 0);
+        final double minRearPosition = begin - maxLength - RANGE_TOLERANCE;
+        return new Iterator<Vehicle>() {
+            private int next = nextWithinRange(fromIndex);
+
+            private int nextWithinRange(int index) {
+                while (index < size && rearPositions[index] >= minRearPosition) {
+                    final double frontPosition = vehicles[index].getFrontPosition();
+                    if (frontPosition >= begin && frontPosition <= end) {
+                        return index;
+                    }
+                    ++index;
+                }
+                return size;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Vehicle next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                final Vehicle vehicle = vehicles[next];
+                next = nextWithinRange(next + 1);
+                return vehicle;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove() not supported.");
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the vehicles from front to rear which supports removal of the current vehicle.
+     */
+    @Override
+    public Iterator<Vehicle> iterator() {
+        return new Iterator<Vehicle>() {
+            private int next;
+            private int current = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Vehicle next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                current = next++;
+                return vehicles[current];
+            }
+
+            @Override
+            public void remove() {
+                if (current < 0) {
+                    throw new IllegalStateException();
+                }
+                LaneVehicles.this.remove(current);
+                next = current;
+                current = -1;
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+    private void grow() {
+        final int capacity = Math.max(1, vehicles.length << 1);
+        vehicles = Arrays.copyOf(vehicles, capacity);
+        rearPositions = Arrays.copyOf(rearPositions, capacity);
+        rearPositionsOld = Arrays.copyOf(rearPositionsOld, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accelerations = Arrays.copyOf(accelerations, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        obstacles = Arrays.copyOf(obstacles, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(vehicles, size));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import com.google.common.base.Preconditions;
+import org.movsim.utilities.RunContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Opt-in executor that distributes the road segments of one update phase of {@link RoadNetwork#timeStep} over a fork-join
+ * pool. Each call of {@link #execute} returns only after the phase has been completed for all road segments,
+ * so the phases of one timestep are separated by a barrier exactly as in the sequential loop.
+ * </p>
+ * <p>
+ * Strategy per phase:
+ * <ul>
+ * <li>{@code updateVehicleAccelerations}, {@code updateVehiclePositionsAndSpeeds} and {@code checkForInconsistencies} run in
+ * parallel. Each of them writes only the vehicles and the lane segments of its own road segment. The vehicles of
+ * neighbouring road segments are read through the reusable {@link org.movsim.simulator.vehicles.NeighbourView}s of the own
+ * lane segments (see {@link LaneSegment#frontNeighbour(double)}), which take over their positions and speeds, not changed
+ * within the phase, but not their accelerations. Within a road segment the vehicles are still updated in lane order, so
+ * the results are bit-identical to the sequential run.</li>
+ * <li>{@code updateRoadConditions} and {@code makeDynamicRoutingDecisions} run sequentially, since road objects share
+ * controllers (e.g. traffic lights) and routing decisions share service providers across road segments.</li>
+ * <li>{@code makeLaneChanges}, {@code outFlow} and {@code inFlow} write across road segments and therefore run sequentially
+ * in network order on the calling thread: the lane changes move vehicles between the lane segments that the lane change
+ * decisions of the upstream, downstream and peer road segments read, and link the overtaking lane segments of the
+ * neighbouring road segments when they are initialized; the outflow appends vehicles to the sink lane segment of another
+ * road segment; the inflow draws random numbers for the traffic composition.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Stochastic models (acceleration noise, KKW, NSM, Krauss) draw their random numbers from the random stream of the updated
+ * vehicle (see {@link org.movsim.utilities.MyRandom#newStream}), so seeded runs are reproducible for any parallelism.
+ * </p>
+ */
+public final class ParallelPhaseExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelPhaseExecutor.class);
+
+    /**
+     * minimum number of road segments that are updated within one task, smaller ranges are not split any further.
+     */
+    static final int DEFAULT_SEGMENTS_PER_TASK = 16;
+
+    /**
+     * Update phase that is applied to a single road segment. A phase must not write the state of any other road segment,
+     * phases that do, like the lane changes, have to be run sequentially instead.
+     */
+    public abstract static class Phase {
+        public abstract void apply(RoadSegment roadSegment, double dt, double simulationTime, long iterationCount);
+    }
+
+    private final ForkJoinPool pool;
+
+    private final int segmentsPerTask;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism number of worker threads
+     */
+    public ParallelPhaseExecutor(int parallelism) {
+        this(parallelism, DEFAULT_SEGMENTS_PER_TASK);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism     number of worker threads
+     * @param segmentsPerTask minimum number of road segments updated within one task
+     */
+    public ParallelPhaseExecutor(int parallelism, int segmentsPerTask) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism=" + parallelism);
+        Preconditions.checkArgument(segmentsPerTask > 0, "segmentsPerTask=" + segmentsPerTask);
+        this.pool = new ForkJoinPool(parallelism);
+        this.segmentsPerTask = segmentsPerTask;
+        LOG.info("parallel road segment update with parallelism={}, segmentsPerTask={}", parallelism, segmentsPerTask);
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Applies the phase to all road segments and waits until all road segments have been updated.
+     *
+     * @param roadSegments
+     * @param phase
+     * @param dt             simulation time interval, seconds.
+     * @param simulationTime the current logical time in the simulation
+     * @param iterationCount the counter of performed update steps
+     */
+    public void execute(List<RoadSegment> roadSegments, Phase phase, double dt, double simulationTime,
+            long iterationCount) {
+        if (roadSegments.size() <= segmentsPerTask) {
+            for (final RoadSegment roadSegment : roadSegments) {
+                phase.apply(roadSegment, dt, simulationTime, iterationCount);
+            }
+            return;
+        }
+        pool.invoke(new PhaseTask(RunContext.current(), roadSegments, phase, dt, simulationTime, iterationCount, 0,
+                roadSegments.size()));
+    }
+
+    /**
+     * Shuts down the worker threads.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class PhaseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 2366519476187431837L;
+
+        private final RunContext context;
+        private final List<RoadSegment> roadSegments;
+        private final Phase phase;
+        private final double dt;
+        private final double simulationTime;
+        private final long iterationCount;
+        private final int begin;
+        private final int end;
+
+        PhaseTask(RunContext context, List<RoadSegment> roadSegments, Phase phase, double dt, double simulationTime,
+                long iterationCount, int begin, int end) {
+            this.context = context;
+            this.roadSegments = roadSegments;
+            this.phase = phase;
+            this.dt = dt;
+            this.simulationTime = simulationTime;
+            this.iterationCount = iterationCount;
+            this.begin = begin;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin <= segmentsPerTask) {
+                // worker threads see the run state of the calling thread, see RunContext
+                final RunContext previous = RunContext.bind(context);
+                try {
+                    for (int i = begin; i < end; i++) {
+                        phase.apply(roadSegments.get(i), dt, simulationTime, iterationCount);
+                    }
+                } finally {
+                    RunContext.restore(previous);
+                }
+                return;
+            }
+            final int mid = (begin + end) >>> 1;
+            invokeAll(new PhaseTask(context, roadSegments, phase, dt, simulationTime, iterationCount, begin, mid),
+                    new PhaseTask(context, roadSegments, phase, dt, simulationTime, iterationCount, mid, end));
+        }
+    }
+}
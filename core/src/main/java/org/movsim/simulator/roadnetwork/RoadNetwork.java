@@ -20,8 +20,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Iterable collection of the road segments in the road network.
@@ -32,12 +36,54 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
 
     private final ArrayList<RoadSegment> roadSegments = new ArrayList<>();
 
+    /** road segments indexed by their id, null for ids not in the road network. */
+    private final ArrayList<RoadSegment> roadSegmentsById = new ArrayList<>();
+
+    /** road segments by their userId, the first added road segment wins for duplicate userIds. Never has a null key. */
+    private final Map<String, RoadSegment> roadSegmentsByUserId = new HashMap<>();
+
     private String name;
 
     private boolean isWithCrashExit;
 
     private ExternalVehiclesController externalVehicleController;
 
+    /**
+     * parallel update of the road segments, can be null
+     */
+    private ParallelPhaseExecutor parallelExecutor;
+
+    /**
+     * spatial index of the vehicles, updated on the first query after a time step, can be null
+     */
+    private VehicleGrid vehicleGrid;
+
+    /**
+     * true if the vehicles moved since the last update of the spatial index
+     */
+    private boolean vehicleGridDirty;
+
+    private final ParallelPhaseExecutor.Phase accelerationPhase = new ParallelPhaseExecutor.Phase() {
+        @Override
+        public void apply(RoadSegment roadSegment, double dt, double simulationTime, long iterationCount) {
+            roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
+        }
+    };
+
+    private final ParallelPhaseExecutor.Phase positionAndSpeedPhase = new ParallelPhaseExecutor.Phase() {
+        @Override
+        public void apply(RoadSegment roadSegment, double dt, double simulationTime, long iterationCount) {
+            roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+        }
+    };
+
+    private final ParallelPhaseExecutor.Phase inconsistencyCheckPhase = new ParallelPhaseExecutor.Phase() {
+        @Override
+        public void apply(RoadSegment roadSegment, double dt, double simulationTime, long iterationCount) {
+            roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+        }
+    };
+
     /**
      * Sets the name of the road network.
      *
@@ -63,28 +109,18 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * @return the road segment with the given id
      */
     public RoadSegment findById(int id) {
-        for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.id() == id) {
-                return roadSegment;
-            }
-        }
-        return null;
+        return id >= 0 && id < roadSegmentsById.size() ? roadSegmentsById.get(id) : null;
     }
 
     /**
      * Given its userId, find a road segment in the road network.
      *
      * @param userId
-     * @return the road segment with the given userId
+     * @return the road segment with the given userId, null if there is none or the userId is null
      */
     @CheckForNull
-    public RoadSegment findByUserId(String userId) {
-        for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.userId() != null && roadSegment.userId().equals(userId)) {
-                return roadSegment;
-            }
-        }
-        return null;
+    public RoadSegment findByUserId(@Nullable String userId) {
+        return userId == null ? null : roadSegmentsByUserId.get(userId);
     }
 
     /**
@@ -98,6 +134,12 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
         // TrafficFlowBase.resetNextId();
         // Vehicle.resetNextId();
         roadSegments.clear();
+        roadSegmentsById.clear();
+        roadSegmentsByUserId.clear();
+        if (vehicleGrid != null) {
+            vehicleGrid.clear();
+        }
+        vehicleGridDirty = false;
     }
 
     /**
@@ -105,6 +147,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      */
     public void onLowMemory() {
         roadSegments.trimToSize();
+        roadSegmentsById.trimToSize();
     }
 
     /**
@@ -117,7 +160,8 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
     }
 
     /**
-     * Adds a road segment to the road network.
+     * Adds a road segment to the road network. The road segment is indexed by its id and its userId, so the userId has
+     * to be set before.
      *
      * @param roadSegment
      * @return roadSegment for convenience
@@ -126,9 +170,38 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
         assert roadSegment != null;
         assert roadSegment.eachLaneIsSorted();
         roadSegments.add(roadSegment);
+        index(roadSegment);
         return roadSegment;
     }
 
+    /**
+     * Adds road segments to the road network in the given order, see {@link #add(RoadSegment)}. Used for loading large
+     * networks, the indexes are allocated once.
+     *
+     * @param newRoadSegments
+     */
+    public void addAll(Collection<RoadSegment> newRoadSegments) {
+        roadSegments.ensureCapacity(roadSegments.size() + newRoadSegments.size());
+        roadSegmentsById.ensureCapacity(roadSegmentsById.size() + newRoadSegments.size());
+        for (final RoadSegment roadSegment : newRoadSegments) {
+            add(roadSegment);
+        }
+    }
+
+    private void index(RoadSegment roadSegment) {
+        final int id = roadSegment.id();
+        while (roadSegmentsById.size() <= id) {
+            roadSegmentsById.add(null);
+        }
+        if (roadSegmentsById.get(id) == null) {
+            roadSegmentsById.set(id, roadSegment);
+        }
+        final String userId = roadSegment.userId();
+        if (userId != null && !roadSegmentsByUserId.containsKey(userId)) {
+            roadSegmentsByUserId.put(userId, roadSegment);
+        }
+    }
+
     /**
      * Returns an iterator over all the road segments in the road network.
      *
@@ -182,7 +255,9 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
         // being updated twice (for example when a vehicle moves of the end of a road segment
         // onto the next road segment.
 
-        LOG.debug("called timeStep: time={}, timestep={}", simulationTime, dt);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("called timeStep: time={}, timestep={}", simulationTime, dt);
+        }
         externalVehicleController.addAndRemoveVehicles(simulationTime, this);
         for (final RoadSegment roadSegment : roadSegments) {
             roadSegment.updateRoadConditions(dt, simulationTime, iterationCount);
@@ -198,17 +273,25 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
             roadSegment.makeLaneChanges(dt, simulationTime, iterationCount);
         }
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
-        }
+        if (parallelExecutor != null) {
+            // see ParallelPhaseExecutor for the phases that can be updated in parallel
+            parallelExecutor.execute(roadSegments, accelerationPhase, dt, simulationTime, iterationCount);
+            externalVehicleController.setSpeeds(simulationTime, this);
+            parallelExecutor.execute(roadSegments, positionAndSpeedPhase, dt, simulationTime, iterationCount);
+            parallelExecutor.execute(roadSegments, inconsistencyCheckPhase, dt, simulationTime, iterationCount);
+        } else {
+            for (final RoadSegment roadSegment : roadSegments) {
+                roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
+            }
 
-        externalVehicleController.setSpeeds(simulationTime);
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
-        }
+            externalVehicleController.setSpeeds(simulationTime, this);
+            for (final RoadSegment roadSegment : roadSegments) {
+                roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+            }
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+            for (final RoadSegment roadSegment : roadSegments) {
+                roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+            }
         }
 
         for (final RoadSegment roadSegment : roadSegments) {
@@ -219,12 +302,80 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
             roadSegment.inFlow(dt, simulationTime, iterationCount);
             roadSegment.updateSignalPointsAfterOutflowAndInflow(simulationTime);
         }
+
+        vehicleGridDirty = true;
+    }
+
+    /**
+     * Enables the spatial index of the vehicles, null disables the index. The index is updated lazily by
+     * {@link #vehicleGrid()}, so time steps without queries do not pay for it.
+     *
+     * @param vehicleGrid the spatial index
+     */
+    public void setVehicleGrid(VehicleGrid vehicleGrid) {
+        this.vehicleGrid = vehicleGrid;
+        vehicleGridDirty = true;
+    }
+
+    /**
+     * Returns the spatial index of the vehicles, updated to the vehicle positions after the last time step.
+     *
+     * @return the spatial index, null if not enabled
+     */
+    @CheckForNull
+    public VehicleGrid vehicleGrid() {
+        if (vehicleGrid != null && vehicleGridDirty) {
+            vehicleGrid.update(this);
+            vehicleGridDirty = false;
+        }
+        return vehicleGrid;
     }
 
     public void setWithCrashExit(boolean isWithCrashExit) {
         this.isWithCrashExit = isWithCrashExit;
     }
 
+    /**
+     * Enables the parallel update of the road segments with the given number of worker threads. A parallelism of zero (the
+     * default) or one keeps the sequential update.
+     *
+     * @param parallelism number of worker threads
+     * @see ParallelPhaseExecutor
+     */
+    public void setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism >= 0, "parallelism=" + parallelism);
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+            parallelExecutor = null;
+        }
+        if (parallelism > 1) {
+            parallelExecutor = new ParallelPhaseExecutor(parallelism);
+        }
+    }
+
+    /**
+     * Returns the number of worker threads for the road segment update, or one if the update is sequential.
+     *
+     * @return the number of worker threads
+     */
+    public int parallelism() {
+        return parallelExecutor == null ? 1 : parallelExecutor.parallelism();
+    }
+
+    /**
+     * Returns the number of vehicle updates so far, i.e. the sum of the vehicle counts over all time steps. The road
+     * segments count their own updates, they are only summed up here.
+     *
+     * @return the number of vehicle updates
+     */
+    public long vehicleSteps() {
+        long vehicleSteps = 0;
+        for (final RoadSegment roadSegment : roadSegments) {
+            vehicleSteps += roadSegment.vehicleSteps();
+        }
+        return vehicleSteps;
+    }
+
     /**
      * Returns the number of vehicles on this road network.
      *
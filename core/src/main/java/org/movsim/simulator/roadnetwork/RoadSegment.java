@@ -24,10 +24,12 @@ import org.movsim.simulator.roadnetwork.boundaries.SimpleRamp;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.roadnetwork.controller.*;
 import org.movsim.simulator.roadnetwork.controller.RoadObject.RoadObjectType;
-import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.TrafficCompositionGenerator;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.Vehicle.Type;
+import org.movsim.utilities.RunContext;
+import org.movsim.utilities.RunContext.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,8 +85,6 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      */
     private static final double MIN_SPEED_TT = 1;
 
-    private static int nextId = INITIAL_ID;
-
     private RoadSegmentDirection directionType = RoadSegmentDirection.FORWARD;
 
     /**
@@ -124,6 +124,12 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     private boolean overtakingSegmentInitialized = false;
 
+    /**
+     * number of vehicle updates on this road segment, i.e. the sum of the vehicle counts over all time steps. Used for
+     * instrumentation.
+     */
+    private long vehicleSteps;
+
     // Sources and Sinks
     private AbstractTrafficSource trafficSource;
 
@@ -154,6 +160,11 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      */
     private double freeFlowSpeed = RoadTypeSpeeds.INSTANCE.getDefaultFreeFlowSpeed();
 
+    /**
+     * true if vehicles on this road segment consider the route alternatives of a decision point.
+     */
+    private boolean withRoutingDecisions;
+
     public static class TestCar {
         public double s = 0.0; // distance
 
@@ -168,7 +179,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * Resets the next nodeId.
      */
     public static void resetNextId() {
-        nextId = INITIAL_ID;
+        RunContext.current().reset(Counter.ROAD_SEGMENT);
     }
 
     /**
@@ -177,7 +188,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the number of road segment that have been created
      */
     public static int count() {
-        return nextId - INITIAL_ID;
+        return (int) RunContext.current().get(Counter.ROAD_SEGMENT);
     }
 
     /**
@@ -193,7 +204,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         for (int index = 0; index < laneCount; ++index) {
             laneSegments[index] = new LaneSegment(this, index + 1);
         }
-        id = nextId++;
+        id = INITIAL_ID + (int) RunContext.current().next(Counter.ROAD_SEGMENT);
         assert roadLength > 0;
         this.roadLength = roadLength;
         this.laneCount = laneCount;
@@ -366,7 +377,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     }
 
     public final LaneSegment laneSegment(int lane) {
-        Preconditions.checkArgument(lane >= Lanes.LANE1 && lane <= laneCount, "lane=" + lane);
+        Preconditions.checkArgument(lane >= Lanes.LANE1 && lane <= laneCount, "lane=%s", lane);
         return laneSegments[lane - 1];
     }
 
@@ -511,6 +522,16 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         return vehicleCount;
     }
 
+    /**
+     * Returns the number of vehicle updates on this road segment so far, i.e. the sum of the vehicle counts over all
+     * acceleration updates.
+     *
+     * @return the number of vehicle updates
+     */
+    public long vehicleSteps() {
+        return vehicleSteps;
+    }
+
     public int getStoppedVehicleCount() {
         int stoppedVehicleCount = 0;
         for (final LaneSegment laneSegment : laneSegments) {
@@ -598,13 +619,8 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         double sumSpeed = 0;
         int vehCount = 0;
         for (LaneSegment laneSegment : laneSegments) {
-            for (Vehicle veh : laneSegment) {
-                if (veh.type() == Vehicle.Type.OBSTACLE) {
-                    continue;
-                }
-                sumSpeed += Math.max(MIN_SPEED_TT, veh.getSpeed());
-                ++vehCount;
-            }
+            sumSpeed = laneSegment.addSpeedsOfVehicles(sumSpeed, MIN_SPEED_TT);
+            vehCount += laneSegment.vehicleCountWithoutObstacles();
         }
         // return (vehCount > 0) ? sumSpeed / vehCount : getHarmonicMeanFreeflowSpeed();
         // TODO speed limits ignored
@@ -797,24 +813,46 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     protected void updateSignalPointsBeforeOutflow(double simulationTime) {
         updateSignalPointsBeforeOutflowCalled = true;
-        for (SignalPoint signalPoint : signalPoints) {
-            signalPoint.clear();
-            signalPoint.registerPassingVehicles(simulationTime, iterator());
+        if (!signalPoints.isEmpty()) {
+            signalPoints.clearPassedVehicles();
+            signalPoints.registerPassingVehicles(simulationTime, laneSegments);
+            assert allPassingVehiclesRegistered();
         }
     }
 
     public void updateSignalPointsAfterOutflowAndInflow(double simulationTime) {
         assert updateSignalPointsBeforeOutflowCalled; // hack for assuring right calling process
-        for (SignalPoint signalPoint : signalPoints) {
+        if (!signalPoints.isEmpty()) {
             // TODO vehicles on overtaking segment ignored here, iterate over those as well...test with iteratorAllVehicles()
-            signalPoint.registerPassingVehicles(simulationTime, iterator());
+            signalPoints.registerPassingVehicles(simulationTime, laneSegments);
+            assert allPassingVehiclesRegistered();
         }
         updateSignalPointsBeforeOutflowCalled = false;
     }
 
-    // TOO SLOW FOR GENERAL PURPOSE
+    private boolean allPassingVehiclesRegistered() {
+        for (SignalPoint signalPoint : signalPoints) {
+            if (!signalPoint.allPassingVehiclesRegistered(iterator())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an iterator over the vehicles with their front position within [begin, end], lane by lane. Only the
+     * vehicles around the range are visited, using the sort order of the lanes.
+     *
+     * @param begin
+     * @param end
+     * @return an iterator over the vehicles within the range
+     */
     public Iterator<Vehicle> vehiclesWithinRange(double begin, double end) {
-        return Iterators.filter(iterator(), new VehicleWithinRange(begin, end));
+        final List<Iterator<Vehicle>> laneIterators = new ArrayList<>(laneCount);
+        for (final LaneSegment laneSegment : laneSegments) {
+            laneIterators.add(laneSegment.vehiclesWithinRange(begin, end));
+        }
+        return Iterators.concat(laneIterators.iterator());
     }
 
     public Iterator<Vehicle> filteredVehicles(Predicate<Vehicle> predicate) {
@@ -829,18 +867,27 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * <p>
      * <code>makeLaneChanges</code> preserves the vehicle sort order, since only lateral movements of vehicles are made.
      * </p>
+     * <p>
+     * Afterwards the kinematics kept by the lane segments are refreshed, since the lane-changing models (e.g. the
+     * cooperative braking of MOBIL) and the controllers updated before may have changed vehicles through their setters.
+     * </p>
      *
      * @param dt             delta-t, simulation time interval, seconds
      * @param simulationTime current simulation time, seconds
      * @param iterationCount the number of iterations that have been executed
      */
     public void makeLaneChanges(double dt, double simulationTime, long iterationCount) {
-
-        if (!hasPeer() && laneCount < 2) {
-            // need at least 2 lanes or a peerRoad for lane changing
-            return;
+        // need at least 2 lanes or a peerRoad for lane changing
+        if (hasPeer() || laneCount >= 2) {
+            changeLanes(dt);
         }
+        for (final LaneSegment laneSegment : laneSegments) {
+            laneSegment.refreshVehicles();
+        }
+        overtakingSegment.refreshVehicles();
+    }
 
+    private void changeLanes(double dt) {
         if (!overtakingSegmentInitialized) {
             initOvertakingLane(); // lazy init.
         }
@@ -875,6 +922,9 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     }
 
     public void makeDynamicRoutingDecisions(double dt, double simulationTime, long iterationCount) {
+        if (!withRoutingDecisions) {
+            return; // no decision point ahead
+        }
         for (LaneSegment laneSegment : laneSegments) {
             for (Vehicle vehicle : laneSegment) {
                 vehicle.routingDecisions().considerRouteAlternatives(simulationTime, this);
@@ -923,14 +973,10 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         for (final LaneSegment laneSegment : laneSegments) {
             assert laneSegment.laneIsSorted();
             assert laneSegment.assertInvariant();
-            final LaneSegment leftLaneSegment = getLeftLane(laneSegment);
-            for (final Vehicle vehicle : laneSegment) {
-                vehicle.updateAcceleration(dt, this, laneSegment, leftLaneSegment);
-            }
-        }
-        for (final Vehicle vehicle : overtakingSegment) {
-            vehicle.updateAcceleration(dt, this, overtakingSegment, null);
+            laneSegment.updateVehicleAccelerations(dt, getLeftLane(laneSegment));
+            vehicleSteps += laneSegment.vehicleCount();
         }
+        overtakingSegment.updateVehicleAccelerations(dt, null);
     }
 
     private LaneSegment getLeftLane(LaneSegment laneSegment) {
@@ -950,13 +996,9 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     public void updateVehiclePositionsAndSpeeds(double dt, double simulationTime, long iterationCount) {
         for (final LaneSegment laneSegment : laneSegments) {
             assert laneSegment.laneIsSorted();
-            for (final Vehicle vehicle : laneSegment) {
-                vehicle.updatePositionAndSpeed(dt);
-            }
-        }
-        for (final Vehicle vehicle : overtakingSegment) {
-            vehicle.updatePositionAndSpeed(dt);
+            laneSegment.updateVehiclePositionsAndSpeeds(dt);
         }
+        overtakingSegment.updateVehiclePositionsAndSpeeds(dt);
         if (LOG.isDebugEnabled()) {
             LOG.debug("vehicleCount={}, roadSegment={}", getVehicleCount(), toString());
             for (Vehicle vehicle : this) {
@@ -1165,7 +1207,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
                 if (vehicle.type() == Vehicle.Type.OBSTACLE) {
                     continue;
                 }
-                final Vehicle vehFront = laneSegment.frontVehicle(vehicle);
+                final NeighbourView vehFront = laneSegment.frontNeighbour(vehicle);
                 final double netDistance = vehicle.getNetDistance(vehFront);
                 if (netDistance < 0) {
                     LOG.error("Crash happened!!!");
@@ -1173,7 +1215,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
                     sb.append(String.format("Crash of Vehicle i=%d (vehId=%d) at x=%.4f ", index, vehicle.getId(),
                             vehicle.getFrontPosition()));
                     if (vehFront != null) {
-                        sb.append(String.format("with veh (vehId=%d) in front at x=%.4f on lane=%d\n", vehFront.getId(),
+                        sb.append(String.format("with veh (vehId=%d) in front at x=%.4f on lane=%d\n", vehFront.vehicle().getId(),
                                 vehFront.getFrontPosition(), vehicle.lane()));
                     }
                     sb.append("internal nodeId=").append(id);
@@ -1288,6 +1330,11 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         this.simpleRamp = simpleRamp;
     }
 
+    @CheckForNull
+    public SimpleRamp simpleRamp() {
+        return simpleRamp;
+    }
+
     // not yet used
     public void setUserRoadname(String name) {
         this.roadName = name;
@@ -1349,4 +1396,12 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         this.freeFlowSpeed = freeFlowSpeed;
     }
 
+    public boolean isWithRoutingDecisions() {
+        return withRoutingDecisions;
+    }
+
+    public void setWithRoutingDecisions(boolean withRoutingDecisions) {
+        this.withRoutingDecisions = withRoutingDecisions;
+    }
+
 }
@@ -28,24 +28,43 @@ package org.movsim.simulator.roadnetwork;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Iterators;
 import org.movsim.simulator.roadnetwork.predicates.VehiclePassedPosition;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.Map;
 
 public class SignalPoint {
 
     private final double position;
 
-    private final Predicate<Vehicle> predicate; // TODO measure performance for this vehicle iterator
+    private final Predicate<Vehicle> predicate; // used for checking the registered vehicles only
 
     protected double simulationTime;
 
-    protected Set<Vehicle> vehiclesPassed = new LinkedHashSet<>(); // to assure uniqueness of entries
+    // reused buffer of the vehicles passed in the current time step, entries are unique
+    private Vehicle[] vehiclesPassed = new Vehicle[4];
+
+    private int vehiclesPassedCount;
+
+    private final Collection<Vehicle> passedVehicles = new AbstractList<Vehicle>() {
+        @Override
+        public Vehicle get(int index) {
+            Preconditions.checkElementIndex(index, vehiclesPassedCount);
+            return vehiclesPassed[index];
+        }
+
+        @Override
+        public int size() {
+            return vehiclesPassedCount;
+        }
+    };
 
     // TODO roadSegment not needed as reference, just check here for correct position
     public SignalPoint(double position, RoadSegment roadSegment) {
@@ -56,17 +75,59 @@ public class SignalPoint {
     }
 
     // will be called twice, therefore cleaning separately
-    void registerPassingVehicles(double simulationTime, Iterator<Vehicle> vehicles) {
+    void setSimulationTimeOfRegistering(double simulationTime) {
         this.simulationTime = simulationTime;
-        Iterators.addAll(vehiclesPassed, Iterators.filter(vehicles, predicate));
+    }
+
+    /**
+     * Registers the vehicles of the lane segment in the given index range as passed, skipping vehicles already
+     * registered in this time step.
+     */
+    void registerPassingVehicles(LaneSegment laneSegment, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; ++i) {
+            final Vehicle vehicle = laneSegment.getVehicle(i);
+            assert predicate.apply(vehicle) : "vehicle has not passed position=" + position;
+            if (!isRegistered(vehicle)) {
+                if (vehiclesPassedCount == vehiclesPassed.length) {
+                    vehiclesPassed = Arrays.copyOf(vehiclesPassed, 2 * vehiclesPassedCount);
+                }
+                vehiclesPassed[vehiclesPassedCount++] = vehicle;
+            }
+        }
+    }
+
+    private boolean isRegistered(Vehicle vehicle) {
+        for (int i = 0; i < vehiclesPassedCount; ++i) {
+            if (vehiclesPassed[i] == vehicle) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // checks that the range search did not miss any passing vehicle
+    boolean allPassingVehiclesRegistered(Iterator<Vehicle> vehicles) {
+        while (vehicles.hasNext()) {
+            final Vehicle vehicle = vehicles.next();
+            if (predicate.apply(vehicle) && !isRegistered(vehicle)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public double position() {
         return position;
     }
 
+    /**
+     * Returns the vehicles that passed this signal point in the current time step, in order of registration. The
+     * returned collection is a view that is reused in the next time step.
+     *
+     * @return the vehicles that passed this signal point
+     */
     public Collection<Vehicle> passedVehicles() {
-        return vehiclesPassed;
+        return passedVehicles;
     }
 
     double getSimulationTimeOfRegistering() {
@@ -75,12 +136,47 @@ public class SignalPoint {
 
     // called by RoadSegment
     void clear() {
-        vehiclesPassed.clear();
+        Arrays.fill(vehiclesPassed, 0, vehiclesPassedCount, null);
+        vehiclesPassedCount = 0;
+    }
+
+    /**
+     * Writes the time of registering and the ids of the passed vehicles, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(simulationTime);
+        out.writeInt(vehiclesPassedCount);
+        for (int i = 0; i < vehiclesPassedCount; ++i) {
+            out.writeLong(vehiclesPassed[i].getId());
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}, resolving the passed vehicles by their ids.
+     *
+     * @param vehicles the restored vehicles by id, including vehicles that already left the road network
+     */
+    public void readState(DataInput in, Map<Long, Vehicle> vehicles) throws IOException {
+        clear();
+        simulationTime = in.readDouble();
+        final int count = in.readInt();
+        if (vehiclesPassed.length < count) {
+            vehiclesPassed = new Vehicle[count];
+        }
+        for (int i = 0; i < count; ++i) {
+            final long id = in.readLong();
+            final Vehicle vehicle = vehicles.get(id);
+            if (vehicle == null) {
+                throw new IOException("unknown passed vehicle id=" + id);
+            }
+            vehiclesPassed[i] = vehicle;
+        }
+        vehiclesPassedCount = count;
     }
 
     @Override
     public String toString() {
-        return "SignalPoint [position=" + position + ", vehiclesPassed.size=" + vehiclesPassed.size() + "]";
+        return "SignalPoint [position=" + position + ", vehiclesPassed.size=" + vehiclesPassedCount + "]";
     }
 
 }
@@ -27,15 +27,33 @@
 package org.movsim.simulator.roadnetwork;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * The signal points of a road segment. The vehicles passing the signal points are found by a range search over the
+ * position-sorted lanes instead of testing every vehicle against every signal point.
+ */
 public class SignalPoints implements Iterable<SignalPoint> {
 
+    private static final Comparator<SignalPoint> DECREASING_POSITION = new Comparator<SignalPoint>() {
+        @Override
+        public int compare(SignalPoint signalPoint1, SignalPoint signalPoint2) {
+            return Double.compare(signalPoint2.position(), signalPoint1.position());
+        }
+    };
+
     private final List<SignalPoint> signalPoints = new ArrayList<>();
 
+    // signal points in order of decreasing position, in the same order as the vehicles in a lane
+    private final List<SignalPoint> sortedSignalPoints = new ArrayList<>();
+
     public void add(SignalPoint signalPoint) {
         signalPoints.add(signalPoint);
+        sortedSignalPoints.add(signalPoint);
+        Collections.sort(sortedSignalPoints, DECREASING_POSITION);
     }
 
     @Override
@@ -51,4 +69,57 @@ public class SignalPoints implements Iterable<SignalPoint> {
         return signalPoints.isEmpty();
     }
 
+    void clearPassedVehicles() {
+        for (int i = 0, n = signalPoints.size(); i < n; ++i) {
+            signalPoints.get(i).clear();
+        }
+    }
+
+    /**
+     * Registers the vehicles that passed any of the signal points in the last position update.
+     * <p>
+     * A vehicle passed a signal point if its old rear position is at or behind and its new rear position is beyond the
+     * signal point. Within a lane both the old and the new rear positions are sorted, so the passing vehicles of a
+     * signal point are the vehicles between the first vehicle that was at or behind the signal point and the first
+     * vehicle at or behind it. Both indices only increase with decreasing signal point position, so all signal points of
+     * a lane are found in one sweep from the front to the rear of the lane. Lanes with vehicles inserted out of order
+     * (e.g. by a traffic source) are scanned up to the first vehicle at or behind the signal point instead.
+     * </p>
+     *
+     * @param simulationTime
+     * @param laneSegments   the lane segments of the road segment, in order of the lanes
+     */
+    void registerPassingVehicles(double simulationTime, LaneSegment[] laneSegments) {
+        final int count = sortedSignalPoints.size();
+        for (int i = 0; i < count; ++i) {
+            sortedSignalPoints.get(i).setSimulationTimeOfRegistering(simulationTime);
+        }
+        for (final LaneSegment laneSegment : laneSegments) {
+            if (laneSegment.vehicleCount() == 0) {
+                continue;
+            }
+            final boolean oldRearPositionsSorted = laneSegment.oldRearPositionsSorted();
+            int indexAtOrBehind = 0;
+            int indexOldAtOrBehind = 0;
+            for (int i = 0; i < count; ++i) {
+                final SignalPoint signalPoint = sortedSignalPoints.get(i);
+                final double position = signalPoint.position();
+                indexAtOrBehind = laneSegment.firstIndexAtOrBehind(position, indexAtOrBehind);
+                if (oldRearPositionsSorted) {
+                    indexOldAtOrBehind = laneSegment.firstIndexOldAtOrBehind(position, indexOldAtOrBehind);
+                    if (indexOldAtOrBehind < indexAtOrBehind) {
+                        signalPoint.registerPassingVehicles(laneSegment, indexOldAtOrBehind, indexAtOrBehind);
+                    }
+                } else {
+                    // vehicles inserted out of order, check all vehicles beyond the signal point
+                    for (int index = 0; index < indexAtOrBehind; ++index) {
+                        if (laneSegment.rearPositionOld(index) <= position) {
+                            signalPoint.registerPassingVehicles(laneSegment, index, index + 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
 }
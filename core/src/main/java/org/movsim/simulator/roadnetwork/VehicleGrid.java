@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator.roadnetwork;
+
+import com.google.common.base.Preconditions;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.vehicles.Vehicle;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over the world coordinates of the vehicles' mid positions, for picking in the viewer and for proximity
+ * queries.
+ * <p>
+ * The grid is updated incrementally by {@link #update(RoadNetwork)}: vehicles that stay within their cell are only
+ * repositioned, vehicles that left the road network are removed. Only the cells occupied by vehicles are allocated.
+ * Not thread-safe, queries must not run concurrently with the update of the road network.
+ */
+public final class VehicleGrid {
+
+    private final double cellSize;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private final Map<Vehicle, Entry> entries = new IdentityHashMap<>();
+
+    private int updateCount;
+
+    // scratch arrays for mapping the vehicles of a lane
+    private double[] roadPos = new double[16];
+    private double[] lateralOffset = new double[16];
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+
+    /**
+     * Constructor.
+     *
+     * @param cellSize edge length of the grid cells in meters, in the order of the typical query radius
+     */
+    public VehicleGrid(double cellSize) {
+        Preconditions.checkArgument(cellSize > 0, "cellSize=" + cellSize);
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Updates the positions of all vehicles on the road segments with a road mapping.
+     *
+     * @param roadNetwork
+     */
+    public void update(RoadNetwork roadNetwork) {
+        ++updateCount;
+        int updatedCount = 0;
+        for (final RoadSegment roadSegment : roadNetwork) {
+            final RoadMapping roadMapping = roadSegment.roadMapping();
+            if (roadMapping == null) {
+                continue;
+            }
+            for (int lane = Lanes.LANE1; lane <= roadSegment.laneCount(); ++lane) {
+                final LaneSegment laneSegment = roadSegment.laneSegment(lane);
+                final int count = laneSegment.vehicleCount();
+                ensureCapacity(count);
+                for (int i = 0; i < count; ++i) {
+                    final Vehicle vehicle = laneSegment.getVehicle(i);
+                    roadPos[i] = vehicle.physicalQuantities().getMidPosition();
+                    lateralOffset[i] = roadMapping.lateralOffset(vehicle);
+                }
+                // map the whole lane at once
+                roadMapping.map(roadPos, lateralOffset, count, x, y);
+                for (int i = 0; i < count; ++i) {
+                    final Vehicle vehicle = laneSegment.getVehicle(i);
+                    Entry entry = entries.get(vehicle);
+                    if (entry == null) {
+                        entry = new Entry(vehicle);
+                        entries.put(vehicle, entry);
+                    }
+                    if (entry.updateCount != updateCount) {
+                        ++updatedCount;
+                    }
+                    entry.updateCount = updateCount;
+                    entry.x = x[i];
+                    entry.y = y[i];
+                    final long key = key(cellIndex(entry.x), cellIndex(entry.y));
+                    if (entry.cell == null || entry.cell.key != key) {
+                        move(entry, key);
+                    }
+                }
+            }
+        }
+        if (updatedCount < entries.size()) {
+            removeStaleEntries();
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (roadPos.length < count) {
+            final int capacity = Math.max(count, 2 * roadPos.length);
+            roadPos = new double[capacity];
+            lateralOffset = new double[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+        }
+    }
+
+    private void removeStaleEntries() {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            final Entry entry = iterator.next();
+            if (entry.updateCount != updateCount) {
+                remove(entry);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all vehicles.
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of vehicles in the grid.
+     *
+     * @return the number of vehicles
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the vehicle with the mid position nearest to the given point.
+     *
+     * @param x
+     * @param y
+     * @param maxDistance the maximum distance of the vehicle
+     * @return the nearest vehicle or null if there is no vehicle within the maximum distance
+     */
+    @CheckForNull
+    public Vehicle nearest(double x, double y, double maxDistance) {
+        Preconditions.checkArgument(maxDistance >= 0 && maxDistance < Double.POSITIVE_INFINITY,
+                "maxDistance=" + maxDistance);
+        final long cellX = cellIndex(x);
+        final long cellY = cellIndex(y);
+        final long maxRing = (long) Math.ceil(maxDistance / cellSize);
+        Entry nearest = null;
+        double nearestDistanceSquared = maxDistance * maxDistance;
+        for (long ring = 0; ring <= maxRing; ++ring) {
+            // all cells of the ring are at least (ring - 1) * cellSize away
+            final double ringDistance = Math.max(0, ring - 1) * cellSize;
+            if (nearest != null && ringDistance * ringDistance > nearestDistanceSquared) {
+                break;
+            }
+            for (long i = cellX - ring; i <= cellX + ring; ++i) {
+                final boolean edgeColumn = i == cellX - ring || i == cellX + ring;
+                for (long j = cellY - ring; j <= cellY + ring; j += edgeColumn ? 1 : 2 * Math.max(ring, 1)) {
+                    final Cell cell = cells.get(key(i, j));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int k = 0; k < cell.size; ++k) {
+                        final Entry entry = cell.entries[k];
+                        final double distanceSquared = square(entry.x - x) + square(entry.y - y);
+                        if (distanceSquared <= nearestDistanceSquared) {
+                            nearest = entry;
+                            nearestDistanceSquared = distanceSquared;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest == null ? null : nearest.vehicle;
+    }
+
+    /**
+     * Returns the vehicles with their mid positions within the given box.
+     */
+    public List<Vehicle> withinBox(double minX, double minY, double maxX, double maxY) {
+        final List<Vehicle> result = new ArrayList<>();
+        for (long i = cellIndex(minX), maxI = cellIndex(maxX); i <= maxI; ++i) {
+            for (long j = cellIndex(minY), maxJ = cellIndex(maxY); j <= maxJ; ++j) {
+                final Cell cell = cells.get(key(i, j));
+                if (cell == null) {
+                    continue;
+                }
+                for (int k = 0; k < cell.size; ++k) {
+                    final Entry entry = cell.entries[k];
+                    if (entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY) {
+                        result.add(entry.vehicle);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the vehicles with their mid positions within the given distance of the point.
+     */
+    public List<Vehicle> withinRadius(double x, double y, double radius) {
+        final List<Vehicle> result = new ArrayList<>();
+        final double radiusSquared = radius * radius;
+        for (long i = cellIndex(x - radius), maxI = cellIndex(x + radius); i <= maxI; ++i) {
+            for (long j = cellIndex(y - radius), maxJ = cellIndex(y + radius); j <= maxJ; ++j) {
+                final Cell cell = cells.get(key(i, j));
+                if (cell == null) {
+                    continue;
+                }
+                for (int k = 0; k < cell.size; ++k) {
+                    final Entry entry = cell.entries[k];
+                    if (square(entry.x - x) + square(entry.y - y) <= radiusSquared) {
+                        result.add(entry.vehicle);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private long cellIndex(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xffffffffL);
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private void move(Entry entry, long key) {
+        if (entry.cell != null) {
+            remove(entry);
+        }
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell(key);
+            cells.put(key, cell);
+        }
+        cell.add(entry);
+    }
+
+    private void remove(Entry entry) {
+        final Cell cell = entry.cell;
+        cell.remove(entry);
+        if (cell.size == 0) {
+            cells.remove(cell.key);
+        }
+    }
+
+    private static final class Entry {
+        final Vehicle vehicle;
+        double x;
+        double y;
+        Cell cell;
+        int indexInCell;
+        int updateCount;
+
+        Entry(Vehicle vehicle) {
+            this.vehicle = vehicle;
+        }
+    }
+
+    private static final class Cell {
+        final long key;
+        Entry[] entries = new Entry[4];
+        int size;
+
+        Cell(long key) {
+            this.key = key;
+        }
+
+        void add(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, 2 * size);
+            }
+            entry.cell = this;
+            entry.indexInCell = size;
+            entries[size++] = entry;
+        }
+
+        /** swaps the last entry into the place of the removed entry. */
+        void remove(Entry entry) {
+            final Entry last = entries[--size];
+            entries[entry.indexInCell] = last;
+            last.indexInCell = entry.indexInCell;
+            entries[size] = null;
+            entry.cell = null;
+        }
+    }
+}
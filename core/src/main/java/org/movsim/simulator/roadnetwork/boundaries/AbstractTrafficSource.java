@@ -26,6 +26,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public abstract class AbstractTrafficSource implements SimulationTimeStep {
 
@@ -183,4 +186,32 @@ public abstract class AbstractTrafficSource implements SimulationTimeStep {
         }
     }
 
+    /**
+     * Writes the dynamic state of the source, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(nWait);
+        out.writeDouble(measuredTime);
+        out.writeInt(measuredInflowCount);
+        out.writeDouble(measuredInflow);
+        out.writeInt(enteringVehCounter);
+        out.writeDouble(xEnterLast);
+        out.writeDouble(vEnterLast);
+        out.writeInt(laneEnterLast);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        nWait = in.readDouble();
+        measuredTime = in.readDouble();
+        measuredInflowCount = in.readInt();
+        measuredInflow = in.readDouble();
+        enteringVehCounter = in.readInt();
+        xEnterLast = in.readDouble();
+        vEnterLast = in.readDouble();
+        laneEnterLast = in.readInt();
+    }
+
 }
@@ -30,10 +30,16 @@ import com.google.common.base.Preconditions;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.VehiclePool;
 import org.movsim.utilities.Units;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Default sink: just removes vehicles that have reached the end of a road segment.
  */
@@ -57,6 +63,8 @@ public class TrafficSink implements SimulationTimeStep {
     RecordDataCallback recordDataCallback;
     private double simulationTime;
 
+    private VehiclePool vehiclePool;
+
     public interface RecordDataCallback {
         /**
          * Callback to allow the application to process or record the traffic sink data.
@@ -88,6 +96,15 @@ public class TrafficSink implements SimulationTimeStep {
         this.recordDataCallback = Preconditions.checkNotNull(recordDataCallback);
     }
 
+    /**
+     * Sets the pool to which the removed vehicles are returned, null discards them.
+     *
+     * @param vehiclePool
+     */
+    public void setVehiclePool(@Nullable VehiclePool vehiclePool) {
+        this.vehiclePool = vehiclePool;
+    }
+
     /**
      * Returns the outflow, averaged over the measuring interval.
      *
@@ -146,6 +163,9 @@ public class TrafficSink implements SimulationTimeStep {
         if (recordDataCallback != null) {
             recordDataCallback.recordData(simulationTime, totalVehiclesRemoved, vehicle);
         }
+        if (vehiclePool != null) {
+            vehiclePool.release(vehicle);
+        }
     }
 
     /**
@@ -166,4 +186,34 @@ public class TrafficSink implements SimulationTimeStep {
         }
     }
 
+    /**
+     * Writes the dynamic state of the sink, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(vehiclesRemovedInInterval);
+        out.writeDouble(measuredOutflow);
+        out.writeDouble(measuredTime);
+        out.writeDouble(dQ);
+        out.writeInt(totalVehiclesRemoved);
+        out.writeDouble(totalVehicleTravelDistance);
+        out.writeDouble(totalVehicleTravelTime);
+        out.writeDouble(totalVehicleFuelUsedLiters);
+        out.writeDouble(simulationTime);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        vehiclesRemovedInInterval = in.readInt();
+        measuredOutflow = in.readDouble();
+        measuredTime = in.readDouble();
+        dQ = in.readDouble();
+        totalVehiclesRemoved = in.readInt();
+        totalVehicleTravelDistance = in.readDouble();
+        totalVehicleTravelTime = in.readDouble();
+        totalVehicleFuelUsedLiters = in.readDouble();
+        simulationTime = in.readDouble();
+    }
+
 }
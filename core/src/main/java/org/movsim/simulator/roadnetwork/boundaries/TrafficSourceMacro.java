@@ -34,6 +34,10 @@ import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class TrafficSourceMacro extends AbstractTrafficSource {
 
     private static final Logger LOG = LoggerFactory.getLogger(TrafficSourceMacro.class);
@@ -186,4 +190,19 @@ public class TrafficSourceMacro extends AbstractTrafficSource {
         return inflowTimeSeries.getFlowPerLane(time) * roadSegment.laneCount();
     }
 
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(testVehicle != null);
+        if (testVehicle != null) {
+            out.writeUTF(testVehicle.getVehicleType().getVehiclePrototypeLabel());
+        }
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        testVehicle = in.readBoolean() ? vehGenerator.getTestVehicle(in.readUTF()) : null;
+    }
+
 }
@@ -34,6 +34,11 @@ import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -115,4 +120,37 @@ public class TrafficSourceMicro extends AbstractTrafficSource {
         return 0; // no flow-based input
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The queued vehicles are given by the scenario input, so only the entry times still waiting are written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(vehicleQueue.size());
+        for (Long entryTime : vehicleQueue.keySet()) {
+            out.writeLong(entryTime);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removes the vehicles that already entered the road from the queue.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        final int size = in.readInt();
+        final Set<Long> entryTimes = new HashSet<>(size);
+        for (int i = 0; i < size; i++) {
+            entryTimes.add(in.readLong());
+        }
+        if (!vehicleQueue.keySet().containsAll(entryTimes)) {
+            throw new IOException("queued vehicles do not match the scenario of source=" + roadSegment.id());
+        }
+        vehicleQueue.keySet().retainAll(entryTimes);
+    }
+
 }
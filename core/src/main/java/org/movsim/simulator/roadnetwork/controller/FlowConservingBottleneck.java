@@ -31,11 +31,8 @@ import java.util.Iterator;
 import org.movsim.autogen.Inhomogeneity;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
-import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.Vehicle;
 
-import com.google.common.base.Predicate;
-
 /**
  * Modifies the driving behavior within a spatial range of a RoadSection. The range is limited to the extend of one roadSection only.
  * 
@@ -48,8 +45,6 @@ public class FlowConservingBottleneck extends RoadObjectController {
 
     private final double endPosition;
 
-    private final Predicate<Vehicle> vehiclesWithRange;
-
     private final SignalPoint endSignalPoint;
 
     public FlowConservingBottleneck(Inhomogeneity inhomogeneity, RoadSegment roadSegment) {
@@ -62,7 +57,6 @@ public class FlowConservingBottleneck extends RoadObjectController {
                     "FlowConservingBottleneckController can only be applied to a single roadSegment, but endPosition="
                             + endPosition + " is larger than road=" + roadSegment().userId());
         }
-        this.vehiclesWithRange = new VehicleWithinRange(position, endPosition);
         endSignalPoint = new SignalPoint(endPosition, roadSegment);
     }
 
@@ -79,7 +73,7 @@ public class FlowConservingBottleneck extends RoadObjectController {
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         LOG.debug("vehiclesPassedEnd={}", endSignalPoint.passedVehicles().size());
-        Iterator<Vehicle> iterator = roadSegment.filteredVehicles(vehiclesWithRange);
+        Iterator<Vehicle> iterator = roadSegment.vehiclesWithinRange(position, endPosition);
         while (iterator.hasNext()) {
             Vehicle vehicle = iterator.next();
             apply(vehicle);
@@ -38,10 +38,8 @@ import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.ElevationProfile;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.ElevationProfile.Elevation;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
-import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.Vehicle;
-
-import com.google.common.base.Predicate;
+import org.movsim.utilities.PiecewiseConstantFunction;
 
 /**
  * Sets the road slope within a spatial range of a RoadSection. The range is limited to the extend of one roadSection only.
@@ -56,7 +54,8 @@ public class GradientProfile extends RoadObjectController {
     /** mapping of positions to gradients along track */
     private final SortedMap<Double, Double> gradients = new TreeMap<>();
 
-    private final Predicate<Vehicle> vehiclesWithRange;
+    /** gradient from each position up to the next position, for the lookup of the vehicles' gradients */
+    private final PiecewiseConstantFunction gradientFunction;
 
     private final SignalPoint endSignalPoint;
 
@@ -72,7 +71,7 @@ public class GradientProfile extends RoadObjectController {
             throw new IllegalArgumentException("elevation profile track position s=" + endPosition
                     + " exceeds roadlength.");
         }
-        this.vehiclesWithRange = new VehicleWithinRange(position, endPosition);
+        this.gradientFunction = createGradientFunction(gradients);
         endSignalPoint = new SignalPoint(endPosition, roadSegment);
     }
 
@@ -84,7 +83,7 @@ public class GradientProfile extends RoadObjectController {
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         LOG.debug("vehiclesPassedEnd={}", endSignalPoint.passedVehicles().size());
-        Iterator<Vehicle> iterator = roadSegment.filteredVehicles(vehiclesWithRange);
+        Iterator<Vehicle> iterator = roadSegment.vehiclesWithinRange(position, endPosition);
         while (iterator.hasNext()) {
             Vehicle vehicle = iterator.next();
             apply(vehicle);
@@ -97,8 +96,7 @@ public class GradientProfile extends RoadObjectController {
     private void apply(Vehicle vehicle) {
         assert vehicle.getFrontPosition() >= position;
         assert vehicle.getFrontPosition() <= endPosition;
-        Double posUpstream = gradients.headMap(vehicle.getFrontPosition()).lastKey();
-        double gradient = gradients.get(posUpstream);
+        double gradient = gradientFunction.value(vehicle.getFrontPosition());
         vehicle.setSlope(gradient);
         LOG.debug("pos={} --> slope gradient={}", vehicle.getFrontPosition(), gradient);
     }
@@ -125,6 +123,18 @@ public class GradientProfile extends RoadObjectController {
         gradients.put(elevation.lastKey(), 0.0);
     }
 
+    private static PiecewiseConstantFunction createGradientFunction(SortedMap<Double, Double> gradients) {
+        final double[] positions = new double[gradients.size()];
+        final double[] values = new double[gradients.size()];
+        int i = 0;
+        for (Entry<Double, Double> gradient : gradients.entrySet()) {
+            positions[i] = gradient.getKey();
+            values[i] = gradient.getValue();
+            ++i;
+        }
+        return new PiecewiseConstantFunction(positions, values);
+    }
+
     public Set<Entry<Double, Double>> gradientEntries() {
         return Collections.unmodifiableSet(gradients.entrySet());
     }
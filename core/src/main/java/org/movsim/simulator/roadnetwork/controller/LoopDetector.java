@@ -32,6 +32,10 @@ import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 // TODO refactoring needed, add unittests
 public class LoopDetector extends RoadObjectController {
 
@@ -237,6 +241,39 @@ public class LoopDetector extends RoadObjectController {
         return vehCumulatedCountOutputAllLanes;
     }
 
+    /**
+     * Writes the aggregation state of the detector, e.g. for a simulation checkpoint. The passed vehicles are part of
+     * the road segment's signal points.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(timeOffset);
+        out.writeDouble(meanSpeedAllLanes);
+        out.writeInt(vehCountOutputAllLanes);
+        out.writeLong(vehCumulatedCountOutputAllLanes);
+        out.writeDouble(occupancyAllLanes);
+        out.writeDouble(meanSpeedHarmonicAllLanes);
+        out.writeDouble(meanTimegapHarmonicAllLanes);
+        for (LaneQuantity laneQuantity : laneQuantities) {
+            laneQuantity.writeState(out);
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        timeOffset = in.readDouble();
+        meanSpeedAllLanes = in.readDouble();
+        vehCountOutputAllLanes = in.readInt();
+        vehCumulatedCountOutputAllLanes = in.readLong();
+        occupancyAllLanes = in.readDouble();
+        meanSpeedHarmonicAllLanes = in.readDouble();
+        meanTimegapHarmonicAllLanes = in.readDouble();
+        for (LaneQuantity laneQuantity : laneQuantities) {
+            laneQuantity.readState(in);
+        }
+    }
+
     private static final class LaneQuantity {
         int vehCount;
         double vSum;
@@ -268,5 +305,33 @@ public class LoopDetector extends RoadObjectController {
             reset();
         }
 
+        void writeState(DataOutput out) throws IOException {
+            out.writeInt(vehCount);
+            out.writeDouble(vSum);
+            out.writeDouble(occTime);
+            out.writeDouble(sumInvV);
+            out.writeDouble(sumInvQ);
+            out.writeDouble(meanSpeed);
+            out.writeDouble(occupancy);
+            out.writeInt(vehCountOutput);
+            out.writeLong(vehCumulatedCountOutput);
+            out.writeDouble(meanSpeedHarmonic);
+            out.writeDouble(meanTimegapHarmonic);
+        }
+
+        void readState(DataInput in) throws IOException {
+            vehCount = in.readInt();
+            vSum = in.readDouble();
+            occTime = in.readDouble();
+            sumInvV = in.readDouble();
+            sumInvQ = in.readDouble();
+            meanSpeed = in.readDouble();
+            occupancy = in.readDouble();
+            vehCountOutput = in.readInt();
+            vehCumulatedCountOutput = in.readLong();
+            meanSpeedHarmonic = in.readDouble();
+            meanTimegapHarmonic = in.readDouble();
+        }
+
     }
 }
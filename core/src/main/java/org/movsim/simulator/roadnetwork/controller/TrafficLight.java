@@ -37,6 +37,9 @@ import org.movsim.simulator.roadnetwork.SignalPoint;
 import org.movsim.simulator.roadnetwork.regulator.Regulator;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -165,6 +168,23 @@ public class TrafficLight extends RoadObjectController {
 
     // trigger from viewer via mouse-click (direct communication from signal to controller)
     // shouldn't be called from external, use controller instead
+    /**
+     * Writes the status of the traffic light, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(status != null);
+        if (status != null) {
+            out.writeInt(status.ordinal());
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        status = in.readBoolean() ? TrafficLightStatus.values()[in.readInt()] : null;
+    }
+
     public void triggerNextPhase() {
         if (hasTriggerCallback()) {
             LOG.debug("mouse click triggers next phase");
@@ -10,6 +10,9 @@ import org.movsim.simulator.SimulationTimeStep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -121,6 +124,25 @@ public abstract class TrafficLightController implements SimulationTimeStep, Trig
         }
     }
 
+    /**
+     * Writes the phase of the controller, e.g. for a simulation checkpoint. The status of the traffic lights is written
+     * with their road segments.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(currentPhaseIndex);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        final int phaseIndex = in.readInt();
+        if (phaseIndex < 0 || phaseIndex >= phases.size()) {
+            throw new IOException("invalid phase index=" + phaseIndex + " for controller=" + groupId);
+        }
+        currentPhaseIndex = phaseIndex;
+    }
+
     public final void setRecorder(TrafficLightRecordDataCallback recordDataCallback) {
         this.recordDataCallback = Preconditions.checkNotNull(recordDataCallback);
     }
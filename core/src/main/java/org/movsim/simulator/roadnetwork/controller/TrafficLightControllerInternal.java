@@ -7,6 +7,10 @@ import org.movsim.autogen.TrafficLightState;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 class TrafficLightControllerInternal extends TrafficLightController {
 
     private double currentPhaseDuration;
@@ -32,6 +36,18 @@ class TrafficLightControllerInternal extends TrafficLightController {
         currentPhaseDuration = 0; // reset
     }
 
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeDouble(currentPhaseDuration);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        currentPhaseDuration = in.readDouble();
+    }
+
     private void determinePhase() {
         Phase phase = phases.get(currentPhaseIndex);
         // first check if all "clear" conditions are fullfilled.
@@ -25,6 +25,9 @@
  */
 package org.movsim.simulator.roadnetwork.controller;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -101,6 +104,34 @@ public class TrafficLights implements SimulationTimeStep {
         }
     }
 
+    /**
+     * Writes the state of all traffic light controllers, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(trafficLightControllers.size());
+        for (TrafficLightController controller : trafficLightControllers) {
+            out.writeUTF(controller.groupId());
+            controller.writeState(out);
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        if (in.readInt() != trafficLightControllers.size()) {
+            throw new IOException("number of traffic light controllers does not match");
+        }
+        for (TrafficLightController controller : trafficLightControllers) {
+            final String groupId = in.readUTF();
+            if (!groupId.equals(controller.groupId())) {
+                throw new IOException("expected traffic light controller=" + controller.groupId() + " but got "
+                        + groupId);
+            }
+            controller.readState(in);
+        }
+    }
+
     private void setUp(org.movsim.autogen.TrafficLights trafficLightsInput, RoadNetwork roadNetwork) {
         Map<String, TrafficLightController> signalIdToController = new HashMap<>();
         Map<String, ControllerGroup> controllerGroupInput = createControllerMapping(trafficLightsInput);
@@ -33,8 +33,11 @@ import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
 import org.movsim.simulator.vehicles.Vehicle;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 // Tricky modeling: decision making may take a while until exit will be reached.
 // Assignment of exit decision at cross-sections (via SignalPoints) produces most reasonale behavior in routing game.
@@ -43,7 +46,8 @@ public class VariableMessageSignDiversion extends RoadObjectController {
 
     private boolean diversionActive = false; // also set in viewer !!
 
-    private Set<Vehicle> controlledVehicles = new HashSet<>();
+    // keyed by the vehicle id, a pooled vehicle which left the road network is reused with another id
+    private final Map<Long, Vehicle> controlledVehicles = new HashMap<>();
 
     private final double validLength;
     private final SignalPoint begin;
@@ -105,19 +109,22 @@ public class VariableMessageSignDiversion extends RoadObjectController {
                 // apply only to vehicles not in most left lane!
                 if (vehicle.lane() != Lanes.MOST_INNER_LANE) {
                     vehicle.setExitRoadSegmentId(roadSegmentEnd.id());
-                    controlledVehicles.add(vehicle);
+                    controlledVehicles.put(vehicle.getId(), vehicle);
                     LOG.debug("set exitRoadSegmentId to vehicle={}", vehicle);
                 }
             }
         } else {
-            for (Vehicle vehicle : controlledVehicles) {
-                vehicle.setExitRoadSegmentId(Vehicle.ROAD_SEGMENT_ID_NOT_SET);
+            for (Map.Entry<Long, Vehicle> entry : controlledVehicles.entrySet()) {
+                final Vehicle vehicle = entry.getValue();
+                if (vehicle.getId() == entry.getKey().longValue()) {
+                    vehicle.setExitRoadSegmentId(Vehicle.ROAD_SEGMENT_ID_NOT_SET);
+                }
             }
         }
 
         for (Vehicle vehicle : end.passedVehicles()) {
             vehicle.setExitRoadSegmentId(Vehicle.ROAD_SEGMENT_ID_NOT_SET); // reset
-            controlledVehicles.remove(vehicle);
+            controlledVehicles.remove(vehicle.getId());
         }
 
         if (controlledVehicles.size() > 200) {
@@ -129,4 +136,32 @@ public class VariableMessageSignDiversion extends RoadObjectController {
     public void toogleActiveStatus() {
         this.diversionActive = !this.diversionActive;
     }
+
+    /**
+     * Writes the status and the ids of the controlled vehicles, e.g. for a simulation checkpoint.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(diversionActive);
+        out.writeInt(controlledVehicles.size());
+        for (Long id : controlledVehicles.keySet()) {
+            out.writeLong(id.longValue());
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}. Controlled vehicles which already left the road
+     * network are dropped.
+     *
+     * @param vehicles the restored vehicles by id
+     */
+    public void readState(DataInput in, Map<Long, Vehicle> vehicles) throws IOException {
+        diversionActive = in.readBoolean();
+        controlledVehicles.clear();
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            final Vehicle vehicle = vehicles.get(in.readLong());
+            if (vehicle != null) {
+                controlledVehicles.put(vehicle.getId(), vehicle);
+            }
+        }
+    }
 }
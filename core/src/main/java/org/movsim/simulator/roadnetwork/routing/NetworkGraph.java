@@ -34,6 +34,8 @@ import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Node;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.utilities.RunContext;
+import org.movsim.utilities.RunContext.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +46,6 @@ final class NetworkGraph {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkGraph.class);
 
-    private static long vertexId = 0;
-
     private NetworkGraph() {
         // private constructor
     }
@@ -108,7 +108,7 @@ final class NetworkGraph {
         showConnections(connections);
         long nodeId = determineNodeId(connections);
         if (nodeId == Long.MAX_VALUE) {
-            nodeId = vertexId++;
+            nodeId = RunContext.current().next(Counter.NETWORK_GRAPH_VERTEX);
         }
         for (Node nodeType : connections.values()) {
             nodeType.setId(nodeId);
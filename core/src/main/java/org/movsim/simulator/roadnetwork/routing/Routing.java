@@ -28,13 +28,13 @@ package org.movsim.simulator.roadnetwork.routing;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 import org.jgrapht.WeightedGraph;
-import org.jgrapht.alg.DijkstraShortestPath;
 import org.movsim.autogen.Routes;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -45,13 +45,32 @@ public class Routing {
      */
     private static final Logger LOG = LoggerFactory.getLogger(Routing.class);
 
+    /**
+     * Maximum number of shortest routes kept in the least recently used route cache.
+     */
+    static final int ROUTE_CACHE_CAPACITY = 1024;
+
     private final Map<String, Route> predefinedRoutes;
 
+    /**
+     * shortest routes by start and destination road ids, in access order.
+     */
+    private final Map<String, Route> routeCache = new LinkedHashMap<String, Route>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Route> eldest) {
+            return size() > ROUTE_CACHE_CAPACITY;
+        }
+    };
+
     private final RoadNetwork roadNetwork;
 
     // see http://jgrapht.org/ for library documentation
     private WeightedGraph<Long, RoadSegment> graph;
 
+    private RoutingEngine routingEngine;
+
     public Routing(Routes routesInput, RoadNetwork roadNetwork) {
         this.roadNetwork = Preconditions.checkNotNull(roadNetwork);
         predefinedRoutes = Maps.newHashMap();
@@ -105,14 +124,30 @@ public class Routing {
     }
 
     /**
+     * Returns the shortest route by road length. Routes are cached by start and destination and shared between the
+     * callers.
+     *
      * @throws IllegalStateException
      */
-    public Route findRoute(String startRoadId, String destinationRoadId) {
+    public synchronized Route findRoute(String startRoadId, String destinationRoadId) {
+        Preconditions.checkArgument(startRoadId != null && !startRoadId.isEmpty());
+        Preconditions.checkArgument(destinationRoadId != null && !destinationRoadId.isEmpty());
+        String routeName = createRouteName(startRoadId, destinationRoadId);
+        Route route = routeCache.get(routeName);
+        if (route == null) {
+            route = createShortestRoute(startRoadId, destinationRoadId);
+            routeCache.put(routeName, route);
+        }
+        return route;
+    }
+
+    private Route createShortestRoute(String startRoadId, String destinationRoadId) {
         if (graph == null) {
             graph = NetworkGraph.create(roadNetwork);
         }
-        Preconditions.checkArgument(startRoadId != null && !startRoadId.isEmpty());
-        Preconditions.checkArgument(destinationRoadId != null && !destinationRoadId.isEmpty());
+        if (routingEngine == null) {
+            routingEngine = new RoutingEngine(graph);
+        }
 
         RoadSegment startRoadSegment = roadNetwork.findByUserId(startRoadId);
         if (startRoadSegment == null) {
@@ -130,9 +165,9 @@ public class Routing {
         LOG.debug("From node={} to node={}", startRoadSegment.getDestinationNode().getId(),
                 endRoadSegment.getDestinationNode().getId());
 
-        List<RoadSegment> path = DijkstraShortestPath
-                .findPathBetween(graph, startRoadSegment.getDestinationNode().getId(),
-                        endRoadSegment.getDestinationNode().getId());
+        long fromVertex = startRoadSegment.getDestinationNode().getId();
+        long toVertex = endRoadSegment.getDestinationNode().getId();
+        List<RoadSegment> path = routingEngine.shortestPath(fromVertex, toVertex);
 
         if (path == null) {
             LOG.error("cannot find route from startRoadId={} to destinationRoadId={}", startRoadId, destinationRoadId);
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator.roadnetwork.routing;
+
+import com.google.common.base.Preconditions;
+import org.jgrapht.WeightedGraph;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest paths over the {@link NetworkGraph} with A* and landmark lower bounds (ALT).
+ * <p>
+ * The graph is copied into primitive adjacency arrays. The distances from and to a few landmark vertices are
+ * precomputed once, and the triangle inequality yields a lower bound of the remaining distance for the A* search.
+ * <p>
+ * Not thread-safe, the query state is reused.
+ */
+final class RoutingEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RoutingEngine.class);
+
+    /** Number of landmarks, limited by the number of vertices. */
+    static final int LANDMARK_COUNT = 4;
+
+    private final Map<Long, Integer> vertexIndexes;
+    private final int vertexCount;
+
+    // outgoing edges of vertex v are in [outStart[v], outStart[v + 1])
+    private final int[] outStart;
+    private final int[] outSource;
+    private final int[] outTarget;
+    private final RoadSegment[] outRoadSegment;
+    private final double[] outLength;
+
+    // incoming edges, for the distances to the landmarks
+    private final int[] inStart;
+    private final int[] inSource;
+    private final double[] inLength;
+
+    /** distances from the landmarks to the vertices. */
+    private final double[][] fromLandmark;
+
+    /** distances from the vertices to the landmarks. */
+    private final double[][] toLandmark;
+
+    // query state
+    private final double[] distance;
+    private final int[] parentEdge;
+    private final int[] settledMark;
+    private int query;
+    private final VertexHeap heap = new VertexHeap();
+
+    RoutingEngine(WeightedGraph<Long, RoadSegment> graph) {
+        vertexIndexes = new HashMap<>();
+        for (Long vertex : graph.vertexSet()) {
+            vertexIndexes.put(vertex, vertexIndexes.size());
+        }
+        vertexCount = vertexIndexes.size();
+        final int edgeCount = graph.edgeSet().size();
+
+        final int[] edgeSource = new int[edgeCount];
+        final int[] edgeTarget = new int[edgeCount];
+        final RoadSegment[] edgeRoadSegment = new RoadSegment[edgeCount];
+        final double[] edgeLength = new double[edgeCount];
+        int edge = 0;
+        for (RoadSegment roadSegment : graph.edgeSet()) {
+            edgeSource[edge] = vertexIndexes.get(graph.getEdgeSource(roadSegment));
+            edgeTarget[edge] = vertexIndexes.get(graph.getEdgeTarget(roadSegment));
+            edgeRoadSegment[edge] = roadSegment;
+            edgeLength[edge] = graph.getEdgeWeight(roadSegment);
+            ++edge;
+        }
+
+        outStart = new int[vertexCount + 1];
+        outSource = new int[edgeCount];
+        outTarget = new int[edgeCount];
+        outRoadSegment = new RoadSegment[edgeCount];
+        outLength = new double[edgeCount];
+        inStart = new int[vertexCount + 1];
+        inSource = new int[edgeCount];
+        inLength = new double[edgeCount];
+        for (int i = 0; i < edgeCount; ++i) {
+            ++outStart[edgeSource[i] + 1];
+            ++inStart[edgeTarget[i] + 1];
+        }
+        for (int v = 0; v < vertexCount; ++v) {
+            outStart[v + 1] += outStart[v];
+            inStart[v + 1] += inStart[v];
+        }
+        final int[] outNext = Arrays.copyOf(outStart, vertexCount);
+        final int[] inNext = Arrays.copyOf(inStart, vertexCount);
+        for (int i = 0; i < edgeCount; ++i) {
+            final int out = outNext[edgeSource[i]]++;
+            outSource[out] = edgeSource[i];
+            outTarget[out] = edgeTarget[i];
+            outRoadSegment[out] = edgeRoadSegment[i];
+            outLength[out] = edgeLength[i];
+            final int in = inNext[edgeTarget[i]]++;
+            inSource[in] = edgeSource[i];
+            inLength[in] = edgeLength[i];
+        }
+
+        distance = new double[vertexCount];
+        parentEdge = new int[vertexCount];
+        settledMark = new int[vertexCount];
+
+        final int landmarkCount = Math.min(LANDMARK_COUNT, vertexCount);
+        fromLandmark = new double[landmarkCount][];
+        toLandmark = new double[landmarkCount][];
+        selectLandmarks();
+        LOG.info("routing engine with {} vertices, {} edges and {} landmarks", vertexCount, edgeCount, landmarkCount);
+    }
+
+    /**
+     * Selects the landmarks farthest from the already selected ones, starting with the vertex farthest from the first
+     * vertex.
+     */
+    private void selectLandmarks() {
+        if (fromLandmark.length == 0) {
+            return;
+        }
+        final double[] separation = new double[vertexCount];
+        int landmark = farthest(allDistances(0, outStart, outTarget, outLength));
+        for (int k = 0; k < fromLandmark.length; ++k) {
+            fromLandmark[k] = allDistances(landmark, outStart, outTarget, outLength);
+            toLandmark[k] = allDistances(landmark, inStart, inSource, inLength);
+            for (int v = 0; v < vertexCount; ++v) {
+                final double sum = Math.min(Double.MAX_VALUE, fromLandmark[k][v] + toLandmark[k][v]);
+                separation[v] = k == 0 ? sum : Math.min(separation[v], sum);
+            }
+            landmark = farthest(separation);
+        }
+    }
+
+    private static int farthest(double[] distances) {
+        int farthest = 0;
+        for (int v = 1; v < distances.length; ++v) {
+            if (Math.min(Double.MAX_VALUE, distances[v]) > Math.min(Double.MAX_VALUE, distances[farthest])) {
+                farthest = v;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Dijkstra from the given vertex over the given adjacency arrays.
+     */
+    private double[] allDistances(int from, int[] start, int[] adjacent, double[] length) {
+        final double[] result = new double[vertexCount];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        result[from] = 0;
+        heap.clear();
+        heap.add(from, 0);
+        while (!heap.isEmpty()) {
+            final double d = heap.minKey();
+            final int v = heap.removeMin();
+            if (d > result[v]) {
+                continue; // stale entry
+            }
+            for (int e = start[v]; e < start[v + 1]; ++e) {
+                final int w = adjacent[e];
+                if (d + length[e] < result[w]) {
+                    result[w] = d + length[e];
+                    heap.add(w, result[w]);
+                }
+            }
+        }
+        return result;
+    }
+
+    int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the shortest path by road length between the given graph vertices, null if there is none.
+     */
+    List<RoadSegment> shortestPath(long fromVertex, long toVertex) {
+        return path(vertex(fromVertex), vertex(toVertex));
+    }
+
+    private int vertex(long vertex) {
+        final Integer index = vertexIndexes.get(vertex);
+        Preconditions.checkArgument(index != null, "graph does not contain vertex=" + vertex);
+        return index;
+    }
+
+    /**
+     * A* search by road length with the landmark bounds.
+     */
+    private List<RoadSegment> path(int from, int to) {
+        ++query;
+        distance[from] = 0;
+        parentEdge[from] = -1;
+        settledMark[from] = -query; // reached, not settled
+        heap.clear();
+        heap.add(from, lowerBound(from, to));
+        while (!heap.isEmpty()) {
+            final int v = heap.removeMin();
+            if (settledMark[v] == query) {
+                continue; // stale entry
+            }
+            settledMark[v] = query;
+            if (v == to) {
+                return pathTo(to);
+            }
+            for (int e = outStart[v]; e < outStart[v + 1]; ++e) {
+                final int w = outTarget[e];
+                final double d = distance[v] + outLength[e];
+                if (settledMark[w] == query || (settledMark[w] == -query && d >= distance[w])) {
+                    continue;
+                }
+                distance[w] = d;
+                parentEdge[w] = e;
+                settledMark[w] = -query;
+                heap.add(w, d + lowerBound(w, to));
+            }
+        }
+        return null;
+    }
+
+    private List<RoadSegment> pathTo(int to) {
+        final List<RoadSegment> path = new ArrayList<>();
+        for (int e = parentEdge[to]; e >= 0; e = parentEdge[outSource[e]]) {
+            path.add(outRoadSegment[e]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Lower bound of the road length from v to t by the triangle inequality with the landmarks.
+     */
+    private double lowerBound(int v, int t) {
+        double bound = 0;
+        for (int k = 0; k < fromLandmark.length; ++k) {
+            final double[] from = fromLandmark[k];
+            final double[] to = toLandmark[k];
+            if (from[t] < Double.POSITIVE_INFINITY && from[v] < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, from[t] - from[v]);
+            }
+            if (to[v] < Double.POSITIVE_INFINITY && to[t] < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, to[v] - to[t]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Binary min-heap of vertices with lazy deletion: a vertex is added again with a smaller key instead of decreasing
+     * its key.
+     */
+    private static final class VertexHeap {
+
+        private int[] vertices = new int[64];
+        private double[] keys = new double[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double minKey() {
+            return keys[0];
+        }
+
+        void add(int vertex, double key) {
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * size);
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                vertices[i] = vertices[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            vertices[i] = vertex;
+            keys[i] = key;
+        }
+
+        int removeMin() {
+            final int min = vertices[0];
+            --size;
+            final int vertex = vertices[size];
+            final double key = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    ++child;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                vertices[i] = vertices[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            vertices[i] = vertex;
+            keys[i] = key;
+            return min;
+        }
+    }
+}
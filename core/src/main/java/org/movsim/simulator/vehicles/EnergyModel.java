@@ -32,6 +32,18 @@ public class EnergyModel {
         return fuelModel.getFuelFlowInLiterPerS(vehicle.getSpeed(), vehicle.getAcc());
     }
 
+    void setTotalFuelUsedLiters(double totalFuelUsedLiters) {
+        this.totalFuelUsedLiters = totalFuelUsedLiters;
+    }
+
+    /**
+     * Resets the model and the consumption, e.g. for a reused vehicle.
+     */
+    void resetState() {
+        fuelModel = null;
+        totalFuelUsedLiters = 0;
+    }
+
     /**
      * Returns the total fuel used by this vehicle.
      *
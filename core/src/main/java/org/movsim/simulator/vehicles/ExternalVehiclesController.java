@@ -41,13 +41,17 @@ public class ExternalVehiclesController {
     }
 
     /**
-     * sets the speeds of externally controlled vehicles in whole road network
+     * sets the speeds of externally controlled vehicles in whole road network and refreshes their lane segments
+     *
+     * @param simulationTime
+     * @param roadNetwork
      */
-    public void setSpeeds(double simulationTime) {
+    public void setSpeeds(double simulationTime, RoadNetwork roadNetwork) {
         for (Entry<Vehicle, LinearInterpolatedFunction> entry : controlledVehicles.entrySet()) {
             double currentSpeed = entry.getValue().value(simulationTime);
             Vehicle vehicle = entry.getKey();
             vehicle.setSpeed(currentSpeed);
+            roadNetwork.findById(vehicle.roadSegmentId()).laneSegment(vehicle.lane()).refreshVehicles();
         }
     }
 
@@ -148,9 +152,8 @@ public class ExternalVehiclesController {
 
     private Vehicle createVehicle(ExternalVehicleType data) {
         double initialSpeed = data.getSpeedData().get(0).getSpeed();
-        Vehicle vehicle = new Vehicle(data.getPosition(), initialSpeed, data.getLane(), data.getLength(),
-                data.getWidth());
-        vehicle.setType(Vehicle.Type.EXTERNAL_CONTROL);
+        Vehicle vehicle = new Vehicle(Vehicle.Type.EXTERNAL_CONTROL, data.getPosition(), initialSpeed, data.getLane(),
+                data.getLength(), data.getWidth());
         for (VehicleUserDataType userData : data.getVehicleUserData()) {
             vehicle.getUserData().put(userData.getKey(), userData.getValue());
         }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator.vehicles;
+
+/**
+ * Reusable view of a neighbouring vehicle as seen from a lane segment: its position, speed, acceleration, length and
+ * type, which is all the longitudinal models and MOBIL read from a front or rear vehicle.
+ * <p>
+ * A view of a vehicle on the lane segment itself takes over the current state of the vehicle. A view of a vehicle on a
+ * sink or source lane segment has its position shifted into the coordinates of the lane segment and, like the copies
+ * returned by the lookups before, carries no acceleration and no lane change in process. The view is overwritten by the
+ * next lookup, so it must not be kept beyond the current calculation.
+ * </p>
+ */
+public final class NeighbourView {
+
+    private Vehicle vehicle;
+
+    // vehicle on a sink or source lane segment
+    private boolean onNeighbourLaneSegment;
+
+    private double frontPosition;
+
+    private double speed;
+
+    private double acc;
+
+    private double length;
+
+    private Vehicle.Type type;
+
+    private boolean inProcessOfLaneChange;
+
+    /**
+     * Sets this view to a vehicle on the lane segment itself.
+     *
+     * @param vehicle
+     * @return this view
+     */
+    public NeighbourView set(Vehicle vehicle) {
+        this.vehicle = vehicle;
+        onNeighbourLaneSegment = false;
+        frontPosition = vehicle.getFrontPosition();
+        speed = vehicle.getSpeed();
+        acc = vehicle.getAcc();
+        length = vehicle.getLength();
+        type = vehicle.type();
+        inProcessOfLaneChange = vehicle.inProcessOfLaneChange();
+        return this;
+    }
+
+    /**
+     * Sets this view to a vehicle on a neighbouring lane segment.
+     *
+     * @param vehicle
+     * @param positionOffset offset of the neighbouring lane segment relative to the lane segment of the lookup
+     * @return this view
+     */
+    public NeighbourView set(Vehicle vehicle, double positionOffset) {
+        this.vehicle = vehicle;
+        onNeighbourLaneSegment = true;
+        frontPosition = vehicle.getFrontPosition() + positionOffset;
+        speed = vehicle.getSpeed();
+        acc = 0;
+        length = vehicle.getLength();
+        type = vehicle.type();
+        inProcessOfLaneChange = false;
+        return this;
+    }
+
+    /**
+     * Returns the viewed vehicle, with its position on its own lane segment.
+     *
+     * @return the viewed vehicle
+     */
+    public Vehicle vehicle() {
+        return vehicle;
+    }
+
+    /**
+     * Returns the viewed vehicle as seen from the lane segment of the lookup, e.g. to calculate the acceleration of a
+     * rear vehicle. That is the vehicle itself if it is on that lane segment, otherwise a copy of it with the position of
+     * this view.
+     *
+     * @return the vehicle at the position of this view
+     */
+    public Vehicle asVehicle() {
+        if (!onNeighbourLaneSegment) {
+            return vehicle;
+        }
+        final Vehicle copy = new Vehicle(vehicle);
+        copy.setFrontPosition(frontPosition);
+        return copy;
+    }
+
+    public double getFrontPosition() {
+        return frontPosition;
+    }
+
+    public double getRearPosition() {
+        return frontPosition - length;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public double getAcc() {
+        return acc;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    public Vehicle.Type type() {
+        return type;
+    }
+
+    public boolean inProcessOfLaneChange() {
+        return inProcessOfLaneChange;
+    }
+
+    /**
+     * Returns the net distance (from front bumper to rear bumper) to the front vehicle, see
+     * {@link Vehicle#getNetDistance(Vehicle)}.
+     *
+     * @param frontVehicle
+     * @return the net distance
+     */
+    public double getNetDistance(Vehicle frontVehicle) {
+        return frontVehicle.getRearPosition() - frontPosition;
+    }
+}
@@ -6,24 +6,31 @@ import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RunContext;
+import org.movsim.utilities.RunContext.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 public class RoutingDecisions {
 
     private static final Logger LOG = LoggerFactory.getLogger(RoutingDecisions.class);
 
-    private static final double NOT_INIT = -1.0;
+    /**
+     * Vehicles on this road look ahead to the decision point on the downstream road.
+     */
+    private static final String LOOK_AHEAD_ROAD_ID = "1";
 
-    private static int countReroutings = 0;
+    private static final double NOT_INIT = -1.0;
 
     private ServiceProvider serviceProvider;
     private double uncertainty;
     private double reroutingThreshold;
-    private final double randomAlternative = MyRandom.nextDouble();
+    private double randomAlternative;
 
     private final Vehicle vehicle;
 
@@ -41,8 +48,11 @@ public class RoutingDecisions {
         }
 
         if (lastUpdateTime == NOT_INIT) {
+            // draw from the vehicle's random stream on first use, so that copies of the vehicle do not consume random
+            // numbers
+            randomAlternative = vehicle.random().nextDouble();
             // initialize update time with random (negative) offset to avoid synchronization at the inflow boundary
-            lastUpdateTime = simulationTime - MyRandom.nextDouble() * serviceProvider.getVehicleUpdateInterval();
+            lastUpdateTime = simulationTime - vehicle.random().nextDouble() * serviceProvider.getVehicleUpdateInterval();
         }
 
         if (readyForNextUpdate(serviceProvider.getVehicleUpdateInterval(), simulationTime)) {
@@ -51,15 +61,11 @@ public class RoutingDecisions {
                     (int) lastUpdateTime);
             lastUpdateTime = simulationTime;
 
-            // quick hack for finite vehicle update interval: look-ahead one road segment to assign routing decision in advance
-            RoadSegment decisionPointSegment = roadSegment;
-            if (roadSegment.userId().equals("1")) {
-                decisionPointSegment = roadSegment.sinkRoadSegment(Lanes.MOST_INNER_LANE);
-            }
+            RoadSegment decisionPointSegment = decisionPointRoadSegment(roadSegment);
 
-            List<RouteAlternative> alternatives = serviceProvider.getAlternativesForDecisionPoint(decisionPointSegment);
+            // shared alternatives with the probabilities for the vehicle's uncertainty
+            List<RouteAlternative> alternatives = serviceProvider.getRouteChoice(decisionPointSegment, uncertainty);
             if (alternatives != null) {
-                ServiceProvider.updateRouteAlternatives(alternatives, uncertainty);
                 RouteAlternative newRouteAlternative = ServiceProvider
                         .selectMostProbableAlternative(alternatives, randomAlternative);
 
@@ -73,6 +79,20 @@ public class RoutingDecisions {
         }
     }
 
+    /**
+     * Returns the road segment of the decision point which the vehicles on the given road segment consider.
+     *
+     * @param roadSegment the road segment of the vehicles
+     * @return the given road segment or, for the look-ahead road, its downstream road segment
+     */
+    public static RoadSegment decisionPointRoadSegment(RoadSegment roadSegment) {
+        // quick hack for finite vehicle update interval: look-ahead one road segment to assign routing decision in advance
+        if (roadSegment.userId().equals(LOOK_AHEAD_ROAD_ID)) {
+            return roadSegment.sinkRoadSegment(Lanes.MOST_INNER_LANE);
+        }
+        return roadSegment;
+    }
+
     private boolean checkForRerouting(RouteAlternative newRouteAlternative, List<RouteAlternative> alternatives) {
         if (routeAlternative == null) {
             return true;
@@ -87,7 +107,7 @@ public class RoutingDecisions {
         boolean doRerouting =
                 newRouteAlternative.getDisutility() + reroutingThreshold < alternativeFromLastRouting.getDisutility();
         if (doRerouting) {
-            ++countReroutings;
+            final long countReroutings = RunContext.current().next(Counter.REROUTING) + 1;
             LOG.info("vehicle is re-routed: diff disutility={}, counterReroutings={}",
                     newRouteAlternative.getDisutility() - alternativeFromLastRouting.getDisutility(), countReroutings);
         }
@@ -153,4 +173,49 @@ public class RoutingDecisions {
         this.reroutingThreshold = reroutingThreshold;
     }
 
+    /**
+     * Returns the route of the alternative chosen in the last routing decision.
+     *
+     * @return the chosen route, null if no alternative has been chosen yet
+     */
+    public Route chosenRoute() {
+        return routeAlternative == null ? null : routeAlternative.getRoute();
+    }
+
+    /**
+     * Sets the route chosen in the last routing decision, e.g. when restoring a checkpoint.
+     *
+     * @param route the chosen route, null if no alternative has been chosen yet
+     */
+    public void setChosenRoute(Route route) {
+        routeAlternative = route == null ? null : new RouteAlternative(route);
+    }
+
+    /**
+     * Resets the service provider and the state of the routing decisions, e.g. for a reused vehicle.
+     */
+    void resetState() {
+        serviceProvider = null;
+        uncertainty = 0;
+        reroutingThreshold = 0;
+        randomAlternative = 0;
+        lastUpdateTime = NOT_INIT;
+        routeAlternative = null;
+    }
+
+    /**
+     * Writes the state of the routing decisions, except the chosen route.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(randomAlternative);
+        out.writeDouble(lastUpdateTime);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        randomAlternative = in.readDouble();
+        lastUpdateTime = in.readDouble();
+    }
 }
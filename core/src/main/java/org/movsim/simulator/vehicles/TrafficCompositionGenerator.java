@@ -1,5 +1,8 @@
 package org.movsim.simulator.vehicles;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -8,6 +11,7 @@ import java.util.Set;
 import org.movsim.autogen.TrafficComposition;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,10 +27,22 @@ public class TrafficCompositionGenerator {
 
     private final VehicleFactory vehicleFactory;
 
-    public TrafficCompositionGenerator(TrafficComposition configuration, VehicleFactory vehicleFactory) {
+    private final RandomStream random;
+
+    /**
+     * Constructor.
+     * 
+     * @param configuration
+     * @param vehicleFactory
+     * @param randomStreamId
+     *            id of the random stream for drawing the vehicle types, e.g. the id of the road segment
+     */
+    public TrafficCompositionGenerator(TrafficComposition configuration, VehicleFactory vehicleFactory,
+            long randomStreamId) {
         Preconditions.checkNotNull(configuration);
         this.configuration = configuration;
         this.vehicleFactory = vehicleFactory;
+        this.random = MyRandom.newStream("trafficComposition", randomStreamId);
         setUpComposition();
     }
 
@@ -62,7 +78,7 @@ public class TrafficCompositionGenerator {
     }
 
     private VehicleType determineVehicleType() {
-        final double randomNumber = MyRandom.nextDouble();
+        final double randomNumber = random.nextDouble();
         double sumFraction = 0;
         for (final VehicleType vehicleType : vehicleTypes.values()) {
             sumFraction += vehicleType.getFraction();
@@ -109,4 +125,17 @@ public class TrafficCompositionGenerator {
 
     }
 
+    /**
+     * Writes the state of the random stream for drawing the vehicle types.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        random.writeState(out);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        random.readState(in);
+    }
 }
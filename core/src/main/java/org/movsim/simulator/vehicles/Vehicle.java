@@ -16,6 +16,7 @@ import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
@@ -26,11 +27,19 @@ import org.movsim.simulator.vehicles.longitudinalmodel.TrafficLightApproaching;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.utilities.Colors;
 import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
+import org.movsim.utilities.RunContext;
+import org.movsim.utilities.RunContext.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.Map;
 
 /**
  * <p>
@@ -62,12 +71,6 @@ public class Vehicle {
 
     protected static final int INITIAL_ID = 1;
 
-    protected static final int INITIAL_TEMPLATE_ID = -1;
-
-    private static long nextId = INITIAL_ID;
-
-    private static long nextTemplateId = INITIAL_TEMPLATE_ID;
-
     /**
      * 'Not Set' vehicle id value, guaranteed not to be used by any vehicles.
      */
@@ -75,6 +78,8 @@ public class Vehicle {
 
     private static final int VEHICLE_NUMBER_NOT_SET = -1;
 
+    private static final String RANDOM_STREAM_DOMAIN = "vehicle";
+
     public static final int LANE_NOT_SET = -1;
 
     /**
@@ -142,14 +147,20 @@ public class Vehicle {
     private double externalAcceleration = Double.NaN;
 
     /**
-     * The unique id of the vehicle.
+     * The unique id of the vehicle. Not final since a reused vehicle takes the next id, see
+     * {@link #resetState(VehiclePrototypeConfiguration)}.
+     */
+    long id;
+
+    /**
+     * random stream of the vehicle, keyed by the vehicle id and shared with its models
      */
-    final long id;
+    private final RandomStream random;
 
     /**
-     * constant random number between 0 and 1 used for random output selections
+     * constant random number between 0 and 1 used for random output selections, drawn again for a reused vehicle
      */
-    final double randomFix;
+    double randomFix;
 
     /**
      * The vehicle number.
@@ -233,8 +244,7 @@ public class Vehicle {
      * Resets the next id.
      */
     public static void resetNextId() {
-        nextId = INITIAL_ID;
-        nextTemplateId = INITIAL_TEMPLATE_ID;
+        RunContext.current().reset(Counter.VEHICLE);
     }
 
     /**
@@ -243,7 +253,16 @@ public class Vehicle {
      * @return the id of the last vehicle created
      */
     public static long lastIdSet() {
-        return nextId - 1;
+        return INITIAL_ID + RunContext.current().get(Counter.VEHICLE) - 1;
+    }
+
+    /**
+     * Sets the id of the next vehicle, e.g. when restoring a checkpoint.
+     *
+     * @param nextId the id of the next vehicle created
+     */
+    public static void setNextId(long nextId) {
+        RunContext.current().set(Counter.VEHICLE, nextId - INITIAL_ID);
     }
 
     /**
@@ -252,7 +271,7 @@ public class Vehicle {
      * @return the number of vehicles that have been created
      */
     public static long count() {
-        return nextId - INITIAL_ID;
+        return RunContext.current().get(Counter.VEHICLE);
     }
 
     public Vehicle(String label, LongitudinalModelBase longitudinalModel, VehiclePrototypeConfiguration vehInput,
@@ -260,14 +279,17 @@ public class Vehicle {
         Preconditions.checkNotNull(longitudinalModel);
         Preconditions.checkNotNull(vehInput);
         this.label = label;
+        type = Type.VEHICLE;
         dimensions = new VehicleDimensions(vehInput.getLength(), vehInput.getWidth());
         this.maxDeceleration = vehInput.getMaximumDeceleration();
 
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        id = INITIAL_ID + RunContext.current().next(Counter.VEHICLE);
+        random = MyRandom.newStream(RANDOM_STREAM_DOMAIN, id);
+        randomFix = random.nextDouble();
 
         initialize();
         this.longitudinalModel = longitudinalModel;
+        longitudinalModel.setRandomStream(random);
         physQuantities = new PhysicalQuantities(this);
 
         this.laneChangeModel = lcModel;
@@ -286,14 +308,75 @@ public class Vehicle {
         userData = new VehicleUserData();
     }
 
+    /**
+     * Resets this vehicle, which left the road network, to the state of a vehicle newly created from the same prototype
+     * so that it can be reused. Like a new vehicle it takes the next id and restarts its random stream for that id, so a
+     * simulation with reused vehicles draws the same random numbers as one without. The models and the other parts of
+     * the vehicle keep their instances and are reset as well.
+     *
+     * @param vehInput the configuration of the vehicle's prototype
+     */
+    void resetState(VehiclePrototypeConfiguration vehInput) {
+        Preconditions.checkState(longitudinalModel != null, "vehicle without longitudinal model cannot be reused");
+        Preconditions.checkArgument(label.equals(vehInput.getLabel()), "vehicle of other prototype cannot be reused");
+        dimensions.resetState(vehInput.getLength(), vehInput.getWidth());
+
+        id = INITIAL_ID + RunContext.current().next(Counter.VEHICLE);
+        MyRandom.resetStream(random, RANDOM_STREAM_DOMAIN, id);
+        randomFix = random.nextDouble();
+
+        initialize();
+        totalTravelDistance = 0;
+        totalTravelTime = 0;
+        accModel = 0;
+        accOld = 0;
+        externalAcceleration = Double.NaN;
+        vehNumber = VEHICLE_NUMBER_NOT_SET;
+        lane = LANE_NOT_SET;
+        laneOld = 0;
+        targetLane = 0;
+        tLaneChangeDelay = 0;
+        route = null;
+        roadSegment = null;
+
+        longitudinalModel.resetState();
+        if (laneChangeModel != null) {
+            laneChangeModel.resetState();
+        }
+        if (memory != null) {
+            memory.resetState();
+        }
+        if (noise != null) {
+            noise.resetState();
+        }
+
+        color = Colors.randomColor();
+        colorObject = null;
+
+        trafficLightApproaching.resetState();
+        inhomogeneity.reset();
+        userData.resetState();
+        energyModel.resetState();
+        routingDecisions.resetState();
+    }
+
     /**
      * Constructor.
      */
     public Vehicle(double rearPosition, double speed, int lane, double length, double width) {
+        this(Type.VEHICLE, rearPosition, speed, lane, length, width);
+    }
+
+    /**
+     * Constructor for a vehicle of the given type without models, e.g. an obstacle.
+     */
+    public Vehicle(Type type, double rearPosition, double speed, int lane, double length, double width) {
         assert rearPosition >= 0.0;
         assert speed >= 0.0;
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        this.type = Preconditions.checkNotNull(type);
+        id = INITIAL_ID + RunContext.current().next(Counter.VEHICLE);
+        random = MyRandom.newStream(RANDOM_STREAM_DOMAIN, id);
+        randomFix = random.nextDouble();
         dimensions = new VehicleDimensions(length, width);
         setRearPosition(rearPosition);
         this.speed = speed;
@@ -319,20 +402,21 @@ public class Vehicle {
      */
     public Vehicle(Vehicle source) {
         id = source.id;
-        randomFix = source.randomFix;
         type = source.type;
+        label = source.label;
+        random = source.random;
+        randomFix = source.randomFix;
+        maxDeceleration = source.maxDeceleration;
+        dimensions = new VehicleDimensions(source.getDimensions());
         frontPosition = source.frontPosition;
         speed = source.speed;
         lane = source.lane;
         laneOld = source.laneOld;
-        dimensions = new VehicleDimensions(source.getDimensions());
         color = source.color;
         trafficLightApproaching = source.trafficLightApproaching;
         inhomogeneity = source.inhomogeneity;
-        maxDeceleration = source.maxDeceleration;
         laneChangeModel = source.laneChangeModel;
         longitudinalModel = source.longitudinalModel;
-        label = source.label;
         slope = source.slope;
         route = source.route;
         routeIndex = source.routeIndex;
@@ -532,7 +616,7 @@ public class Vehicle {
      *
      * @return the vehicle acceleration
      */
-    public double getAcc() {
+    public final double getAcc() {
         return acc;
     }
 
@@ -574,6 +658,19 @@ public class Vehicle {
         return frontVehicle.getRearPosition() - getFrontPosition();
     }
 
+    /**
+     * returns the net distance (from front bumper to rear bumper) to the front vehicle, returns infinity gap if front vehicle
+     * is null.
+     *
+     * @param frontVehicle view of the front vehicle
+     */
+    public final double getNetDistance(NeighbourView frontVehicle) {
+        if (frontVehicle == null) {
+            return MovsimConstants.GAP_INFINITY;
+        }
+        return frontVehicle.getRearPosition() - frontPosition;
+    }
+
     /**
      * returns the brut distance (net distance plus vehicle length of front vehicle) to the front vehicle, returns infinity gap
      * if front vehicle is null.
@@ -588,6 +685,20 @@ public class Vehicle {
         return frontVehicle.getFrontPosition() - getFrontPosition();
     }
 
+    /**
+     * returns the brut distance (net distance plus vehicle length of front vehicle) to the front vehicle, returns infinity gap
+     * if front vehicle is null.
+     *
+     * @param frontVehicle view of the front vehicle
+     * @return
+     */
+    public final double getBrutDistance(NeighbourView frontVehicle) {
+        if (frontVehicle == null) {
+            return MovsimConstants.GAP_INFINITY;
+        }
+        return frontVehicle.getFrontPosition() - frontPosition;
+    }
+
     /**
      * returns the net distance (from rear bumper to front bumper) to the rear vehicle, returns infinity gap if front vehicle is
      * null.
@@ -609,6 +720,13 @@ public class Vehicle {
         return speed - frontVehicle.getSpeed();
     }
 
+    public final double getRelSpeed(NeighbourView frontVehicle) {
+        if (frontVehicle == null) {
+            return 0;
+        }
+        return speed - frontVehicle.getSpeed();
+    }
+
     public void updateAcceleration(double dt, RoadSegment roadSegment, LaneSegment laneSegment,
                                    LaneSegment leftLaneSegment) {
 
@@ -616,9 +734,9 @@ public class Vehicle {
         // acceleration noise:
         double accError = 0;
         if (noise != null) {
-            noise.update(dt);
+            noise.update(dt, random);
             accError = noise.getAccError();
-            Vehicle frontVehicle = laneSegment.frontVehicle(this);
+            final NeighbourView frontVehicle = laneSegment.frontNeighbour(this);
             if (getNetDistance(frontVehicle) < MovsimConstants.CRITICAL_GAP) {
                 accError = Math.min(accError, 0.);
             }
@@ -702,7 +820,7 @@ public class Vehicle {
             LaneSegment firstExitLaneSegment = roadSegment.laneSegment(roadSegment.trafficLaneMax() + Lanes.TO_RIGHT);
             assert firstExitLaneSegment != null && firstExitLaneSegment.type() == Lanes.Type.EXIT :
                     "no exitLaneSegment=" + firstExitLaneSegment;
-            Vehicle frontVehicle = firstExitLaneSegment.frontVehicle(this);
+            final NeighbourView frontVehicle = firstExitLaneSegment.frontNeighbour(this);
             accToVehicleInExitLane = longitudinalModel.calcAcc(this, frontVehicle);
             accToVehicleInExitLane = Math.max(accToVehicleInExitLane, -maxDeceleration);
             if (LOG.isDebugEnabled()) {
@@ -843,6 +961,9 @@ public class Vehicle {
 
     public void setLongitudinalModel(LongitudinalModelBase longitudinalModel) {
         this.longitudinalModel = longitudinalModel;
+        if (longitudinalModel != null) {
+            longitudinalModel.setRandomStream(random);
+        }
     }
 
     // ---------------------------------------------------------------------------------
@@ -1011,7 +1132,7 @@ public class Vehicle {
         EXTERNAL_CONTROL
     }
 
-    private Type type = Type.VEHICLE;
+    private final Type type;
 
     /**
      * Returns this vehicle's type.
@@ -1022,15 +1143,6 @@ public class Vehicle {
         return type;
     }
 
-    /**
-     * Sets this vehicle's type.
-     *
-     * @param type
-     */
-    public final void setType(Vehicle.Type type) {
-        this.type = type;
-    }
-
     /**
      * <p>
      * Called when vehicle changes road segments (and possibly also lanes) at a link or junction.
@@ -1187,6 +1299,15 @@ public class Vehicle {
         return randomFix;
     }
 
+    /**
+     * Returns the random stream of this vehicle. Copies of a vehicle share the stream of the original vehicle.
+     * 
+     * @return the random stream
+     */
+    public RandomStream random() {
+        return random;
+    }
+
     public void setMemory(Memory memory) {
         this.memory = memory;
     }
@@ -1203,6 +1324,11 @@ public class Vehicle {
         this.route = newRoute;
     }
 
+    @CheckForNull
+    public Route getRoute() {
+        return route;
+    }
+
     public String getRouteName() {
         return route != null ? route.getName() : "noRoute";
     }
@@ -1247,4 +1373,142 @@ public class Vehicle {
         return routingDecisions;
     }
 
+    /**
+     * Writes the dynamic state of this vehicle and its models, see {@link #readState(DataInput, RoadNetwork)}. The label,
+     * the route and the parameters of the models are given by the vehicle prototype and are not written.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeInt(type.ordinal());
+        random.writeState(out);
+        out.writeDouble(randomFix);
+        out.writeDouble(frontPosition);
+        out.writeDouble(frontPositionOld);
+        out.writeDouble(totalTravelDistance);
+        out.writeDouble(totalTravelTime);
+        out.writeDouble(speed);
+        out.writeDouble(accModel);
+        out.writeDouble(acc);
+        out.writeDouble(accOld);
+        out.writeDouble(externalAcceleration);
+        out.writeInt(vehNumber);
+        out.writeInt(lane);
+        out.writeInt(laneOld);
+        out.writeInt(targetLane);
+        out.writeDouble(tLaneChangeDelay);
+        out.writeDouble(speedlimit);
+        out.writeDouble(slope);
+        out.writeInt(color);
+        out.writeInt(routeIndex);
+        out.writeBoolean(brakeLightOn);
+        out.writeInt(roadSegmentId);
+        out.writeInt(exitRoadSegmentId);
+        out.writeInt(originRoadSegmentId);
+        out.writeDouble(inhomogeneity.alphaT());
+        out.writeDouble(inhomogeneity.alphaV0());
+        out.writeDouble(energyModel.totalFuelUsedLiters());
+        out.writeBoolean(longitudinalModel != null);
+        if (longitudinalModel != null) {
+            longitudinalModel.writeState(out);
+        }
+        out.writeBoolean(laneChangeModel != null);
+        if (laneChangeModel != null) {
+            laneChangeModel.writeState(out);
+        }
+        out.writeBoolean(memory != null);
+        if (memory != null) {
+            memory.writeState(out);
+        }
+        out.writeBoolean(noise != null);
+        if (noise != null) {
+            noise.writeState(out);
+        }
+        trafficLightApproaching.writeState(out);
+        routingDecisions.writeState(out);
+        out.writeInt(userData.getCodeValuePairs().size());
+        for (Map.Entry<String, String> entry : userData) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the dynamic state written by {@link #writeState(DataOutput)} into this vehicle, which has to be created from the
+     * same vehicle prototype and with the same route and the same id and type, see {@link #setNextId(long)}. The vehicle takes
+     * over the random stream of the written vehicle. Its road segment is set without updating the route, the vehicle is not
+     * added to the road segment.
+     *
+     * @param in
+     * @param roadNetwork the road network of the written vehicle, for resolving the road segment and the traffic lights
+     * @throws IOException if the id or the type do not match the written vehicle
+     */
+    public void readState(DataInput in, RoadNetwork roadNetwork) throws IOException {
+        final long writtenId = in.readLong();
+        final Type writtenType = Type.values()[in.readInt()];
+        if (writtenId != id || writtenType != type) {
+            throw new IOException("vehicle id=" + id + ", type=" + type + " does not match the written vehicle id="
+                    + writtenId + ", type=" + writtenType);
+        }
+        random.readState(in);
+        in.readDouble(); // randomFix, drawn from the stream keyed by the id
+        frontPosition = in.readDouble();
+        frontPositionOld = in.readDouble();
+        totalTravelDistance = in.readDouble();
+        totalTravelTime = in.readDouble();
+        speed = in.readDouble();
+        accModel = in.readDouble();
+        acc = in.readDouble();
+        accOld = in.readDouble();
+        externalAcceleration = in.readDouble();
+        vehNumber = in.readInt();
+        lane = in.readInt();
+        laneOld = in.readInt();
+        targetLane = in.readInt();
+        tLaneChangeDelay = in.readDouble();
+        speedlimit = in.readDouble();
+        slope = in.readDouble();
+        setColor(in.readInt());
+        routeIndex = in.readInt();
+        brakeLightOn = in.readBoolean();
+        roadSegmentId = in.readInt();
+        exitRoadSegmentId = in.readInt();
+        originRoadSegmentId = in.readInt();
+        inhomogeneity.setAlphaT(in.readDouble());
+        inhomogeneity.setAlphaV0(in.readDouble());
+        energyModel.setTotalFuelUsedLiters(in.readDouble());
+        if (in.readBoolean() != (longitudinalModel != null)) {
+            throw new IOException("longitudinal model of vehicle id=" + id + " does not match its prototype");
+        }
+        if (longitudinalModel != null) {
+            longitudinalModel.readState(in);
+        }
+        if (in.readBoolean() != (laneChangeModel != null)) {
+            throw new IOException("lane change model of vehicle id=" + id + " does not match its prototype");
+        }
+        if (laneChangeModel != null) {
+            laneChangeModel.readState(in);
+        }
+        if (in.readBoolean() != (memory != null)) {
+            throw new IOException("memory model of vehicle id=" + id + " does not match its prototype");
+        }
+        if (memory != null) {
+            memory.readState(in);
+        }
+        if (in.readBoolean() != (noise != null)) {
+            throw new IOException("noise model of vehicle id=" + id + " does not match its prototype");
+        }
+        if (noise != null) {
+            noise.readState(in);
+        }
+        trafficLightApproaching.readState(in, roadNetwork);
+        routingDecisions.readState(in);
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            userData.put(in.readUTF(), in.readUTF());
+        }
+        roadSegment = roadSegmentId == ROAD_SEGMENT_ID_NOT_SET ? null : roadNetwork.findById(roadSegmentId);
+    }
+
 }
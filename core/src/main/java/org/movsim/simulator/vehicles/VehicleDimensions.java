@@ -27,4 +27,13 @@ public class VehicleDimensions {
         return width;
     }
 
+    /**
+     * Resets the dimensions to those of the vehicle's prototype, e.g. for a reused vehicle whose length has been set in
+     * micro-boundary conditions.
+     */
+    void resetState(double length, double width) {
+        this.length = length;
+        this.width = width;
+    }
+
 }
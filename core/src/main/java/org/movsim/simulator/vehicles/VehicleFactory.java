@@ -15,6 +15,7 @@ import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.Longitudinal
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +34,8 @@ public final class VehicleFactory {
 
     private final ServiceProviders serviceProviders;
 
+    private VehiclePool vehiclePool;
+
     public VehicleFactory(double simulationTimestep, VehiclePrototypes vehPrototypes, @Nullable Consumption consumption,
             Routing routing, @Nullable ServiceProviders serviceProviders) {
         Preconditions.checkNotNull(vehPrototypes);
@@ -54,18 +57,35 @@ public final class VehicleFactory {
 
     // set route explicitly, e.g. in microscopic initial or boundary conditions
     public Vehicle create(VehicleType vehicleType, @Nullable Route route) {
-        VehiclePrototype prototype = getPrototype(vehicleType.getVehiclePrototypeLabel());
-        LongitudinalModelBase accelerationModel = prototype.createAccelerationModel();
-        accelerationModel.setRelativeRandomizationV0(vehicleType.getRelativeV0Randomization(),
-                vehicleType.getV0DistributionType());
-        LaneChangeModel laneChangeModel = prototype.createLaneChangeModel();
+        return create(getPrototype(vehicleType.getVehiclePrototypeLabel()), vehicleType, route);
+    }
 
-        Vehicle vehicle = new Vehicle(prototype.getLabel(), accelerationModel, prototype.getConfiguration(),
-                laneChangeModel);
+    /**
+     * Creates a vehicle of the given prototype without randomization, e.g. for reading the state of a vehicle from a
+     * checkpoint.
+     *
+     * @param label the label of the vehicle prototype
+     * @param route
+     * @return the new vehicle
+     */
+    public Vehicle create(String label, @Nullable Route route) {
+        return create(getPrototype(label), null, route);
+    }
+
+    private Vehicle create(VehiclePrototype prototype, @Nullable VehicleType vehicleType, @Nullable Route route) {
+        Vehicle vehicle = vehiclePool == null ? null : vehiclePool.acquire(prototype.getLabel());
+        if (vehicle == null) {
+            vehicle = newVehicle(prototype);
+        } else {
+            vehicle.resetState(prototype.getConfiguration());
+        }
+        if (vehicleType != null) {
+            // randomize after the vehicle has been created so that the model draws from the vehicle's random stream
+            vehicle.getLongitudinalModel().setRelativeRandomizationV0(vehicleType.getRelativeV0Randomization(),
+                    vehicleType.getV0DistributionType());
+        }
 
         vehicle.setRoute(route);
-        vehicle.setMemory(prototype.createMemoryModel());
-        vehicle.setNoise(prototype.createAccNoiseModel());
         vehicle.getEnergyModel().setModel(prototype.getEnergyFlowModel());
 
         if (prototype.getConfiguration().isSetPersonalNavigationDevice()) {
@@ -75,6 +95,16 @@ public final class VehicleFactory {
         return vehicle;
     }
 
+    private static Vehicle newVehicle(VehiclePrototype prototype) {
+        LongitudinalModelBase accelerationModel = prototype.createAccelerationModel();
+        LaneChangeModel laneChangeModel = prototype.createLaneChangeModel();
+        Vehicle vehicle = new Vehicle(prototype.getLabel(), accelerationModel, prototype.getConfiguration(),
+                laneChangeModel);
+        vehicle.setMemory(prototype.createMemoryModel());
+        vehicle.setNoise(prototype.createAccNoiseModel());
+        return vehicle;
+    }
+
     private void setServiceProvider(VehiclePrototype prototype, Vehicle vehicle) {
         PersonalNavigationDeviceType personalNavigationDevice = prototype.getConfiguration()
                 .getPersonalNavigationDevice();
@@ -120,6 +150,25 @@ public final class VehicleFactory {
         }
     }
 
+    /**
+     * Sets the pool from which the vehicles are taken if available, null disables pooling.
+     *
+     * @param vehiclePool
+     */
+    public void setVehiclePool(@Nullable VehiclePool vehiclePool) {
+        this.vehiclePool = vehiclePool;
+    }
+
+    /**
+     * Returns the pool from which the vehicles are taken.
+     *
+     * @return the vehicle pool, null if vehicles are not pooled
+     */
+    @CheckForNull
+    public VehiclePool vehiclePool() {
+        return vehiclePool;
+    }
+
     public VehiclePrototype getPrototype(String label) {
         if (!vehiclePrototypes.containsKey(label)) {
             throw new IllegalArgumentException("cannot create vehicle for unknown label =\"" + label);
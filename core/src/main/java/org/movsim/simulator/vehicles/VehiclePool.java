@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator.vehicles;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of the vehicles which left the road network through a traffic sink, kept per vehicle prototype and reused by the
+ * {@link VehicleFactory} instead of creating new vehicles.
+ * <p>
+ * A released vehicle may still be referenced in the current time step, e.g. as a vehicle that passed a signal point.
+ * It is therefore only available again after {@link #recycleReleased()}, which has to be called at the end of each time
+ * step. When a vehicle is reused, the factory resets it to the state of a new vehicle with the next vehicle id and the
+ * random stream of that id, so the simulation results do not depend on whether vehicles are pooled. Vehicles kept
+ * across time steps must therefore be identified by their id rather than by the instance.
+ * </p>
+ */
+public final class VehiclePool {
+
+    private final Map<String, ArrayDeque<Vehicle>> availableVehicles = new HashMap<>();
+
+    private final List<Vehicle> releasedVehicles = new ArrayList<>();
+
+    private int availableCount;
+
+    private long requestCount;
+
+    private long hitCount;
+
+    /**
+     * Takes an available vehicle of the given prototype out of the pool. The vehicle has to be reset with
+     * {@link Vehicle#resetState(org.movsim.autogen.VehiclePrototypeConfiguration)} before it is used.
+     *
+     * @param label the label of the vehicle prototype
+     * @return the vehicle, or null if no vehicle of the prototype is available
+     */
+    @CheckForNull
+    Vehicle acquire(String label) {
+        ++requestCount;
+        final ArrayDeque<Vehicle> vehicles = availableVehicles.get(label);
+        if (vehicles == null || vehicles.isEmpty()) {
+            return null;
+        }
+        ++hitCount;
+        --availableCount;
+        return vehicles.pop();
+    }
+
+    /**
+     * Returns a vehicle which has been removed from the road network to the pool. Vehicles without a longitudinal model,
+     * e.g. obstacles or externally controlled vehicles, are not pooled.
+     *
+     * @param vehicle the removed vehicle
+     */
+    public void release(Vehicle vehicle) {
+        Preconditions.checkNotNull(vehicle);
+        if (vehicle.getLongitudinalModel() != null) {
+            releasedVehicles.add(vehicle);
+        }
+    }
+
+    /**
+     * Makes the vehicles released in the current time step available for reuse.
+     */
+    public void recycleReleased() {
+        for (int i = 0, n = releasedVehicles.size(); i < n; ++i) {
+            final Vehicle vehicle = releasedVehicles.get(i);
+            ArrayDeque<Vehicle> vehicles = availableVehicles.get(vehicle.getLabel());
+            if (vehicles == null) {
+                vehicles = new ArrayDeque<>();
+                availableVehicles.put(vehicle.getLabel(), vehicles);
+            }
+            vehicles.push(vehicle);
+        }
+        availableCount += releasedVehicles.size();
+        releasedVehicles.clear();
+    }
+
+    /**
+     * Removes all vehicles from the pool and resets the counters.
+     */
+    public void clear() {
+        availableVehicles.clear();
+        releasedVehicles.clear();
+        availableCount = 0;
+        requestCount = 0;
+        hitCount = 0;
+    }
+
+    /**
+     * Returns the number of vehicles in the pool, including the vehicles released in the current time step.
+     *
+     * @return the number of pooled vehicles
+     */
+    public int size() {
+        return availableCount + releasedVehicles.size();
+    }
+
+    /**
+     * Returns the number of vehicles requested from the pool.
+     *
+     * @return the number of requests
+     */
+    public long requestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of requests served by a pooled vehicle.
+     *
+     * @return the number of reused vehicles
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the fraction of requests served by a pooled vehicle.
+     *
+     * @return the hit rate between 0 and 1, zero if there has been no request
+     */
+    public double hitRate() {
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VehiclePool [size=%d, requests=%d, hits=%d, hitRate=%.3f]", size(), requestCount, hitCount,
+                hitRate());
+    }
+}
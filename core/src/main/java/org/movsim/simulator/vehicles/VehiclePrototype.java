@@ -1,12 +1,15 @@
 package org.movsim.simulator.vehicles;
 
+import java.io.File;
+
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.consumption.model.EnergyFlowModel;
+import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.Memory;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumProperties;
-import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesImpl;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesCache;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelFactory;
 
@@ -26,8 +29,9 @@ class VehiclePrototype {
         Preconditions.checkNotNull(configuration);
         this.configuration = configuration;
         this.simulationTimestep = simulationTimestep;
-        LongitudinalModelBase longModel = createAccelerationModel();
-        equiProperties = new EquilibriumPropertiesImpl(getLength(), longModel);
+        final String cachePath = ProjectMetaData.getInstance().getEquilibriumCachePath();
+        equiProperties = EquilibriumPropertiesCache.get(getLength(), configuration.getAccelerationModelType(),
+                simulationTimestep, cachePath == null ? null : new File(cachePath));
     }
 
     double getLength() {
@@ -12,6 +12,10 @@ public final class VehicleUserData implements Iterable<Map.Entry<String, String>
 
     private final Map<String, String> codeValuePairs;
 
+    /** last result of {@link #getString(String)} and its separator, null after a change of the user data */
+    private String string;
+    private String stringSeparator;
+
     public VehicleUserData() {
         this.codeValuePairs = Maps.newHashMap();
     }
@@ -19,6 +23,7 @@ public final class VehicleUserData implements Iterable<Map.Entry<String, String>
     public boolean put(String code, String value) {
         Preconditions.checkArgument(code != null && !code.isEmpty(), "invalid key for userData map.");
         Preconditions.checkArgument(value != null && !value.isEmpty(), "invalid value for userData map.");
+        string = null;
         return codeValuePairs.put(code, value) == null;
     }
 
@@ -30,6 +35,14 @@ public final class VehicleUserData implements Iterable<Map.Entry<String, String>
         return codeValuePairs.get(code);
     }
 
+    /**
+     * Removes all user data, e.g. for a reused vehicle.
+     */
+    void resetState() {
+        codeValuePairs.clear();
+        string = null;
+    }
+
     public Map<String, String> getCodeValuePairs() {
         return Collections.unmodifiableMap(codeValuePairs);
     }
@@ -44,12 +57,24 @@ public final class VehicleUserData implements Iterable<Map.Entry<String, String>
         return getCodeValuePairs().entrySet().iterator();
     }
 
+    /**
+     * Returns the user data as code=value pairs, each followed by the separator. The string is kept until the user data
+     * changes, since the outputs ask for it in every output step.
+     * 
+     * @param separator
+     * @return the user data as string
+     */
     public String getString(String separator) {
+        if (string != null && separator.equals(stringSeparator)) {
+            return string;
+        }
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, String> entry : this) {
             sb.append(entry.getKey()).append("=").append(entry.getValue()).append(separator);
         }
-        return sb.toString();
+        string = sb.toString();
+        stringSeparator = separator;
+        return string;
     }
 
 }
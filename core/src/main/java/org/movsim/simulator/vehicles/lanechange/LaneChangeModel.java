@@ -29,10 +29,15 @@ import com.google.common.base.Preconditions;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class LaneChangeModel {
 
     private static final Logger LOG = LoggerFactory.getLogger(LaneChangeModel.class);
@@ -94,13 +99,16 @@ public class LaneChangeModel {
 
     private OvertakingViaPeer overtakingViaPeerModel;
 
+    // reusable view of the subject vehicle as the front vehicle of the back vehicle, see checkSafetyCriterion
+    private final NeighbourView subjectView = new NeighbourView();
+
     private final org.movsim.autogen.LaneChangeModelType parameter;
 
     // Exit Handling
     // distance at which driver should think about changing lanes for exit
-    private static double distanceBeforeExitWantsToChangeLanes = 500.0;
+    private static final double distanceBeforeExitWantsToChangeLanes = 500.0;
     // distance at which driver must get into exit lane
-    private static double distanceBeforeExitMustChangeLanes = 300.0;
+    private static final double distanceBeforeExitMustChangeLanes = 300.0;
 
     /**
      * Instantiates a new lane changing model.
@@ -193,13 +201,13 @@ public class LaneChangeModel {
     }
 
     boolean isSafeLaneChange(Vehicle subjectVehicle, LaneSegment laneSegment) {
-        final Vehicle front = laneSegment.frontVehicle(subjectVehicle);
-        final Vehicle back = laneSegment.rearVehicle(subjectVehicle);
+        final NeighbourView front = laneSegment.frontNeighbour(subjectVehicle);
+        final NeighbourView back = laneSegment.rearNeighbour(subjectVehicle);
         final boolean changeSafe = checkSafetyCriterion(subjectVehicle, front, back);
         return changeSafe;
     }
 
-    boolean checkSafetyCriterion(Vehicle subjectVehicle, Vehicle frontVeh, Vehicle backVeh) {
+    boolean checkSafetyCriterion(Vehicle subjectVehicle, NeighbourView frontVeh, NeighbourView backVeh) {
         final double safeDeceleration = lcModelMOBIL.getParameter().getSafeDeceleration();
         // check distance to front vehicle
         final double gapFront = subjectVehicle.getNetDistance(frontVeh);
@@ -216,7 +224,8 @@ public class LaneChangeModel {
                 return false;
             }
             // check acceleration of back vehicle
-            final double backNewAcc = backVeh.getLongitudinalModel().calcAcc(backVeh, subjectVehicle);
+            final Vehicle back = backVeh.asVehicle();
+            final double backNewAcc = back.getLongitudinalModel().calcAcc(back, subjectView.set(subjectVehicle));
             if (backNewAcc <= -safeDeceleration) {
                 LOG.debug("gapFront = {}, gapBack = {}", gapFront, gapBack);
                 LOG.debug("backNewAcc={}, bSafe={}", backNewAcc, safeDeceleration);
@@ -292,8 +301,8 @@ public class LaneChangeModel {
                     }
                     // evaluate additional motivation to leave entrance lane
                     double accInCurrentLane = me.getLongitudinalModel()
-                            .calcAcc(me, currentLaneSegment.frontVehicle(me));
-                    double accInNewLane = me.getLongitudinalModel().calcAcc(me, newLaneSegment.frontVehicle(me));
+                            .calcAcc(me, currentLaneSegment.frontNeighbour(me));
+                    double accInNewLane = me.getLongitudinalModel().calcAcc(me, newLaneSegment.frontNeighbour(me));
                     double bias = biasForMandatoryChange(distanceToRoadSegmentEnd);
                     if (accInNewLane + bias > accInCurrentLane) {
                         if (LOG.isDebugEnabled()) {
@@ -432,7 +441,7 @@ public class LaneChangeModel {
         if (roadSegment.laneCount() > 2
                 && roadSegment.laneSegment(roadSegment.laneCount()).type() == Lanes.Type.ENTRANCE
                 && currentLane == roadSegment.trafficLaneMax()) {
-            Vehicle frontVehicle = roadSegment.laneSegment(roadSegment.trafficLaneMax()).frontVehicle(me);
+            final NeighbourView frontVehicle = roadSegment.laneSegment(roadSegment.trafficLaneMax()).frontNeighbour(me);
             if (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) {
                 return LaneChangeDecision.NONE;
             }
@@ -453,7 +462,7 @@ public class LaneChangeModel {
                     // never change lane into an entrance lane
                     return LaneChangeDecision.NONE;
                 }
-                final Vehicle newFront = newLaneSegment.frontVehicle(me);
+                final NeighbourView newFront = newLaneSegment.frontNeighbour(me);
                 if (newFront != null) {
                     if (newFront.inProcessOfLaneChange()) {
                         return LaneChangeDecision.NONE;
@@ -463,16 +472,17 @@ public class LaneChangeModel {
                         return LaneChangeDecision.NONE;
                     }
                 }
-                final Vehicle newBack = newLaneSegment.rearVehicle(me);
-                if (newBack != null) {
-                    if (newBack.inProcessOfLaneChange()) {
+                final NeighbourView newBackView = newLaneSegment.rearNeighbour(me);
+                if (newBackView != null) {
+                    if (newBackView.inProcessOfLaneChange()) {
                         return LaneChangeDecision.NONE;
                     }
-                    final double gapRear = newBack.getNetDistance(me);
+                    final double gapRear = newBackView.getNetDistance(me);
                     if (gapRear < lcModelMOBIL.getParameter().getMinimumGap()) {
                         return LaneChangeDecision.NONE;
                     }
                 }
+                final Vehicle newBack = newBackView == null ? null : newBackView.asVehicle();
                 me.setLane(newLane);
                 final int index = newLaneSegment.addVehicleTemp(me);
                 final double newBackNewAcc = newBack == null ? 0 : newBack.calcAccModel(newLaneSegment, null);
@@ -549,4 +559,33 @@ public class LaneChangeModel {
         this.mandatoryChangeToLane = Integer.MIN_VALUE;
     }
 
+    /**
+     * Writes the lane changing restrictions set during the simulation, e.g. by a regulator.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(considerLaneChanges);
+        out.writeBoolean(considerDiscretionaryLaneChanges);
+        out.writeInt(mandatoryChangeToRestrictedLane);
+        out.writeInt(mandatoryChangeToLane);
+    }
+
+    /**
+     * Reads the lane changing restrictions written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        considerLaneChanges = in.readBoolean();
+        considerDiscretionaryLaneChanges = in.readBoolean();
+        mandatoryChangeToRestrictedLane = in.readInt();
+        mandatoryChangeToLane = in.readInt();
+    }
+
+    /**
+     * Resets the lane changing restrictions to those of a newly created model.
+     */
+    public void resetState() {
+        considerLaneChanges = true;
+        considerDiscretionaryLaneChanges = true;
+        mandatoryChangeToRestrictedLane = Integer.MIN_VALUE;
+        mandatoryChangeToLane = Integer.MIN_VALUE;
+    }
 }
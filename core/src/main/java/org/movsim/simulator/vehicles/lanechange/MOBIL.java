@@ -30,6 +30,7 @@ import org.movsim.autogen.ModelParameterMOBIL;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase.ModelName;
 import org.slf4j.Logger;
@@ -88,7 +89,7 @@ public class MOBIL {
             return prospectiveBalance;
         }
 
-        final Vehicle newFront = newLaneSegment.frontVehicle(me);
+        final NeighbourView newFront = newLaneSegment.frontNeighbour(me);
         if (newFront != null) {
             if (newFront.inProcessOfLaneChange()) {
                 return prospectiveBalance;
@@ -98,18 +99,19 @@ public class MOBIL {
                 return prospectiveBalance;
             }
         }
-        final Vehicle newBack = newLaneSegment.rearVehicle(me);
-        if (newBack != null) {
-            if (newBack.inProcessOfLaneChange()) {
+        final NeighbourView newBackView = newLaneSegment.rearNeighbour(me);
+        if (newBackView != null) {
+            if (newBackView.inProcessOfLaneChange()) {
                 return prospectiveBalance;
             }
-            final double gapRear = newBack.getNetDistance(me);
+            final double gapRear = newBackView.getNetDistance(me);
             if (gapRear < param.getMinimumGap()) {
                 return prospectiveBalance;
             }
         }
+        final Vehicle newBack = newBackView == null ? null : newBackView.asVehicle();
         final LaneSegment currentLaneSegment = roadSegment.laneSegment(currentLane);
-        final Vehicle oldFront = currentLaneSegment.frontVehicle(me);
+        final NeighbourView oldFront = currentLaneSegment.frontNeighbour(me);
         if (oldFront != null) {
             if (oldFront.inProcessOfLaneChange()) {
                 return prospectiveBalance;
@@ -139,7 +141,8 @@ public class MOBIL {
 
         // old situation for old back
         // in old situation same left lane as me
-        final Vehicle oldBack = currentLaneSegment.rearVehicle(me);
+        final NeighbourView oldBackView = currentLaneSegment.rearNeighbour(me);
+        final Vehicle oldBack = oldBackView == null ? null : oldBackView.asVehicle();
         final double oldBackOldAcc = (oldBack != null) ? oldBack.calcAccModel(currentLaneSegment, null) : 0.0;
 
         // old situation for new back: just provides the actual left-lane situation
@@ -153,8 +156,8 @@ public class MOBIL {
             // cannot temporarily remove the current vehicle from the current lane, since we are in a loop
             // that iterates over the vehicles in the current lane. So calculate oldBackNewAcc based on just
             // the front vehicle.
-            if (currentLaneSegment.frontVehicle(me) != null) { // TODO remove quickhack for avoiding nullpointer
-                oldBackNewAcc = oldBack.getLongitudinalModel().calcAcc(oldBack, currentLaneSegment.frontVehicle(me));
+            if (currentLaneSegment.frontNeighbour(me) != null) { // TODO remove quickhack for avoiding nullpointer
+                oldBackNewAcc = oldBack.getLongitudinalModel().calcAcc(oldBack, currentLaneSegment.frontNeighbour(me));
             } else {
                 oldBackNewAcc = 0.0;
             }
@@ -211,10 +214,10 @@ public class MOBIL {
 
             final LaneSegment laneSegmentPlus = roadSegment.laneSegment(lanePlus);
             final LaneSegment laneSegmentMinus = roadSegment.laneSegment(laneMinus);
-            final Vehicle frontPlus = laneSegmentPlus.frontVehicle(me);
-            final Vehicle rearPlus = laneSegmentPlus.rearVehicle(me);
-            final Vehicle frontMinus = laneSegmentMinus.frontVehicle(me);
-            final Vehicle rearMinus = laneSegmentMinus.rearVehicle(me);
+            final NeighbourView frontPlus = laneSegmentPlus.frontNeighbour(me);
+            final NeighbourView rearPlus = laneSegmentPlus.rearNeighbour(me);
+            final NeighbourView frontMinus = laneSegmentMinus.frontNeighbour(me);
+            final NeighbourView rearMinus = laneSegmentMinus.rearNeighbour(me);
             if ((frontPlus == null) || (frontMinus == null) || (rearPlus == null) || (rearMinus == null)) {
                 return prospectiveBalance;
             }
@@ -25,8 +25,12 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.movsim.autogen.NoiseParameter;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -82,10 +86,12 @@ public class Noise {
      * 
      * @param dt
      *            simulation time interval, seconds
+     * @param random
+     *            the random stream of the vehicle
      */
-    public void update(double dt) {
+    public void update(double dt, RandomStream random) {
 
-        final double randomMu0Sigma1 = getUniformlyDistributedRealization();
+        final double randomMu0Sigma1 = getUniformlyDistributedRealization(random);
 
         if (isWienerProcess) {
             final double betaAcc = Math.exp(-dt / tauRelaxAcc);
@@ -104,8 +110,8 @@ public class Noise {
      * 
      * @return random variable realization
      */
-    private static double getUniformlyDistributedRealization() {
-        final double randomVar = MyRandom.nextDouble();
+    private static double getUniformlyDistributedRealization(RandomStream random) {
+        final double randomVar = random.nextDouble();
         final double randomMu0Sigma1 = SQRT12 * (randomVar - 0.5);
         return randomMu0Sigma1;
     }
@@ -119,4 +125,24 @@ public class Noise {
         return xiAcc;
     }
 
+    /**
+     * Writes the dynamic state variable.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(xiAcc);
+    }
+
+    /**
+     * Reads the dynamic state variable written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        xiAcc = in.readDouble();
+    }
+
+    /**
+     * Resets the acceleration error to that of a newly created noise model.
+     */
+    public void resetState() {
+        xiAcc = 0;
+    }
 }
@@ -25,12 +25,16 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 
 import org.movsim.autogen.TrafficLightStatus;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -64,6 +68,16 @@ public class TrafficLightApproaching {
         distanceToTrafficlight = MovsimConstants.INVALID_GAP;
     }
 
+    /**
+     * Removes the traffic lights and resets the state to that of a new instance, e.g. for a reused vehicle.
+     */
+    public void resetState() {
+        trafficLights.clear();
+        considerTrafficLight = false;
+        accTrafficLight = 0;
+        distanceToTrafficlight = MovsimConstants.INVALID_GAP;
+    }
+
     public void addTrafficLight(TrafficLight trafficLight) {
         Preconditions.checkNotNull(trafficLight);
         assert !alreadyAdded(trafficLight); // check not necessarily needed
@@ -233,4 +247,56 @@ public class TrafficLightApproaching {
         }
         return Double.NaN;
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the state, the traffic lights are referenced by their road segment and their index on the road segment.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(considerTrafficLight);
+        out.writeDouble(accTrafficLight);
+        out.writeDouble(distanceToTrafficlight);
+        out.writeInt(trafficLights.size());
+        for (TrafficLight trafficLight : trafficLights) {
+            out.writeInt(trafficLight.roadSegment().id());
+            out.writeInt(indexOf(trafficLight));
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in, RoadNetwork roadNetwork) throws IOException {
+        considerTrafficLight = in.readBoolean();
+        accTrafficLight = in.readDouble();
+        distanceToTrafficlight = in.readDouble();
+        trafficLights.clear();
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            final RoadSegment roadSegment = roadNetwork.findById(in.readInt());
+            final int index = in.readInt();
+            if (roadSegment == null) {
+                throw new IOException("unknown road segment of traffic light");
+            }
+            int count = 0;
+            for (TrafficLight trafficLight : roadSegment.trafficLights()) {
+                if (count++ == index) {
+                    trafficLights.add(trafficLight);
+                    break;
+                }
+            }
+            if (count <= index) {
+                throw new IOException("unknown traffic light index=" + index + " on road segment=" + roadSegment.id());
+            }
+        }
+    }
+
+    private static int indexOf(TrafficLight trafficLight) {
+        int index = 0;
+        for (TrafficLight other : trafficLight.roadSegment().trafficLights()) {
+            if (other == trafficLight) {
+                return index;
+            }
+            ++index;
+        }
+        throw new IllegalStateException("traffic light not found on its road segment: " + trafficLight);
+    }
+}
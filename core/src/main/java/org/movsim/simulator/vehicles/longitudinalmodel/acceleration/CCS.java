@@ -1,5 +1,10 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterCCS;
 import org.slf4j.Logger;
@@ -18,7 +23,7 @@ public class CCS extends LongitudinalModelBase {
         NOWAVE, FOURWAVES, TENWAVES
     }
 
-    private static Waves wave = Waves.NOWAVE;
+    private Waves wave = Waves.NOWAVE;
 
     // /**
     // * @return the wave
@@ -31,8 +36,8 @@ public class CCS extends LongitudinalModelBase {
      * @param wave
      *            the wave to set
      */
-    public static void setWave(Waves wave) {
-        CCS.wave = wave;
+    public void setWave(Waves wave) {
+        this.wave = wave;
     }
 
     private int counter = 0;
@@ -61,7 +66,7 @@ public class CCS extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, final Vehicle frontVehicle) {
+    public double calcAcc(Vehicle me, final NeighbourView frontVehicle) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -109,7 +114,7 @@ public class CCS extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // wave start hack 300 = 1min
         if (wave == Waves.FOURWAVES) {
             if ((me.roadSegmentId() <= 7 && counter < 1500) || (me.roadSegmentId() <= 5 && counter < 3000)
@@ -147,4 +152,23 @@ public class CCS extends LongitudinalModelBase {
         return param;
     }
 
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(wave.ordinal());
+        out.writeInt(counter);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        wave = Waves.values()[in.readInt()];
+        counter = in.readInt();
+    }
+
+    @Override
+    public void resetState() {
+        super.resetState();
+        counter = 0;
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.movsim.autogen.AccelerationModelType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Process-wide cache of the {@link EquilibriumProperties} of vehicle prototypes, keyed by the acceleration model with its
+ * parameters, the vehicle length and the simulation timestep. Vehicle prototypes with identical keys share the
+ * (immutable) equilibrium properties, e.g. when the simulators of a parameter scan are built.
+ * </p>
+ * <p>
+ * Optionally the tabulated equilibrium speeds are also stored in a directory and read from there by later processes.
+ * Stochastic models are not cached since their equilibrium properties depend on the random stream.
+ * </p>
+ */
+public final class EquilibriumPropertiesCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EquilibriumPropertiesCache.class);
+
+    private static final int MAGIC = 0x4d564551; // "MVEQ"
+    private static final int VERSION = 1;
+    private static final String FILE_ENDING = ".eq";
+
+    private static final ConcurrentMap<String, EquilibriumProperties> CACHE = new ConcurrentHashMap<>();
+
+    private EquilibriumPropertiesCache() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    /**
+     * Returns the equilibrium properties from the cache or calculates them.
+     * 
+     * @param vehicleLength
+     * @param modelType
+     *            the acceleration model with its parameters
+     * @param simulationTimestep
+     * @param directory
+     *            directory of the on-disk cache or null
+     * @return the equilibrium properties
+     */
+    public static EquilibriumProperties get(double vehicleLength, AccelerationModelType modelType,
+            double simulationTimestep, File directory) {
+        final LongitudinalModelBase model = LongitudinalModelFactory.create(vehicleLength, modelType,
+                simulationTimestep);
+        if (model.isStochastic() || !model.hasDesiredSpeed()) {
+            return new EquilibriumPropertiesImpl(vehicleLength, model);
+        }
+        final String key = key(vehicleLength, modelType, simulationTimestep);
+        EquilibriumProperties properties = CACHE.get(key);
+        if (properties != null) {
+            LOG.debug("equilibrium properties of model={} taken from cache", model.modelName());
+            return properties;
+        }
+        final File file = directory == null ? null : new File(directory, key + FILE_ENDING);
+        if (file != null && file.isFile()) {
+            properties = read(file, vehicleLength);
+        }
+        if (properties == null) {
+            final EquilibriumPropertiesImpl calculated = new EquilibriumPropertiesImpl(vehicleLength, model);
+            if (file != null) {
+                write(file, calculated);
+            }
+            properties = calculated;
+        }
+        final EquilibriumProperties previous = CACHE.putIfAbsent(key, properties);
+        return previous != null ? previous : properties;
+    }
+
+    /**
+     * Clears the in-memory cache.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * Digest of the serialized model type, the vehicle length and the timestep.
+     */
+    private static String key(double vehicleLength, AccelerationModelType modelType, double simulationTimestep) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(modelType);
+                out.writeDouble(vehicleLength);
+                out.writeDouble(simulationTimestep);
+            }
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+            final StringBuilder sb = new StringBuilder(2 * digest.length);
+            for (final byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    private static EquilibriumProperties read(File file, double vehicleLength) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            Preconditions.checkState(in.readInt() == MAGIC && in.readInt() == VERSION, "unknown file format");
+            final int count = in.readInt();
+            final double[] rhoTab = new double[count];
+            final double[] vEqTab = new double[count];
+            for (int i = 0; i < count; i++) {
+                rhoTab[i] = in.readDouble();
+            }
+            for (int i = 0; i < count; i++) {
+                vEqTab[i] = in.readDouble();
+            }
+            LOG.info("read equilibrium properties from {}", file.getAbsolutePath());
+            return new EquilibriumPropertiesImpl(vehicleLength, rhoTab, vEqTab);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("cannot read equilibrium properties from {}: {}", file.getAbsolutePath(), e.toString());
+            return null;
+        }
+    }
+
+    private static void write(File file, EquilibriumPropertiesImpl properties) {
+        final double[] rhoTab = properties.getRhoTab();
+        final double[] vEqTab = properties.getVEqTab();
+        // write to a temporary file first, concurrent processes may read the file
+        final File tmpFile = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+        try {
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                throw new IOException("cannot create directory " + file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(rhoTab.length);
+                for (final double rho : rhoTab) {
+                    out.writeDouble(rho);
+                }
+                for (final double vEq : vEqTab) {
+                    out.writeDouble(vEq);
+                }
+            }
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("cannot rename " + tmpFile + " to " + file);
+            }
+        } catch (IOException e) {
+            LOG.warn("cannot write equilibrium properties to {}: {}", file.getAbsolutePath(), e.toString());
+            tmpFile.delete();
+        }
+    }
+}
@@ -67,12 +67,14 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
 
     private final LinearInterpolatedFunction vEqFunction;
 
-    public EquilibriumPropertiesImpl(double vehicleLength, LongitudinalModelBase model) {
-        this.rhoMax = 1.0 / Math.max(vehicleLength, TINY_VALUE);
-        if (vehicleLength < TINY_VALUE) {
-            LOG.warn("vehicle length is artificially small={}, assume finite length {}", vehicleLength, TINY_VALUE);
-        }
+    /**
+     * The tabulated equilibrium speeds, null without a desired speed.
+     */
+    private double[] rhoTab;
+    private double[] vEqTab;
 
+    public EquilibriumPropertiesImpl(double vehicleLength, LongitudinalModelBase model) {
+        this.rhoMax = calcRhoMax(vehicleLength);
         if (model.hasDesiredSpeed()) {
             vEqFunction = calcEquilibriumSpeedFunction(model);
             calcRhoQMax();
@@ -82,6 +84,37 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
         }
     }
 
+    /**
+     * Constructor for previously calculated equilibrium speeds, see {@link #getRhoTab()} and {@link #getVEqTab()}.
+     * 
+     * @param vehicleLength
+     * @param rhoTab
+     * @param vEqTab
+     */
+    EquilibriumPropertiesImpl(double vehicleLength, double[] rhoTab, double[] vEqTab) {
+        Preconditions.checkArgument(rhoTab.length == NRHO && vEqTab.length == NRHO, "table size");
+        this.rhoMax = calcRhoMax(vehicleLength);
+        this.rhoTab = rhoTab;
+        this.vEqTab = vEqTab;
+        vEqFunction = new LinearInterpolatedFunction(rhoTab, vEqTab);
+        calcRhoQMax();
+    }
+
+    private static double calcRhoMax(double vehicleLength) {
+        if (vehicleLength < TINY_VALUE) {
+            LOG.warn("vehicle length is artificially small={}, assume finite length {}", vehicleLength, TINY_VALUE);
+        }
+        return 1.0 / Math.max(vehicleLength, TINY_VALUE);
+    }
+
+    double[] getRhoTab() {
+        return rhoTab;
+    }
+
+    double[] getVEqTab() {
+        return vEqTab;
+    }
+
     @Override
     public double getQMax() {
         return qMax;
@@ -148,8 +181,8 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
             dtMin = 0.1 * parameter.getTau();
         }
 
-        double[] vEqTab = new double[NRHO];
-        double[] rhoTab = new double[NRHO];
+        vEqTab = new double[NRHO];
+        rhoTab = new double[NRHO];
 
         vEqTab[0] = v0; // start with rho=0
         rhoTab[0] = 0;
@@ -26,9 +26,9 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKKW;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +69,11 @@ class KKW extends LongitudinalModelBase {
         this.param = modelParameter;
     }
 
+    @Override
+    boolean isStochastic() {
+        return true;
+    }
+
     @Override
     public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
         // no modification of desired speed by randomization.
@@ -80,7 +85,7 @@ class KKW extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -131,7 +136,7 @@ class KKW extends LongitudinalModelBase {
         vtilde = Math.max(0, vtilde);
 
         // stochastic part
-        final double r1 = MyRandom.nextDouble(); // noise terms ~ G(0,1)
+        final double r1 = random().nextDouble(); // noise terms ~ G(0,1)
         final int xi = (r1 < pb) ? -1 : (r1 < pb + pa) ? 1 : 0;
 
         int vNew = 0;
@@ -25,9 +25,9 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKrauss;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +69,7 @@ class Krauss extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA) {
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
         final double dv = me.getRelSpeed(frontVehicle);
@@ -80,6 +80,11 @@ class Krauss extends LongitudinalModelBase {
         return acc(s, v, dv, localT, localV0);
     }
 
+    @Override
+    boolean isStochastic() {
+        return true;
+    }
+
     @Override
     public double calcAccSimple(double s, double v, double dv) {
         return acc(s, v, dv, T, getDesiredSpeed());
@@ -127,7 +132,7 @@ class Krauss extends LongitudinalModelBase {
          * recognized/treated in the PRE publication
          */
         final double vLower = (1 - param.getEpsilon()) * vUpper + param.getEpsilon() * Math.max(0, (v - b * TLocal));
-        final double r = MyRandom.nextDouble(); // instance of uniform(0,1) distribution
+        final double r = random().nextDouble(); // instance of uniform(0,1) distribution
         final double vNew = vLower + r * (vUpper - vLower);
         final double aWanted = (vNew - v) / TLocal;
 
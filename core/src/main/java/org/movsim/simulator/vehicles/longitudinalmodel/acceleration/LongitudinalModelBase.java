@@ -25,11 +25,19 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.movsim.autogen.DistributionTypeEnum;
 import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
 import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
+import org.movsim.utilities.RunContext;
+import org.movsim.utilities.RunContext.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -100,15 +108,45 @@ public abstract class LongitudinalModelBase {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LongitudinalModelBase.class);
+
+    /** domain of the streams of the models not assigned to a vehicle */
+    private static final String RANDOM_STREAM_DOMAIN = "longitudinalModel";
+
     protected final ModelName modelName;
     private final double scalingLength;
     protected double v0RandomizationFactor = 1;
+    private RandomStream random;
 
     protected LongitudinalModelBase(ModelName modelName) {
         this.modelName = modelName;
         this.scalingLength = ScalingHelper.getScalingLength(modelName);
     }
 
+    /**
+     * Sets the random stream of the vehicle this model belongs to.
+     * 
+     * @param random
+     *            the random stream of the vehicle
+     */
+    public void setRandomStream(RandomStream random) {
+        this.random = Preconditions.checkNotNull(random);
+    }
+
+    /**
+     * Returns the random stream for stochastic models. A model which is not assigned to a vehicle (e.g. for calculating
+     * the equilibrium properties of a vehicle prototype) uses its own stream, indexed by the order in which the models
+     * first draw a random number, so that the streams of different models are independent.
+     * 
+     * @return the random stream
+     */
+    protected RandomStream random() {
+        if (random == null) {
+            random = MyRandom.newStream(RANDOM_STREAM_DOMAIN,
+                    RunContext.current().next(Counter.LONGITUDINAL_MODEL_STREAM));
+        }
+        return random;
+    }
+
     /**
      * Model name.
      * 
@@ -188,6 +226,15 @@ public abstract class LongitudinalModelBase {
         return getParameter().getS0();
     }
 
+    /**
+     * Returns whether the model draws from its random stream, so that its equilibrium properties are not deterministic.
+     * 
+     * @return true for stochastic models
+     */
+    boolean isStochastic() {
+        return false;
+    }
+
     public boolean hasMinimumGap() {
         try {
             getMinimumGap();
@@ -210,15 +257,38 @@ public abstract class LongitudinalModelBase {
      */
     public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
         if (distributionType == DistributionTypeEnum.GAUSSIAN) {
-            v0RandomizationFactor = MyRandom.getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
+            v0RandomizationFactor = random().getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
         } else {
-            v0RandomizationFactor = MyRandom.getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
+            v0RandomizationFactor = random().getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
         }
         Preconditions.checkArgument(v0RandomizationFactor > 0, "relative v0 randomization factor must be > 0");
         LOG.debug("randomization (of type={}) of desired speeds with randomization factor=", distributionType,
                 v0RandomizationFactor);
     }
 
+    /**
+     * Writes the state of the model which is not given by its parameters, i.e. the randomization of the desired speed.
+     * Models with dynamic state variables have to extend this method and {@link #readState(DataInput)}.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(v0RandomizationFactor);
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}.
+     */
+    public void readState(DataInput in) throws IOException {
+        v0RandomizationFactor = in.readDouble();
+    }
+
+    /**
+     * Resets the state written by {@link #writeState(DataOutput)} to that of a newly created model, e.g. for reusing a
+     * pooled vehicle.
+     */
+    public void resetState() {
+        v0RandomizationFactor = 1;
+    }
+
     final static double calcSmoothFraction(double speedMe, double speedFront) {
         final double widthDeltaSpeed = 1; // parameter
         double x = 0; // limiting case: consider only acceleration in vehicle's lane
@@ -253,7 +323,7 @@ public abstract class LongitudinalModelBase {
         }
 
         // check left-vehicle's speed
-        final Vehicle newFrontLeft = leftLaneSegment.frontVehicle(me);
+        final NeighbourView newFrontLeft = leftLaneSegment.frontNeighbour(me);
         if (newFrontLeft == null) {
             return accInOwnLane;
         }
@@ -292,7 +362,7 @@ public abstract class LongitudinalModelBase {
     public double calcAcc(Vehicle me, LaneSegment laneSegment, double alphaT, double alphaV0, double alphaA) {
         // By default only consider the vehicle in front when calculating acceleration.
         // LDMs that consider more than the front vehicle should override this method.
-        final Vehicle frontVehicle = laneSegment.frontVehicle(me);
+        final NeighbourView frontVehicle = laneSegment.frontNeighbour(me);
         return calcAcc(me, frontVehicle, alphaT, alphaV0, alphaA);
     }
 
@@ -306,7 +376,7 @@ public abstract class LongitudinalModelBase {
      * @param alphaA
      * @return the calculated acceleration
      */
-    public abstract double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA);
+    public abstract double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA);
 
     /**
      * Calculates the acceleration of vehicle me.
@@ -315,7 +385,7 @@ public abstract class LongitudinalModelBase {
      * @param frontVehicle
      * @return the calculated acceleration
      */
-    public double calcAcc(Vehicle me, Vehicle frontVehicle) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle) {
         return calcAcc(me, frontVehicle, 1.0, 1.0, 1.0);
     }
 
@@ -26,9 +26,9 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterNSM;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +69,7 @@ class NSM extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -111,7 +111,7 @@ class NSM extends LongitudinalModelBase {
         final int vLocal = (int) (v + 0.5);
         int vNew = 0;
 
-        final double r1 = MyRandom.nextDouble();
+        final double r1 = random().nextDouble();
         final double pb = (vLocal < 1) ? param.getPSlowStart() : param.getPSlowdown();
         final int slowdown = (r1 < pb) ? 1 : 0;
 
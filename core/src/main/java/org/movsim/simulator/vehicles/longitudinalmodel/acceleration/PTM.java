@@ -1,6 +1,11 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.movsim.autogen.NoiseParameter;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
@@ -88,7 +93,7 @@ class PTM extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourView frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -107,7 +112,7 @@ class PTM extends LongitudinalModelBase {
         // final double localA = alphaA * param.getA();
 
         // update dynamical variables in class scope
-        wienerProcess.update(dt);
+        wienerProcess.update(dt, random());
 
         return acc(s, v, dv, alphaT, localV0, 1);
     }
@@ -302,4 +307,21 @@ class PTM extends LongitudinalModelBase {
     // }
     // inout.write_array2d(testfileName,0,vmax,n, dvmin,dvmax,n, atab,titleString);
 
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        wienerProcess.writeState(out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        wienerProcess.readState(in);
+    }
+
+    @Override
+    public void resetState() {
+        super.resetState();
+        wienerProcess.resetState();
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.output.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test module for the binary trajectory output.
+ */
+@SuppressWarnings("static-method")
+public class BinaryTrajectoryWriterTest {
+
+    private static final double delta = 0;
+
+    private static BinaryTrajectoryWriter newWriter(File file, int bufferSize) throws IOException {
+        return bufferSize == 0 ? new BinaryTrajectoryWriter(file, "Route [name=main]", 100.0, 3600000L)
+                : new BinaryTrajectoryWriter(file, bufferSize, "Route [name=main]", 100.0, 3600000L);
+    }
+
+    /**
+     * Writes three blocks to the file and reads them back.
+     *
+     * @param bufferSize size of the buffer, zero for the default size
+     * @return the length of the file
+     */
+    private static long writeAndRead(File file, int bufferSize) throws IOException {
+        try (BinaryTrajectoryWriter writer = newWriter(file, bufferSize)) {
+            writer.beginBlock(0.0);
+            writer.endBlock();
+            writer.beginBlock(1.0);
+            // more records than the initial capacity of the columns
+            for (int i = 0; i < 200; i++) {
+                writer.add(i % 3 + 1, 10.0 * i, 0.5 * i, -0.25, 1e-3 * i, -i, 1000L + i, 7, 3, i % 2 == 0 ? "IDM" : null,
+                        "key=" + (i % 4) + ",");
+            }
+            writer.endBlock();
+            writer.beginBlock(2.0);
+            writer.add(1, 1.5, 2.5, 3.5, 4.5, 5.5, Long.MAX_VALUE, -1, -1, "ACC", "");
+            writer.endBlock();
+        }
+
+        try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(file)) {
+            assertEquals("Route [name=main]", reader.route());
+            assertEquals(100.0, reader.offsetPosition(), delta);
+            assertEquals(3600000L, reader.timeOffsetMillis());
+
+            assertTrue(reader.nextBlock());
+            assertEquals(0.0, reader.time(), delta);
+            assertEquals(0, reader.size());
+
+            assertTrue(reader.nextBlock());
+            assertEquals(1.0, reader.time(), delta);
+            assertEquals(200, reader.size());
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i % 3 + 1, reader.lane(i));
+                assertEquals(10.0 * i, reader.position(i), delta);
+                assertEquals(0.5 * i, reader.speed(i), delta);
+                assertEquals(-0.25, reader.acceleration(i), delta);
+                assertEquals(1e-3 * i, reader.gap(i), delta);
+                assertEquals(-i, reader.relativeSpeed(i), delta);
+                assertEquals(1000L + i, reader.id(i));
+                assertEquals(7, reader.roadId(i));
+                assertEquals(3, reader.originId(i));
+                if (i % 2 == 0) {
+                    assertEquals("IDM", reader.label(i));
+                } else {
+                    assertNull(reader.label(i));
+                }
+                assertEquals("key=" + (i % 4) + ",", reader.userData(i));
+            }
+
+            assertTrue(reader.nextBlock());
+            assertEquals(1, reader.size());
+            assertEquals(Long.MAX_VALUE, reader.id(0));
+            assertEquals("ACC", reader.label(0));
+            assertEquals("", reader.userData(0));
+
+            assertFalse(reader.nextBlock());
+        }
+        return file.length();
+    }
+
+    @Test
+    public final void testBufferedChannel() throws IOException {
+        final File file = File.createTempFile("movsim", ".traj.bin");
+        file.deleteOnExit();
+        writeAndRead(file, 0);
+    }
+
+    @Test
+    public final void testFileCanBeOverwrittenAndDeletedAfterClose() throws IOException {
+        final File file = File.createTempFile("movsim", ".traj.bin");
+        file.deleteOnExit();
+        final long length = writeAndRead(file, 0);
+        // small buffers, so that the route string and the columns are written in several parts
+        for (final int bufferSize : new int[] { 16, 60, 1000 }) {
+            assertEquals(length, writeAndRead(file, bufferSize));
+        }
+        assertTrue(file.delete());
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,77 @@
+package org.movsim.output.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.movsim.utilities.LinearInterpolatedFunction;
+
+public class SortedVehicleDataTest {
+
+    private static final double DX = 10;
+
+    @Test
+    public void testPointsAreSortedWithoutDuplicates() {
+        final SortedVehicleData data = new SortedVehicleData();
+        final double[] positions = { 5, 20, 12, 20, 1, 30, 12.5 };
+        for (final double position : positions) {
+            data.add(position, 0, 0);
+        }
+        assertEquals(6, data.size());
+        for (int i = 1; i < data.size(); i++) {
+            assertTrue(data.position(i - 1) < data.position(i));
+        }
+    }
+
+    @Test
+    public void testInterpolationEqualsLinearInterpolatedFunction() {
+        final Random random = new Random(42);
+        final SortedVehicleData data = new SortedVehicleData();
+        final int count = 500;
+        for (int i = 0; i < count; i++) {
+            // grid points and the last data point coincide with data points
+            final double position = i % 10 == 0 ? i * DX / 2 : 100 + random.nextDouble() * 2000;
+            data.add(position, random.nextDouble() * 30, random.nextDouble() - 0.5);
+        }
+        data.add(2500, 10, 0);
+
+        final double[] x = new double[data.size()];
+        final double[] v = new double[data.size()];
+        final double[] a = new double[data.size()];
+        final int size = 300;
+        final double[] speeds = new double[size];
+        final double[] accelerations = new double[size];
+        data.interpolate(DX, speeds, accelerations);
+        copy(data, x, v, a);
+
+        final LinearInterpolatedFunction expectedSpeeds = new LinearInterpolatedFunction(x, v);
+        final LinearInterpolatedFunction expectedAccelerations = new LinearInterpolatedFunction(x, a);
+        for (int i = 0; i < size; i++) {
+            assertEquals(expectedSpeeds.value(i * DX), speeds[i], 0.0);
+            assertEquals(expectedAccelerations.value(i * DX), accelerations[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testSinglePointIsExtrapolatedConstant() {
+        final SortedVehicleData data = new SortedVehicleData();
+        data.add(55, 12, -1);
+        final double[] speeds = new double[11];
+        final double[] accelerations = new double[11];
+        data.interpolate(DX, speeds, accelerations);
+        for (int i = 0; i < speeds.length; i++) {
+            assertEquals(12, speeds[i], 0.0);
+            assertEquals(-1, accelerations[i], 0.0);
+        }
+    }
+
+    private static void copy(SortedVehicleData data, double[] x, double[] v, double[] a) {
+        for (int i = 0; i < data.size(); i++) {
+            x[i] = data.position(i);
+            v[i] = data.speed(i);
+            a[i] = data.acceleration(i);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Test module for the grid and Latin hypercube scan designs.
+ */
+@SuppressWarnings("static-method")
+public class ScanDesignTest {
+
+    private static final double delta = 0.000001;
+
+    @Test
+    public final void testGridIncludesUpperBoundary() {
+        final ScanParameter parameter = new ScanParameter("q", Arrays.asList("//Inflow/@q_per_hour"), 0, 1, 0.3);
+        assertEquals(Arrays.asList(0.0, 0.3, 0.6, 0.9, 1.0), roundedGridValues(parameter));
+        final ScanParameter exact = new ScanParameter("q", Arrays.asList("//Inflow/@q_per_hour"), 0, 1, 0.1);
+        assertEquals(11, exact.getGridValues().size());
+    }
+
+    @Test
+    public final void testGridIsFullFactorial() {
+        final Properties properties = new Properties();
+        properties.setProperty("parameters", "a, b");
+        properties.setProperty("threads", "2");
+        properties.setProperty("a.path", "//A/@x");
+        properties.setProperty("a.values", "1;2");
+        properties.setProperty("a.complement_path", "//D/@x");
+        properties.setProperty("b.path", "//B/@y; //C/@z");
+        properties.setProperty("b.min", "10");
+        properties.setProperty("b.max", "30");
+        properties.setProperty("b.step", "10");
+        final ScanDesign design = ScanDesign.fromProperties(properties);
+        assertEquals(ScanDesign.Type.GRID, design.getType());
+        assertEquals(2, design.getThreads());
+        assertEquals(Arrays.asList("//D/@x"), design.getParameters().get(0).getComplementPaths());
+        assertEquals(2, design.getParameters().get(1).getPaths().size());
+        assertTrue(design.getParameters().get(1).getComplementPaths().isEmpty());
+        final List<double[]> points = design.points();
+        assertEquals(6, points.size());
+        assertArrayEquals(new double[] { 1, 10 }, points.get(0), delta);
+        assertArrayEquals(new double[] { 1, 30 }, points.get(2), delta);
+        assertArrayEquals(new double[] { 2, 10 }, points.get(3), delta);
+        assertArrayEquals(new double[] { 2, 30 }, points.get(5), delta);
+    }
+
+    @Test
+    public final void testLatinHypercubeHitsEachStratumOnce() {
+        final Properties properties = new Properties();
+        properties.setProperty("design", "lhs");
+        properties.setProperty("samples", "8");
+        properties.setProperty("seed", "7");
+        properties.setProperty("parameters", "a,b");
+        properties.setProperty("a.path", "//A/@x");
+        properties.setProperty("a.min", "0");
+        properties.setProperty("a.max", "8");
+        properties.setProperty("b.path", "//B/@y");
+        properties.setProperty("b.min", "-1");
+        properties.setProperty("b.max", "1");
+        final ScanDesign design = ScanDesign.fromProperties(properties);
+        final List<double[]> points = design.points();
+        assertEquals(8, points.size());
+        final boolean[] strataA = new boolean[8];
+        final boolean[] strataB = new boolean[8];
+        for (final double[] point : points) {
+            strataA[(int) point[0]] = true;
+            strataB[(int) ((point[1] + 1) / 0.25)] = true;
+        }
+        for (int k = 0; k < 8; k++) {
+            assertTrue(strataA[k] && strataB[k]);
+        }
+        // reproducible for the same seed
+        final List<double[]> again = ScanDesign.fromProperties(properties).points();
+        for (int k = 0; k < 8; k++) {
+            assertArrayEquals(points.get(k), again.get(k), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testGridNeedsStep() {
+        final Properties properties = new Properties();
+        properties.setProperty("parameters", "a");
+        properties.setProperty("a.path", "//A/@x");
+        properties.setProperty("a.min", "0");
+        properties.setProperty("a.max", "1");
+        ScanDesign.fromProperties(properties);
+    }
+
+    @Test
+    public final void testFormat() {
+        assertEquals("2200", ScanInput.format(2200.0));
+        assertEquals("1.25", ScanInput.format(1.25));
+    }
+
+    private static List<Double> roundedGridValues(ScanParameter parameter) {
+        final Double[] values = parameter.getGridValues().toArray(new Double[0]);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round(values[i] * 1000) / 1000.0;
+        }
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.utilities.FileUtils;
+import org.movsim.utilities.RunContext;
+import org.movsim.xml.InputLoader;
+
+/**
+ * Runs a scenario of the sim directory in its own {@link RunContext} and records the dynamic state after each time step
+ * in the format of the {@link SimulationCheckpoint}, so that two runs can be compared step by step.
+ */
+final class ScenarioStates {
+
+    private static final String SIM_DIRECTORY = "../sim/";
+
+    /** iteration counts of the recorded steps */
+    final List<Long> iterations = new ArrayList<>();
+
+    /** state after the time step with the same index in {@link #iterations} */
+    final List<byte[]> states = new ArrayList<>();
+
+    private final ProjectMetaData projectMetaData;
+
+    private final Movsim movsimInput;
+
+    /**
+     * Constructor.
+     *
+     * @param scenario
+     *            the scenario relative to the sim directory, without file ending
+     */
+    ScenarioStates(String scenario) throws IOException {
+        final File file = new File(SIM_DIRECTORY + scenario + ProjectMetaData.getMovsimConfigFileEnding());
+        projectMetaData = ProjectMetaData.getInstance().copy();
+        projectMetaData.setProjectName(file.getName().substring(0, file.getName().lastIndexOf('.')));
+        projectMetaData.setPathToProjectXmlFile(FileUtils.getCanonicalPathWithoutFilename(file));
+        projectMetaData.setOutputPath(Files.createTempDirectory("movsim-test").toFile().getAbsolutePath());
+        projectMetaData.setBatchMode(true);
+        movsimInput = InputLoader.unmarshallMovsim(file);
+    }
+
+    /**
+     * @return the meta data of the run, to be configured before the run
+     */
+    ProjectMetaData getProjectMetaData() {
+        return projectMetaData;
+    }
+
+    /**
+     * @return the directory of the file output
+     */
+    File getOutputDirectory() {
+        return new File(projectMetaData.getOutputPath());
+    }
+
+    /**
+     * Runs the scenario to the given simulation time and records the states.
+     *
+     * @return the simulator after the run
+     */
+    Simulator run(double duration) {
+        final RunContext previous = RunContext.bind(new RunContext(projectMetaData));
+        try {
+            final Simulator simulator = new Simulator(movsimInput);
+            simulator.initialize(movsimInput);
+            final SimulationRunnable simulationRunnable = simulator.getSimulationRunnable();
+            simulationRunnable.setDuration(duration);
+            simulationRunnable.addUpdateStatusCallback(new SimulationRun.UpdateStatusCallback() {
+                @Override
+                public void updateStatus(double simulationTime) {
+                    iterations.add(simulationRunnable.iterationCount());
+                    states.add(state(simulator, simulationTime, simulationRunnable.iterationCount()));
+                }
+            });
+            simulator.runToCompletion();
+            return simulator;
+        } finally {
+            RunContext.restore(previous);
+        }
+    }
+
+    private static byte[] state(Simulator simulator, double simulationTime, long iterationCount) {
+        // the colors are drawn from Math.random() and only used by the viewer
+        for (RoadSegment roadSegment : simulator.getRoadNetwork()) {
+            for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+                for (Vehicle vehicle : laneSegment) {
+                    vehicle.setColor(0);
+                }
+            }
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            SimulationCheckpoint.write(simulator, simulationTime, iterationCount, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
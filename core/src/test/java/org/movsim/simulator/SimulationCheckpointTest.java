@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+
+/**
+ * Test module for the {@link SimulationCheckpoint}.
+ */
+@SuppressWarnings("static-method")
+public class SimulationCheckpointTest {
+
+    private static final String SCENARIO = "buildingBlocks/onramp";
+
+    private static final double CHECKPOINT_TIME = 60;
+
+    private static final double DURATION = 90;
+
+    @Test
+    public final void testRestoredRunEqualsUninterruptedRun() throws IOException {
+        final ScenarioStates uninterrupted = new ScenarioStates(SCENARIO);
+        uninterrupted.getProjectMetaData().setCheckpointTime(CHECKPOINT_TIME);
+        final Simulator simulator = uninterrupted.run(DURATION);
+        final File checkpoint = new File(uninterrupted.getOutputDirectory(), "onramp.checkpoint");
+        assertTrue(checkpoint.exists());
+
+        final ScenarioStates restored = new ScenarioStates(SCENARIO);
+        restored.getProjectMetaData().setRestoreCheckpointFilename(checkpoint.getAbsolutePath());
+        final Simulator restoredSimulator = restored.run(DURATION);
+
+        final int offset = uninterrupted.iterations.size() - restored.iterations.size();
+        assertEquals(uninterrupted.iterations.get(offset), restored.iterations.get(0));
+        assertEquals(Math.round(CHECKPOINT_TIME / simulator.getSimulationRunnable().timeStep()),
+                restored.iterations.get(0).longValue());
+        for (int i = 0; i < restored.states.size(); i++) {
+            assertArrayEquals("state after iteration=" + restored.iterations.get(i),
+                    uninterrupted.states.get(offset + i), restored.states.get(i));
+        }
+
+        final RoadNetwork roadNetwork = simulator.getRoadNetwork();
+        final RoadNetwork restoredRoadNetwork = restoredSimulator.getRoadNetwork();
+        assertTrue(roadNetwork.vehicleCount() > 0);
+        assertEquals(roadNetwork.vehicleCount(), restoredRoadNetwork.vehicleCount());
+        assertEquals(roadNetwork.totalVehicleTravelDistance(), restoredRoadNetwork.totalVehicleTravelDistance(), 0);
+    }
+}
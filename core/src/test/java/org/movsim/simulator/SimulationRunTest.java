@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test module for the run loops of the {@link SimulationRun}.
+ */
+@SuppressWarnings("static-method")
+public class SimulationRunTest {
+
+    private static final double DT = 0.2;
+
+    private static final double DURATION = 10.0;
+
+    /** records the clock of each time step */
+    private static final class RecordingTimeStep implements SimulationTimeStep {
+        final List<Double> times = new ArrayList<>();
+        final List<Long> iterations = new ArrayList<>();
+
+        @Override
+        public void timeStep(double dt, double simulationTime, long iterationCount) {
+            assertEquals(DT, dt, 0);
+            times.add(simulationTime);
+            iterations.add(iterationCount);
+        }
+    }
+
+    private static SimulationRun newSimulationRun(SimulationTimeStep timeStep) {
+        final SimulationRun simulationRun = new SimulationRun(timeStep);
+        simulationRun.setTimeStep(DT);
+        simulationRun.setDuration(DURATION);
+        return simulationRun;
+    }
+
+    @Test
+    public final void testHeadlessLoopEqualsLoopWithCallbacks() {
+        final RecordingTimeStep headless = new RecordingTimeStep();
+        final SimulationRun headlessRun = newSimulationRun(headless);
+        headlessRun.runToCompletion();
+
+        final RecordingTimeStep withCallback = new RecordingTimeStep();
+        final SimulationRun runWithCallback = newSimulationRun(withCallback);
+        final List<Double> statusTimes = new ArrayList<>();
+        runWithCallback.addUpdateStatusCallback(new SimulationRun.UpdateStatusCallback() {
+            @Override
+            public void updateStatus(double simulationTime) {
+                statusTimes.add(simulationTime);
+            }
+        });
+        runWithCallback.runToCompletion();
+
+        // one step for t = 0 and one for each dt up to the duration
+        assertEquals(51, headless.times.size());
+        assertEquals(withCallback.times, headless.times);
+        assertEquals(withCallback.iterations, headless.iterations);
+        assertEquals(withCallback.times, statusTimes);
+        assertEquals(runWithCallback.iterationCount(), headlessRun.iterationCount());
+        assertEquals(runWithCallback.simulationTime(), headlessRun.simulationTime(), 0);
+        assertEquals(51, headlessRun.iterationCount());
+    }
+
+    @Test
+    public final void testHeadlessLoopContinuesFromStart() {
+        final RecordingTimeStep timeStep = new RecordingTimeStep();
+        final SimulationRun simulationRun = newSimulationRun(timeStep);
+        simulationRun.setStart(8.0, 40);
+        simulationRun.runToCompletion();
+        assertEquals(11, timeStep.times.size());
+        assertEquals(8.0, timeStep.times.get(0), 1e-9);
+        assertEquals(Long.valueOf(40), timeStep.iterations.get(0));
+        assertEquals(51, simulationRun.iterationCount());
+    }
+
+    @Test
+    public final void testCallbackStepInterval() {
+        final SimulationRun simulationRun = newSimulationRun(new RecordingTimeStep());
+        final List<Double> statusTimes = new ArrayList<>();
+        simulationRun.addUpdateStatusCallback(new SimulationRun.UpdateStatusCallback() {
+            @Override
+            public void updateStatus(double simulationTime) {
+                statusTimes.add(simulationTime);
+            }
+        }, 10);
+        simulationRun.runToCompletion();
+        final double[] times = new double[statusTimes.size()];
+        for (int i = 0; i < times.length; ++i) {
+            times[i] = statusTimes.get(i);
+        }
+        assertArrayEquals(new double[] { 0, 2, 4, 6, 8, 10 }, times, 1e-9);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StepSchedulerTest {
+
+    private static final long MS = 1000000L;
+
+    private static final double DT = 0.2;
+
+    @Test
+    public void testStepDelay() {
+        final StepScheduler scheduler = new StepScheduler();
+        scheduler.setStepDelay(40);
+        scheduler.reset(0);
+        scheduler.startFrame(0, DT);
+        assertTrue(scheduler.stepDue(0, DT));
+        scheduler.stepDone(DT);
+        // one step per frame
+        assertFalse(scheduler.stepDue(1 * MS, DT));
+        assertEquals(1, scheduler.stepsInFrame());
+        assertEquals(41 * MS, scheduler.nextFrameStart(1 * MS));
+    }
+
+    @Test
+    public void testTimewarp() {
+        final StepScheduler scheduler = new StepScheduler();
+        scheduler.setFramesPerSecond(25);
+        scheduler.setTargetTimewarp(10);
+        scheduler.reset(0);
+        // 10 times 40ms real time are 0.4s simulation time, two steps per frame
+        long now = 0;
+        int steps = 0;
+        for (int frame = 0; frame < 100; frame++) {
+            scheduler.startFrame(now, DT);
+            while (scheduler.stepDue(now, DT)) {
+                scheduler.stepDone(DT);
+                ++steps;
+            }
+            now = scheduler.nextFrameStart(now + MS);
+            assertEquals((frame + 1) * 40 * MS, now);
+        }
+        assertEquals(198, steps, 2);
+    }
+
+    @Test
+    public void testTimewarpBelowStepsPerFrame() {
+        final StepScheduler scheduler = new StepScheduler();
+        scheduler.setTargetTimewarp(1);
+        scheduler.reset(0);
+        // real time: one step in five frames
+        long now = 0;
+        int steps = 0;
+        for (int frame = 0; frame < 100; frame++) {
+            scheduler.startFrame(now, DT);
+            while (scheduler.stepDue(now, DT)) {
+                scheduler.stepDone(DT);
+                ++steps;
+            }
+            now = scheduler.nextFrameStart(now);
+        }
+        assertEquals(20, steps, 1);
+    }
+
+    @Test
+    public void testTimewarpCannotKeepUp() {
+        final StepScheduler scheduler = new StepScheduler();
+        scheduler.setFramesPerSecond(25);
+        scheduler.setTargetTimewarp(1000);
+        scheduler.reset(0);
+        long now = 0;
+        scheduler.startFrame(now, DT);
+        scheduler.startFrame(now += 40 * MS, DT);
+        int steps = 0;
+        while (scheduler.stepDue(now, DT)) {
+            scheduler.stepDone(DT);
+            ++steps;
+            // each step takes 10ms, so the frame interval limits the steps
+            now += 10 * MS;
+        }
+        assertEquals(4, steps);
+        assertEquals(80 * MS, scheduler.nextFrameStart(now));
+    }
+
+    @Test
+    public void testMaxThroughput() {
+        final StepScheduler scheduler = new StepScheduler();
+        scheduler.setFramesPerSecond(10);
+        scheduler.setMaxThroughput();
+        scheduler.reset(0);
+        long now = 0;
+        scheduler.startFrame(now, DT);
+        int steps = 0;
+        while (scheduler.stepDue(now, DT)) {
+            scheduler.stepDone(DT);
+            ++steps;
+            now += 3 * MS;
+        }
+        // steps until the 100ms of the frame are used up, then render without waiting
+        assertEquals(34, steps);
+        assertEquals(now, scheduler.nextFrameStart(now));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test module for the reuse of the vehicles removed by the traffic sinks, see
+ * {@link org.movsim.simulator.vehicles.VehiclePool}.
+ */
+@SuppressWarnings("static-method")
+public class VehiclePoolingTest {
+
+    private static final String SCENARIO = "buildingBlocks/onramp";
+
+    private static final double DURATION = 100;
+
+    @Test
+    public final void testPooledRunEqualsRunWithoutPool() throws IOException {
+        final ScenarioStates withoutPool = new ScenarioStates(SCENARIO);
+        final Simulator simulator = withoutPool.run(DURATION);
+        assertNull(simulator.getVehiclePool());
+
+        final ScenarioStates pooled = new ScenarioStates(SCENARIO);
+        pooled.getProjectMetaData().setVehiclePooling(true);
+        final Simulator pooledSimulator = pooled.run(DURATION);
+        assertTrue(pooledSimulator.getVehiclePool().hitCount() > 0);
+
+        assertEquals(withoutPool.iterations, pooled.iterations);
+        for (int i = 0; i < pooled.states.size(); i++) {
+            assertArrayEquals("state after iteration=" + pooled.iterations.get(i), withoutPool.states.get(i),
+                    pooled.states.get(i));
+        }
+    }
+}
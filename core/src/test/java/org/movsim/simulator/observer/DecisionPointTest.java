@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.observer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.autogen.DecisionPointType;
+import org.movsim.autogen.Road;
+import org.movsim.autogen.RouteAlternativeType;
+import org.movsim.autogen.Routes;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.routing.Routing;
+
+/**
+ * Test module for the route choice of the DecisionPoint class.
+ */
+public class DecisionPointTest {
+
+    private DecisionPoint decisionPoint;
+
+    @Before
+    public void setUp() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final Routes routes = new Routes();
+        final DecisionPointType configuration = new DecisionPointType();
+        configuration.setRoadId("r1");
+        for (String label : new String[] { "A1", "A2" }) {
+            final RoadSegment roadSegment = new RoadSegment(1000, 1);
+            roadSegment.setUserId("r" + label);
+            roadNetwork.add(roadSegment);
+            final org.movsim.autogen.Route route = new org.movsim.autogen.Route();
+            route.setLabel(label);
+            final Road road = new Road();
+            road.setId(roadSegment.userId());
+            route.getRoad().add(road);
+            routes.getRoute().add(route);
+            final RouteAlternativeType alternative = new RouteAlternativeType();
+            alternative.setRoute(label);
+            configuration.getRouteAlternative().add(alternative);
+        }
+        decisionPoint = new DecisionPoint(configuration, new Routing(routes, roadNetwork));
+        setDisutilities(100, 120);
+    }
+
+    private void setDisutilities(double... disutilities) {
+        int i = 0;
+        for (RouteAlternative alternative : decisionPoint) {
+            alternative.setDisutility(disutilities[i++]);
+        }
+        decisionPoint.disutilitiesUpdated();
+    }
+
+    @Test
+    public void testRouteChoiceIsSharedUntilUpdate() {
+        final List<RouteAlternative> choice = decisionPoint.getRouteChoice(10);
+        assertSame(choice, decisionPoint.getRouteChoice(10));
+        assertEquals(1, choice.get(0).getProbability() + choice.get(1).getProbability(), 1e-12);
+        assertEquals(1 / (1 + Math.exp(-2)), choice.get(0).getProbability(), 1e-12);
+
+        final List<RouteAlternative> deterministic = decisionPoint.getRouteChoice(0);
+        assertEquals(1, deterministic.get(0).getProbability(), 0.0);
+        assertEquals(0, deterministic.get(1).getProbability(), 0.0);
+        // more uncertainties than the initial capacity
+        for (int uncertainty = 1; uncertainty <= 8; uncertainty++) {
+            decisionPoint.getRouteChoice(uncertainty);
+        }
+        assertSame(choice, decisionPoint.getRouteChoice(10));
+        assertSame(deterministic, decisionPoint.getRouteChoice(0));
+
+        setDisutilities(120, 100);
+        assertNotSame(choice, decisionPoint.getRouteChoice(10));
+        assertEquals(1, decisionPoint.getRouteChoice(0).get(1).getProbability(), 0.0);
+        // the former choice is not modified
+        assertEquals(1 / (1 + Math.exp(-2)), choice.get(0).getProbability(), 1e-12);
+    }
+}
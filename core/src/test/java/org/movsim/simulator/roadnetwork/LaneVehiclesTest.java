@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * Test module for the structure-of-arrays vehicle storage of a lane segment.
+ */
+@SuppressWarnings("static-method")
+public class LaneVehiclesTest {
+
+    private static final double delta = 0.000001;
+
+    private static Vehicle newVehicle(double rearPosition, double speed, double length) {
+        return new Vehicle(rearPosition, speed, Lanes.LANE1, length, 2.5);
+    }
+
+    @Test
+    public final void testArraysFollowInsertionAndRemoval() {
+        final LaneVehicles vehicles = new LaneVehicles(1);
+        final Vehicle v0 = newVehicle(100.0, 10.0, 5.0);
+        final Vehicle v1 = newVehicle(50.0, 5.0, 12.0);
+        final Vehicle v2 = newVehicle(75.0, 0.0, 4.0);
+        vehicles.add(v0);
+        vehicles.add(v1);
+        vehicles.add(1, v2);
+
+        assertEquals(3, vehicles.size());
+        assertSame(v2, vehicles.get(1));
+        assertEquals(100.0, vehicles.rearPosition(0), delta);
+        assertEquals(75.0, vehicles.rearPosition(1), delta);
+        assertEquals(50.0, vehicles.rearPosition(2), delta);
+        assertEquals(0.0, vehicles.speed(1), delta);
+        assertEquals(12.0, vehicles.length(2), delta);
+
+        assertSame(v0, vehicles.remove(0));
+        assertEquals(2, vehicles.size());
+        assertEquals(75.0, vehicles.rearPosition(0), delta);
+        assertEquals(5.0, vehicles.speed(1), delta);
+    }
+
+    @Test
+    public final void testPositionBinarySearch() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        vehicles.add(newVehicle(100.0, 0.0, 5.0));
+        vehicles.add(newVehicle(50.0, 0.0, 5.0));
+        vehicles.add(newVehicle(20.0, 0.0, 5.0));
+
+        assertEquals(1, vehicles.positionBinarySearch(50.0));
+        assertEquals(-1, vehicles.positionBinarySearch(120.0));
+        assertEquals(-3, vehicles.positionBinarySearch(30.0));
+        assertEquals(-4, vehicles.positionBinarySearch(0.0));
+    }
+
+    @Test
+    public final void testRefresh() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        final Vehicle vehicle = newVehicle(10.0, 1.0, 5.0);
+        vehicles.add(vehicle);
+
+        // arrays are a copy and only follow the vehicle when refreshed
+        vehicle.setRearPosition(15.0);
+        vehicle.setSpeed(2.0);
+        assertEquals(10.0, vehicles.rearPosition(0), delta);
+        assertFalse(vehicles.positionsRefreshed());
+        vehicles.refresh(0);
+        assertTrue(vehicles.positionsRefreshed());
+        assertEquals(15.0, vehicles.rearPosition(0), delta);
+        assertEquals(2.0, vehicles.speed(0), delta);
+    }
+
+    @Test
+    public final void testIteratorRemove() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        final Vehicle v0 = newVehicle(30.0, 0.0, 5.0);
+        final Vehicle v1 = newVehicle(20.0, 0.0, 5.0);
+        final Vehicle v2 = newVehicle(10.0, 0.0, 5.0);
+        vehicles.add(v0);
+        vehicles.add(v1);
+        vehicles.add(v2);
+
+        final Iterator<Vehicle> iterator = vehicles.iterator();
+        assertSame(v0, iterator.next());
+        assertSame(v1, iterator.next());
+        iterator.remove();
+        assertTrue(iterator.hasNext());
+        assertSame(v2, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(2, vehicles.size());
+        assertEquals(10.0, vehicles.rearPosition(1), delta);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.vehicles.ExternalVehiclesController;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
+
+/**
+ * Test module for the parallel update of the road network.
+ */
+@SuppressWarnings("static-method")
+public class ParallelPhaseExecutorTest {
+
+    private static final int SEGMENT_COUNT = 40;
+    private static final double ROAD_LENGTH = 100.0;
+    private static final double DT = 0.2;
+
+    private static Vehicle newVehicle(double rearPosition, double speed, int lane) {
+        final IDM idm = new IDM(33.0, 0.5, 3.0, 1.5, 2.0, 5.0);
+        final Vehicle vehicle = new Vehicle(rearPosition, speed, lane, 5.0, 2.5);
+        vehicle.setLongitudinalModel(idm);
+        vehicle.setSpeedlimit(80.0 / 3.6);
+        return vehicle;
+    }
+
+    /**
+     * Creates a ring road of joined road segments with vehicles of different speeds.
+     */
+    private static RoadNetwork createRingRoad() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        roadNetwork.setExternalVehicleController(new ExternalVehiclesController());
+        final List<RoadSegment> roadSegments = new ArrayList<>();
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            final RoadMapping m = RoadMappingConcrete.create(1, ROAD_LENGTH);
+            final RoadSegment roadSegment = new RoadSegment(ROAD_LENGTH, 1, m, RoadSegmentDirection.FORWARD);
+            roadSegments.add(roadNetwork.add(roadSegment));
+        }
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            Link.addJoin(roadSegments.get(i), roadSegments.get((i + 1) % SEGMENT_COUNT));
+        }
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            // cluster the vehicles on every second road segment to create stop-and-go conditions
+            final int vehicleCount = (i % 2 == 0) ? 4 : 1;
+            for (int j = 0; j < vehicleCount; ++j) {
+                final double rearPosition = 90.0 - j * (ROAD_LENGTH / vehicleCount);
+                roadSegments.get(i).addVehicle(newVehicle(rearPosition, 2.0 + (i + j) % 7, Lanes.LANE1));
+            }
+        }
+        return roadNetwork;
+    }
+
+    private static void run(RoadNetwork roadNetwork, int steps) {
+        double simulationTime = 0.0;
+        for (long iterationCount = 0; iterationCount < steps; ++iterationCount) {
+            roadNetwork.timeStep(DT, simulationTime, iterationCount);
+            simulationTime += DT;
+        }
+    }
+
+    @Test
+    public final void testParallelUpdateEqualsSequentialUpdate() {
+        final RoadNetwork sequential = createRingRoad();
+        final RoadNetwork parallel = createRingRoad();
+        parallel.setParallelism(4);
+        assertEquals(4, parallel.parallelism());
+
+        final int steps = 500;
+        run(sequential, steps);
+        run(parallel, steps);
+        parallel.setParallelism(0);
+        assertEquals(1, parallel.parallelism());
+
+        assertEquals(sequential.vehicleCount(), parallel.vehicleCount());
+        final List<Vehicle> expected = new ArrayList<>();
+        for (final RoadSegment roadSegment : sequential) {
+            for (final Vehicle vehicle : roadSegment) {
+                expected.add(vehicle);
+            }
+        }
+        int index = 0;
+        for (final RoadSegment roadSegment : parallel) {
+            for (final Vehicle vehicle : roadSegment) {
+                final Vehicle other = expected.get(index++);
+                assertEquals(other.getRearPosition(), vehicle.getRearPosition(), 0.0);
+                assertEquals(other.getSpeed(), vehicle.getSpeed(), 0.0);
+                assertEquals(other.getAcc(), vehicle.getAcc(), 0.0);
+            }
+        }
+        assertEquals(expected.size(), index);
+    }
+
+    @Test
+    public final void testSmallNetworkIsUpdatedOnCallingThread() {
+        final List<RoadSegment> roadSegments = new ArrayList<>();
+        roadSegments.add(new RoadSegment(ROAD_LENGTH, 1));
+        final Thread caller = Thread.currentThread();
+        final ParallelPhaseExecutor executor = new ParallelPhaseExecutor(2);
+        final List<Thread> threads = new ArrayList<>();
+        executor.execute(roadSegments, new ParallelPhaseExecutor.Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment, double dt, double simulationTime, long iterationCount) {
+                threads.add(Thread.currentThread());
+            }
+        }, DT, 0.0, 0);
+        executor.shutdown();
+        assertEquals(1, threads.size());
+        assertEquals(caller, threads.get(0));
+    }
+}
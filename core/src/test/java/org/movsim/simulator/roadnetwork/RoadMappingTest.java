@@ -27,15 +27,18 @@
 package org.movsim.simulator.roadnetwork;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry.Line;
 import org.movsim.roadmappings.LaneGeometries;
 import org.movsim.roadmappings.LaneGeometries.LaneGeometry;
+import org.movsim.roadmappings.PosTheta;
 import org.movsim.roadmappings.RoadGeometry;
 import org.movsim.roadmappings.RoadMapping;
 import org.movsim.roadmappings.RoadMappingLine;
+import org.movsim.roadmappings.RoadMappingPoly;
 import org.movsim.simulator.vehicles.Vehicle;
 
 /**
@@ -227,4 +230,91 @@ public class RoadMappingTest {
         //fail("Not yet implemented"); //$NON-NLS-1$
     }
 
+    private static RoadMappingPoly createPoly() {
+        final LaneGeometries laneGeometries = new LaneGeometries();
+        laneGeometries.setRight(new LaneGeometry(2, 3.5));
+        final RoadMappingPoly roadMapping = new RoadMappingPoly(laneGeometries);
+        roadMapping.addLine(0, 0, 0, 0, 50);
+        roadMapping.addArc(50, 50, 0, 0, 40, 0.02);
+        roadMapping.addArc(90, 80, 20, 1, 30, -0.05);
+        roadMapping.addLine(120, 90, 40, 0.2, 25);
+        roadMapping.addPoly3(145, 110, 45, 0, 60, 150, 80, 140, 45);
+        return roadMapping;
+    }
+
+    @Test
+    public void testMapPoly() {
+        final RoadMappingPoly roadMapping = createPoly();
+        for (double roadPos = -1; roadPos < roadMapping.roadLength() + 3; roadPos += 0.7) {
+            // find the road mapping by walking the road mappings
+            double pos = roadPos;
+            RoadMapping subMapping = null;
+            boolean found = false;
+            for (final RoadMapping m : roadMapping) {
+                subMapping = m;
+                if (pos <= m.roadLength()) {
+                    found = true;
+                    break;
+                }
+                pos -= m.roadLength();
+            }
+            if (!found) {
+                // beyond the end of the last road mapping
+                pos += subMapping.roadLength();
+            }
+            final PosTheta expected = subMapping.map(pos, 2.0);
+            final double x = expected.getX();
+            final double y = expected.getY();
+            final PosTheta posTheta = roadMapping.map(roadPos, 2.0);
+            assertEquals(x, posTheta.getX(), delta);
+            assertEquals(y, posTheta.getY(), delta);
+        }
+    }
+
+    @Test
+    public void testMapBatch() {
+        final RoadMappingPoly roadMapping = createPoly();
+        final int count = 100;
+        final double[] roadPos = new double[count];
+        final double[] lateralOffset = new double[count];
+        for (int i = 0; i < count; ++i) {
+            // descending order, as the vehicles in a lane
+            roadPos[i] = roadMapping.roadLength() + 2 - 2.1 * i;
+            lateralOffset[i] = -1.75 - (i % 3);
+        }
+        final double[] x = new double[count];
+        final double[] y = new double[count];
+        roadMapping.map(roadPos, lateralOffset, count, x, y);
+        for (int i = 0; i < count; ++i) {
+            final PosTheta posTheta = roadMapping.map(roadPos[i], lateralOffset[i]);
+            assertEquals(posTheta.getX(), x[i], delta);
+            assertEquals(posTheta.getY(), y[i], delta);
+        }
+    }
+
+    @Test
+    public void testSampledMapping() {
+        final RoadMappingPoly roadMapping = createPoly();
+        final int count = 500;
+        final double[] expected = new double[4 * count];
+        for (int i = 0; i < count; ++i) {
+            final PosTheta posTheta = roadMapping.map(i * roadMapping.roadLength() / count, 3.0);
+            expected[4 * i] = posTheta.getX();
+            expected[4 * i + 1] = posTheta.getY();
+            expected[4 * i + 2] = Math.cos(posTheta.getTheta());
+            expected[4 * i + 3] = Math.sin(posTheta.getTheta());
+        }
+        roadMapping.setSampleSpacing(1.0);
+        for (int i = 0; i < count; ++i) {
+            final PosTheta posTheta = roadMapping.map(i * roadMapping.roadLength() / count, 3.0);
+            assertEquals(expected[4 * i], posTheta.getX(), 0.01);
+            assertEquals(expected[4 * i + 1], posTheta.getY(), 0.01);
+            assertEquals(expected[4 * i + 2], Math.cos(posTheta.getTheta()), 0.01);
+            assertEquals(expected[4 * i + 3], Math.sin(posTheta.getTheta()), 0.01);
+        }
+        // exact mapping again
+        roadMapping.setSampleSpacing(0);
+        final PosTheta posTheta = roadMapping.map(7 * roadMapping.roadLength() / count, 3.0);
+        assertTrue(posTheta.getX() == expected[4 * 7] && posTheta.getY() == expected[4 * 7 + 1]);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.movsim.simulator.vehicles.ExternalVehiclesController;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
+
+/**
+ * Test module for the RoadNetwork lookups.
+ */
+@SuppressWarnings("static-method")
+public class RoadNetworkTest {
+
+    private static RoadSegment newRoadSegment(String userId) {
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 1);
+        if (userId != null) {
+            roadSegment.setUserId(userId);
+        }
+        return roadSegment;
+    }
+
+    private static Vehicle newVehicle(double rearPosition) {
+        final Vehicle vehicle = new Vehicle(rearPosition, 10.0, Lanes.LANE1, 5.0, 2.5);
+        vehicle.setLongitudinalModel(new IDM(33.0, 0.5, 3.0, 1.5, 2.0, 5.0));
+        return vehicle;
+    }
+
+    @Test
+    public final void testFind() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r1 = roadNetwork.add(newRoadSegment("1"));
+        final RoadSegment r2 = newRoadSegment("2-");
+        final RoadSegment r3 = newRoadSegment(null);
+        roadNetwork.addAll(Arrays.asList(r2, r3));
+
+        assertEquals(3, roadNetwork.size());
+        assertSame(r1, roadNetwork.findById(r1.id()));
+        assertSame(r2, roadNetwork.findById(r2.id()));
+        assertSame(r3, roadNetwork.findById(r3.id()));
+        assertNull(roadNetwork.findById(r3.id() + 1));
+        assertNull(roadNetwork.findById(-1));
+        assertSame(r2, roadNetwork.findByUserId("2-"));
+        // road segments without userId are found by their id
+        assertSame(r3, roadNetwork.findByUserId(Integer.toString(r3.id())));
+        assertNull(roadNetwork.findByUserId("2"));
+        assertNull(roadNetwork.findByUserId(null));
+    }
+
+    @Test
+    public final void testFirstRoadSegmentWinsForDuplicateUserId() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r1 = roadNetwork.add(newRoadSegment("a"));
+        roadNetwork.add(newRoadSegment("a"));
+        assertSame(r1, roadNetwork.findByUserId("a"));
+    }
+
+    @Test
+    public final void testNullUserIdIsNotIndexed() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r1 = newRoadSegment("a");
+        r1.setUserId(null);
+        roadNetwork.add(r1);
+        roadNetwork.add(newRoadSegment(null));
+        assertNull(roadNetwork.findByUserId(null));
+        assertSame(r1, roadNetwork.findByUserId(Integer.toString(r1.id())));
+    }
+
+    @Test
+    public final void testVehicleSteps() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        roadNetwork.setExternalVehicleController(new ExternalVehiclesController());
+        final RoadSegment r1 = roadNetwork.add(newRoadSegment("1"));
+        final RoadSegment r2 = roadNetwork.add(newRoadSegment("2"));
+        for (int i = 0; i < 3; ++i) {
+            r1.addVehicle(newVehicle(500 - 100 * i));
+        }
+        r2.addVehicle(newVehicle(500));
+        assertEquals(0, roadNetwork.vehicleSteps());
+        for (int i = 0; i < 10; ++i) {
+            roadNetwork.timeStep(0.2, 0.2 * i, i);
+        }
+        assertEquals(30, r1.vehicleSteps());
+        assertEquals(10, r2.vehicleSteps());
+        assertEquals(40, roadNetwork.vehicleSteps());
+    }
+
+    @Test
+    public final void testClear() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r1 = roadNetwork.add(newRoadSegment("a"));
+        roadNetwork.clear();
+        assertEquals(0, roadNetwork.size());
+        assertNull(roadNetwork.findByUserId("a"));
+        assertNull(roadNetwork.findById(r1.id()));
+    }
+}
@@ -27,17 +27,27 @@
 package org.movsim.simulator.roadnetwork;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.junit.Test;
 import org.movsim.autogen.LaneChangeModelType;
 import org.movsim.autogen.ModelParameterMOBIL;
 import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.vehicles.NeighbourView;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
 
+import com.google.common.collect.Iterators;
+
 /**
  * Test module for the RoadSegment class.
  */
@@ -631,6 +641,53 @@ public class RoadSegmentTest {
         assertEquals(v4, fV);
     }
 
+    @Test
+    public final void testNeighbourViewJoin() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final int laneCount = 1;
+        final RoadSegment r0 = new RoadSegment(700.0, laneCount);
+        final RoadSegment r1 = new RoadSegment(5100.0, laneCount);
+        Link.addJoin(r0, r1);
+
+        final Vehicle v0 = newVehicle(100.0, 1.0, Lanes.LANE1);
+        r1.addVehicle(v0);
+        final Vehicle v1 = newVehicle(600.0, 2.0, Lanes.LANE1);
+        r0.addVehicle(v1);
+
+        // vehicles on neighbouring road segments are returned as views with their positions relative to the lane segment
+        final LaneSegment l0 = r0.laneSegment(Lanes.LANE1);
+        final LaneSegment l1 = r1.laneSegment(Lanes.LANE1);
+        final NeighbourView fV = l0.frontNeighbour(v1);
+        assertSame(v0, fV.vehicle());
+        assertEquals(800.0, fV.getRearPosition(), delta);
+        final NeighbourView rV = l1.rearNeighbour(0.0);
+        assertSame(v1, rV.vehicle());
+        assertEquals(-100.0, rV.getRearPosition(), delta);
+
+        // the view is updated by the next lookup
+        v0.setFrontPosition(v0.getFrontPosition() + 10.0);
+        v0.setSpeed(3.0);
+        l1.refreshVehicles();
+        assertSame(fV, l0.frontNeighbour(v1));
+        assertEquals(810.0, fV.getRearPosition(), delta);
+        assertEquals(3.0, fV.getSpeed(), delta);
+        assertEquals(v0.getLength(), fV.getLength(), delta);
+        assertEquals(205.0, v1.getNetDistance(fV), delta);
+        assertSame(rV, l1.rearNeighbour(0.0));
+
+        // as a vehicle, a view is the vehicle itself on its own lane segment and a copy on a neighbouring one
+        assertSame(v1, l0.rearNeighbour(v1).asVehicle());
+        final Vehicle fVCopy = fV.asVehicle();
+        assertNotSame(v0, fVCopy);
+        assertEquals(v0.getId(), fVCopy.getId());
+        assertEquals(810.0, fVCopy.getRearPosition(), delta);
+        // the vehicle lookups return such a copy as well
+        assertNotSame(v0, r0.frontVehicle(Lanes.LANE1, v1.getRearPosition()));
+        assertEquals(810.0, r0.frontVehicle(Lanes.LANE1, v1.getRearPosition()).getRearPosition(), delta);
+    }
+
     /**
      * Test method for org.mjbudden.traffic.RoadSegment#rearVehicle(int, double)
      */
@@ -1000,6 +1057,158 @@ public class RoadSegmentTest {
         assertEquals(9.0, v.getRearPosition(), delta);
     }
 
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.SignalPoints#registerPassingVehicles(double, LaneSegment[])}
+     */
+    @Test
+    public final void testSignalPointsPassedVehicles() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final int laneCount = 2;
+        final RoadSegment r0 = new RoadSegment(700.0, laneCount);
+        final RoadSegment r1 = new RoadSegment(5100.0, laneCount);
+        Link.addJoin(r0, r1);
+        final SignalPoint r0End = new SignalPoint(700.0, r0);
+        final SignalPoint r0Middle = new SignalPoint(600.0, r0);
+        r0.signalPoints().add(r0Middle);
+        r0.signalPoints().add(r0End);
+        final SignalPoint r1Start = new SignalPoint(2.0, r1);
+        final SignalPoint r1Middle = new SignalPoint(3702.0, r1);
+        final SignalPoint r1Ahead = new SignalPoint(3703.0, r1);
+        r1.signalPoints().add(r1Start);
+        r1.signalPoints().add(r1Middle);
+        r1.signalPoints().add(r1Ahead);
+
+        final Vehicle v0 = newVehicle(3900.0, 10.0, Lanes.LANE1);
+        r1.addVehicle(v0);
+        final Vehicle v1 = newVehicle(3700.0, 20.0, Lanes.LANE1);
+        r1.addVehicle(v1);
+        final Vehicle v2 = newVehicle(3100.0, 30.0, Lanes.LANE1);
+        r1.addVehicle(v2);
+        final Vehicle v5 = newVehicle(3698.0, 20.0, Lanes.LANE2);
+        r1.addVehicle(v5);
+        final Vehicle v3 = newVehicle(695.0, 40.0, Lanes.LANE1);
+        r0.addVehicle(v3);
+        final Vehicle v4 = newVehicle(500.0, 50.0, Lanes.LANE1);
+        r0.addVehicle(v4);
+
+        final double dt = 0.25;
+        final double simulationTime = 0.0;
+        final long iterationCount = 0;
+        r0.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+        r1.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+        r0.outFlow(dt, simulationTime, iterationCount);
+        r1.outFlow(dt, simulationTime, iterationCount);
+        r0.updateSignalPointsAfterOutflowAndInflow(simulationTime);
+        r1.updateSignalPointsAfterOutflowAndInflow(simulationTime);
+
+        // v3 passed the end of r0 and the start of r1 and is registered only once
+        assertEquals(Collections.singletonList(v3), new ArrayList<>(r0End.passedVehicles()));
+        assertEquals(0, r0Middle.passedVehicles().size());
+        assertEquals(Collections.singletonList(v3), new ArrayList<>(r1Start.passedVehicles()));
+        // passed vehicles ordered by lane
+        assertEquals(Arrays.asList(v1, v5), new ArrayList<>(r1Middle.passedVehicles()));
+        assertEquals(Collections.singletonList(v1), new ArrayList<>(r1Ahead.passedVehicles()));
+
+        // next time step, the registered vehicles are cleared
+        r0.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+        r1.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+        r0.outFlow(dt, simulationTime, iterationCount);
+        r1.outFlow(dt, simulationTime, iterationCount);
+        assertEquals(0, r0End.passedVehicles().size());
+        assertEquals(Collections.singletonList(v5), new ArrayList<>(r1Ahead.passedVehicles()));
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.LaneSegment#refreshVehicles()}, vehicles changed through
+     * their setters are found at their new positions after the lane changes.
+     */
+    @Test
+    public final void testLaneKinematicsAfterVehicleSetters() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment r0 = new RoadSegment(1000.0, 1);
+        final Vehicle v0 = newVehicle(900.0, 10.0, Lanes.LANE1);
+        r0.addVehicle(v0);
+        final Vehicle v1 = newVehicle(500.0, 10.0, Lanes.LANE1);
+        r0.addVehicle(v1);
+        assertSame(v0, r0.frontVehicle(Lanes.LANE1, 580.0));
+
+        v1.setFrontPosition(v1.getFrontPosition() + 100.0);
+        v1.setSpeed(30.0);
+        v1.getDimensions().setLength(8.0);
+        r0.makeLaneChanges(0.25, 0.0, 0);
+
+        assertSame(v1, r0.frontVehicle(Lanes.LANE1, 580.0));
+        assertSame(v1, r0.rearVehicle(Lanes.LANE1, 601.0));
+        assertEquals(20.0, r0.meanSpeedOfVehicles(), delta);
+        final List<Vehicle> within = new ArrayList<>();
+        Iterators.addAll(within, r0.vehiclesWithinRange(600.0, 605.0));
+        assertEquals(Collections.singletonList(v1), within);
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.SignalPoints#registerPassingVehicles(double, LaneSegment[])}
+     * with a vehicle that is accelerated by an external setter and changes lanes in the time step it passes the signal
+     * point.
+     */
+    @Test
+    public final void testSignalPointPassedAfterLaneChange() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment r0 = new RoadSegment(1000.0, 2);
+        final SignalPoint signalPoint = new SignalPoint(595.0, r0);
+        r0.signalPoints().add(signalPoint);
+        final Vehicle obstacle = newObstacle(600.0, Lanes.LANE1);
+        r0.addVehicle(obstacle);
+        final Vehicle v0 = newVehicle(593.0, 5.0, Lanes.LANE1);
+        v0.setLaneChangeModel(newLaneChangeModel(v0));
+        r0.addVehicle(v0);
+        final Vehicle v1 = newVehicle(400.0, 5.0, Lanes.LANE2);
+        r0.addVehicle(v1);
+
+        final double dt = 0.25;
+        v0.setSpeed(12.0);
+        r0.makeLaneChanges(dt, 0.0, 0);
+        assertEquals(Lanes.LANE2, v0.lane());
+        r0.updateVehiclePositionsAndSpeeds(dt, 0.0, 0);
+        r0.outFlow(dt, 0.0, 0);
+        r0.updateSignalPointsAfterOutflowAndInflow(0.0);
+
+        assertEquals(596.0, v0.getRearPosition(), delta);
+        assertEquals(Collections.singletonList(v0), new ArrayList<>(signalPoint.passedVehicles()));
+    }
+
+    @Test
+    public final void testVehiclesWithinRange() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 2);
+        roadSegment.addVehicle(newVehicle(300.0, 10.0, Lanes.LANE1));
+        roadSegment.addVehicle(newVehicle(196.0, 10.0, Lanes.LANE1));
+        final Vehicle v0 = newVehicle(195.0, 10.0, Lanes.LANE1);
+        roadSegment.addVehicle(v0);
+        final Vehicle v1 = newVehicle(150.0, 10.0, Lanes.LANE1);
+        roadSegment.addVehicle(v1);
+        final Vehicle v2 = newVehicle(95.0, 10.0, Lanes.LANE1);
+        roadSegment.addVehicle(v2);
+        roadSegment.addVehicle(newVehicle(94.0, 10.0, Lanes.LANE1));
+        roadSegment.addVehicle(newVehicle(10.0, 10.0, Lanes.LANE1));
+        final Vehicle v3 = newVehicle(120.0, 10.0, Lanes.LANE2);
+        roadSegment.addVehicle(v3);
+        roadSegment.addVehicle(newVehicle(40.0, 10.0, Lanes.LANE2));
+
+        // front positions within [100, 200], lane by lane
+        final List<Vehicle> vehicles = new ArrayList<>();
+        Iterators.addAll(vehicles, roadSegment.vehiclesWithinRange(100.0, 200.0));
+        assertEquals(Arrays.asList(v0, v1, v2, v3), vehicles);
+        assertFalse(roadSegment.vehiclesWithinRange(400.0, 500.0).hasNext());
+    }
+
     @Test
     public final void testOutFlowTrafficLane() {
         RoadSegment.resetNextId();
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry.Line;
+import org.movsim.roadmappings.LaneGeometries;
+import org.movsim.roadmappings.LaneGeometries.LaneGeometry;
+import org.movsim.roadmappings.PosTheta;
+import org.movsim.roadmappings.RoadGeometry;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.roadmappings.RoadMappingLine;
+import org.movsim.simulator.vehicles.ExternalVehiclesController;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
+
+/**
+ * Test module for the VehicleGrid class.
+ */
+public class VehicleGridTest {
+
+    private static final double ROAD_LENGTH = 1000;
+    private static final int LANE_COUNT = 2;
+
+    private final Random random = new Random(42);
+    private RoadNetwork roadNetwork;
+    private VehicleGrid vehicleGrid;
+
+    private RoadSegment newRoadSegment(double y, double heading) {
+        final Geometry geometry = new Geometry();
+        geometry.setS(0);
+        geometry.setX(0);
+        geometry.setY(y);
+        geometry.setHdg(heading);
+        geometry.setLength(ROAD_LENGTH);
+        geometry.setLine(new Line());
+        final LaneGeometries laneGeometries = new LaneGeometries();
+        laneGeometries.setRight(new LaneGeometry(LANE_COUNT, 3.5));
+        final RoadMapping roadMapping = RoadMappingLine.create(new RoadGeometry(geometry, laneGeometries));
+        return roadNetwork.add(new RoadSegment(ROAD_LENGTH, LANE_COUNT, roadMapping, RoadSegmentDirection.FORWARD));
+    }
+
+    private void addVehicles(RoadSegment roadSegment, int count) {
+        for (int i = 0; i < count; ++i) {
+            final int lane = Lanes.LANE1 + random.nextInt(LANE_COUNT);
+            roadSegment.addVehicle(new Vehicle(random.nextDouble() * (ROAD_LENGTH - 5), 0, lane, 5.0, 2.5));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        roadNetwork = new RoadNetwork();
+        addVehicles(newRoadSegment(0, 0), 300);
+        addVehicles(newRoadSegment(50, 0.5), 300);
+        vehicleGrid = new VehicleGrid(20);
+        roadNetwork.setVehicleGrid(vehicleGrid);
+        assertSame(vehicleGrid, roadNetwork.vehicleGrid());
+    }
+
+    private List<double[]> positions(List<Vehicle> vehicles) {
+        final List<double[]> positions = new ArrayList<>();
+        for (RoadSegment roadSegment : roadNetwork) {
+            for (Vehicle vehicle : roadSegment) {
+                final PosTheta posTheta = roadSegment.roadMapping().map(vehicle);
+                vehicles.add(vehicle);
+                positions.add(new double[] { posTheta.getX(), posTheta.getY() });
+            }
+        }
+        return positions;
+    }
+
+    private void assertQueries() {
+        final List<Vehicle> vehicles = new ArrayList<>();
+        final List<double[]> positions = positions(vehicles);
+        assertEquals(vehicles.size(), vehicleGrid.size());
+        for (int query = 0; query < 200; ++query) {
+            final double x = -50 + random.nextDouble() * (ROAD_LENGTH + 100);
+            final double y = -100 + random.nextDouble() * 700;
+            final double radius = random.nextDouble() * 40;
+            final HashSet<Vehicle> inRadius = new HashSet<>();
+            final HashSet<Vehicle> inBox = new HashSet<>();
+            Vehicle nearest = null;
+            double nearestDistance = radius;
+            for (int i = 0; i < vehicles.size(); ++i) {
+                final double dx = positions.get(i)[0] - x;
+                final double dy = positions.get(i)[1] - y;
+                final double distance = Math.sqrt(dx * dx + dy * dy);
+                if (dx * dx + dy * dy <= radius * radius) {
+                    inRadius.add(vehicles.get(i));
+                }
+                if (Math.abs(dx) <= radius && Math.abs(dy) <= radius) {
+                    inBox.add(vehicles.get(i));
+                }
+                if (distance <= nearestDistance) {
+                    nearest = vehicles.get(i);
+                    nearestDistance = distance;
+                }
+            }
+            assertEquals(inRadius, new HashSet<>(vehicleGrid.withinRadius(x, y, radius)));
+            assertEquals(inBox, new HashSet<>(vehicleGrid.withinBox(x - radius, y - radius, x + radius, y + radius)));
+            assertSame(nearest, vehicleGrid.nearest(x, y, radius));
+        }
+    }
+
+    @Test
+    public void testQueriesEqualLinearSearch() {
+        assertQueries();
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        final RoadSegment roadSegment = roadNetwork.findById(roadNetwork.iterator().next().id());
+        for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+            laneSegment.clearVehicles();
+        }
+        addVehicles(roadSegment, 100);
+        vehicleGrid.update(roadNetwork);
+        assertQueries();
+        assertNull(vehicleGrid.nearest(ROAD_LENGTH / 2, -1000, 100));
+
+        roadNetwork.clear();
+        assertEquals(0, vehicleGrid.size());
+    }
+
+    @Test
+    public void testLazyUpdateAfterTimeStep() {
+        final int size = vehicleGrid.size();
+        roadNetwork.setExternalVehicleController(new ExternalVehiclesController());
+        for (RoadSegment roadSegment : roadNetwork) {
+            for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+                laneSegment.clearVehicles();
+            }
+            for (int i = 0; i < 20; ++i) {
+                final Vehicle vehicle = new Vehicle(i * 20.0, 10.0, Lanes.LANE1, 5.0, 2.5);
+                vehicle.setLongitudinalModel(new IDM(33.0, 0.5, 3.0, 1.5, 2.0, 5.0));
+                roadSegment.addVehicle(vehicle);
+            }
+        }
+        for (int i = 0; i < 10; ++i) {
+            roadNetwork.timeStep(0.1, 0.1 * i, i);
+        }
+        // not updated by the time step
+        assertEquals(size, vehicleGrid.size());
+        // updated by the query
+        assertSame(vehicleGrid, roadNetwork.vehicleGrid());
+        assertQueries();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.alg.DijkstraShortestPath;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * Test module for the RoutingEngine class.
+ */
+@SuppressWarnings("static-method")
+public class RoutingEngineTest {
+
+    private static double length(List<RoadSegment> path) {
+        double length = 0;
+        for (RoadSegment roadSegment : path) {
+            length += roadSegment.roadLength();
+        }
+        return length;
+    }
+
+    @Test
+    public final void testShortestPathsEqualDijkstra() {
+        final Random random = new Random(42);
+        final int vertexCount = 200;
+        final DefaultDirectedWeightedGraph<Long, RoadSegment> graph = new DefaultDirectedWeightedGraph<>(
+                RoadSegment.class);
+        for (long v = 0; v < vertexCount; ++v) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < 4 * vertexCount; ++i) {
+            final RoadSegment roadSegment = new RoadSegment(10 + 1000 * random.nextDouble(), 1);
+            if (graph.addEdge((long) random.nextInt(vertexCount), (long) random.nextInt(vertexCount), roadSegment)) {
+                graph.setEdgeWeight(roadSegment, roadSegment.roadLength());
+            }
+        }
+        final RoutingEngine routingEngine = new RoutingEngine(graph);
+        assertEquals(vertexCount, routingEngine.vertexCount());
+
+        for (int i = 0; i < 500; ++i) {
+            final long from = random.nextInt(vertexCount);
+            final long to = random.nextInt(vertexCount);
+            final List<RoadSegment> expected = DijkstraShortestPath.findPathBetween(graph, from, to);
+            final List<RoadSegment> path = routingEngine.shortestPath(from, to);
+            if (expected == null) {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(length(expected), length(path), 1e-6);
+            long vertex = from;
+            for (RoadSegment roadSegment : path) {
+                assertEquals(vertex, graph.getEdgeSource(roadSegment).longValue());
+                vertex = graph.getEdgeTarget(roadSegment);
+            }
+            assertEquals(to, vertex);
+        }
+    }
+}
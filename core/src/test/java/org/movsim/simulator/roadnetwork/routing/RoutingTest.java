@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.Link;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * Test module for the Routing class.
+ */
+public class RoutingTest {
+
+    private RoadNetwork roadNetwork;
+    private Routing routing;
+
+    private RoadSegment newRoadSegment(String userId, double roadLength, int laneCount) {
+        final RoadSegment roadSegment = new RoadSegment(roadLength, laneCount);
+        roadSegment.setUserId(userId);
+        return roadNetwork.add(roadSegment);
+    }
+
+    /**
+     * Road a branches into the short road b and the long roads c and d, which merge again into road e.
+     */
+    @Before
+    public void setUp() {
+        roadNetwork = new RoadNetwork();
+        final RoadSegment a = newRoadSegment("a", 1000, 2);
+        final RoadSegment b = newRoadSegment("b", 1000, 1);
+        final RoadSegment c = newRoadSegment("c", 800, 1);
+        final RoadSegment d = newRoadSegment("d", 800, 1);
+        final RoadSegment e = newRoadSegment("e", 1000, 2);
+        Link.addLanePair(Lanes.LANE1, a, Lanes.LANE1, b);
+        Link.addLanePair(Lanes.LANE2, a, Lanes.LANE1, c);
+        Link.addJoin(c, d);
+        Link.addLanePair(Lanes.LANE1, b, Lanes.LANE1, e);
+        Link.addLanePair(Lanes.LANE1, d, Lanes.LANE2, e);
+        routing = new Routing(null, roadNetwork);
+    }
+
+    private static String roadIds(Route route) {
+        final StringBuilder sb = new StringBuilder();
+        for (RoadSegment roadSegment : route) {
+            sb.append(roadSegment.userId());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testShortestRouteIsCached() {
+        final Route route = routing.findRoute("a", "e");
+        assertEquals("abe", roadIds(route));
+        assertEquals(3000, route.getLength(), 0.0);
+        assertSame(route, routing.findRoute("a", "e"));
+        assertNotSame(route, routing.findRoute("a", "b"));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.vehicles;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.autogen.Movsim;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.movsim.xml.InputLoader;
+
+/**
+ * Test module for the {@link VehiclePool}.
+ */
+@SuppressWarnings("static-method")
+public class VehiclePoolTest {
+
+    private static final String LABEL = "ACC1";
+
+    /** depth up to which the parts of a vehicle are compared */
+    private static final int MAX_DEPTH = 2;
+
+    private VehicleFactory pooledFactory;
+
+    private VehicleFactory factory;
+
+    private VehiclePool vehiclePool;
+
+    @Before
+    public void setUp() {
+        final Movsim movsimInput = InputLoader.unmarshallMovsim(new File("../sim/buildingBlocks/onramp.xprj"));
+        final double timestep = movsimInput.getScenario().getSimulation().getTimestep();
+        final Routing routing = new Routing(null, new RoadNetwork());
+        factory = new VehicleFactory(timestep, movsimInput.getVehiclePrototypes(), null, routing, null);
+        pooledFactory = new VehicleFactory(timestep, movsimInput.getVehiclePrototypes(), null, routing, null);
+        vehiclePool = new VehiclePool();
+        pooledFactory.setVehiclePool(vehiclePool);
+    }
+
+    @Test
+    public final void testReleasedVehicleIsAvailableAfterRecycle() {
+        final Vehicle vehicle = pooledFactory.create(LABEL, null);
+        vehiclePool.release(vehicle);
+        assertEquals(1, vehiclePool.size());
+        assertNull(vehiclePool.acquire(LABEL));
+        vehiclePool.recycleReleased();
+        assertNull(vehiclePool.acquire("ACC2"));
+        assertSame(vehicle, vehiclePool.acquire(LABEL));
+        assertEquals(0, vehiclePool.size());
+        assertEquals(4, vehiclePool.requestCount());
+        assertEquals(1, vehiclePool.hitCount());
+        assertEquals(0.25, vehiclePool.hitRate(), 0);
+
+        vehiclePool.release(vehicle);
+        vehiclePool.clear();
+        assertEquals(0, vehiclePool.size());
+        assertEquals(0, vehiclePool.requestCount());
+    }
+
+    @Test
+    public final void testVehicleWithoutLongitudinalModelIsNotPooled() {
+        vehiclePool.release(new Vehicle(0, 0, 1, 5.0, 2.5));
+        assertEquals(0, vehiclePool.size());
+    }
+
+    @Test
+    public final void testReusedVehicleEqualsNewVehicle() throws IOException {
+        final Vehicle released = pooledFactory.create(LABEL, null);
+        released.getLongitudinalModel().setRelativeRandomizationV0(0.1, DistributionTypeEnum.GAUSSIAN);
+        released.setFrontPosition(100);
+        released.setSpeed(20);
+        released.setLane(2);
+        released.setVehNumber(7);
+        released.setSpeedlimit(10);
+        released.setExitRoadSegmentId(3);
+        released.getDimensions().setLength(12);
+        released.getUserData().put("code", "value");
+        released.getEnergyModel().setTotalFuelUsedLiters(1);
+        released.inhomogeneityAdaptation().setAlphaT(1.5);
+        released.routingDecisions().setUncertainty(0.3);
+        vehiclePool.release(released);
+        vehiclePool.recycleReleased();
+
+        final Vehicle reused = pooledFactory.create(LABEL, null);
+        assertEquals(1, vehiclePool.hitCount());
+        assertSame(released, reused);
+
+        Vehicle.setNextId(reused.getId());
+        final Vehicle created = factory.create(LABEL, null);
+        assertEquals(reused.getId(), created.getId());
+        reused.setColor(0);
+        created.setColor(0);
+        assertArrayEquals(state(created), state(reused));
+        assertStateEquals("vehicle", created, reused, MAX_DEPTH);
+    }
+
+    private static byte[] state(Vehicle vehicle) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            vehicle.writeState(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks every field of the vehicle and of its parts, e.g. its models, energy model and routing decisions, so that a
+     * field added later is also covered when a vehicle is reused: value fields must be equal, collections must have the
+     * same size and other references must be set like those of the new vehicle.
+     */
+    private static void assertStateEquals(String name, Object expected, Object actual, int depth) {
+        assertEquals(name, expected.getClass(), actual.getClass());
+        for (Class<?> clazz = expected.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final Object expectedValue;
+                final Object actualValue;
+                try {
+                    expectedValue = field.get(expected);
+                    actualValue = field.get(actual);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                final String fieldName = name + "." + field.getName();
+                final Class<?> type = field.getType();
+                if (type.isPrimitive() || type == String.class || type.isEnum() || Number.class.isAssignableFrom(type)) {
+                    assertEquals(fieldName, expectedValue, actualValue);
+                } else if (expectedValue == null || actualValue == null) {
+                    assertEquals(fieldName, expectedValue, actualValue);
+                } else if (type.isArray() && type.getComponentType().isPrimitive()) {
+                    assertTrue(fieldName, Objects.deepEquals(expectedValue, actualValue));
+                } else if (expectedValue instanceof Collection) {
+                    assertEquals(fieldName, ((Collection<?>) expectedValue).size(), ((Collection<?>) actualValue).size());
+                } else if (expectedValue instanceof Map) {
+                    assertEquals(fieldName, ((Map<?, ?>) expectedValue).size(), ((Map<?, ?>) actualValue).size());
+                } else if (depth > 0 && !(expectedValue instanceof Vehicle)
+                        && expectedValue.getClass().getName().startsWith("org.movsim.")) {
+                    assertStateEquals(fieldName, expectedValue, actualValue, depth - 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.autogen.AccelerationModelType;
+import org.movsim.autogen.ModelParameterIDM;
+import org.movsim.autogen.ModelParameterKrauss;
+
+public class EquilibriumPropertiesCacheTest {
+
+    private static final double LENGTH = 5;
+    private static final double TIMESTEP = 0.2;
+
+    @Before
+    public void setUp() {
+        EquilibriumPropertiesCache.clear();
+    }
+
+    private static AccelerationModelType idm(double v0) {
+        final ModelParameterIDM parameter = new ModelParameterIDM();
+        parameter.setV0(v0);
+        parameter.setS0(2);
+        parameter.setT(1.5);
+        parameter.setA(1);
+        parameter.setB(1.5);
+        final AccelerationModelType modelType = new AccelerationModelType();
+        modelType.setModelParameterIDM(parameter);
+        return modelType;
+    }
+
+    @Test
+    public void testIdenticalParametersShareProperties() {
+        final EquilibriumProperties properties = EquilibriumPropertiesCache.get(LENGTH, idm(30), TIMESTEP, null);
+        assertSame(properties, EquilibriumPropertiesCache.get(LENGTH, idm(30), TIMESTEP, null));
+        assertNotSame(properties, EquilibriumPropertiesCache.get(LENGTH, idm(25), TIMESTEP, null));
+        assertNotSame(properties, EquilibriumPropertiesCache.get(7, idm(30), TIMESTEP, null));
+        assertNotSame(properties, EquilibriumPropertiesCache.get(LENGTH, idm(30), 0.1, null));
+        assertEquals(4, EquilibriumPropertiesCache.size());
+    }
+
+    @Test
+    public void testStochasticModelsAreNotCached() {
+        final ModelParameterKrauss parameter = new ModelParameterKrauss();
+        parameter.setV0(30);
+        parameter.setS0(2);
+        parameter.setA(1);
+        parameter.setB(1.5);
+        parameter.setEpsilon(0.4);
+        final AccelerationModelType modelType = new AccelerationModelType();
+        modelType.setModelParameterKrauss(parameter);
+        EquilibriumPropertiesCache.get(LENGTH, modelType, TIMESTEP, null);
+        assertEquals(0, EquilibriumPropertiesCache.size());
+    }
+
+    @Test
+    public void testPropertiesAreReadFromDirectory() throws IOException {
+        final File directory = Files.createTempDirectory("movsim-eq").toFile();
+        try {
+            final EquilibriumProperties calculated = EquilibriumPropertiesCache.get(LENGTH, idm(30), TIMESTEP,
+                    directory);
+            assertEquals(1, directory.listFiles().length);
+            EquilibriumPropertiesCache.clear();
+            final EquilibriumProperties read = EquilibriumPropertiesCache.get(LENGTH, idm(30), TIMESTEP, directory);
+            assertNotSame(calculated, read);
+            assertTrue(read.getQMax() > 0);
+            assertEquals(calculated.getQMax(), read.getQMax(), 0.0);
+            assertEquals(calculated.getRhoQMax(), read.getRhoQMax(), 0.0);
+            assertEquals(calculated.getVEqCount(), read.getVEqCount());
+            for (int i = 0; i < calculated.getVEqCount(); i++) {
+                final double rho = calculated.getRho(i) + 0.0001;
+                assertEquals(calculated.getVEq(rho), read.getVEq(rho), 0.0);
+            }
+        } finally {
+            for (final File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+}
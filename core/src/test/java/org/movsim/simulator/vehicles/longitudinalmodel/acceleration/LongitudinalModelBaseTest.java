@@ -0,0 +1,27 @@
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.movsim.autogen.DistributionTypeEnum;
+
+public class LongitudinalModelBaseTest {
+
+    private static final double V0 = 33.0;
+
+    @Test
+    public void testModelsWithoutVehicleDrawFromIndependentStreams() {
+        final Set<Double> desiredSpeeds = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            final IDM idm = new IDM(V0, 0.5, 3.0, 1.5, 2.0, 5.0);
+            idm.setRelativeRandomizationV0(0.2, DistributionTypeEnum.UNIFORM);
+            final double desiredSpeed = idm.getDesiredSpeed();
+            assertEquals(V0, desiredSpeed, 0.2 * V0);
+            desiredSpeeds.add(desiredSpeed);
+        }
+        assertEquals(10, desiredSpeeds.size());
+    }
+}
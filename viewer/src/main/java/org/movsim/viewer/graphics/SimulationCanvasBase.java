@@ -35,6 +35,7 @@ import java.awt.geom.AffineTransform;
 
 import com.google.common.base.Preconditions;
 import org.movsim.simulator.SimulationRunnable;
+import org.movsim.simulator.StepScheduler;
 
 /**
  * <p>
@@ -269,6 +270,15 @@ public abstract class SimulationCanvasBase extends Canvas {
         return simulationRunnable.sleepTime();
     }
 
+    /**
+     * Returns the scheduler which paces the simulation thread, that is the steps run per frame and the frame rate.
+     *
+     * @return the step scheduler
+     */
+    public final StepScheduler stepScheduler() {
+        return simulationRunnable.scheduler();
+    }
+
     /**
      * <p>
      * Returns the time for which the simulation has been running.
@@ -35,6 +35,7 @@ import org.movsim.simulator.SimulationRunnable;
 import org.movsim.simulator.Simulator;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.VehicleGrid;
 import org.movsim.simulator.roadnetwork.boundaries.AbstractTrafficSource;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.roadnetwork.controller.FlowConservingBottleneck;
@@ -45,6 +46,7 @@ import org.movsim.simulator.roadnetwork.regulator.NotifyObject;
 import org.movsim.simulator.roadnetwork.regulator.Regulator;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.utilities.Colors;
+import org.movsim.utilities.TripleBuffer;
 import org.movsim.utilities.Units;
 import org.movsim.viewer.roadmapping.PaintRoadMapping;
 import org.movsim.viewer.ui.ViewProperties;
@@ -80,8 +82,9 @@ import java.util.Properties;
  * </ul>
  * </p>
  * <p>
- * The vehicles are redrawn in their new positions in the drawForeground() method, which is indirectly invoked from repaint(). The
- * drawForeground() method has a synchronization lock so that vehicles are not updated or removed while they are being drawn.
+ * The vehicles are redrawn in their new positions in the drawForeground() method, which is indirectly invoked from repaint(). After
+ * each time step the simulation thread takes a snapshot of the vehicles into a {@link VehicleFrame}, which the drawForeground()
+ * method draws without synchronizing with the simulation thread, see {@link TripleBuffer}.
  * </p>
  * <p>
  * Actual road networks and traffic scenarios should be set up in a subclass.
@@ -96,6 +99,12 @@ public class TrafficCanvas extends SimulationCanvasBase
 
     private static final String FONT_NAME = "SansSerif";
 
+    /** cell size of the spatial index of the vehicles, in meters. */
+    private static final double VEHICLE_GRID_CELL_SIZE = 20;
+
+    /** spacing of the pre-sampled geometry of curved roads, in meters. */
+    private static final double ROAD_MAPPING_SAMPLE_SPACING = 1;
+
     protected final Simulator simulator;
     protected final RoadNetwork roadNetwork;
     private Properties properties;
@@ -122,6 +131,13 @@ public class TrafficCanvas extends SimulationCanvasBase
     // pre-allocate clipping path for road mappings
     private final GeneralPath clipPath = new GeneralPath(Path2D.WIND_EVEN_ODD);
 
+    // snapshots of the vehicles, published by the simulation thread and drawn by the UI thread
+    private final TripleBuffer<VehicleFrame> vehicleFrames = new TripleBuffer<>(new VehicleFrame(), new VehicleFrame(),
+            new VehicleFrame());
+
+    // reuse the color of the previous vehicle drawn if unchanged
+    private Color vehicleColor = Color.BLACK;
+
     // colors
     private Color roadColor;
     private Color roadEdgeColor;
@@ -191,6 +207,8 @@ public class TrafficCanvas extends SimulationCanvasBase
         super(simulator.getSimulationRunnable());
         this.simulator = simulator;
         this.roadNetwork = simulator.getRoadNetwork();
+        // spatial index of the vehicles for picking with the mouse
+        roadNetwork.setVehicleGrid(new VehicleGrid(VEHICLE_GRID_CELL_SIZE));
         this.properties = properties;
 
         initGraphicConfigFieldsFromProperties();
@@ -262,6 +280,8 @@ public class TrafficCanvas extends SimulationCanvasBase
         simulator.reset();
         vehicleToHighlightId = -1;
         initGraphicSettings();
+        vehicleFrames.resetCounts();
+        refreshFrame();
         forceRepaintBackground();
     }
 
@@ -287,6 +307,8 @@ public class TrafficCanvas extends SimulationCanvasBase
         resetScaleAndOffset();
         for (final RoadSegment roadSegment : roadNetwork) {
             roadSegment.roadMapping().setRoadColor(roadColor.getRGB());
+            // interpolate the geometry of curved roads when drawing the vehicles
+            roadSegment.roadMapping().setSampleSpacing(ROAD_MAPPING_SAMPLE_SPACING);
         }
         for (String vehicleTypeLabel : simulator.getVehiclePrototypeLabels()) {
             final Color color = new Color(Colors.randomColor());
@@ -500,9 +522,8 @@ public class TrafficCanvas extends SimulationCanvasBase
      * For each roadSection, draw all the vehicles in the roadSection, positioning them using the roadMapping for that roadSection.
      * </p>
      * <p>
-     * <p>
-     * This method is synchronized with the <code>SimulationRunnable.run()</code> method, so that vehicles are not updated, added or removed
-     * while they are being drawn.
+     * The vehicles are drawn from the latest snapshot published by the simulation thread, see {@link #publishFrame()}, so this method
+     * neither waits for nor holds up the <code>SimulationRunnable.run()</code> method.
      * </p>
      * <p>
      * tm The abstract method paintAfterVehiclesMoved is called after the vehicles have been moved, to allow any further required drawing on
@@ -511,49 +532,51 @@ public class TrafficCanvas extends SimulationCanvasBase
      */
     @Override
     protected void drawForeground(Graphics2D g) {
-        // moveVehicles occurs in the UI thread, so must synchronize with the
-        // update of the road network in the calculation thread.
         final long timeBeforePaint_ms = System.currentTimeMillis();
-        synchronized (simulationRunnable.dataLock) {
-            drawTrafficLights(g);
-            for (final RoadSegment roadSegment : roadNetwork) {
-                final RoadMapping roadMapping = roadSegment.roadMapping();
-                assert roadMapping != null;
-                PaintRoadMapping.setClipPath(g, roadMapping, clipPath);
-                for (final Vehicle vehicle : roadSegment) {
-                    drawVehicle(g, roadMapping, vehicle);
-                }
-                for (Iterator<Vehicle> vehIter = roadSegment.overtakingVehicles(); vehIter.hasNext(); ) {
-                    Vehicle vehicle = vehIter.next();
-                    drawVehicle(g, roadMapping, vehicle);
-                }
+        vehicleFrames.update();
+        final VehicleFrame frame = vehicleFrames.readBuffer();
+        drawTrafficLights(g, frame);
+        for (int road = 0; road < frame.roadCount; ++road) {
+            final RoadMapping roadMapping = frame.roadMappings[road];
+            PaintRoadMapping.setClipPath(g, roadMapping, clipPath);
+            final boolean isPeer = roadMapping.isPeer();
+            for (int i = frame.roadBegin(road), end = frame.roadEnd[road]; i < end; ++i) {
+                drawVehicle(g, frame, i, isPeer);
             }
-            totalAnimationTime += System.currentTimeMillis() - timeBeforePaint_ms;
-            drawAfterVehiclesMoved(g, simulationRunnable.simulationTime(), simulationRunnable.iterationCount());
         }
-    }
-
-    private void drawVehicle(Graphics2D g, RoadMapping roadMapping, Vehicle vehicle) {
-        // draw vehicle polygon at new position
-        final RoadMapping.PolygonFloat polygon = roadMapping.mapFloat(vehicle);
+        totalAnimationTime += System.currentTimeMillis() - timeBeforePaint_ms;
+        drawAfterVehiclesMoved(g, frame.simulationTime, frame.iterationCount);
+    }
+
+    private void drawVehicle(Graphics2D g, VehicleFrame frame, int i, boolean isPeer) {
+        // draw vehicle polygon at new position, see RoadMapping.mapFloat
+        final float x = frame.x[i];
+        final float y = frame.y[i];
+        final float lca = 0.5f * frame.length[i] * frame.cosHeading[i];
+        final float wsa = 0.5f * frame.width[i] * frame.sinHeading[i];
+        final float lsa = 0.5f * frame.length[i] * frame.sinHeading[i];
+        final float wca = 0.5f * frame.width[i] * frame.cosHeading[i];
         vehiclePath.reset();
-        vehiclePath.moveTo(polygon.getXPoint(0), polygon.getYPoint(0));
-        vehiclePath.lineTo(polygon.getXPoint(1), polygon.getYPoint(1));
-        vehiclePath.lineTo(polygon.getXPoint(2), polygon.getYPoint(2));
-        vehiclePath.lineTo(polygon.getXPoint(3), polygon.getYPoint(3));
+        vehiclePath.moveTo(x + lca + wsa, y + lsa - wca); // front right
+        vehiclePath.lineTo(x + lca - wsa, y + lsa + wca); // front left
+        vehiclePath.lineTo(x - lca - wsa, y - lsa + wca); // back left
+        vehiclePath.lineTo(x - lca + wsa, y - lsa - wca); // back right
         vehiclePath.closePath();
-        g.setPaint(vehicleColor(vehicle));
+        if (vehicleColor.getRGB() != frame.color[i]) {
+            vehicleColor = new Color(frame.color[i], true);
+        }
+        g.setPaint(vehicleColor);
         g.fill(vehiclePath);
-        if (vehicle.isBrakeLightOn()) {
+        if (frame.brakeLight[i]) {
             // if the vehicle is decelerating then display the
             vehiclePath.reset();
-            // points 2 & 3 are at the rear of vehicle
-            if (roadMapping.isPeer()) {
-                vehiclePath.moveTo(polygon.getXPoint(0), polygon.getYPoint(0));
-                vehiclePath.lineTo(polygon.getXPoint(1), polygon.getYPoint(1));
+            // the back corners are at the rear of the vehicle, the front corners for a peer road mapping
+            if (isPeer) {
+                vehiclePath.moveTo(x + lca + wsa, y + lsa - wca);
+                vehiclePath.lineTo(x + lca - wsa, y + lsa + wca);
             } else {
-                vehiclePath.moveTo(polygon.getXPoint(2), polygon.getYPoint(2));
-                vehiclePath.lineTo(polygon.getXPoint(3), polygon.getYPoint(3));
+                vehiclePath.moveTo(x - lca - wsa, y - lsa + wca);
+                vehiclePath.lineTo(x - lca + wsa, y - lsa - wca);
             }
             vehiclePath.closePath();
             g.setPaint(brakeLightColor);
@@ -561,13 +584,71 @@ public class TrafficCanvas extends SimulationCanvasBase
         }
     }
 
+    /**
+     * Takes a snapshot of the vehicles and traffic lights and publishes it for drawing. Must be called with the simulation
+     * paused, i.e. from the simulation thread between two time steps or holding the <code>dataLock</code>.
+     */
+    private void publishFrame() {
+        final VehicleFrame frame = vehicleFrames.writeBuffer();
+        frame.clear();
+        for (final RoadSegment roadSegment : roadNetwork) {
+            final RoadMapping roadMapping = roadSegment.roadMapping();
+            assert roadMapping != null;
+            frame.addRoad(roadMapping);
+            for (final Vehicle vehicle : roadSegment) {
+                addVehicle(frame, roadMapping, vehicle);
+            }
+            for (Iterator<Vehicle> vehIter = roadSegment.overtakingVehicles(); vehIter.hasNext(); ) {
+                addVehicle(frame, roadMapping, vehIter.next());
+            }
+            for (TrafficLight trafficLight : roadSegment.trafficLights()) {
+                frame.addTrafficLight(TrafficCanvasUtils.mapCrossLine(roadMapping, trafficLight.position()),
+                        getTrafficLightColor(trafficLight).getRGB());
+            }
+        }
+        frame.simulationTime = simulationRunnable.simulationTime();
+        frame.iterationCount = simulationRunnable.iterationCount();
+        vehicleFrames.publish();
+    }
+
+    private void addVehicle(VehicleFrame frame, RoadMapping roadMapping, Vehicle vehicle) {
+        frame.addVehicle(roadMapping.map(vehicle), vehicle.physicalQuantities().getLength(),
+                vehicle.physicalQuantities().getWidth(), vehicleColor(vehicle).getRGB(), vehicle.isBrakeLightOn());
+    }
+
+    /**
+     * Publishes a new snapshot from the UI thread, e.g. after the vehicle colors have changed while the simulation is paused,
+     * and repaints.
+     */
+    void refreshFrame() {
+        synchronized (simulationRunnable.dataLock) {
+            publishFrame();
+        }
+        repaint();
+    }
+
+    /**
+     * Returns the number of snapshots which have been replaced by a newer one before they could be drawn.
+     *
+     * @return the number of dropped frames
+     */
+    public long droppedFrameCount() {
+        return vehicleFrames.droppedCount();
+    }
+
     /**
      * Draws the background: everything that does not move each timestep. The background consists of the road segments and the sources and
      * sinks, if they are visible.
      */
     @Override
     protected void drawBackground(Graphics2D g) {
+        // the road mappings are shared with the simulation thread, which maps the vehicles of each snapshot
+        synchronized (simulationRunnable.dataLock) {
+            drawBackgroundElements(g);
+        }
+    }
 
+    private void drawBackgroundElements(Graphics2D g) {
         if (backgroundPicture != null) {
             int height = backgroundPicture.getHeight();
             int width = backgroundPicture.getWidth();
@@ -664,14 +745,13 @@ public class TrafficCanvas extends SimulationCanvasBase
         PaintRoadMapping.paintRoadMapping(g, roadMapping, offset);
     }
 
-    private void drawTrafficLights(Graphics2D g) {
+    private static void drawTrafficLights(Graphics2D g, VehicleFrame frame) {
         int strokeWidth = 3;
-        for (final RoadSegment roadSegment : roadNetwork) {
-            assert roadSegment.trafficLights() != null;
-            for (TrafficLight trafficLight : roadSegment.trafficLights()) {
-                Color color = getTrafficLightColor(trafficLight);
-                TrafficCanvasUtils.drawLine(g, roadSegment.roadMapping(), trafficLight.position(), strokeWidth, color);
-            }
+        final float[] lines = frame.trafficLightLines;
+        for (int i = 0; i < frame.trafficLightCount; ++i) {
+            final Color color = new Color(frame.trafficLightColor[i]);
+            TrafficCanvasUtils.drawLine(g, lines[4 * i], lines[4 * i + 1], lines[4 * i + 2], lines[4 * i + 3],
+                    strokeWidth, color);
         }
     }
 
@@ -866,11 +946,15 @@ public class TrafficCanvas extends SimulationCanvasBase
      * Implements SimulationRunnable.UpdateDrawingCallback.updateDrawing().
      * </p>
      * <p>
-     * Calls repaint() which causes UI framework to asynchronously call update(g).
+     * Publishes a snapshot of the vehicles and calls repaint() which causes UI framework to asynchronously call update(g).
      * </p>
      */
     @Override
     public void updateDrawing(double simulationTime) {
+        // the UI thread may modify the road network in response to user input
+        synchronized (simulationRunnable.dataLock) {
+            publishFrame();
+        }
         repaint();
     }
 
@@ -25,6 +25,7 @@
  */
 package org.movsim.viewer.graphics;
 
+import org.movsim.simulator.StepScheduler;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.viewer.graphics.TrafficCanvas.VehicleColorMode;
 import org.slf4j.Logger;
@@ -77,6 +78,9 @@ public class TrafficCanvasController {
     }
 
     public void commandFaster() {
+        if (trafficCanvas.stepScheduler().mode() != StepScheduler.Mode.STEP_DELAY) {
+            return;
+        }
         int sleepTime = trafficCanvas.sleepTime();
         sleepTime -= sleepTime <= 5 ? 1 : 5;
         if (sleepTime < 0) {
@@ -87,6 +91,9 @@ public class TrafficCanvasController {
     }
 
     public void commandSlower() {
+        if (trafficCanvas.stepScheduler().mode() != StepScheduler.Mode.STEP_DELAY) {
+            return;
+        }
         int sleepTime = trafficCanvas.sleepTime();
         sleepTime += sleepTime < 5 ? 1 : 5;
         if (sleepTime > 400) {
@@ -96,6 +103,30 @@ public class TrafficCanvasController {
         LOG.debug("sleeptime: {}", trafficCanvas.sleepTime());
     }
 
+    /**
+     * Runs one step per frame with the sleep time set by {@link #commandFaster()} and {@link #commandSlower()}.
+     */
+    public void commandStepDelay() {
+        trafficCanvas.setSleepTime(trafficCanvas.sleepTime());
+        LOG.debug("sleeptime: {}", trafficCanvas.sleepTime());
+    }
+
+    /**
+     * Runs as many steps per frame as needed for the given time warp.
+     */
+    public void commandTimewarp(double timewarp) {
+        trafficCanvas.stepScheduler().setTargetTimewarp(timewarp);
+        LOG.debug("target timewarp: {}", timewarp);
+    }
+
+    /**
+     * Runs the simulation as fast as possible, rendering frames at a fixed rate.
+     */
+    public void commandMaxThroughput() {
+        trafficCanvas.stepScheduler().setMaxThroughput();
+        LOG.debug("max throughput");
+    }
+
     public void commandReset() {
         trafficCanvas.stop();
         trafficCanvas.roadNetwork.clear();
@@ -115,7 +146,7 @@ public class TrafficCanvasController {
         }
         trafficCanvas.vehicleColorMode = VehicleColorMode.values()[vcmOrdinal];
         LOG.info("VehicleColorMode: {}", trafficCanvas.vehicleColorMode);
-        trafficCanvas.repaint();
+        trafficCanvas.refreshFrame();
     }
 
     public void commandToggleVehicleColorMode(VehicleColorMode mode) {
@@ -129,7 +160,7 @@ public class TrafficCanvasController {
             trafficCanvas.vehicleColorMode = mode;
         }
         LOG.debug("VehicleColorMode: {}", trafficCanvas.vehicleColorMode); //$NON-NLS-1$
-        trafficCanvas.repaint();
+        trafficCanvas.refreshFrame();
     }
 
     void commandReduceInflow() {
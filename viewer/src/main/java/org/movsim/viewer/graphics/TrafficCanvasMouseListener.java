@@ -41,6 +41,7 @@ import org.movsim.roadmappings.RoadMapping;
 import org.movsim.roadmappings.RoadMapping.PolygonFloat;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.VehicleGrid;
 import org.movsim.simulator.roadnetwork.boundaries.AbstractTrafficSource;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.roadnetwork.controller.TrafficLight;
@@ -57,6 +58,9 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
 
     private static final Logger LOG = LoggerFactory.getLogger(TrafficCanvasMouseListener.class);
 
+    /** largest distance of the mouse position from the mid position of a vehicle below the mouse, in meters. */
+    private static final double MAX_PICK_DISTANCE = 15;
+
     private final TrafficCanvas trafficCanvas;
     private final TrafficCanvasController controller;
     private final RoadNetwork roadNetwork;
@@ -84,7 +88,7 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
             LOG.info("vehicle id set"); //$NON-NLS-1$
             trafficCanvas.vehicleToHighlightId = trafficCanvas.lastVehicleViewed;
             trafficCanvas.vehicleColorMode = VehicleColorMode.HIGHLIGHT_VEHICLE;
-            trafficCanvas.repaint();
+            trafficCanvas.refreshFrame();
         }
 
         try {
@@ -111,7 +115,7 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
             if (trafficLightRect.contains(transformedPoint)) {
                 LOG.info("mouse clicked: traffic light triggers next phase");
                 trafficLight.triggerNextPhase();
-                trafficCanvas.repaint();
+                trafficCanvas.refreshFrame();
             }
         }
     }
@@ -226,9 +230,19 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
                         }
                     }
 
-                    for (Vehicle vehicle : roadSegment) {
+                }
+
+                // only test the vehicles near the mouse position to see if the mouse is over a vehicle
+                final VehicleGrid vehicleGrid = roadNetwork.vehicleGrid();
+                if (vehicleGrid != null) {
+                    for (Vehicle vehicle : vehicleGrid.withinRadius(transformedPoint.getX(), transformedPoint.getY(),
+                            MAX_PICK_DISTANCE)) {
+                        final RoadSegment roadSegment = roadNetwork.findById(vehicle.roadSegmentId());
+                        if (roadSegment == null) {
+                            continue;
+                        }
                         // TODO quick hack here, no correction for offsets
-                        final RoadMapping.PolygonFloat polygon = roadMapping.mapFloat(vehicle);
+                        final RoadMapping.PolygonFloat polygon = roadSegment.roadMapping().mapFloat(vehicle);
                         TrafficCanvasUtils.fillPath(polygon, path);
                         if (path.contains(transformedPoint)) {
                             // the mouse is over a vehicle
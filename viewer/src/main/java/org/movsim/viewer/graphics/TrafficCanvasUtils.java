@@ -47,16 +47,28 @@ public final class TrafficCanvasUtils {
     }
 
     static void drawLine(Graphics2D g, RoadMapping roadMapping, double position, int strokeWidth, Color color) {
+        final PolygonFloat line = mapCrossLine(roadMapping, position);
+        drawLine(g, line.getXPoint(0), line.getYPoint(0), line.getXPoint(1), line.getYPoint(1), strokeWidth, color);
+    }
+
+    static void drawLine(Graphics2D g, float x0, float y0, float x1, float y1, int strokeWidth, Color color) {
         Color prevColor = g.getColor();
-        final double lateralExtend = roadMapping.getLaneCountInDirection() * roadMapping.laneWidth();
-        final PosTheta posTheta = roadMapping.map(position, 0/* offset */);
-        final PolygonFloat line = roadMapping.mapLine(posTheta, roadMapping.isPeer() ? +lateralExtend : -lateralExtend);
         g.setColor(color);
         g.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
-        g.draw(new Line2D.Float(line.getXPoint(0), line.getYPoint(0), line.getXPoint(1), line.getYPoint(1)));
+        g.draw(new Line2D.Float(x0, y0, x1, y1));
         g.setColor(prevColor);
     }
 
+    /**
+     * Maps a line across all lanes in driving direction at the given position. The returned polygon is shared by the
+     * road mapping.
+     */
+    static PolygonFloat mapCrossLine(RoadMapping roadMapping, double position) {
+        final double lateralExtend = roadMapping.getLaneCountInDirection() * roadMapping.laneWidth();
+        final PosTheta posTheta = roadMapping.map(position, 0/* offset */);
+        return roadMapping.mapLine(posTheta, roadMapping.isPeer() ? +lateralExtend : -lateralExtend);
+    }
+
     static void fillPath(PolygonFloat polygon, GeneralPath path) {
         path.reset();
         path.moveTo(polygon.getXPoint(0), polygon.getYPoint(0));
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.viewer.graphics;
+
+import java.util.Arrays;
+
+import org.movsim.roadmappings.PosTheta;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.roadmappings.RoadMapping.PolygonFloat;
+
+/**
+ * <p>
+ * Snapshot of everything that moves on the road network, taken by the simulation thread after a time step and drawn by
+ * the UI thread, see {@link TrafficCanvas#drawForeground(java.awt.Graphics2D)}.
+ * </p>
+ * <p>
+ * The vehicles are kept in primitive arrays: the center position, the heading as unit vector, length, width, RGB color
+ * and brake light of each vehicle. The vehicles of each road segment are stored contiguously together with the road
+ * mapping, which is needed for the clipping and the orientation of the brake lights. Traffic lights are stored as line
+ * with its RGB color.
+ * </p>
+ * <p>
+ * Frames are reused: {@link #clear()} keeps the arrays, which only grow.
+ * </p>
+ */
+final class VehicleFrame {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    int vehicleCount;
+    float[] x = new float[INITIAL_CAPACITY];
+    float[] y = new float[INITIAL_CAPACITY];
+    float[] cosHeading = new float[INITIAL_CAPACITY];
+    float[] sinHeading = new float[INITIAL_CAPACITY];
+    float[] length = new float[INITIAL_CAPACITY];
+    float[] width = new float[INITIAL_CAPACITY];
+    int[] color = new int[INITIAL_CAPACITY];
+    boolean[] brakeLight = new boolean[INITIAL_CAPACITY];
+
+    int roadCount;
+    RoadMapping[] roadMappings = new RoadMapping[INITIAL_CAPACITY];
+    /** the vehicles of road i are stored in [roadEnd[i-1], roadEnd[i]). */
+    int[] roadEnd = new int[INITIAL_CAPACITY];
+
+    int trafficLightCount;
+    /** line of traffic light i from (lines[4i], lines[4i+1]) to (lines[4i+2], lines[4i+3]). */
+    float[] trafficLightLines = new float[4 * INITIAL_CAPACITY];
+    int[] trafficLightColor = new int[INITIAL_CAPACITY];
+
+    double simulationTime;
+    long iterationCount;
+
+    void clear() {
+        vehicleCount = 0;
+        Arrays.fill(roadMappings, 0, roadCount, null);
+        roadCount = 0;
+        trafficLightCount = 0;
+    }
+
+    /**
+     * Starts the vehicles of the next road segment.
+     */
+    void addRoad(RoadMapping roadMapping) {
+        if (roadCount == roadMappings.length) {
+            roadMappings = Arrays.copyOf(roadMappings, 2 * roadCount);
+            roadEnd = Arrays.copyOf(roadEnd, 2 * roadCount);
+        }
+        roadMappings[roadCount] = roadMapping;
+        roadEnd[roadCount] = vehicleCount;
+        ++roadCount;
+    }
+
+    /**
+     * Adds a vehicle to the current road segment.
+     */
+    void addVehicle(PosTheta posTheta, double vehicleLength, double vehicleWidth, int rgb, boolean brakeLightOn) {
+        if (vehicleCount == x.length) {
+            growVehicles();
+        }
+        final int i = vehicleCount;
+        x[i] = (float) posTheta.getX();
+        y[i] = (float) posTheta.getY();
+        cosHeading[i] = (float) posTheta.getCosTheta();
+        sinHeading[i] = (float) posTheta.getSinTheta();
+        length[i] = (float) vehicleLength;
+        width[i] = (float) vehicleWidth;
+        color[i] = rgb;
+        brakeLight[i] = brakeLightOn;
+        ++vehicleCount;
+        roadEnd[roadCount - 1] = vehicleCount;
+    }
+
+    void addTrafficLight(PolygonFloat line, int rgb) {
+        if (trafficLightCount == trafficLightColor.length) {
+            trafficLightLines = Arrays.copyOf(trafficLightLines, 8 * trafficLightCount);
+            trafficLightColor = Arrays.copyOf(trafficLightColor, 2 * trafficLightCount);
+        }
+        final int offset = 4 * trafficLightCount;
+        trafficLightLines[offset] = line.getXPoint(0);
+        trafficLightLines[offset + 1] = line.getYPoint(0);
+        trafficLightLines[offset + 2] = line.getXPoint(1);
+        trafficLightLines[offset + 3] = line.getYPoint(1);
+        trafficLightColor[trafficLightCount] = rgb;
+        ++trafficLightCount;
+    }
+
+    int roadBegin(int road) {
+        return road == 0 ? 0 : roadEnd[road - 1];
+    }
+
+    private void growVehicles() {
+        final int capacity = 2 * x.length;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        cosHeading = Arrays.copyOf(cosHeading, capacity);
+        sinHeading = Arrays.copyOf(sinHeading, capacity);
+        length = Arrays.copyOf(length, capacity);
+        width = Arrays.copyOf(width, capacity);
+        color = Arrays.copyOf(color, capacity);
+        brakeLight = Arrays.copyOf(brakeLight, capacity);
+    }
+}
@@ -62,7 +62,7 @@ import java.util.ResourceBundle;
 
         final TrafficCanvas trafficCanvas = new TrafficCanvas(simulator, properties);
         canvasPanel = new CanvasPanel(resourceBundle, trafficCanvas);
-        statusPanel = new StatusPanel(resourceBundle, simulator);
+        statusPanel = new StatusPanel(resourceBundle, simulator, trafficCanvas);
         toolBar = new MovSimToolBar(statusPanel, trafficCanvas, resourceBundle);
 
         addMenu(resourceBundle, simulator, trafficCanvas, properties);
@@ -55,8 +55,13 @@ public class MovSimToolBar extends JToolBar implements ActionListener {
     private static final String RECENTER = "recenter";
     private static final String VEHICLE_COLORS = "vehicle colors";
     private static final String RESET = "reset";
+    private static final String SPEED = "speed";
+
+    /** time warps selectable in the speed box, between the step delay animation and as fast as possible. */
+    private static final int[] TIMEWARPS = { 1, 2, 5, 10, 50 };
 
     private JButton buttonStart;
+    private JComboBox<String> speedBox;
     private final StatusPanel statusPanel;
     private final StatusControlCallbacks statusCallbacks;
 
@@ -100,6 +105,7 @@ public class MovSimToolBar extends JToolBar implements ActionListener {
 
         toolBar.add(createButton(resourceBundle, "button_rew", SLOWER, "SlowerTip", "Slower"));
         toolBar.add(createButton(resourceBundle, "button_ffw", FASTER, "FasterTip", "Faster"));
+        toolBar.add(createSpeedBox(resourceBundle));
 
         toolBar.add(createButton(resourceBundle, "button_repeat", RESET, "ResetTip", "Reset"));
 
@@ -135,6 +141,30 @@ public class MovSimToolBar extends JToolBar implements ActionListener {
         return button;
     }
 
+    private JComboBox<String> createSpeedBox(ResourceBundle resourceBundle) {
+        speedBox = new JComboBox<>();
+        speedBox.addItem(resourceBundle.getString("SpeedStepDelay"));
+        for (int timewarp : TIMEWARPS) {
+            speedBox.addItem(timewarp + "x");
+        }
+        speedBox.addItem(resourceBundle.getString("SpeedMaxThroughput"));
+        speedBox.setToolTipText(resourceBundle.getString("SpeedTip"));
+        speedBox.setMaximumSize(speedBox.getPreferredSize());
+        speedBox.setActionCommand(SPEED);
+        speedBox.addActionListener(this);
+        return speedBox;
+    }
+
+    private void selectSpeed(int index) {
+        if (index <= 0) {
+            controller.commandStepDelay();
+        } else if (index <= TIMEWARPS.length) {
+            controller.commandTimewarp(TIMEWARPS[index - 1]);
+        } else {
+            controller.commandMaxThroughput();
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -155,11 +185,15 @@ public class MovSimToolBar extends JToolBar implements ActionListener {
             controller.commandRecenter();
         } else if (e.getActionCommand().equals(START)) {
             controller.commandTogglePause();
+        } else if (e.getActionCommand().equals(SPEED)) {
+            selectSpeed(speedBox.getSelectedIndex());
         } else if (e.getActionCommand().equals(VEHICLE_COLORS)) {
             controller.commandCycleVehicleColors();
         } else if (e.getActionCommand().equals(RESET)) {
             statusPanel.reset();
             controller.commandReset();
+            // the reset restores the sleep time from the properties
+            selectSpeed(speedBox.getSelectedIndex());
             statusCallbacks.stateChanged();
         }
     }
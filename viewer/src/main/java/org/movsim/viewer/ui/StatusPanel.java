@@ -39,6 +39,7 @@ import javax.swing.SwingConstants;
 import org.movsim.simulator.SimulationRunnable;
 import org.movsim.simulator.Simulator;
 import org.movsim.utilities.Units;
+import org.movsim.viewer.graphics.TrafficCanvas;
 import org.movsim.viewer.util.StringHelper;
 import org.movsim.viewer.util.SwingHelper;
 
@@ -48,6 +49,7 @@ public class StatusPanel extends JPanel implements SimulationRunnable.UpdateStat
 
     private final Simulator simulator;
     private final SimulationRunnable simulationRunnable;
+    private final TrafficCanvas trafficCanvas;
 
     private JProgressBar progressBar;
 
@@ -88,10 +90,15 @@ public class StatusPanel extends JPanel implements SimulationRunnable.UpdateStat
 
     private JLabel lblVehiclesStoppedDisplay;
 
-    public StatusPanel(ResourceBundle resourceBundle, Simulator simulator) {
+    private JLabel lblDroppedFrames;
+
+    private JLabel lblDroppedFramesDisplay;
+
+    public StatusPanel(ResourceBundle resourceBundle, Simulator simulator, TrafficCanvas trafficCanvas) {
         this.resourceBundle = resourceBundle;
         this.simulator = simulator;
         this.simulationRunnable = simulator.getSimulationRunnable();
+        this.trafficCanvas = trafficCanvas;
         this.setLayout(new FlowLayout());
 
         simulationRunnable.addUpdateStatusCallback(this);
@@ -185,6 +192,16 @@ public class StatusPanel extends JPanel implements SimulationRunnable.UpdateStat
         lblVehiclesStoppedDisplay.setToolTipText(vehiclesStopppedTooltip);
         lblVehiclesStoppedDisplay.setPreferredSize(new Dimension(36, 22));
 
+        // number of frames not drawn
+        final String droppedFramesTooltip = resourceBundle.getString("droppedFramesTooltip");
+        lblDroppedFrames = new JLabel(resourceBundle.getString("lblDroppedFrames"));
+        lblDroppedFrames.setFont(font);
+        lblDroppedFrames.setToolTipText(droppedFramesTooltip);
+        lblDroppedFramesDisplay = new JLabel();
+        lblDroppedFramesDisplay.setFont(font);
+        lblDroppedFramesDisplay.setToolTipText(droppedFramesTooltip);
+        lblDroppedFramesDisplay.setPreferredSize(new Dimension(48, 22));
+
     }
 
     private int vehicleCount() {
@@ -234,6 +251,11 @@ public class StatusPanel extends JPanel implements SimulationRunnable.UpdateStat
 
         add(Box.createRigidArea(new Dimension(4, 22)));
 
+        add(lblDroppedFrames);
+        add(lblDroppedFramesDisplay);
+
+        add(Box.createRigidArea(new Dimension(4, 22)));
+
         if (isWithFiniteDurationAndProgressBar()) {
             add(progressBar);
         }
@@ -261,6 +283,7 @@ public class StatusPanel extends JPanel implements SimulationRunnable.UpdateStat
             lblVehiclesMeanSpeedDisplay.setText(String.valueOf(vehiclesMeanSpeedInKmh()));
 
             lblVehiclesStoppedDisplay.setText(String.valueOf(stoppedVehicleCount()));
+            lblDroppedFramesDisplay.setText(String.valueOf(trafficCanvas.droppedFrameCount()));
 
             this.time = time;
         }
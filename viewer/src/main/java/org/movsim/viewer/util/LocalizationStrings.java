@@ -111,6 +111,8 @@ public class LocalizationStrings extends ListResourceBundle {
                     { "lblVehiclesMeanSpeed", "speed [km/h]:" },
                     { "vehiclesStoppedTooltip", "The number of stopped vehicles with zero speed in the simulation." },
                     { "lblVehiclesStopped", "Stopped vehicles:" },
+                    { "droppedFramesTooltip", "The number of simulation frames replaced by a newer one before they were drawn." },
+                    { "lblDroppedFrames", "dropped frames:" },
 
                     // Buttons
                     { "SimulationComplete", "Simulaton complete" },
@@ -135,6 +137,9 @@ public class LocalizationStrings extends ListResourceBundle {
                     { "FasterTip", "Speeds up the animation" },
                     { "Slower", "Slower" },
                     { "SlowerTip", "Slows down the animation" },
+                    { "SpeedTip", "Animation with the step delay set by faster and slower, a target time warp or as fast as possible" },
+                    { "SpeedStepDelay", "animation" },
+                    { "SpeedMaxThroughput", "as fast as possible" },
                     { "VehicleColorsTip", "Toggles through color modes" },
 
                     // vehicle information popup window